@@ -0,0 +1,67 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.service.StreamingContentService.WireMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and serializing a 2,000-token raw stream in each wire mode,
+ * using the same serialization as the SSE endpoint. Run with -prof gc
+ * to compare allocation; the return value is the number of bytes sent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenStreamEncoderBenchmark {
+
+    private static final int TOKENS = 2_000;
+
+    @Param({"CUMULATIVE", "DELTA"})
+    public WireMode mode;
+
+    @Param({"100"})
+    public int checkpointInterval;
+
+    private StreamingContentService service;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        service = new StreamingContentService(null, null, new ObjectMapper(), null);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = i % 10 == 0 ? "\n" : " word" + (i % 7);
+        }
+    }
+
+    @Benchmark
+    public long encodeStream() throws Exception {
+        TokenStreamEncoder encoder = new TokenStreamEncoder("run", "msg", "content", mode, checkpointInterval);
+        long bytes = 0;
+        for (String token : tokens) {
+            bytes += service.eventJson(StreamingContentService.TEXT_MESSAGE_DELTA, encoder.delta(token))
+                .getBytes(StandardCharsets.UTF_8).length;
+            if (encoder.isCheckpointDue()) {
+                bytes += service.eventJson(StreamingContentService.TEXT_MESSAGE_CHECKPOINT, encoder.checkpoint())
+                    .getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return bytes;
+    }
+}
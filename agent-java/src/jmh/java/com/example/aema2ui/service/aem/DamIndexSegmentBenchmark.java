@@ -0,0 +1,78 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.aem.DamAsset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead over a DAM-sized index, served from the mapped segment.
+ * Run with -prof gc to see allocation per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamIndexSegmentBenchmark {
+
+    private static final String[] WORDS =
+        {"beach", "mountain", "city", "forest", "river", "summer", "winter", "product", "team", "event"};
+
+    @Param({"20000", "200000"})
+    public int assets;
+
+    @Param({"bea", "mountain ri", "team ev", "forest 12"})
+    public String query;
+
+    private Path dir;
+    private DamIndexSegment segment;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<DamAsset> many = new ArrayList<>(assets);
+        for (int i = 0; i < assets; i++) {
+            String title = WORDS[i % WORDS.length] + " " + WORDS[(i / 10) % WORDS.length] + " " + i;
+            many.add(DamAsset.builder()
+                .path("/content/dam/bulk/asset-" + i + ".jpg")
+                .name("asset-" + i + ".jpg")
+                .title(title)
+                .type("image")
+                .mimeType(i % 3 == 0 ? "image/png" : "image/jpeg")
+                .description("Photo number " + i)
+                .tags(List.of("bulk:" + WORDS[(i / 100) % WORDS.length]))
+                .build());
+        }
+        dir = Files.createTempDirectory("dam-index-bench");
+        segment = DamIndexSegment.write(dir.resolve("dam-index.seg"), many);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(segment.file());
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public DamIndexSegment.Hits search() {
+        return segment.search(query, "image/", 0, 50);
+    }
+}
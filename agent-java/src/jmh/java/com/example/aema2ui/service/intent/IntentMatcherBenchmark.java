@@ -0,0 +1,67 @@
+package com.example.aema2ui.service.intent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Page type detection per input: the previous regex-per-keyword implementation
+ * versus one automaton scan. Run with -prof gc to see allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntentMatcherBenchmark {
+
+    @Param({
+        "Create a landing page for our summer sale",
+        "Compare pricing for the new product line",
+        "Need help? Read the FAQ",
+        "nothing to see here"
+    })
+    public String input;
+
+    @Benchmark
+    public String regex() {
+        return regexPageType(input);
+    }
+
+    @Benchmark
+    public String automaton() {
+        return IntentClassifier.pageType(input);
+    }
+
+    // Previous implementation (AgentRecommendationService.detectPageType)
+
+    private static String regexPageType(String input) {
+        if (containsAny(input, "landing", "campaign", "promotion", "launch", "sale", "offer", "discount")) return "landing";
+        if (containsAny(input, "product", "buy", "purchase", "pricing", "features", "specs", "compare")) return "product";
+        if (containsAny(input, "blog", "article", "story", "news", "post", "content", "read")) return "blog";
+        if (containsAny(input, "about", "team", "company", "story", "mission", "values", "history")) return "about";
+        if (containsAny(input, "contact", "support", "help", "faq", "question")) return "contact";
+        return "general";
+    }
+
+    private static boolean containsAny(String input, String... keywords) {
+        for (String keyword : keywords) {
+            if (Pattern.compile("\\b" + keyword + "\\b", Pattern.CASE_INSENSITIVE)
+                       .matcher(input).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -6,10 +6,15 @@ import com.embabel.agent.api.annotation.Agent;
 import com.example.aema2ui.model.ContentSuggestion;
 import com.example.aema2ui.model.UserInput;
 import com.example.aema2ui.service.LlmService;
+import com.example.aema2ui.service.intent.IntentClassifier;
+import com.example.aema2ui.service.llm.AdaptiveConcurrencyLimiter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
 /**
  * Embabel Agent for generating AEM content suggestions.
  *
@@ -92,6 +97,8 @@ public class AemContentAgent {
                 parsed.setRawText(rawInput);
                 log.info("LLM detected component type: {}", parsed.getDetectedComponentType());
                 return parsed;
+            } catch (AdaptiveConcurrencyLimiter.AdmissionRejectedException e) {
+                log.info("LLM busy, parsing intent from keywords: {}", e.getMessage());
             } catch (Exception e) {
                 log.warn("LLM parsing failed, falling back to templates: {}", e.getMessage());
             }
@@ -119,44 +126,98 @@ public class AemContentAgent {
     public ContentSuggestion generateContent(UserInput input) {
         log.info("Generating content for component type: {}", input.getDetectedComponentType());
 
-        String componentType = input.getDetectedComponentType() != null
-            ? input.getDetectedComponentType()
-            : "general";
+        String componentType = componentTypeOf(input);
 
         if (llmService.isEnabled()) {
             try {
                 log.info("Using {} for content generation", llmService.getProvider());
 
-                String audience = input.getTargetAudience() != null
-                    ? input.getTargetAudience()
-                    : "general audience";
-                String brandStyle = input.getBrandStyle() != null
-                    ? input.getBrandStyle()
-                    : "professional and modern";
-                String tone = input.getToneOfVoice() != null
-                    ? input.getToneOfVoice()
-                    : "professional yet approachable";
-
                 ContentSuggestion suggestion = llmService.generateObject(
-                    String.format(GENERATE_CONTENT_PROMPT,
-                        BRAND_GUIDELINES, componentType, input.getRawText(), audience, brandStyle, tone),
+                    buildContentPrompt(input, componentType),
                     ContentSuggestion.class
                 );
+                return completeSuggestion(suggestion, componentType);
+            } catch (AdaptiveConcurrencyLimiter.AdmissionRejectedException e) {
+                // Load shedding: answer from templates now rather than queue behind a saturated provider
+                log.info("LLM busy, falling back to templates: {}", e.getMessage());
+            } catch (Exception e) {
+                log.warn("LLM generation failed, falling back to templates: {}", e.getMessage());
+            }
+        }
 
-                suggestion.setComponentType(componentType);
+        return generateFallbackContent(input, componentType);
+    }
+
+    /**
+     * Generate content suggestion while streaming the raw LLM JSON to onToken,
+     * so fields can be rendered as they are written.
+     * Falls back to templates like generateContent, also when the stream fails part way.
+     *
+     * @param cancelled Polled between tokens; return true to stop (e.g. client disconnected)
+     * @param onFallback Called before falling back to templates, after any tokens already delivered
+     */
+    public ContentSuggestion generateContentStreaming(UserInput input, Consumer<String> onToken,
+                                                      BooleanSupplier cancelled, Runnable onFallback) {
+        log.info("Streaming content for component type: {}", input.getDetectedComponentType());
 
-                // Add default image if not provided
-                if (suggestion.getImageUrl() == null || suggestion.getImageUrl().isEmpty()) {
-                    suggestion.setImageUrl(getDefaultImageUrl(componentType));
-                }
+        String componentType = componentTypeOf(input);
 
-                log.info("LLM generated content: {}", suggestion.getTitle());
-                return suggestion;
+        if (llmService.isEnabled()) {
+            try {
+                log.info("Using {} for streaming content generation", llmService.getProvider());
+
+                ContentSuggestion suggestion = llmService.generateObjectStreaming(
+                    buildContentPrompt(input, componentType),
+                    ContentSuggestion.class,
+                    onToken,
+                    cancelled
+                );
+                return completeSuggestion(suggestion, componentType);
+            } catch (AdaptiveConcurrencyLimiter.AdmissionRejectedException e) {
+                log.info("LLM busy, falling back to templates: {}", e.getMessage());
             } catch (Exception e) {
-                log.warn("LLM generation failed, falling back to templates: {}", e.getMessage());
+                log.warn("LLM streaming generation failed, falling back to templates: {}", e.getMessage());
             }
+            onFallback.run();
+        }
+
+        return generateFallbackContent(input, componentType);
+    }
+
+    private String componentTypeOf(UserInput input) {
+        return input.getDetectedComponentType() != null
+            ? input.getDetectedComponentType()
+            : "general";
+    }
+
+    private String buildContentPrompt(UserInput input, String componentType) {
+        String audience = input.getTargetAudience() != null
+            ? input.getTargetAudience()
+            : "general audience";
+        String brandStyle = input.getBrandStyle() != null
+            ? input.getBrandStyle()
+            : "professional and modern";
+        String tone = input.getToneOfVoice() != null
+            ? input.getToneOfVoice()
+            : "professional yet approachable";
+
+        return String.format(GENERATE_CONTENT_PROMPT,
+            BRAND_GUIDELINES, componentType, input.getRawText(), audience, brandStyle, tone);
+    }
+
+    private ContentSuggestion completeSuggestion(ContentSuggestion suggestion, String componentType) {
+        suggestion.setComponentType(componentType);
+
+        // Add default image if not provided
+        if (suggestion.getImageUrl() == null || suggestion.getImageUrl().isEmpty()) {
+            suggestion.setImageUrl(getDefaultImageUrl(componentType));
         }
 
+        log.info("LLM generated content: {}", suggestion.getTitle());
+        return suggestion;
+    }
+
+    private ContentSuggestion generateFallbackContent(UserInput input, String componentType) {
         // Fallback to template
         ContentSuggestion suggestion = createTemplateSuggestion(componentType, input.getRawText());
         suggestion.setComponentType(componentType);
@@ -180,11 +241,7 @@ public class AemContentAgent {
     }
 
     private String detectComponentType(String input) {
-        if (input.contains("hero")) return "hero";
-        if (input.contains("product")) return "product";
-        if (input.contains("teaser")) return "teaser";
-        if (input.contains("banner")) return "banner";
-        return "general";
+        return IntentClassifier.componentType(input);
     }
 
     private String getDefaultImageUrl(String componentType) {
@@ -82,15 +82,169 @@ public class AemConfig {
     private int readTimeout = 30000;
 
     /**
-     * Maximum retry attempts for failed requests
+     * Maximum concurrent requests (pooled connections) to the AEM author.
+     * Callers beyond this wait up to the connect timeout for a slot, then fail.
+     */
+    private int maxConnectionsPerRoute = 32;
+
+    /**
+     * Maximum parallel asset detail requests for DAM search hits that lack metadata
+     */
+    private int damDetailParallelism = 8;
+
+    /**
+     * Cheap endpoint probed with HEAD by the background health checker
+     */
+    private String healthCheckPath = "/system/sling/info.sessionInfo.json";
+
+    /**
+     * Interval between background health probes in milliseconds
+     */
+    private long healthCheckIntervalMillis = 30000;
+
+    /**
+     * Probe AEM synchronously during startup. When false (default) the app
+     * boots immediately and reports AEM as disconnected until the first probe succeeds.
+     */
+    private boolean healthCheckWaitOnStartup = false;
+
+    /**
+     * Maximum retry attempts for failed idempotent requests (GET, DELETE)
      */
     private int maxRetries = 3;
 
     /**
-     * Delay between retry attempts in milliseconds
+     * Base delay before the first retry in milliseconds; doubles per retry, with jitter
      */
     private int retryDelayMillis = 1000;
 
+    /**
+     * Circuit breaker settings, applied to the author host and to each endpoint family
+     */
+    private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+    @Data
+    public static class CircuitBreakerProperties {
+
+        private boolean enabled = true;
+
+        /** Number of most recent calls the failure and slow-call rates are computed over */
+        private int windowSize = 50;
+
+        /** Calls needed in the window before the breaker may open */
+        private int minimumCalls = 10;
+
+        /** Failure rate (percent) that opens the breaker */
+        private int failureRateThreshold = 50;
+
+        /** Calls slower than this (ms) count as slow */
+        private long slowCallMillis = 5000;
+
+        /** Slow-call rate (percent) that opens the breaker */
+        private int slowCallRateThreshold = 80;
+
+        /** How long the breaker stays open before allowing trial calls (ms) */
+        private long openMillis = 30000;
+
+        /** Trial calls allowed while half-open */
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * Cache for parsed Sling JSON GET responses
+     */
+    private JsonCacheProperties jsonCache = new JsonCacheProperties();
+
+    @Data
+    public static class JsonCacheProperties {
+
+        private boolean enabled = true;
+
+        /** Budget for cached JSON trees, estimated from response size (MB) */
+        private long maxMemoryMb = 32;
+
+        /** TTL for DAM reads under /content/dam (ms) */
+        private long damTtlMillis = 30000;
+
+        /** TTL for other content reads under /content (ms) */
+        private long contentTtlMillis = 10000;
+
+        /** TTL for workflow model reads (ms) */
+        private long workflowModelsTtlMillis = 300000;
+
+        /** TTL for workflow instance reads (ms); 0 = always fetch, so status polling stays current */
+        private long workflowInstancesTtlMillis = 0;
+    }
+
+    /**
+     * DAM folder tree walks (/dam/tree)
+     */
+    private DamTreeProperties damTree = new DamTreeProperties();
+
+    @Data
+    public static class DamTreeProperties {
+
+        /** Folder exports fetched in parallel per walk */
+        private int parallelism = 8;
+
+        /** Levels fetched per request with Sling's .N.json selector */
+        private int selectorDepth = 2;
+
+        /** Largest depth a client may request */
+        private int maxDepth = 10;
+
+        /** Folders after which a walk stops and reports truncated */
+        private int maxFolders = 50000;
+
+        /** Cached trees older than this are re-walked in the background (ms) */
+        private long refreshIntervalMillis = 300000;
+
+        /** Cached trees not requested for this long are dropped (ms) */
+        private long idleMillis = 3600000;
+
+        /** Maximum number of cached (root, depth) trees */
+        private int maxCachedTrees = 16;
+    }
+
+    /**
+     * In-memory workflow model registry used for model lookups
+     */
+    private WorkflowModelRegistryProperties workflowModelRegistry = new WorkflowModelRegistryProperties();
+
+    @Data
+    public static class WorkflowModelRegistryProperties {
+
+        /** Interval between background refreshes of the model list from AEM (ms) */
+        private long refreshIntervalMillis = 300000;
+
+        /** Minimum gap between refreshes triggered by lookups of unknown ids (ms) */
+        private long minRefreshIntervalMillis = 10000;
+    }
+
+    /**
+     * Local DAM metadata index serving /dam/search and /dam/suggest
+     */
+    private DamIndexProperties damIndex = new DamIndexProperties();
+
+    @Data
+    public static class DamIndexProperties {
+
+        /** Build and search the local index; when off, /dam/search always queries AEM */
+        private boolean enabled = false;
+
+        /** Directory for the index segment; empty = java.io.tmpdir/aem-dam-index */
+        private String directory = "";
+
+        /** Interval between incremental refreshes of modified assets (ms) */
+        private long refreshIntervalMillis = 300000;
+
+        /** Interval between full crawls, which also drop deleted assets (ms) */
+        private long fullCrawlIntervalMillis = 21600000;
+
+        /** Assets after which a crawl stops */
+        private int maxAssets = 200000;
+    }
+
     @PostConstruct
     public void validateConfiguration() {
         if (!enabled) {
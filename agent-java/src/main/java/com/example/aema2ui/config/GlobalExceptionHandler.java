@@ -1,5 +1,6 @@
 package com.example.aema2ui.config;
 
+import com.example.aema2ui.repository.WorkflowRepository;
 import org.apache.catalina.connector.ClientAbortException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +42,16 @@ public class GlobalExceptionHandler {
         ));
     }
 
+    @ExceptionHandler(WorkflowRepository.VersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(WorkflowRepository.VersionConflictException ex) {
+        logger.info("Version conflict: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Conflict",
+                "message", ex.getMessage(),
+                "currentVersion", ex.getCurrentVersion()
+        ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericError(Exception ex) {
         // Check if this is a client disconnection
@@ -0,0 +1,58 @@
+package com.example.aema2ui.config;
+
+import com.example.aema2ui.repository.persistence.JournalPersistenceEngine;
+import com.example.aema2ui.repository.persistence.MemoryPersistenceEngine;
+import com.example.aema2ui.repository.persistence.PersistenceEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Selects the persistence engine behind the workflow and review repositories.
+ *
+ * - journal (default): append-only journal with snapshots under the configured directory
+ * - memory: nothing is persisted; state is lost on restart
+ *
+ * Repositories register with the engine as they are created; the journal is
+ * replayed into them once all singletons exist, before the web server starts
+ * accepting requests.
+ */
+@Configuration
+public class PersistenceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistenceConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public PersistenceEngine persistenceEngine(
+            ObjectMapper objectMapper,
+            @Value("${aem.agent.persistence.engine:journal}") String engine,
+            @Value("${aem.agent.persistence.directory:data/journal}") String directory,
+            @Value("${aem.agent.persistence.segment-mb:64}") long segmentMb,
+            @Value("${aem.agent.persistence.queue-capacity:65536}") int queueCapacity,
+            @Value("${aem.agent.persistence.fsync-interval-millis:0}") long fsyncIntervalMillis,
+            @Value("${aem.agent.persistence.snapshot-every-entries:100000}") long snapshotEveryEntries) {
+        if ("memory".equalsIgnoreCase(engine)) {
+            logger.info("Persistence engine: memory (workflow and review state is not persisted)");
+            return new MemoryPersistenceEngine();
+        }
+        if (!"journal".equalsIgnoreCase(engine)) {
+            throw new IllegalStateException("Unknown aem.agent.persistence.engine: " + engine
+                + " (expected journal or memory)");
+        }
+        Path path = Path.of(directory).toAbsolutePath();
+        logger.info("Persistence engine: journal at {} (fsync interval {}ms)", path, fsyncIntervalMillis);
+        return new JournalPersistenceEngine(path, objectMapper, segmentMb * 1024 * 1024, queueCapacity,
+            fsyncIntervalMillis, snapshotEveryEntries);
+    }
+
+    @Bean
+    public SmartInitializingSingleton persistenceReplay(PersistenceEngine persistenceEngine) {
+        return persistenceEngine::start;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.aema2ui.config;
+
+import com.example.aema2ui.model.ReviewStatus;
+import com.example.aema2ui.model.WorkflowStatus;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Retention of finished workflows and closed reviews in memory.
+ *
+ * Per status, items are archived once they finished more than ttl-millis ago,
+ * or when more than max-count items are in that status (oldest first).
+ * Archived items leave memory and listings but can still be fetched by id.
+ *
+ * Example:
+ *   aem.agent.retention.workflows.completed.ttl-millis=86400000
+ *   aem.agent.retention.workflows.completed.max-count=1000
+ *   aem.agent.retention.reviews.approved.max-count=2000
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "aem.agent.retention")
+public class RetentionProperties {
+
+    private boolean enabled = true;
+
+    /** Interval between retention sweeps (ms) */
+    private long sweepIntervalMillis = 60000;
+
+    /** Items archived per batch; each batch is one archive write and fsync */
+    private int batchSize = 500;
+
+    private Map<WorkflowStatus, Policy> workflows = new EnumMap<>(Map.of(
+        WorkflowStatus.COMPLETED, new Policy(86400000L, 1000),
+        WorkflowStatus.ABORTED, new Policy(86400000L, 500)));
+
+    private Map<ReviewStatus, Policy> reviews = new EnumMap<>(Map.of(
+        ReviewStatus.APPROVED, new Policy(604800000L, 2000),
+        ReviewStatus.REJECTED, new Policy(604800000L, 1000)));
+
+    @Data
+    public static class Policy {
+
+        /** Archive items finished longer ago than this (ms); 0 = no age limit */
+        private long ttlMillis;
+
+        /** Keep at most this many items in memory; negative = no count limit */
+        private int maxCount = -1;
+
+        public Policy() {
+        }
+
+        public Policy(long ttlMillis, int maxCount) {
+            this.ttlMillis = ttlMillis;
+            this.maxCount = maxCount;
+        }
+    }
+}
@@ -82,7 +82,7 @@ public class WebConfig {
                         .allowedOriginPatterns("*")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
-                        .exposedHeaders("X-Request-Id", "X-RateLimit-Limit", "X-RateLimit-Remaining")
+                        .exposedHeaders("X-Request-Id", "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-Total-Count")
                         .allowCredentials(allowCredentials)
                         .maxAge(maxAge);
                 } else {
@@ -90,7 +90,7 @@ public class WebConfig {
                         .allowedOrigins(origins)
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
-                        .exposedHeaders("X-Request-Id", "X-RateLimit-Limit", "X-RateLimit-Remaining")
+                        .exposedHeaders("X-Request-Id", "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-Total-Count")
                         .allowCredentials(allowCredentials)
                         .maxAge(maxAge);
                 }
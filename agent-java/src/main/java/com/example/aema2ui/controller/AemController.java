@@ -1,14 +1,19 @@
 package com.example.aema2ui.controller;
 
 import com.example.aema2ui.config.AemConfig;
+import com.example.aema2ui.model.PageRecommendation;
 import com.example.aema2ui.service.aem.AemContentClient;
 import com.example.aema2ui.service.aem.AemHttpClient;
+import com.example.aema2ui.service.aem.PageImport;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -24,6 +29,7 @@ public class AemController {
     private final AemHttpClient aemHttpClient;
     private final AemConfig aemConfig;
     private final AemContentClient aemContentClient;
+    private final ObjectMapper objectMapper;
 
     /**
      * Check AEM connection health
@@ -37,6 +43,10 @@ public class AemController {
         boolean connected = aemHttpClient.checkConnection();
         status.put("connected", connected);
         status.put("status", connected ? "CONNECTED" : "DISCONNECTED");
+        status.put("probe", aemHttpClient.getHealthStats());
+        status.put("transport", aemHttpClient.getTransportStats());
+        status.put("circuitBreakers", aemHttpClient.getCircuitBreakerStats());
+        status.put("jsonCache", aemHttpClient.getJsonCacheStats());
 
         if (!aemConfig.isEnabled()) {
             status.put("message", "AEM integration is disabled. Using mock mode.");
@@ -50,7 +60,10 @@ public class AemController {
     }
 
     /**
-     * Save content to AEM as a page or content fragment
+     * Save content to AEM as a page or content fragment. A page request may
+     * carry "components" (name, resourceType, properties) or a layout
+     * "recommendation"; the page and its components are then written in one
+     * import request.
      */
     @PostMapping("/content")
     public ResponseEntity<Map<String, Object>> saveContent(@RequestBody Map<String, Object> request) {
@@ -75,7 +88,10 @@ public class AemController {
             } else {
                 String parentPath = (String) request.getOrDefault("parentPath", aemConfig.getContentRoot());
                 String template = (String) request.getOrDefault("template", "/conf/aem-demo/settings/wcm/templates/content-page");
-                path = aemContentClient.createPage(parentPath, name, template, properties);
+                List<PageImport.Component> components = pageComponents(request);
+                path = components != null
+                    ? aemContentClient.createPage(parentPath, name, template, properties, components)
+                    : aemContentClient.createPage(parentPath, name, template, properties);
             }
 
             return ResponseEntity.ok(Map.of(
@@ -92,6 +108,18 @@ public class AemController {
         }
     }
 
+    private List<PageImport.Component> pageComponents(Map<String, Object> request) {
+        if (request.get("components") != null) {
+            return objectMapper.convertValue(request.get("components"),
+                new TypeReference<List<PageImport.Component>>() { });
+        }
+        if (request.get("recommendation") != null) {
+            return PageImport.fromRecommendation(
+                objectMapper.convertValue(request.get("recommendation"), PageRecommendation.class));
+        }
+        return null;
+    }
+
     /**
      * Get content from AEM
      */
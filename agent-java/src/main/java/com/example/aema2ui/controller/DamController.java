@@ -2,13 +2,30 @@ package com.example.aema2ui.controller;
 
 import com.example.aema2ui.config.AemConfig;
 import com.example.aema2ui.model.aem.DamAsset;
+import com.example.aema2ui.model.aem.DamSearchResult;
 import com.example.aema2ui.service.aem.AemDamClient;
 import com.example.aema2ui.service.aem.AemHttpClient;
+import com.example.aema2ui.service.aem.DamIndexService;
+import com.example.aema2ui.service.aem.DamTreeService;
+import com.example.aema2ui.service.aem.RenditionCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +42,26 @@ public class DamController {
     private final AemDamClient damClient;
     private final AemHttpClient httpClient;
     private final AemConfig config;
+    private final RenditionCache renditionCache;
+    private final DamTreeService treeService;
+    private final DamIndexService indexService;
+    private final ObjectMapper objectMapper;
+
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String CACHE_STATUS_HEADER = "X-Cache";
+    static final String SEARCH_SOURCE_HEADER = "X-Search-Source";
+    static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final long TREE_STREAM_TIMEOUT_MILLIS = 300000;
+
+    private static final List<String> PROXIED_HEADERS = List.of(
+        HttpHeaders.CONTENT_TYPE,
+        HttpHeaders.CONTENT_LENGTH,
+        HttpHeaders.CONTENT_RANGE,
+        HttpHeaders.ACCEPT_RANGES,
+        HttpHeaders.ETAG,
+        HttpHeaders.LAST_MODIFIED
+    );
 
     /**
      * Browse assets in a folder
@@ -57,14 +94,20 @@ public class DamController {
     }
 
     /**
-     * Search assets
+     * Search assets, paginated with offset/limit. The total match count is
+     * also returned in the X-Total-Count header. Served from the local index
+     * when it is built (also while AEM is disconnected), otherwise from
+     * QueryBuilder; X-Search-Source tells which.
      */
     @GetMapping("/search")
     public ResponseEntity<?> search(
             @RequestParam String q,
-            @RequestParam(required = false) String type) {
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "50") int limit) {
 
-        if (!httpClient.isConnected()) {
+        boolean fromIndex = indexService.isReady();
+        if (!fromIndex && !httpClient.isConnected()) {
             return ResponseEntity.status(503).body(Map.of(
                 "error", "AEM not connected"
             ));
@@ -82,14 +125,25 @@ public class DamController {
                 }
             }
 
-            List<DamAsset> assets = damClient.searchAssets(q, mimeType);
+            DamSearchResult result = fromIndex ? indexService.search(q, mimeType, offset, limit) : null;
+            if (result == null) {
+                fromIndex = false;
+                result = damClient.searchAssets(q, mimeType, offset, limit);
+            }
 
-            return ResponseEntity.ok(Map.of(
-                "query", q,
-                "type", type != null ? type : "all",
-                "assets", assets,
-                "count", assets.size()
-            ));
+            return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(result.getTotal()))
+                .header(SEARCH_SOURCE_HEADER, fromIndex ? "index" : "querybuilder")
+                .body(Map.of(
+                    "query", q,
+                    "type", type != null ? type : "all",
+                    "assets", result.getAssets(),
+                    "count", result.getAssets().size(),
+                    "total", result.getTotal(),
+                    "offset", result.getOffset(),
+                    "limit", result.getLimit(),
+                    "more", result.isMore()
+                ));
         } catch (Exception e) {
             log.error("Failed to search DAM: {}", q, e);
             return ResponseEntity.status(500).body(Map.of(
@@ -99,6 +153,21 @@ public class DamController {
         }
     }
 
+    /**
+     * Typeahead suggestions from the local index: indexed terms completing
+     * the last word of q, most common first. Empty until the index is built.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(Map.of(
+            "query", q,
+            "ready", indexService.isReady(),
+            "suggestions", indexService.suggest(q, Math.min(limit, 50))
+        ));
+    }
+
     /**
      * Get single asset details
      */
@@ -133,29 +202,29 @@ public class DamController {
     }
 
     /**
-     * Get folder tree for navigation
+     * Get the folder tree for navigation, depth levels below root (default 1:
+     * the immediate subfolders). Folders come as a flat list, parents first,
+     * linked by parentPath. Cached trees are served without waiting for AEM;
+     * use /tree/stream or /tree/ndjson to receive a large tree incrementally.
      */
     @GetMapping("/tree")
-    public ResponseEntity<?> getTree(@RequestParam(defaultValue = "") String root) {
-        if (!httpClient.isConnected()) {
+    public ResponseEntity<?> getTree(
+            @RequestParam(defaultValue = "") String root,
+            @RequestParam(defaultValue = "1") int depth) {
+
+        String folderPath = root.isEmpty() ? config.getDamRoot() : root;
+        int treeDepth = treeService.clampDepth(depth);
+        if (!httpClient.isConnected() && !treeService.isCached(folderPath, treeDepth)) {
             return ResponseEntity.status(503).body(Map.of(
                 "error", "AEM not connected"
             ));
         }
 
         try {
-            String folderPath = root.isEmpty() ? config.getDamRoot() : root;
-            List<DamAsset> assets = damClient.listAssets(folderPath);
-
-            // Filter to folders only
-            List<DamAsset> folders = assets.stream()
-                    .filter(DamAsset::isFolder)
-                    .toList();
-
-            return ResponseEntity.ok(Map.of(
-                "root", folderPath,
-                "folders", folders
-            ));
+            DamTreeService.TreeResult result = treeService.getTree(folderPath, treeDepth);
+            Map<String, Object> body = new LinkedHashMap<>(treeService.summary(result));
+            body.put("folders", result.tree().folders());
+            return ResponseEntity.ok(body);
         } catch (Exception e) {
             log.error("Failed to get folder tree", e);
             return ResponseEntity.status(500).body(Map.of(
@@ -165,6 +234,71 @@ public class DamController {
         }
     }
 
+    /**
+     * Stream the folder tree as Server-Sent Events: a "folder" event per
+     * folder as it is discovered, then a "complete" event with the summary.
+     */
+    @GetMapping(value = "/tree/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTree(
+            @RequestParam(defaultValue = "") String root,
+            @RequestParam(defaultValue = "1") int depth) {
+
+        String folderPath = root.isEmpty() ? config.getDamRoot() : root;
+        int treeDepth = treeService.clampDepth(depth);
+        SseEmitter emitter = new SseEmitter(TREE_STREAM_TIMEOUT_MILLIS);
+        if (!httpClient.isConnected() && !treeService.isCached(folderPath, treeDepth)) {
+            try {
+                emitter.send(SseEmitter.event().name(DamTreeService.ERROR_EVENT)
+                    .data(Map.of("message", "AEM not connected")));
+            } catch (IOException e) {
+                log.debug("DAM tree stream closed by client: {}", folderPath);
+            }
+            emitter.complete();
+            return emitter;
+        }
+
+        treeService.streamTreeEvents(folderPath, treeDepth, emitter);
+        return emitter;
+    }
+
+    /**
+     * Stream the folder tree as newline-delimited JSON, one folder per line,
+     * flushed as folders are discovered.
+     */
+    @GetMapping(value = "/tree/ndjson", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTreeNdjson(
+            @RequestParam(defaultValue = "") String root,
+            @RequestParam(defaultValue = "1") int depth) {
+
+        String folderPath = root.isEmpty() ? config.getDamRoot() : root;
+        int treeDepth = treeService.clampDepth(depth);
+        if (!httpClient.isConnected() && !treeService.isCached(folderPath, treeDepth)) {
+            return ResponseEntity.status(503).build();
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                treeService.streamTree(folderPath, treeDepth, folder -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(folder));
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("DAM tree walk interrupted", e);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+            .body(body);
+    }
+
     /**
      * Get DAM configuration
      */
@@ -173,75 +307,181 @@ public class DamController {
         return ResponseEntity.ok(Map.of(
             "damRoot", config.getDamRoot(),
             "authorUrl", config.getAuthorUrl(),
-            "connected", httpClient.isConnected()
+            "connected", httpClient.isConnected(),
+            "renditionCache", renditionCache.getStats(),
+            "tree", treeService.getStats(),
+            "index", indexService.getStats()
         ));
     }
 
     /**
-     * Proxy endpoint for fetching images from AEM DAM.
+     * Proxy endpoint for fetching images and other binaries from AEM DAM.
      * This solves CORS issues and handles authentication to AEM.
      *
+     * Full (non-range) responses are kept in the local rendition cache keyed by
+     * path, rendition and version v (the asset's jcr:lastModified, included in
+     * the URLs AemDamClient builds). Hits are served from disk and answer
+     * If-None-Match with 304, even
+     * while AEM is unreachable. Everything else is streamed from AEM through a
+     * small buffer, forwarding Range so video can seek (206).
+     *
      * @param path The DAM asset path (e.g., /content/dam/aem-demo/image.jpg)
      * @param rendition Optional rendition name (default: cq5dam.thumbnail.319.319.png)
-     * @return The image bytes with appropriate content type
+     * @param version Optional asset version; versioned responses are cached as immutable
+     * @return The binary with AEM's content headers
      */
     @GetMapping("/proxy")
-    public ResponseEntity<byte[]> proxyImage(
+    public ResponseEntity<StreamingResponseBody> proxyImage(
             @RequestParam String path,
-            @RequestParam(required = false, defaultValue = "cq5dam.thumbnail.319.319.png") String rendition) {
+            @RequestParam(required = false, defaultValue = "cq5dam.thumbnail.319.319.png") String rendition,
+            @RequestParam(name = "v", required = false) String version,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String cacheKey = RenditionCache.key(path, rendition, version);
+        boolean cacheable = range == null && renditionCache.isEnabled();
+        if (cacheable) {
+            RenditionCache.Entry cached = renditionCache.get(cacheKey);
+            if (cached != null) {
+                ResponseEntity<StreamingResponseBody> hit = serveCached(cached, "HIT", ifNoneMatch);
+                // Null when evicted since the lookup: fetch it again
+                if (hit != null) {
+                    return hit;
+                }
+            }
+        }
 
         if (!httpClient.isConnected()) {
             return ResponseEntity.status(503).build();
         }
 
-        try {
-            byte[] imageData;
-
-            if ("original".equals(rendition)) {
-                // Fetch the original asset
-                imageData = httpClient.getBinary(path);
-            } else {
-                // Build the rendition path
-                String imagePath = path + "/jcr:content/renditions/" + rendition;
-                imageData = httpClient.getBinary(imagePath);
-
-                if (imageData == null || imageData.length == 0) {
-                    // Try web rendition if thumbnail not found
-                    imagePath = path + "/jcr:content/renditions/cq5dam.web.1280.1280.jpeg";
-                    imageData = httpClient.getBinary(imagePath);
-                }
+        List<String> candidates = "original".equals(rendition)
+            ? List.of(path)
+            : List.of(
+                path + "/jcr:content/renditions/" + rendition,
+                // Try web rendition if the requested one is not found, then the original
+                path + "/jcr:content/renditions/cq5dam.web.1280.1280.jpeg",
+                path);
 
-                if (imageData == null || imageData.length == 0) {
-                    // Try original asset if renditions not found
-                    imageData = httpClient.getBinary(path);
+        AemHttpClient.BinaryResponse binary = null;
+        for (String candidate : candidates) {
+            try {
+                AemHttpClient.BinaryResponse response = httpClient.openBinary(candidate, range);
+                if (!response.isError()) {
+                    binary = response;
+                    break;
                 }
+                // 416 means the range is wrong, not that the rendition is missing
+                if (response.status() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()) {
+                    return ResponseEntity.status(response.status())
+                        .headers(forwardedHeaders(response.headers()))
+                        .build();
+                }
+            } catch (Exception e) {
+                log.debug("Proxy candidate failed: {} - {}", candidate, e.getMessage());
             }
+        }
 
-            if (imageData == null || imageData.length == 0) {
-                log.warn("Image not found at path: {}", path);
-                return ResponseEntity.notFound().build();
+        if (binary == null) {
+            log.warn("Image not found at path: {}", path);
+            return ResponseEntity.notFound().build();
+        }
+
+        AemHttpClient.BinaryResponse source = binary;
+        if (cacheable && source.status() == HttpStatus.OK.value()
+                && renditionCache.accepts(source.headers().getContentLength())) {
+            try (source) {
+                String validator = source.headers().getETag() != null
+                    ? source.headers().getETag()
+                    : source.headers().getFirst(HttpHeaders.LAST_MODIFIED);
+                MediaType contentType = source.headers().getContentType();
+                RenditionCache.Entry stored = renditionCache.store(cacheKey, version != null,
+                    contentType != null ? contentType.toString() : null, validator, source.body());
+                ResponseEntity<StreamingResponseBody> miss = serveCached(stored, "MISS", ifNoneMatch);
+                return miss != null ? miss : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            } catch (IOException e) {
+                log.warn("Failed to proxy {} ({}): {}", path, rendition, e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
             }
+        }
 
-            // Determine content type from rendition/path
-            String contentType = "image/png";
-            if (path.endsWith(".jpg") || path.endsWith(".jpeg")) {
-                contentType = "image/jpeg";
-            } else if (path.endsWith(".gif")) {
-                contentType = "image/gif";
-            } else if (path.endsWith(".webp")) {
-                contentType = "image/webp";
-            } else if (path.endsWith(".svg")) {
-                contentType = "image/svg+xml";
+        StreamingResponseBody body = out -> {
+            try (source) {
+                source.body().transferTo(out);
             }
+        };
+        return ResponseEntity.status(source.status())
+            .headers(forwardedHeaders(source.headers()))
+            .header(HttpHeaders.CACHE_CONTROL, "public, max-age=3600")
+            .header(CACHE_STATUS_HEADER, "BYPASS")
+            .body(body);
+    }
 
-            return ResponseEntity.ok()
-                    .header("Content-Type", contentType)
-                    .header("Cache-Control", "public, max-age=3600")
-                    .body(imageData);
+    /**
+     * Serve a cached rendition from disk, or null if it was evicted before it
+     * could be opened. The file is opened here, before the response is
+     * committed, and the body transfers from that channel, so an eviction
+     * while the response is being written does not cut it short.
+     */
+    private ResponseEntity<StreamingResponseBody> serveCached(RenditionCache.Entry entry, String cacheStatus,
+                                                              String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(entry.etag());
+        headers.setCacheControl(entry.versioned()
+            ? "public, max-age=31536000, immutable"
+            : "public, max-age=3600");
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
 
-        } catch (Exception e) {
-            log.error("Failed to proxy image: {}", path, e);
-            return ResponseEntity.status(500).build();
+        if (ifNoneMatch != null && (ifNoneMatch.contains(entry.etag()) || "*".equals(ifNoneMatch.trim()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        FileChannel file;
+        try {
+            file = renditionCache.open(entry);
+        } catch (IOException e) {
+            log.warn("Failed to open cached rendition {}: {}", entry.file(), e.getMessage());
+            return null;
+        }
+        if (file == null) {
+            return null;
+        }
+
+        headers.setContentType(entry.contentType() != null
+            ? MediaType.parseMediaType(entry.contentType())
+            : MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(entry.size());
+
+        StreamingResponseBody body = out -> transferFile(file, entry.size(), out);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    private static void transferFile(FileChannel file, long size, OutputStream out) throws IOException {
+        try (file) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                long sent = file.transferTo(position, size - position, target);
+                if (sent <= 0) break;
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Content headers passed through from AEM to the client.
+     */
+    private HttpHeaders forwardedHeaders(HttpHeaders aemHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : PROXIED_HEADERS) {
+            List<String> values = aemHeaders.get(name);
+            if (values != null && !values.isEmpty()) {
+                headers.put(name, values);
+            }
+        }
+        if (!headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         }
+        return headers;
     }
 }
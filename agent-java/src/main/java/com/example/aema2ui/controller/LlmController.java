@@ -0,0 +1,47 @@
+package com.example.aema2ui.controller;
+
+import com.example.aema2ui.service.LlmService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST controller for LLM runtime diagnostics.
+ * Exposes provider, connection pool, admission, cache and coalescing statistics for capacity sizing.
+ */
+@RestController
+@RequestMapping("/llm")
+@RequiredArgsConstructor
+public class LlmController {
+
+    private final LlmService llmService;
+
+    /**
+     * Get LLM provider and transport statistics.
+     * GET /llm/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", llmService.isEnabled());
+        stats.put("provider", llmService.getProvider());
+        stats.put("transports", llmService.getTransportStats());
+        stats.put("admission", llmService.getAdmissionStats());
+        stats.put("cache", llmService.getCacheStats());
+        stats.put("coalescing", llmService.getCoalescingStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Drop all cached LLM responses.
+     * DELETE /llm/cache
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        llmService.clearCache();
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+}
@@ -2,8 +2,12 @@ package com.example.aema2ui.controller;
 
 import com.example.aema2ui.model.*;
 import com.example.aema2ui.service.ReviewService;
+import com.example.aema2ui.service.event.EventStreamService;
+import com.example.aema2ui.service.event.StateEvent;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -16,9 +20,11 @@ import java.util.Map;
 public class ReviewController {
 
     private final ReviewService reviewService;
+    private final EventStreamService eventStreamService;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, EventStreamService eventStreamService) {
         this.reviewService = reviewService;
+        this.eventStreamService = eventStreamService;
     }
 
     /**
@@ -47,6 +53,28 @@ public class ReviewController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Stream changes to a review (comments, decisions, content updates) as
+     * server-sent events. Resumes after Last-Event-ID like /workflows/events.
+     * GET /reviews/{id}/events
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamReviewEvents(
+            @PathVariable String id,
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (reviewService.getReview(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = eventStreamService.subscribe(
+                new StateEvent.Filter(StateEvent.SOURCE_REVIEW, id, null, null),
+                lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     /**
      * Get all reviews.
      * GET /reviews
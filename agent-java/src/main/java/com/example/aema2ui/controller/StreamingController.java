@@ -3,6 +3,7 @@ package com.example.aema2ui.controller;
 import com.example.aema2ui.service.StreamingContentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -27,6 +28,9 @@ public class StreamingController {
 
     private final StreamingContentService streamingService;
 
+    @Value("${aem.agent.suggestions.count:1}")
+    private int suggestionsCount;
+
     /**
      * Stream content generation with SSE.
      *
@@ -34,7 +38,7 @@ public class StreamingController {
      * - RUN_STARTED: Generation begins
      * - TEXT_MESSAGE_START: Field generation starts
      * - TEXT_MESSAGE_DELTA: Incremental text updates (word by word)
-     * - TEXT_MESSAGE_END: Field complete
+     * - TEXT_MESSAGE_END: Field complete, with the full value
      * - STATE_DELTA: Complete content state update
      * - RUN_FINISHED: Generation complete
      *
@@ -43,6 +47,10 @@ public class StreamingController {
      * const eventSource = new EventSource('/stream/generate?input=hero+banner&componentType=hero');
      * eventSource.addEventListener('TEXT_MESSAGE_DELTA', (e) => {
      *   const data = JSON.parse(e.data);
+     *   appendToField(data.data.field, data.data.delta);
+     * });
+     * eventSource.addEventListener('TEXT_MESSAGE_END', (e) => {
+     *   const data = JSON.parse(e.data);
      *   updateField(data.data.field, data.data.content);
      * });
      * ```
@@ -78,18 +86,46 @@ public class StreamingController {
         return emitter;
     }
 
+    /**
+     * Stream suggestion variations, each sent as an ARTIFACT event as soon as it is ready.
+     *
+     * Request body: {"input": "...", "count": 3} - count defaults to aem.agent.suggestions.count.
+     */
+    @PostMapping(value = "/suggestions", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSuggestions(@RequestBody Map<String, Object> request) {
+        String input = (String) request.getOrDefault("input", "");
+        int count = request.get("count") instanceof Number n ? n.intValue() : suggestionsCount;
+
+        log.info("Starting suggestions SSE stream for input: '{}', count: {}", input, count);
+
+        SseEmitter emitter = streamingService.createEmitter();
+        streamingService.streamSuggestions(input, count, emitter);
+
+        return emitter;
+    }
+
     /**
      * Raw streaming - true token-by-token streaming from LLM.
      * This is as fast as CLI because tokens are sent immediately.
      *
      * Use this for preview/draft content where JSON structure isn't needed.
+     *
+     * Wire format is negotiated with ?wire=delta or the X-Stream-Wire: delta header.
+     * Delta mode sends each token with seq/offset instead of repeating the full text,
+     * plus periodic TEXT_MESSAGE_CHECKPOINT events. Default is the cumulative format.
      */
     @GetMapping(value = "/raw", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamRaw(@RequestParam String prompt) {
-        log.info("Starting raw SSE stream for prompt: '{}'", prompt.substring(0, Math.min(50, prompt.length())));
+    public SseEmitter streamRaw(
+            @RequestParam String prompt,
+            @RequestParam(required = false) String wire,
+            @RequestHeader(value = "X-Stream-Wire", required = false) String wireHeader) {
+        StreamingContentService.WireMode wireMode =
+            StreamingContentService.WireMode.parse(wire != null ? wire : wireHeader);
+        log.info("Starting raw SSE stream ({} wire) for prompt: '{}'", wireMode,
+            prompt.substring(0, Math.min(50, prompt.length())));
 
         SseEmitter emitter = streamingService.createEmitter();
-        streamingService.streamRawGeneration(prompt, emitter);
+        streamingService.streamRawGeneration(prompt, emitter, wireMode);
 
         return emitter;
     }
@@ -103,12 +139,15 @@ public class StreamingController {
             "status", "ok",
             "streaming", true,
             "protocol", "AG-UI",
+            "executor", streamingService.getStreamingStats(),
             "events", new String[]{
                 "RUN_STARTED",
                 "TEXT_MESSAGE_START",
                 "TEXT_MESSAGE_DELTA",
                 "TEXT_MESSAGE_END",
+                "TEXT_MESSAGE_CHECKPOINT",
                 "STATE_DELTA",
+                "ARTIFACT",
                 "RUN_FINISHED",
                 "RUN_ERROR"
             }
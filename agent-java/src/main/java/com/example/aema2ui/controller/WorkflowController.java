@@ -1,10 +1,18 @@
 package com.example.aema2ui.controller;
 
 import com.example.aema2ui.model.*;
+import com.example.aema2ui.repository.WorkflowRepository;
+import com.example.aema2ui.service.RetentionService;
 import com.example.aema2ui.service.WorkflowService;
+import com.example.aema2ui.service.event.AemInboxPoller;
+import com.example.aema2ui.service.event.EventStreamService;
+import com.example.aema2ui.service.event.StateEvent;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,10 +23,19 @@ import java.util.Map;
 @RequestMapping("/workflows")
 public class WorkflowController {
 
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final WorkflowService workflowService;
+    private final RetentionService retentionService;
+    private final EventStreamService eventStreamService;
+    private final AemInboxPoller aemInboxPoller;
 
-    public WorkflowController(WorkflowService workflowService) {
+    public WorkflowController(WorkflowService workflowService, RetentionService retentionService,
+                              EventStreamService eventStreamService, AemInboxPoller aemInboxPoller) {
         this.workflowService = workflowService;
+        this.retentionService = retentionService;
+        this.eventStreamService = eventStreamService;
+        this.aemInboxPoller = aemInboxPoller;
     }
 
     /**
@@ -41,6 +58,72 @@ public class WorkflowController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Reload workflow models from AEM in the background.
+     * POST /workflows/models/refresh
+     */
+    @PostMapping("/models/refresh")
+    public ResponseEntity<Map<String, Object>> refreshWorkflowModels() {
+        return ResponseEntity.accepted().body(workflowService.refreshWorkflowModels());
+    }
+
+    /**
+     * Instance counts, journal, retention and heap statistics.
+     * GET /workflows/store
+     */
+    @GetMapping("/store")
+    public ResponseEntity<Map<String, Object>> getStoreStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(workflowService.getStoreStats());
+        stats.put("retention", retentionService.getStats());
+        Map<String, Object> events = new LinkedHashMap<>(eventStreamService.getStats());
+        events.put("inbox", aemInboxPoller.getStats());
+        stats.put("events", events);
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Stream workflow, review and AEM inbox state changes as server-sent events,
+     * replacing polling of the list endpoints. Each event is named by its type
+     * (WORKFLOW_ADVANCED, REVIEW_APPROVED, INBOX_ITEM_ADDED, ...) and carries a
+     * summary of the new state.
+     *
+     * Reconnecting with Last-Event-ID (or "since") replays the events missed in
+     * between; if they are no longer available a RESYNC event is sent first and
+     * the client should reload before applying further events.
+     *
+     * "assignee" narrows review events to those the user reviews; workflow and
+     * inbox events are not filtered by it.
+     * GET /workflows/events?source=workflow&contentId=...&assignee=...
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(
+            @RequestParam(required = false) String source,
+            @RequestParam(required = false) String workflowId,
+            @RequestParam(required = false) String contentId,
+            @RequestParam(required = false) String assignee,
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        StateEvent.Filter filter = new StateEvent.Filter(
+                blankToNull(workflowId) != null ? StateEvent.SOURCE_WORKFLOW : blankToNull(source),
+                blankToNull(workflowId),
+                blankToNull(contentId),
+                blankToNull(assignee));
+        SseEmitter emitter = eventStreamService.subscribe(filter, lastEventId != null ? lastEventId : since);
+        if (emitter == null) {
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Archive finished workflows and closed reviews per the retention policies now.
+     * POST /workflows/store/sweep
+     */
+    @PostMapping("/store/sweep")
+    public ResponseEntity<Map<String, Integer>> sweepRetention() {
+        return ResponseEntity.ok(retentionService.sweep());
+    }
+
     /**
      * Submit content to a workflow.
      * POST /workflows/submit
@@ -88,23 +171,30 @@ public class WorkflowController {
     }
 
     /**
-     * Get all workflows.
+     * Get workflows, newest first, optionally filtered by content and status.
+     * Paginated with offset/limit (all matches when limit is omitted); the
+     * total match count is returned in the X-Total-Count header.
      * GET /workflows
      */
     @GetMapping
     public ResponseEntity<List<WorkflowInstance>> getAllWorkflows(
-            @RequestParam(required = false) String contentId) {
-        List<WorkflowInstance> workflows;
-        if (contentId != null && !contentId.isEmpty()) {
-            workflows = workflowService.getWorkflowsByContentId(contentId);
-        } else {
-            workflows = workflowService.getAllWorkflows();
-        }
-        return ResponseEntity.ok(workflows);
+            @RequestParam(required = false) String contentId,
+            @RequestParam(required = false) WorkflowStatus status,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        WorkflowRepository.Page page = workflowService.findWorkflows(
+                contentId != null && !contentId.isEmpty() ? contentId : null,
+                status,
+                offset,
+                limit != null ? limit : Integer.MAX_VALUE);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.total()))
+                .body(page.items());
     }
 
     /**
-     * Advance workflow to next step.
+     * Advance workflow to next step. With "expectedVersion" in the body, the
+     * request fails with 409 if the workflow changed since that version.
      * POST /workflows/{id}/advance
      */
     @PostMapping("/{id}/advance")
@@ -112,7 +202,8 @@ public class WorkflowController {
             @PathVariable String id,
             @RequestBody(required = false) Map<String, String> request) {
         String comment = request != null ? request.get("comment") : null;
-        WorkflowInstance instance = workflowService.advanceWorkflow(id, comment);
+        String expectedVersion = request != null ? request.get("expectedVersion") : null;
+        WorkflowInstance instance = workflowService.advanceWorkflow(id, comment, version(expectedVersion));
         return ResponseEntity.ok(instance);
     }
 
@@ -123,8 +214,9 @@ public class WorkflowController {
     @DeleteMapping("/{id}")
     public ResponseEntity<WorkflowInstance> cancelWorkflow(
             @PathVariable String id,
-            @RequestParam(defaultValue = "Cancelled by user") String reason) {
-        WorkflowInstance instance = workflowService.cancelWorkflow(id, reason);
+            @RequestParam(defaultValue = "Cancelled by user") String reason,
+            @RequestParam(required = false) String expectedVersion) {
+        WorkflowInstance instance = workflowService.cancelWorkflow(id, reason, version(expectedVersion));
         return ResponseEntity.ok(instance);
     }
 
@@ -133,8 +225,10 @@ public class WorkflowController {
      * POST /workflows/{id}/suspend
      */
     @PostMapping("/{id}/suspend")
-    public ResponseEntity<WorkflowInstance> suspendWorkflow(@PathVariable String id) {
-        WorkflowInstance instance = workflowService.suspendWorkflow(id);
+    public ResponseEntity<WorkflowInstance> suspendWorkflow(
+            @PathVariable String id,
+            @RequestParam(required = false) String expectedVersion) {
+        WorkflowInstance instance = workflowService.suspendWorkflow(id, version(expectedVersion));
         return ResponseEntity.ok(instance);
     }
 
@@ -143,11 +237,28 @@ public class WorkflowController {
      * POST /workflows/{id}/resume
      */
     @PostMapping("/{id}/resume")
-    public ResponseEntity<WorkflowInstance> resumeWorkflow(@PathVariable String id) {
-        WorkflowInstance instance = workflowService.resumeWorkflow(id);
+    public ResponseEntity<WorkflowInstance> resumeWorkflow(
+            @PathVariable String id,
+            @RequestParam(required = false) String expectedVersion) {
+        WorkflowInstance instance = workflowService.resumeWorkflow(id, version(expectedVersion));
         return ResponseEntity.ok(instance);
     }
 
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
+
+    private static long version(String expectedVersion) {
+        if (expectedVersion == null || expectedVersion.isBlank()) {
+            return WorkflowRepository.ANY_VERSION;
+        }
+        try {
+            return Long.parseLong(expectedVersion.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid expectedVersion: " + expectedVersion);
+        }
+    }
+
     // Request/Response DTOs
 
     @lombok.Data
@@ -14,7 +14,7 @@ import java.util.List;
  * Tracks reviewers, comments, and approval status.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Review {
@@ -11,7 +11,7 @@ import java.time.Instant;
  * Represents a comment on content during the review process.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ReviewComment {
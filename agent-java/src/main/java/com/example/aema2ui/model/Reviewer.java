@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
  * Represents a reviewer assigned to review content.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Reviewer {
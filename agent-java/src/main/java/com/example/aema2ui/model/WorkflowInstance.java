@@ -20,6 +20,12 @@ import java.util.Map;
 public class WorkflowInstance {
 
     private String id;
+
+    /**
+     * Incremented on every state change; pass it back to reject conflicting updates
+     */
+    private long version;
+
     private String workflowModelId;
     private String workflowModelName;
     private String contentId;
@@ -12,7 +12,7 @@ import java.util.Map;
  * Represents a DAM asset from AEM.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class DamAsset {
@@ -0,0 +1,60 @@
+package com.example.aema2ui.model.aem;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A DAM folder in a folder tree walk. Trees are returned and streamed as flat
+ * lists; parentPath links each folder to its parent.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DamFolderNode {
+
+    /**
+     * Full JCR path to the folder
+     */
+    private String path;
+
+    /**
+     * Folder name
+     */
+    private String name;
+
+    /**
+     * Folder title (jcr:content/jcr:title), or the name
+     */
+    private String title;
+
+    /**
+     * Path of the parent folder; null for the walk root
+     */
+    private String parentPath;
+
+    /**
+     * Depth below the walk root (root = 0)
+     */
+    private int depth;
+
+    /**
+     * Number of direct subfolders, or null if the folder's children were not loaded
+     */
+    private Integer folderCount;
+
+    /**
+     * Number of direct assets, or null if the folder's children were not loaded
+     */
+    private Integer assetCount;
+
+    /**
+     * Whether the subfolders are part of the result. False at the depth limit:
+     * load them with another tree request rooted at this folder.
+     */
+    private boolean expanded;
+}
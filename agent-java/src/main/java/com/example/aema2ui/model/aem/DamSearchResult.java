@@ -0,0 +1,47 @@
+package com.example.aema2ui.model.aem;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of DAM search results.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DamSearchResult {
+
+    /**
+     * Assets on this page
+     */
+    private List<DamAsset> assets;
+
+    /**
+     * Total number of matches reported by QueryBuilder
+     */
+    private long total;
+
+    /**
+     * Index of the first asset on this page
+     */
+    private int offset;
+
+    /**
+     * Requested page size
+     */
+    private int limit;
+
+    /**
+     * Whether more matches follow this page
+     */
+    private boolean more;
+
+    public static DamSearchResult empty(int offset, int limit) {
+        return new DamSearchResult(List.of(), 0, offset, limit, false);
+    }
+}
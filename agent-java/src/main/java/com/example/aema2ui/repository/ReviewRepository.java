@@ -2,32 +2,144 @@ package com.example.aema2ui.repository;
 
 import com.example.aema2ui.model.ContentVersion;
 import com.example.aema2ui.model.Review;
+import com.example.aema2ui.model.ReviewStatus;
+import com.example.aema2ui.repository.persistence.PersistenceEngine;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * In-memory repository for reviews and content versions.
- * Uses ConcurrentHashMap for thread-safety.
- * Can be replaced with JPA repository for production.
+ * Uses ConcurrentHashMap for thread-safety; changes to one review are
+ * serialized by a striped lock (ReentrantLock, so virtual threads blocked on
+ * the engine are not pinned) and recorded with the PersistenceEngine under
+ * it, so the engine sees them in order. Reviews are restored from it on startup.
+ *
+ * Stored reviews are never mutated: update applies a change to a copy and
+ * swaps it in, so listings, snapshots and archiving always read a complete
+ * review. A change the engine fails to record is rolled back.
+ * Closed reviews can be archived: they leave memory and listings, and
+ * findById reads them back from the archive; saving one makes it resident again.
  */
 @Repository
 public class ReviewRepository {
 
+    private static final String REVIEWS = "review";
+    private static final String VERSIONS = "content-version";
+    private static final int LOCK_STRIPES = 64;
+
     private final Map<String, Review> reviews = new ConcurrentHashMap<>();
     private final Map<String, List<ContentVersion>> contentVersions = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final PersistenceEngine persistence;
+
+    public ReviewRepository(PersistenceEngine persistence) {
+        this.persistence = persistence;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        persistence.register(REVIEWS, Review.class, new PersistenceEngine.Handler<>() {
+            @Override
+            public void restore(String id, Review review) {
+                reviews.put(id, review);
+            }
+
+            @Override
+            public void remove(String id) {
+                reviews.remove(id);
+            }
+
+            @Override
+            public void forEach(BiConsumer<String, Object> sink) {
+                reviews.forEach(sink);
+            }
+        });
+        persistence.register(VERSIONS, ContentVersion.class, new PersistenceEngine.Handler<>() {
+            @Override
+            public void restore(String id, ContentVersion version) {
+                addVersion(version);
+            }
+
+            @Override
+            public void remove(String id) {
+                contentVersions.values().forEach(versions -> {
+                    synchronized (versions) {
+                        versions.removeIf(v -> id.equals(v.getId()));
+                    }
+                });
+            }
+
+            @Override
+            public void forEach(BiConsumer<String, Object> sink) {
+                contentVersions.values().forEach(versions -> {
+                    synchronized (versions) {
+                        versions.forEach(v -> sink.accept(v.getId(), v));
+                    }
+                });
+            }
+        });
+    }
 
     // Review operations
 
+    /**
+     * Store a review, replacing any previous one. The caller must not change
+     * it afterwards; use update for that.
+     */
     public Review save(Review review) {
-        reviews.put(review.getId(), review);
+        ReentrantLock lock = lockFor(review.getId());
+        lock.lock();
+        try {
+            store(review.getId(), reviews.get(review.getId()), review);
+        } finally {
+            lock.unlock();
+        }
         return review;
     }
 
+    /**
+     * Apply a change to a copy of the review and store it, then pass the
+     * stored review to onStored while still holding the review's lock, so
+     * callbacks for one review run in the order the changes were made.
+     *
+     * @param change Mutates the copy; an exception aborts the update
+     * @return The stored review
+     * @throws IllegalArgumentException if the review does not exist
+     */
+    public Review update(String id, Consumer<Review> change, Consumer<Review> onStored) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Review current = reviews.get(id);
+            if (current == null) {
+                // Archived: make it resident again
+                current = persistence.findArchived(REVIEWS, id, Review.class)
+                        .orElseThrow(() -> new IllegalArgumentException("Review not found: " + id));
+                store(id, null, current);
+            }
+            Review updated = copy(current);
+            change.accept(updated);
+            updated.setId(id);
+            store(id, current, updated);
+            onStored.accept(updated);
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The review with this id, read from the archive if it is no longer in memory.
+     */
     public Optional<Review> findById(String id) {
-        return Optional.ofNullable(reviews.get(id));
+        Review review = reviews.get(id);
+        return review != null ? Optional.of(review) : persistence.findArchived(REVIEWS, id, Review.class);
     }
 
     public List<Review> findByContentId(String contentId) {
@@ -42,31 +154,89 @@ public class ReviewRepository {
     }
 
     public void deleteById(String id) {
-        reviews.remove(id);
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (reviews.remove(id) != null || persistence.isArchived(REVIEWS, id)) {
+                persistence.delete(REVIEWS, id);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean existsById(String id) {
-        return reviews.containsKey(id);
+        return reviews.containsKey(id) || persistence.isArchived(REVIEWS, id);
+    }
+
+    /**
+     * Archive reviews in a status that closed before cutoff, or that are
+     * beyond the newest maxCount by closing time. A review updated while its
+     * batch was written stays in memory.
+     *
+     * @param cutoff   Archive reviews closed before this; null = no age limit
+     * @param maxCount Reviews to keep in this status; negative = no count limit
+     * @return Number of reviews archived
+     */
+    public int archive(ReviewStatus status, Instant cutoff, int maxCount, int batchSize) {
+        List<Review> candidates = reviews.values().stream()
+                .filter(review -> review.getStatus() == status)
+                .sorted(Comparator.comparing(ReviewRepository::closedAt,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+        int archived = 0;
+        Map<String, Review> batch = new LinkedHashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            Review review = candidates.get(i);
+            Instant closedAt = closedAt(review);
+            if ((maxCount >= 0 && i >= maxCount) || (cutoff != null && closedAt != null && closedAt.isBefore(cutoff))) {
+                batch.put(review.getId(), review);
+                if (batch.size() >= batchSize) {
+                    archived += archiveBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return archived + archiveBatch(batch);
+    }
+
+    /**
+     * A sample of up to limit in-memory reviews, for size estimates.
+     */
+    public List<Review> sample(int limit) {
+        return reviews.values().stream().limit(limit).toList();
+    }
+
+    public int count() {
+        return reviews.size();
     }
 
     // Content version operations
 
     public ContentVersion saveVersion(ContentVersion version) {
-        contentVersions.computeIfAbsent(version.getContentId(), k -> new ArrayList<>())
-                .add(version);
+        if (!addVersion(version)) {
+            return version;
+        }
+        try {
+            persistence.put(VERSIONS, version.getId(), version);
+        } catch (RuntimeException e) {
+            List<ContentVersion> versions = contentVersions.get(version.getContentId());
+            synchronized (versions) {
+                versions.removeIf(v -> v == version);
+            }
+            throw e;
+        }
         return version;
     }
 
     public List<ContentVersion> findVersionsByContentId(String contentId) {
-        return contentVersions.getOrDefault(contentId, Collections.emptyList())
-                .stream()
+        return versionsOf(contentId).stream()
                 .sorted(Comparator.comparing(ContentVersion::getVersion).reversed())
                 .collect(Collectors.toList());
     }
 
     public Optional<ContentVersion> findVersionByContentIdAndVersion(String contentId, int version) {
-        return contentVersions.getOrDefault(contentId, Collections.emptyList())
-                .stream()
+        return versionsOf(contentId).stream()
                 .filter(v -> v.getVersion() == version)
                 .findFirst();
     }
@@ -78,7 +248,111 @@ public class ReviewRepository {
     // Utility methods
 
     public void clear() {
-        reviews.clear();
+        reviews.keySet().forEach(this::deleteById);
+        // Copied out so the engine is not called while holding the list's monitor
+        contentVersions.keySet().forEach(contentId ->
+                versionsOf(contentId).forEach(v -> persistence.delete(VERSIONS, v.getId())));
         contentVersions.clear();
     }
+
+    private int archiveBatch(Map<String, Review> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        persistence.archive(REVIEWS, new LinkedHashMap<>(batch));
+        int removed = 0;
+        for (Map.Entry<String, Review> entry : batch.entrySet()) {
+            String id = entry.getKey();
+            ReentrantLock lock = lockFor(id);
+            lock.lock();
+            try {
+                Review review = reviews.get(id);
+                if (review == entry.getValue()) {
+                    reviews.remove(id);
+                    persistence.evict(REVIEWS, id);
+                    removed++;
+                } else if (review == null) {
+                    // Deleted meanwhile: drop the copy just archived
+                    persistence.delete(REVIEWS, id);
+                }
+                // Changed meanwhile: it stays live, in memory and in the engine
+            } finally {
+                lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    private static Instant closedAt(Review review) {
+        if (review.getApprovedAt() != null) {
+            return review.getApprovedAt();
+        }
+        if (review.getRejectedAt() != null) {
+            return review.getRejectedAt();
+        }
+        return review.getUpdatedAt() != null ? review.getUpdatedAt() : review.getCreatedAt();
+    }
+
+    /**
+     * Swap in the next review and record it; called under its lock. If the
+     * engine rejects it, the previous review (or absence) is restored, since a
+     * restart would lose it.
+     */
+    private void store(String id, Review previous, Review next) {
+        reviews.put(id, next);
+        try {
+            persistence.put(REVIEWS, id, next);
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                reviews.put(id, previous);
+            } else {
+                reviews.remove(id);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A copy that can be changed without affecting the original: comments and
+     * reviewers are copied too, the content is replaced rather than changed.
+     */
+    private static Review copy(Review source) {
+        return source.toBuilder()
+                .reviewers(source.getReviewers() != null
+                        ? source.getReviewers().stream().map(r -> r.toBuilder().build())
+                                .collect(Collectors.toCollection(ArrayList::new))
+                        : new ArrayList<>())
+                .comments(source.getComments() != null
+                        ? source.getComments().stream().map(c -> c.toBuilder().build())
+                                .collect(Collectors.toCollection(ArrayList::new))
+                        : new ArrayList<>())
+                .build();
+    }
+
+    private ReentrantLock lockFor(String id) {
+        return locks[(id.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    private List<ContentVersion> versionsOf(String contentId) {
+        List<ContentVersion> versions = contentVersions.getOrDefault(contentId, Collections.emptyList());
+        synchronized (versions) {
+            return new ArrayList<>(versions);
+        }
+    }
+
+    /**
+     * Add a version unless one with the same id is already present.
+     *
+     * @return Whether it was added
+     */
+    private boolean addVersion(ContentVersion version) {
+        List<ContentVersion> versions = contentVersions.computeIfAbsent(version.getContentId(),
+                k -> Collections.synchronizedList(new ArrayList<>()));
+        synchronized (versions) {
+            if (version.getId() == null || versions.stream().noneMatch(v -> version.getId().equals(v.getId()))) {
+                return versions.add(version);
+            }
+            return false;
+        }
+    }
 }
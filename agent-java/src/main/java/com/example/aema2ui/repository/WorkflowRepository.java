@@ -0,0 +1,494 @@
+package com.example.aema2ui.repository;
+
+import com.example.aema2ui.model.WorkflowInstance;
+import com.example.aema2ui.model.WorkflowStatus;
+import com.example.aema2ui.repository.persistence.PersistenceEngine;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-memory store for workflow instances with secondary indexes.
+ *
+ * Stored instances are never mutated: an update applies the change to a copy
+ * and swaps it in with version + 1, so readers always see a consistent
+ * instance and a failed transition leaves nothing half-applied. Updates to
+ * the same instance are serialized by a striped lock (ReentrantLock, so
+ * virtual threads are not pinned); callers may pass the version they last
+ * read and get a VersionConflictException if it changed since.
+ *
+ * Indexes: contentId, status and start time, each ordered newest first, so
+ * listings are paginated without scanning or sorting every instance.
+ *
+ * Every change is reported to the PersistenceEngine under the instance's lock,
+ * so the engine sees the changes to one instance in the order they happened,
+ * and instances are restored from it on startup. A change is applied before
+ * it is reported (snapshots rely on that order) and rolled back if reporting
+ * it fails, so the caller's error leaves the previous version in place.
+ *
+ * Finished instances can be archived to keep memory bounded: they leave the
+ * indexes and listings, and findById reads them back from the archive.
+ */
+@Repository
+public class WorkflowRepository {
+
+    /** Matches any current version */
+    public static final long ANY_VERSION = -1;
+
+    private static final int LOCK_STRIPES = 64;
+    private static final String COLLECTION = "workflow";
+
+    /**
+     * Index key: newest first, ties broken by id.
+     */
+    private record TimeKey(Instant startedAt, String id) implements Comparable<TimeKey> {
+
+        static TimeKey of(WorkflowInstance instance) {
+            return new TimeKey(instance.getStartedAt() != null ? instance.getStartedAt() : Instant.EPOCH,
+                    instance.getId());
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+            int byTime = other.startedAt.compareTo(startedAt);
+            return byTime != 0 ? byTime : id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * One page of a listing.
+     *
+     * @param total Number of instances matching the filter
+     */
+    public record Page(List<WorkflowInstance> items, int total) {}
+
+    private final Map<String, WorkflowInstance> instances = new ConcurrentHashMap<>();
+    private final NavigableSet<TimeKey> byTime = new ConcurrentSkipListSet<>();
+    private final Map<String, NavigableSet<TimeKey>> byContentId = new ConcurrentHashMap<>();
+    private final Map<WorkflowStatus, NavigableSet<TimeKey>> byStatus = new EnumMap<>(WorkflowStatus.class);
+    private final Map<WorkflowStatus, AtomicInteger> statusCounts = new EnumMap<>(WorkflowStatus.class);
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final PersistenceEngine persistence;
+
+    public WorkflowRepository(PersistenceEngine persistence) {
+        this.persistence = persistence;
+        for (WorkflowStatus status : WorkflowStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>());
+            statusCounts.put(status, new AtomicInteger());
+        }
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        persistence.register(COLLECTION, WorkflowInstance.class, new PersistenceEngine.Handler<>() {
+            @Override
+            public void restore(String id, WorkflowInstance instance) {
+                apply(id, instance);
+            }
+
+            @Override
+            public void remove(String id) {
+                apply(id, null);
+            }
+
+            @Override
+            public void forEach(BiConsumer<String, Object> sink) {
+                instances.forEach(sink);
+            }
+        });
+    }
+
+    /**
+     * Store a new instance (version 1), or replace an existing one regardless of version.
+     */
+    public WorkflowInstance save(WorkflowInstance instance) {
+        return save(instance, stored -> {});
+    }
+
+    /**
+     * Store an instance as save(instance) does, then pass the stored version
+     * to onStored while still holding the instance's lock, so callbacks for
+     * one instance run in version order.
+     */
+    public WorkflowInstance save(WorkflowInstance instance, Consumer<WorkflowInstance> onStored) {
+        ReentrantLock lock = lockFor(instance.getId());
+        lock.lock();
+        try {
+            WorkflowInstance stored = copy(instance);
+            WorkflowInstance previous = instances.get(instance.getId());
+            stored.setVersion(previous != null ? previous.getVersion() + 1 : 1);
+            store(stored.getId(), previous, stored);
+            onStored.accept(stored);
+            return stored;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply a change to a copy of the instance and store it as the next version.
+     *
+     * @param expectedVersion Version the caller based the change on, or ANY_VERSION
+     * @param change          Mutates the copy; an exception aborts the update
+     * @return The stored new version
+     * @throws IllegalArgumentException if the instance does not exist
+     * @throws VersionConflictException if the instance is no longer at expectedVersion
+     */
+    public WorkflowInstance update(String id, long expectedVersion, Consumer<WorkflowInstance> change) {
+        return update(id, expectedVersion, change, stored -> {});
+    }
+
+    /**
+     * Apply a change as update(id, expectedVersion, change) does, then pass
+     * the stored version to onStored while still holding the instance's lock,
+     * so callbacks for one instance run in version order.
+     */
+    public WorkflowInstance update(String id, long expectedVersion, Consumer<WorkflowInstance> change,
+                                   Consumer<WorkflowInstance> onStored) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            WorkflowInstance current = instances.get(id);
+            if (current == null) {
+                current = reinstate(id);
+            }
+            if (expectedVersion != ANY_VERSION && current.getVersion() != expectedVersion) {
+                throw new VersionConflictException(id, expectedVersion, current.getVersion());
+            }
+            WorkflowInstance updated = copy(current);
+            change.accept(updated);
+            updated.setId(id);
+            updated.setVersion(current.getVersion() + 1);
+            store(id, current, updated);
+            onStored.accept(updated);
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The instance with this id, read from the archive if it is no longer in memory.
+     */
+    public Optional<WorkflowInstance> findById(String id) {
+        WorkflowInstance instance = instances.get(id);
+        return instance != null ? Optional.of(instance)
+                : persistence.findArchived(COLLECTION, id, WorkflowInstance.class);
+    }
+
+    /**
+     * Instances for a content item, newest first.
+     */
+    public List<WorkflowInstance> findByContentId(String contentId) {
+        return resolve(byContentId.getOrDefault(contentId, Collections.emptyNavigableSet()), null, 0, Integer.MAX_VALUE)
+                .items();
+    }
+
+    /**
+     * A page of instances, newest first, optionally filtered by content id and status.
+     */
+    public Page find(String contentId, WorkflowStatus status, int offset, int limit) {
+        if (contentId != null) {
+            return resolve(byContentId.getOrDefault(contentId, Collections.emptyNavigableSet()), status, offset, limit);
+        }
+        if (status != null) {
+            return resolve(byStatus.get(status), status, offset, limit, statusCounts.get(status).get());
+        }
+        return resolve(byTime, null, offset, limit, instances.size());
+    }
+
+    /**
+     * All instances, newest first.
+     */
+    public List<WorkflowInstance> findAll() {
+        return find(null, null, 0, Integer.MAX_VALUE).items();
+    }
+
+    public int count() {
+        return instances.size();
+    }
+
+    /**
+     * Number of instances per status.
+     */
+    public Map<WorkflowStatus, Integer> countByStatus() {
+        Map<WorkflowStatus, Integer> counts = new EnumMap<>(WorkflowStatus.class);
+        statusCounts.forEach((status, count) -> counts.put(status, count.get()));
+        return counts;
+    }
+
+    public void deleteById(String id) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            WorkflowInstance removed = instances.remove(id);
+            if (removed != null) {
+                reindex(removed, null);
+            }
+            if (removed != null || persistence.isArchived(COLLECTION, id)) {
+                persistence.delete(COLLECTION, id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        instances.keySet().forEach(this::deleteById);
+    }
+
+    /**
+     * Archive instances in a status that finished (or started, if never
+     * finished) before cutoff, or that are beyond the newest maxCount by start
+     * time. Runs in batches; an instance changed while its batch was written
+     * stays in memory.
+     *
+     * @param cutoff   Archive instances finished before this; null = no age limit
+     * @param maxCount Instances to keep in this status; negative = no count limit
+     * @return Number of instances archived
+     */
+    public int archive(WorkflowStatus status, Instant cutoff, int maxCount, int batchSize) {
+        int archived = 0;
+        Map<String, WorkflowInstance> batch = new LinkedHashMap<>();
+        int position = 0;
+        for (WorkflowInstance instance : resolve(byStatus.get(status), status, 0, Integer.MAX_VALUE).items()) {
+            boolean overCount = maxCount >= 0 && position++ >= maxCount;
+            Instant finishedAt = instance.getCompletedAt() != null ? instance.getCompletedAt() : instance.getStartedAt();
+            boolean expired = cutoff != null && finishedAt != null && finishedAt.isBefore(cutoff);
+            if (overCount || expired) {
+                batch.put(instance.getId(), instance);
+                if (batch.size() >= batchSize) {
+                    archived += archiveBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return archived + archiveBatch(batch);
+    }
+
+    /**
+     * A sample of up to limit in-memory instances, for size estimates.
+     */
+    public List<WorkflowInstance> sample(int limit) {
+        return instances.values().stream().limit(limit).toList();
+    }
+
+    /**
+     * Persistence engine statistics.
+     */
+    public Map<String, Object> getPersistenceStats() {
+        return persistence.getStats();
+    }
+
+    private int archiveBatch(Map<String, WorkflowInstance> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        persistence.archive(COLLECTION, new LinkedHashMap<>(batch));
+        int removed = 0;
+        for (Map.Entry<String, WorkflowInstance> entry : batch.entrySet()) {
+            String id = entry.getKey();
+            ReentrantLock lock = lockFor(id);
+            lock.lock();
+            try {
+                WorkflowInstance current = instances.get(id);
+                if (current == entry.getValue()) {
+                    instances.remove(id);
+                    reindex(current, null);
+                    persistence.evict(COLLECTION, id);
+                    removed++;
+                } else if (current == null) {
+                    // Deleted meanwhile: drop the copy just archived
+                    persistence.delete(COLLECTION, id);
+                }
+                // Updated meanwhile: it stays live, in memory and in the engine
+            } finally {
+                lock.unlock();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Move an archived instance back into memory for an update; called under its lock.
+     */
+    private WorkflowInstance reinstate(String id) {
+        WorkflowInstance archived = persistence.findArchived(COLLECTION, id, WorkflowInstance.class)
+                .orElseThrow(() -> new IllegalArgumentException("Workflow not found: " + id));
+        store(id, null, archived);
+        return archived;
+    }
+
+    /**
+     * Swap in the next version and record it; called under its lock. If the
+     * engine rejects it, the previous version (or absence) is restored.
+     */
+    private void store(String id, WorkflowInstance previous, WorkflowInstance next) {
+        instances.put(id, next);
+        reindex(previous, next);
+        try {
+            persistence.put(COLLECTION, id, next);
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                instances.put(id, previous);
+            } else {
+                instances.remove(id);
+            }
+            reindex(next, previous);
+            throw e;
+        }
+    }
+
+    /**
+     * Apply a recovered instance (or its removal, when null) without reporting it.
+     */
+    private void apply(String id, WorkflowInstance instance) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            WorkflowInstance previous = instance != null ? instances.put(id, instance) : instances.remove(id);
+            if (previous != null || instance != null) {
+                reindex(previous, instance);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move an instance between index entries; called under its lock. Entries
+     * are added before stale ones are removed, so a concurrent listing never
+     * misses the instance; resolve skips the stale entries it may still see.
+     */
+    private void reindex(WorkflowInstance previous, WorkflowInstance current) {
+        TimeKey oldKey = previous != null ? TimeKey.of(previous) : null;
+        TimeKey newKey = current != null ? TimeKey.of(current) : null;
+        String oldContentId = previous != null ? String.valueOf(previous.getContentId()) : null;
+        String newContentId = current != null ? String.valueOf(current.getContentId()) : null;
+        WorkflowStatus oldStatus = previous != null ? previous.getStatus() : null;
+        WorkflowStatus newStatus = current != null ? current.getStatus() : null;
+        boolean keyChanged = !Objects.equals(oldKey, newKey);
+
+        if (keyChanged) {
+            if (newKey != null) {
+                byTime.add(newKey);
+            }
+            if (oldKey != null) {
+                byTime.remove(oldKey);
+            }
+        }
+        if (keyChanged || !Objects.equals(oldContentId, newContentId)) {
+            if (newKey != null) {
+                byContentId.computeIfAbsent(newContentId, contentId -> new ConcurrentSkipListSet<>()).add(newKey);
+            }
+            if (oldKey != null) {
+                // Drop the set once empty; atomic per content id, so a concurrent add is never lost
+                byContentId.computeIfPresent(oldContentId, (contentId, keys) -> {
+                    keys.remove(oldKey);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+        }
+        if (keyChanged || oldStatus != newStatus) {
+            if (newStatus != null && byStatus.get(newStatus).add(newKey)) {
+                statusCounts.get(newStatus).incrementAndGet();
+            }
+            if (oldStatus != null && byStatus.get(oldStatus).remove(oldKey)) {
+                statusCounts.get(oldStatus).decrementAndGet();
+            }
+        }
+    }
+
+    private Page resolve(NavigableSet<TimeKey> keys, WorkflowStatus status, int offset, int limit) {
+        return resolve(keys, status, offset, limit, -1);
+    }
+
+    /**
+     * Resolve index keys to instances, skipping offset matches.
+     *
+     * @param knownTotal Size of the key set when already known without counting, else -1
+     */
+    private Page resolve(NavigableSet<TimeKey> keys, WorkflowStatus status, int offset, int limit, int knownTotal) {
+        List<WorkflowInstance> items = new ArrayList<>(Math.min(Math.max(limit, 0), 256));
+        int matched = 0;
+        for (TimeKey key : keys) {
+            WorkflowInstance instance = instances.get(key.id());
+            // Skip entries left behind by a concurrent update or delete
+            if (instance == null || !key.equals(TimeKey.of(instance))
+                    || (status != null && instance.getStatus() != status)) {
+                continue;
+            }
+            if (matched >= offset && items.size() < limit) {
+                items.add(instance);
+            }
+            matched++;
+            if (knownTotal >= 0 && items.size() >= limit) {
+                return new Page(items, knownTotal);
+            }
+        }
+        return new Page(items, matched);
+    }
+
+    private ReentrantLock lockFor(String id) {
+        return locks[(id.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    /**
+     * Copy deep enough that changes to the copy never touch the stored instance.
+     */
+    private static WorkflowInstance copy(WorkflowInstance source) {
+        List<WorkflowInstance.WorkflowStep> steps = new ArrayList<>();
+        if (source.getSteps() != null) {
+            for (WorkflowInstance.WorkflowStep step : source.getSteps()) {
+                steps.add(WorkflowInstance.WorkflowStep.builder()
+                        .id(step.getId())
+                        .name(step.getName())
+                        .status(step.getStatus())
+                        .assignee(step.getAssignee())
+                        .startedAt(step.getStartedAt())
+                        .completedAt(step.getCompletedAt())
+                        .comment(step.getComment())
+                        .build());
+            }
+        }
+        return WorkflowInstance.builder()
+                .id(source.getId())
+                .version(source.getVersion())
+                .workflowModelId(source.getWorkflowModelId())
+                .workflowModelName(source.getWorkflowModelName())
+                .contentId(source.getContentId())
+                .contentPath(source.getContentPath())
+                .status(source.getStatus())
+                .currentStep(source.getCurrentStep())
+                .currentStepIndex(source.getCurrentStepIndex())
+                .steps(steps)
+                .initiatedBy(source.getInitiatedBy())
+                .startedAt(source.getStartedAt())
+                .completedAt(source.getCompletedAt())
+                .metadata(source.getMetadata() != null ? new HashMap<>(source.getMetadata()) : null)
+                .build();
+    }
+
+    /**
+     * Thrown when an update was based on an outdated version of the instance.
+     */
+    public static class VersionConflictException extends RuntimeException {
+
+        private final long currentVersion;
+
+        public VersionConflictException(String id, long expectedVersion, long currentVersion) {
+            super("Workflow " + id + " is at version " + currentVersion + ", not " + expectedVersion);
+            this.currentVersion = currentVersion;
+        }
+
+        public long getCurrentVersion() {
+            return currentVersion;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.aema2ui.repository.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only file of entities moved out of memory, readable by id.
+ *
+ * Only the id and file offset of each entry stay in memory; payloads are
+ * deflate-compressed on disk and read back on demand. Overwrites and removals
+ * append a new record, and the file is rewritten with only live entries once
+ * more than half of it is garbage.
+ *
+ * Record layout (big-endian):
+ * <pre>
+ *   length  int   body length
+ *   crc     int   CRC32C of the body
+ *   body    flags byte (1 = removed), id (short length + UTF-8),
+ *           raw length int, deflated payload
+ * </pre>
+ */
+@Slf4j
+public class Archive implements Closeable {
+
+    private static final int RECORD_HEADER = 8;
+    private static final byte REMOVED = 1;
+    private static final long MIN_COMPACT_BYTES = 1024 * 1024;
+
+    private final Path file;
+    private final Map<String, Long> offsets = new ConcurrentHashMap<>();
+    // Writers and compaction take the write lock; reads only need the channel not to be swapped
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private long size;
+    private long liveBytes;
+
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    private Archive(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Open or create an archive file and index its entries. A damaged tail,
+     * left by a crash during a write, is truncated.
+     */
+    public static Archive open(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Archive archive = new Archive(file);
+        archive.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        archive.scan();
+        return archive;
+    }
+
+    /**
+     * Write entities and force them to disk. An existing entry with the same id is replaced.
+     */
+    public void putAll(Map<String, byte[]> payloads) throws IOException {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Map<String, Long> written = new LinkedHashMap<>();
+            for (Map.Entry<String, byte[]> entry : payloads.entrySet()) {
+                written.put(entry.getKey(), size + out.size());
+                out.writeBytes(encode(entry.getKey(), entry.getValue(), false));
+            }
+            long start = size;
+            append(out.toByteArray());
+            for (Map.Entry<String, Long> entry : written.entrySet()) {
+                Long previous = offsets.put(entry.getKey(), entry.getValue());
+                if (previous != null && previous < start) {
+                    liveBytes -= recordLength(previous);
+                }
+            }
+            liveBytes += size - start;
+            writes.addAndGet(payloads.size());
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Decompressed payload of an entry, or null if the id is not archived.
+     */
+    public byte[] get(String id) throws IOException {
+        lock.readLock().lock();
+        try {
+            Long offset = offsets.get(id);
+            if (offset == null) {
+                return null;
+            }
+            reads.incrementAndGet();
+            return decodePayload(readRecord(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        return offsets.containsKey(id);
+    }
+
+    /**
+     * Remove an entry, durably.
+     */
+    public void remove(String id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Long offset = offsets.remove(id);
+            if (offset == null) {
+                return;
+            }
+            liveBytes -= recordLength(offset);
+            append(encode(id, new byte[0], true));
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int count() {
+        return offsets.size();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", offsets.size());
+        lock.readLock().lock();
+        try {
+            stats.put("fileBytes", size);
+            stats.put("liveBytes", liveBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("reads", reads.get());
+        stats.put("writes", writes.get());
+        stats.put("compactions", compactions.get());
+        return stats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void append(byte[] records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        long position = size;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+        size = position;
+    }
+
+    /**
+     * Rewrite the file with only live entries once most of it is garbage.
+     */
+    private void compactIfWasteful() throws IOException {
+        if (size < MIN_COMPACT_BYTES || liveBytes * 2 > size) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Long> moved = new LinkedHashMap<>();
+        long position = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+                ByteBuffer record = readRecord(entry.getValue());
+                moved.put(entry.getKey(), position);
+                while (record.hasRemaining()) {
+                    position += out.write(record, position);
+                }
+            }
+            out.force(false);
+        }
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsets.putAll(moved);
+        size = position;
+        liveBytes = position;
+        compactions.incrementAndGet();
+        log.info("Compacted archive {} to {} entries, {} bytes", file.getFileName(), moved.size(), position);
+    }
+
+    private void scan() throws IOException {
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".tmp"));
+        long fileSize = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        CRC32C crc = new CRC32C();
+        while (position + RECORD_HEADER <= fileSize) {
+            header.clear();
+            channel.read(header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || position + RECORD_HEADER + length > fileSize) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            channel.read(body, position + RECORD_HEADER);
+            crc.reset();
+            crc.update(body.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            String id = readId(body);
+            Long previous = body.get(0) == REMOVED ? offsets.remove(id) : offsets.put(id, position);
+            if (previous != null) {
+                liveBytes -= recordLength(previous);
+            }
+            if (body.get(0) != REMOVED) {
+                liveBytes += RECORD_HEADER + length;
+            }
+            position += RECORD_HEADER + length;
+        }
+        if (position < fileSize) {
+            log.warn("Archive {}: truncating {} damaged bytes at offset {}", file.getFileName(),
+                fileSize - position, position);
+            channel.truncate(position);
+        }
+        size = position;
+    }
+
+    private ByteBuffer readRecord(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(header, offset);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + header.getInt(0));
+        readFully(record, offset);
+        record.flip();
+        return record;
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of archive " + file.getFileName() + " at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private long recordLength(long offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            readFully(header, offset);
+            return RECORD_HEADER + header.getInt(0);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static byte[] encode(String id, byte[] payload, boolean removed) {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = deflate(payload);
+        ByteBuffer body = ByteBuffer.allocate(1 + 2 + idBytes.length + 4 + deflated.length);
+        body.put(removed ? REMOVED : 0)
+            .putShort((short) idBytes.length).put(idBytes)
+            .putInt(payload.length).put(deflated);
+        CRC32C crc = new CRC32C();
+        crc.update(body.array());
+        return ByteBuffer.allocate(RECORD_HEADER + body.capacity())
+            .putInt(body.capacity())
+            .putInt((int) crc.getValue())
+            .put(body.array())
+            .array();
+    }
+
+    private static String readId(ByteBuffer body) {
+        byte[] id = new byte[body.getShort(1)];
+        body.get(3, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] decodePayload(ByteBuffer record) throws IOException {
+        int idLength = record.getShort(RECORD_HEADER + 1);
+        int rawStart = RECORD_HEADER + 3 + idLength;
+        byte[] raw = new byte[record.getInt(rawStart)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(record.array(), rawStart + 4, record.limit() - rawStart - 4);
+            int inflated = inflater.inflate(raw);
+            if (inflated != raw.length) {
+                throw new IOException("Archive payload is shorter than recorded");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,750 @@
+package com.example.aema2ui.repository.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of keyed state changes, with snapshots.
+ *
+ * Callers append entries to a bounded queue and return; sequence numbers are
+ * assigned in queue order. A single writer thread drains the queue into
+ * memory-mapped segment files and forces each batch to disk once (group
+ * commit), or at most once per fsyncIntervalMillis when that is set. Entries
+ * are durable once written; flush() waits for that.
+ *
+ * If a write or force fails, the writer keeps the unwritten entries and
+ * retries them; appends are rejected until a force succeeds again, so no
+ * caller is told an entry was accepted that the writer has given up on.
+ *
+ * A snapshot stores every live entity at a sequence number; recovery loads the
+ * newest snapshot and replays only later entries. Segments that a snapshot
+ * covers completely are deleted after it is written.
+ *
+ * Record layout (big-endian), in segments and snapshots:
+ * <pre>
+ *   length  int   body length; 0 marks the end of a segment
+ *   crc     int   CRC32C of the body
+ *   body    seq long, op byte, collection (short length + UTF-8),
+ *           id (short length + UTF-8), payload (int length + bytes)
+ * </pre>
+ * A record that fails its CRC at the end of the last segment is a torn write
+ * from a crash; it is zeroed and appending continues there.
+ *
+ * A journal holds an exclusive lock on its directory while open, so a second
+ * process (or a second journal in this JVM) cannot append to the same segments.
+ */
+@Slf4j
+public class Journal implements Closeable {
+
+    public static final byte PUT = 1;
+    public static final byte DELETE = 2;
+
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snap";
+    static final String LOCK_FILE = "journal.lock";
+    private static final int SNAPSHOT_MAGIC = 0x534e4150; // "SNAP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_BATCH = 1024;
+    private static final long RETRY_BACKOFF_MILLIS = 500;
+
+    /**
+     * One journal entry. Snapshot entries carry the snapshot's sequence number.
+     */
+    public record Entry(long seq, byte op, String collection, String id, byte[] payload) {}
+
+    /**
+     * Receives the entities of a snapshot being written.
+     */
+    public interface SnapshotSink {
+        void put(String collection, String id, byte[] payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long fsyncIntervalMillis;
+    private final BlockingQueue<Entry> queue;
+    private FileChannel lockChannel;
+    private FileLock directoryLock;
+
+    // Sequence numbers are assigned and queued atomically, so the queue is in seq order.
+    // A ReentrantLock rather than a monitor: put() may block, and must not pin a virtual thread's carrier.
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private long nextSeq = 1;
+
+    // Segment files by first sequence number; guarded by itself
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    // Writer thread state
+    private Segment current;
+    private long lastForceMillis;
+    private long unforcedSeq;
+
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableAdvanced = durableLock.newCondition();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile long durableSeq;
+    private volatile boolean flushRequested;
+    private volatile boolean closed;
+    private volatile Throwable writerFailure;
+    private Thread writer;
+    private volatile long lastSnapshotSeq;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong forces = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+    private volatile long recoveredEntries;
+    private volatile long recoveryMillis;
+    private volatile long lastSnapshotMillis;
+
+    /**
+     * @param fsyncIntervalMillis 0 forces every batch; otherwise at most once per interval
+     */
+    public Journal(Path directory, long segmentBytes, int queueCapacity, long fsyncIntervalMillis) {
+        this.directory = directory;
+        this.segmentBytes = Math.max(64 * 1024, Math.min(segmentBytes, Integer.MAX_VALUE));
+        this.fsyncIntervalMillis = Math.max(0, fsyncIntervalMillis);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * Load the newest snapshot and replay the entries after it, then start the
+     * writer. Must be called once, before append.
+     *
+     * @param sink Receives snapshot entities first, then journal entries in order
+     * @return The last recovered sequence number
+     * @throws IOException if the directory is locked by another journal, or cannot be read
+     */
+    public long recover(Consumer<Entry> sink) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        lockDirectory();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(sequenceOf(name, SEGMENT_PREFIX, SEGMENT_SUFFIX), file);
+                }
+            }
+        }
+
+        long count = 0;
+        long snapshotSeq = 0;
+        for (Path snapshot : snapshotFiles().descendingMap().values()) {
+            try {
+                List<Entry> entries = readSnapshot(snapshot);
+                snapshotSeq = sequenceOf(snapshot.getFileName().toString(), SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                entries.forEach(sink);
+                count += entries.size();
+                break;
+            } catch (IOException e) {
+                log.error("Skipping unreadable journal snapshot {}: {}", snapshot, e.getMessage());
+            }
+        }
+
+        long lastSeq = snapshotSeq;
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            boolean isLast = segment == last || segment.getKey().equals(last.getKey());
+            Scan scan = scanSegment(segment.getValue(), snapshotSeq, lastSeq, sink, isLast);
+            count += scan.entries;
+            lastSeq = Math.max(lastSeq, scan.lastSeq);
+            if (isLast) {
+                current = scan.segment;
+            }
+        }
+
+        nextSeq = lastSeq + 1;
+        durableSeq = lastSeq;
+        unforcedSeq = lastSeq;
+        lastSnapshotSeq = snapshotSeq;
+        recoveredEntries = count;
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Journal recovered {} entries (snapshot at {}, last seq {}) from {} in {}ms",
+            count, snapshotSeq, lastSeq, directory, recoveryMillis);
+
+        writer = Thread.ofPlatform().name("journal-writer").daemon().start(this::writeLoop);
+        return lastSeq;
+    }
+
+    /**
+     * Take the directory lock, failing fast if another journal holds it.
+     */
+    private void lockDirectory() throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal in this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Journal directory " + directory + " is in use by another journal");
+        }
+        lockChannel = channel;
+        directoryLock = lock;
+    }
+
+    /**
+     * Queue an entry for writing. Blocks only while the queue is full.
+     *
+     * @return The entry's sequence number
+     * @throws IllegalStateException if the journal is closed or the writer is failing
+     */
+    public long append(byte op, String collection, String id, byte[] payload) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        Throwable failure = writerFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Journal writer is failing: " + failure.getMessage(), failure);
+        }
+        // Reject keys the writer could not encode here, rather than failing its batch
+        checkKey(collection, id);
+        appendLock.lock();
+        try {
+            long seq = nextSeq++;
+            try {
+                queue.put(new Entry(seq, op, collection, id, payload != null ? payload : new byte[0]));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                nextSeq--;
+                throw new IllegalStateException("Interrupted while appending to journal", e);
+            }
+            appended.incrementAndGet();
+            return seq;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Sequence number of the last appended entry.
+     */
+    public long lastSeq() {
+        appendLock.lock();
+        try {
+            return nextSeq - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Wait until every entry appended so far is on disk.
+     *
+     * @return Whether that happened within the timeout; false at once while the writer is failing
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long target = lastSeq();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        durableLock.lock();
+        try {
+            while (durableSeq < target && writerFailure == null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                flushRequested = true;
+                durableAdvanced.await(Math.min(remaining, 50), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            durableLock.unlock();
+        }
+        return durableSeq >= target;
+    }
+
+    /**
+     * Write a snapshot of all live entities and delete the segments and older
+     * snapshots it makes redundant. The writer keeps running meanwhile.
+     *
+     * Entities must reflect at least every entry up to the returned sequence
+     * number; the caller reads them after this method has taken it, and since
+     * entries are appended after the change they describe, that holds. Newer
+     * state in the snapshot is fine: replaying the later entries converges.
+     *
+     * @param source Writes every live entity to the sink
+     * @return The snapshot's sequence number
+     */
+    public long snapshot(Consumer<SnapshotSink> source) throws IOException {
+        snapshotLock.lock();
+        try {
+            return writeSnapshot(source);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private long writeSnapshot(Consumer<SnapshotSink> source) throws IOException {
+        long start = System.nanoTime();
+        long seq = lastSeq();
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, seq, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(seq);
+            CRC32C crc = new CRC32C();
+            try {
+                source.accept((collection, id, payload) -> {
+                    byte[] body = encodeBody(new Entry(seq, PUT, collection, id, payload));
+                    crc.reset();
+                    crc.update(body);
+                    out.writeInt(body.length);
+                    out.writeInt((int) crc.getValue());
+                    out.write(body);
+                });
+            } catch (UncheckedSnapshotException e) {
+                throw e.getCause();
+            }
+            out.writeInt(0);
+            out.flush();
+            file.getChannel().force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        lastSnapshotSeq = seq;
+        snapshots.incrementAndGet();
+        lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        compact(seq);
+        return seq;
+    }
+
+    /**
+     * Journal size, throughput and recovery statistics.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("directory", directory.toString());
+        stats.put("lastSeq", lastSeq());
+        stats.put("durableSeq", durableSeq);
+        stats.put("queued", queue.size());
+        long batchCount = batches.get();
+        stats.put("appended", appended.get());
+        stats.put("batches", batchCount);
+        stats.put("averageBatchSize", batchCount > 0 ? Math.round(appended.get() * 10.0 / batchCount) / 10.0 : 0.0);
+        stats.put("fsyncs", forces.get());
+        stats.put("bytesWritten", bytesWritten.get());
+        synchronized (segments) {
+            stats.put("segments", segments.size());
+        }
+        stats.put("snapshots", snapshots.get());
+        stats.put("lastSnapshotSeq", lastSnapshotSeq);
+        stats.put("lastSnapshotMillis", lastSnapshotMillis);
+        stats.put("recoveredEntries", recoveredEntries);
+        stats.put("recoveryMillis", recoveryMillis);
+        stats.put("writerFailure", writerFailure != null ? String.valueOf(writerFailure.getMessage()) : null);
+        return stats;
+    }
+
+    /**
+     * Stop accepting entries, write and force what is queued, and stop the writer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (lockChannel != null) {
+            try {
+                // Closing the channel releases the directory lock
+                lockChannel.close();
+            } catch (IOException e) {
+                log.warn("Failed to release journal lock in {}: {}", directory, e.getMessage());
+            }
+            lockChannel = null;
+            directoryLock = null;
+        }
+    }
+
+    // ---- Writer ----
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    Entry first = queue.poll(fsyncIntervalMillis > 0 ? Math.min(fsyncIntervalMillis, 100) : 100,
+                        TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (unforcedSeq > durableSeq || writerFailure != null) {
+                            force();
+                        }
+                        if (closed && queue.isEmpty()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+                // A batch left over from a failure is retried from its first unwritten entry
+                writeBatch(batch);
+                batches.incrementAndGet();
+
+                if (fsyncIntervalMillis == 0 || flushRequested || closed || writerFailure != null
+                        || System.currentTimeMillis() - lastForceMillis >= fsyncIntervalMillis) {
+                    force();
+                }
+            } catch (InterruptedException e) {
+                if (closed) {
+                    break;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (writerFailure == null) {
+                    log.error("Journal write failed, retrying {} entries: {}", batch.size(), e.getMessage(), e);
+                }
+                writerFailure = e;
+                signalDurable();
+                if (closed) {
+                    log.error("Journal closed with {} entries unwritten", batch.size() + queue.size());
+                    break;
+                }
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    // close() is checked on the next pass
+                }
+            }
+        }
+        try {
+            force();
+        } catch (IOException e) {
+            log.error("Final journal fsync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Write the batch, removing the entries that made it into the segment,
+     * so that after a failure only the rest are retried.
+     */
+    private void writeBatch(List<Entry> batch) throws IOException {
+        int written = 0;
+        try {
+            for (; written < batch.size(); written++) {
+                write(batch.get(written));
+            }
+        } finally {
+            if (written > 0) {
+                unforcedSeq = batch.get(written - 1).seq();
+                batch.subList(0, written).clear();
+            }
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        byte[] body = encodeBody(entry);
+        int needed = RECORD_HEADER + body.length;
+        // Leave room for the end marker
+        if (current == null || current.position + needed + 4 > current.buffer.capacity()) {
+            roll(entry.seq(), needed + 4);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        MappedByteBuffer buffer = current.buffer;
+        int pos = current.position;
+        buffer.put(pos + RECORD_HEADER, body);
+        buffer.putInt(pos + 4, (int) crc.getValue());
+        // Length last: a record is only visible once complete
+        buffer.putInt(pos, body.length);
+        current.position = pos + needed;
+        bytesWritten.addAndGet(needed);
+    }
+
+    private void roll(long firstSeq, int minBytes) throws IOException {
+        if (current != null) {
+            current.buffer.force();
+            forces.incrementAndGet();
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        long size = Math.max(segmentBytes, minBytes);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try (channel) {
+            current = new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), 0);
+        } catch (IOException e) {
+            // Leave no empty segment behind, so the retry can create it again
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        synchronized (segments) {
+            segments.put(firstSeq, file);
+        }
+    }
+
+    private void force() throws IOException {
+        if (current != null && unforcedSeq > durableSeq) {
+            current.buffer.force();
+            forces.incrementAndGet();
+        }
+        lastForceMillis = System.currentTimeMillis();
+        flushRequested = false;
+        if (writerFailure != null) {
+            log.info("Journal writes recovered at seq {}", unforcedSeq);
+            writerFailure = null;
+        }
+        durableLock.lock();
+        try {
+            durableSeq = Math.max(durableSeq, unforcedSeq);
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    private void signalDurable() {
+        durableLock.lock();
+        try {
+            durableAdvanced.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Delete older snapshots and segments whose entries all precede seq. The
+     * segment being written is kept.
+     */
+    private void compact(long seq) throws IOException {
+        for (Path older : snapshotFiles().headMap(seq).values()) {
+            Files.deleteIfExists(older);
+        }
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (segments) {
+            List<Map.Entry<Long, Path>> ordered = new ArrayList<>(segments.entrySet());
+            for (int i = 0; i + 1 < ordered.size(); i++) {
+                // Segment i ends right before the next one starts
+                if (ordered.get(i + 1).getKey() - 1 <= seq) {
+                    obsolete.add(ordered.get(i).getValue());
+                    segments.remove(ordered.get(i).getKey());
+                }
+            }
+        }
+        for (Path segment : obsolete) {
+            Files.deleteIfExists(segment);
+        }
+        if (!obsolete.isEmpty()) {
+            log.info("Journal compaction removed {} segments up to seq {}", obsolete.size(), seq);
+        }
+    }
+
+    // ---- Reading ----
+
+    private record Scan(long entries, long lastSeq, Segment segment) {}
+
+    /**
+     * Replay a segment's entries after skipUpTo. For the last segment, also
+     * map it for writing, positioned after its last valid record.
+     */
+    private Scan scanSegment(Path file, long skipUpTo, long previousSeq, Consumer<Entry> sink, boolean writable)
+            throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                0, channel.size());
+        }
+        long entries = 0;
+        long lastSeq = previousSeq;
+        int pos = 0;
+        CRC32C crc = new CRC32C();
+        while (pos + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length == 0) {
+                break;
+            }
+            Entry entry = null;
+            if (length > 0 && pos + RECORD_HEADER + length <= buffer.capacity()) {
+                byte[] body = new byte[length];
+                buffer.get(pos + RECORD_HEADER, body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() == buffer.getInt(pos + 4)) {
+                    entry = decodeBody(body);
+                }
+            }
+            if (entry == null || entry.seq() <= lastSeq && entry.seq() > skipUpTo) {
+                if (writable) {
+                    log.warn("Journal {}: discarding torn record at offset {}", file.getFileName(), pos);
+                    for (int i = pos; i < buffer.capacity() && i < pos + RECORD_HEADER + Math.max(0, length); i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                    buffer.force();
+                } else {
+                    log.error("Journal {}: corrupt record at offset {}, skipping rest of segment",
+                        file.getFileName(), pos);
+                }
+                break;
+            }
+            if (entry.seq() > skipUpTo) {
+                sink.accept(entry);
+                entries++;
+            }
+            lastSeq = Math.max(lastSeq, entry.seq());
+            pos += RECORD_HEADER + length;
+        }
+        return new Scan(entries, lastSeq, writable ? new Segment(file, buffer, pos) : null);
+    }
+
+    private static List<Entry> readSnapshot(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < 16 || buffer.getInt(0) != SNAPSHOT_MAGIC || buffer.getInt(4) != SNAPSHOT_VERSION) {
+            throw new IOException("Not a journal snapshot");
+        }
+        List<Entry> entries = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        int pos = 16;
+        while (true) {
+            if (pos + 4 > buffer.capacity()) {
+                throw new IOException("Truncated snapshot");
+            }
+            int length = buffer.getInt(pos);
+            if (length == 0) {
+                return entries;
+            }
+            if (length < 0 || pos + RECORD_HEADER + length > buffer.capacity()) {
+                throw new IOException("Corrupt snapshot record at offset " + pos);
+            }
+            byte[] body = new byte[length];
+            buffer.get(pos + RECORD_HEADER, body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                throw new IOException("Snapshot checksum mismatch at offset " + pos);
+            }
+            entries.add(decodeBody(body));
+            pos += RECORD_HEADER + length;
+        }
+    }
+
+    private TreeMap<Long, Path> snapshotFiles() throws IOException {
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+                    snapshots.put(sequenceOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX), file);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    private static long sequenceOf(String name, String prefix, String suffix) {
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    // ---- Encoding ----
+
+    private static void checkKey(String collection, String id) {
+        if (collection.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE
+                || id.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal key too long: " + collection + "/" + id);
+        }
+    }
+
+    static byte[] encodeBody(Entry entry) {
+        byte[] collection = entry.collection().getBytes(StandardCharsets.UTF_8);
+        byte[] id = entry.id().getBytes(StandardCharsets.UTF_8);
+        if (collection.length > Short.MAX_VALUE || id.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal key too long: " + entry.collection() + "/" + entry.id());
+        }
+        ByteBuffer body = ByteBuffer.allocate(8 + 1 + 2 + collection.length + 2 + id.length + 4 + entry.payload().length);
+        body.putLong(entry.seq())
+            .put(entry.op())
+            .putShort((short) collection.length).put(collection)
+            .putShort((short) id.length).put(id)
+            .putInt(entry.payload().length).put(entry.payload());
+        return body.array();
+    }
+
+    static Entry decodeBody(byte[] bytes) {
+        ByteBuffer body = ByteBuffer.wrap(bytes);
+        long seq = body.getLong();
+        byte op = body.get();
+        byte[] collection = new byte[body.getShort()];
+        body.get(collection);
+        byte[] id = new byte[body.getShort()];
+        body.get(id);
+        byte[] payload = new byte[body.getInt()];
+        body.get(payload);
+        return new Entry(seq, op, new String(collection, StandardCharsets.UTF_8),
+            new String(id, StandardCharsets.UTF_8), payload);
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        Segment(Path file, MappedByteBuffer buffer, int position) {
+            this.file = file;
+            this.buffer = buffer;
+            this.position = position;
+        }
+    }
+
+    /**
+     * Carries an IOException out of a SnapshotSink used inside a Consumer.
+     */
+    public static class UncheckedSnapshotException extends RuntimeException {
+        public UncheckedSnapshotException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
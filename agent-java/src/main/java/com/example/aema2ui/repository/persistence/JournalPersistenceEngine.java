@@ -0,0 +1,288 @@
+package com.example.aema2ui.repository.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists repository changes to a {@link Journal}.
+ *
+ * Each put records the entity's full JSON, serialized on the calling thread;
+ * the journal writer makes it durable in the background, so a crash loses at
+ * most the changes not yet forced (see fsyncIntervalMillis). After every
+ * snapshotEveryEntries changes a snapshot is written on a separate thread and
+ * the journal segments before it are deleted, keeping replay short. A final
+ * snapshot is written on close.
+ *
+ * Archived entities go to one {@link Archive} file per collection under
+ * archive/, written and forced before the journal records their eviction, so
+ * a crash in between leaves them live rather than lost.
+ */
+@Slf4j
+public class JournalPersistenceEngine implements PersistenceEngine {
+
+    private record Registration<T>(Class<T> type, Handler<T> handler) {
+
+        void restore(String id, byte[] payload, ObjectMapper objectMapper) throws IOException {
+            handler.restore(id, objectMapper.readValue(payload, type));
+        }
+    }
+
+    private final Journal journal;
+    private final Path archiveDirectory;
+    private final Map<String, Archive> archives = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+    private final long snapshotEveryEntries;
+    private final Map<String, Registration<?>> registrations = new ConcurrentHashMap<>();
+    private final ExecutorService snapshotExecutor;
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final AtomicLong sinceSnapshot = new AtomicLong();
+    private final AtomicLong skippedEntries = new AtomicLong();
+    private volatile boolean started;
+
+    public JournalPersistenceEngine(Path directory, ObjectMapper objectMapper, long segmentBytes, int queueCapacity,
+                                    long fsyncIntervalMillis, long snapshotEveryEntries) {
+        this.journal = new Journal(directory, segmentBytes, queueCapacity, fsyncIntervalMillis);
+        this.archiveDirectory = directory.resolve("archive");
+        this.objectMapper = objectMapper;
+        this.snapshotEveryEntries = snapshotEveryEntries;
+        this.snapshotExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("journal-snapshot").daemon().factory());
+    }
+
+    @Override
+    public <T> void register(String collection, Class<T> type, Handler<T> handler) {
+        if (started) {
+            throw new IllegalStateException("Cannot register " + collection + " after the journal was replayed");
+        }
+        registrations.put(collection, new Registration<>(type, handler));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        try {
+            // Recover first: it takes the directory lock, so a second instance fails before touching archives
+            journal.recover(entry -> {
+                Registration<?> registration = registrations.get(entry.collection());
+                if (registration == null) {
+                    skippedEntries.incrementAndGet();
+                    return;
+                }
+                try {
+                    if (entry.op() == Journal.DELETE) {
+                        registration.handler().remove(entry.id());
+                    } else {
+                        registration.restore(entry.id(), entry.payload(), objectMapper);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    skippedEntries.incrementAndGet();
+                    log.warn("Skipping unreadable journal entry {} {}/{}: {}",
+                        entry.seq(), entry.collection(), entry.id(), e.getMessage());
+                }
+            });
+            for (String collection : registrations.keySet()) {
+                archives.put(collection, Archive.open(archiveDirectory.resolve(collection + ".arc")));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover journal", e);
+        }
+        started = true;
+    }
+
+    @Override
+    public void put(String collection, String id, Object value) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + collection + "/" + id, e);
+        }
+        append(Journal.PUT, collection, id, payload);
+    }
+
+    @Override
+    public void delete(String collection, String id) {
+        append(Journal.DELETE, collection, id, null);
+        Archive archive = archives.get(collection);
+        if (archive != null && archive.contains(id)) {
+            try {
+                archive.remove(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to remove archived " + collection + "/" + id, e);
+            }
+        }
+    }
+
+    @Override
+    public void archive(String collection, Map<String, Object> values) {
+        Archive archive = archiveFor(collection);
+        Map<String, byte[]> payloads = new LinkedHashMap<>();
+        values.forEach((id, value) -> {
+            try {
+                payloads.put(id, objectMapper.writeValueAsBytes(value));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot serialize " + collection + "/" + id, e);
+            }
+        });
+        try {
+            archive.putAll(payloads);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive " + payloads.size() + " " + collection + " entries", e);
+        }
+    }
+
+    @Override
+    public void evict(String collection, String id) {
+        // The DELETE only leaves the live state; the archived copy stays
+        append(Journal.DELETE, collection, id, null);
+    }
+
+    @Override
+    public boolean canArchive() {
+        return true;
+    }
+
+    @Override
+    public <T> Optional<T> findArchived(String collection, String id, Class<T> type) {
+        Archive archive = archives.get(collection);
+        if (archive == null || !archive.contains(id)) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = archive.get(id);
+            return payload != null ? Optional.of(objectMapper.readValue(payload, type)) : Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to read archived {}/{}: {}", collection, id, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean isArchived(String collection, String id) {
+        Archive archive = archives.get(collection);
+        return archive != null && archive.contains(id);
+    }
+
+    /**
+     * Write a snapshot now, on the calling thread.
+     *
+     * @return The snapshot's sequence number
+     */
+    public long snapshot() throws IOException {
+        sinceSnapshot.set(0);
+        return journal.snapshot(sink -> registrations.forEach((collection, registration) ->
+            registration.handler().forEach((id, value) -> {
+                try {
+                    sink.put(collection, id, objectMapper.writeValueAsBytes(value));
+                } catch (IOException e) {
+                    throw new Journal.UncheckedSnapshotException(e);
+                }
+            })));
+    }
+
+    /**
+     * Wait until every change recorded so far is on disk.
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        return journal.flush(timeoutMillis);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engine", "journal");
+        stats.put("collections", registrations.keySet());
+        stats.putAll(journal.getStats());
+        stats.put("sinceSnapshot", sinceSnapshot.get());
+        stats.put("snapshotEveryEntries", snapshotEveryEntries);
+        stats.put("skippedEntries", skippedEntries.get());
+        Map<String, Object> archived = new LinkedHashMap<>();
+        archives.forEach((collection, archive) -> archived.put(collection, archive.getStats()));
+        stats.put("archive", archived);
+        return stats;
+    }
+
+    @Override
+    public synchronized void close() {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (started) {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                log.error("Final journal snapshot failed: {}", e.getMessage());
+            }
+        }
+        journal.close();
+        for (Archive archive : archives.values()) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                log.warn("Failed to close archive: {}", e.getMessage());
+            }
+        }
+        started = false;
+    }
+
+    private void append(byte op, String collection, String id, byte[] payload) {
+        if (!started) {
+            throw new IllegalStateException("Journal not started; cannot record " + collection + "/" + id);
+        }
+        journal.append(op, collection, id, payload);
+        if (snapshotEveryEntries > 0 && sinceSnapshot.incrementAndGet() >= snapshotEveryEntries) {
+            requestSnapshot();
+        }
+    }
+
+    private Archive archiveFor(String collection) {
+        if (!started) {
+            throw new IllegalStateException("Journal not started; cannot archive " + collection);
+        }
+        Archive archive = archives.get(collection);
+        if (archive == null) {
+            throw new IllegalArgumentException("Unknown collection: " + collection);
+        }
+        return archive;
+    }
+
+    private void requestSnapshot() {
+        if (!snapshotting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            snapshotExecutor.execute(() -> {
+                try {
+                    long seq = snapshot();
+                    log.info("Journal snapshot written at seq {}", seq);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Journal snapshot failed: {}", e.getMessage(), e);
+                } finally {
+                    snapshotting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            snapshotting.set(false);
+        }
+    }
+}
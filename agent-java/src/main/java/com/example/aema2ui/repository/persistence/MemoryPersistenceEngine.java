@@ -0,0 +1,68 @@
+package com.example.aema2ui.repository.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps nothing: state lives only in the repositories and is lost on restart,
+ * and archived entities are discarded.
+ */
+public class MemoryPersistenceEngine implements PersistenceEngine {
+
+    private final Set<String> collections = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public <T> void register(String collection, Class<T> type, Handler<T> handler) {
+        collections.add(collection);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void put(String collection, String id, Object value) {
+    }
+
+    @Override
+    public void delete(String collection, String id) {
+    }
+
+    @Override
+    public void archive(String collection, Map<String, Object> values) {
+    }
+
+    @Override
+    public void evict(String collection, String id) {
+    }
+
+    @Override
+    public boolean canArchive() {
+        return false;
+    }
+
+    @Override
+    public <T> Optional<T> findArchived(String collection, String id, Class<T> type) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isArchived(String collection, String id) {
+        return false;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("engine", "memory");
+        stats.put("collections", collections.size());
+        return stats;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.aema2ui.repository.persistence;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Durability backend for the in-memory repositories.
+ *
+ * Repositories stay the source of truth for reads. They register a handler per
+ * collection, report every change with put/delete after applying it, and get
+ * their state back through the handler when the engine starts.
+ *
+ * Entities evicted from memory are moved to an archive: no longer part of the
+ * state restored on startup, but still readable by id.
+ */
+public interface PersistenceEngine extends AutoCloseable {
+
+    /**
+     * Receives recovered state for one collection and provides its live
+     * entities for snapshots.
+     */
+    interface Handler<T> {
+
+        /** Apply a recovered entity without reporting it back to the engine */
+        void restore(String id, T value);
+
+        /** Apply a recovered delete without reporting it back to the engine */
+        void remove(String id);
+
+        /** Pass every live entity to the sink */
+        void forEach(BiConsumer<String, Object> sink);
+    }
+
+    /**
+     * Register a collection. Must happen before start.
+     */
+    <T> void register(String collection, Class<T> type, Handler<T> handler);
+
+    /**
+     * Recover registered collections and begin accepting changes.
+     */
+    void start();
+
+    /**
+     * Record the current state of an entity. The value is captured before
+     * returning; it may be mutated afterwards.
+     */
+    void put(String collection, String id, Object value);
+
+    /**
+     * Remove an entity, including any archived copy.
+     */
+    void delete(String collection, String id);
+
+    /**
+     * Copy entities to the archive. When this returns they are durably
+     * archived, but still part of the live state until each is evicted.
+     */
+    void archive(String collection, Map<String, Object> values);
+
+    /**
+     * Record that an archived entity left memory, so it is no longer restored
+     * on startup; its archived copy stays readable. Call in the same critical
+     * section that removes it from memory, so a snapshot never holds an entity
+     * whose removal it already covers.
+     */
+    void evict(String collection, String id);
+
+    /**
+     * Whether archived entities are kept. When false, archiving discards them.
+     */
+    boolean canArchive();
+
+    /**
+     * An archived entity, read back from the archive.
+     */
+    <T> Optional<T> findArchived(String collection, String id, Class<T> type);
+
+    boolean isArchived(String collection, String id);
+
+    Map<String, Object> getStats();
+
+    @Override
+    void close();
+}
@@ -1,5 +1,6 @@
 package com.example.aema2ui.service;
 
+import com.example.aema2ui.service.intent.IntentClassifier;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -36,20 +37,14 @@ public class AdvancedA2UIService {
      * Select demo based on user input.
      */
     public List<Map<String, Object>> selectDemo(String userInput) {
-        String input = userInput != null ? userInput.toLowerCase() : "";
-
-        if (input.contains("list") || input.contains("asset") || input.contains("dam") || input.contains("browse")) {
-            return demoDynamicList();
-        } else if (input.contains("wizard") || input.contains("step") || input.contains("create")) {
-            return demoWizard(1);
-        } else if (input.contains("tab") || input.contains("properties") || input.contains("config")) {
-            return demoTabs();
-        } else if (input.contains("collab") || input.contains("comment") || input.contains("team")) {
-            return demoCollaboration();
-        } else {
+        return switch (IntentClassifier.demo(userInput)) {
+            case "list" -> demoDynamicList();
+            case "wizard" -> demoWizard(1);
+            case "tabs" -> demoTabs();
+            case "collab" -> demoCollaboration();
             // Default to AI content generator
-            return demoAIContentGenerator();
-        }
+            default -> demoAIContentGenerator();
+        };
     }
 
     // =========================================================================
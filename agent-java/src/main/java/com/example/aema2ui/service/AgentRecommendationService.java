@@ -2,6 +2,7 @@ package com.example.aema2ui.service;
 
 import com.example.aema2ui.model.PageRecommendation;
 import com.example.aema2ui.model.PageRecommendation.SectionRecommendation;
+import com.example.aema2ui.service.intent.IntentClassifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -9,7 +10,6 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 /**
  * AI-driven component and layout recommendation service.
@@ -153,51 +153,33 @@ public class AgentRecommendationService {
      * Detect page type from user input
      */
     private PageType detectPageType(String input) {
-        // Landing page patterns
-        if (containsAny(input, "landing", "campaign", "promotion", "launch", "sale", "offer", "discount")) {
-            return new PageType("landing",
+        return switch (IntentClassifier.pageType(input)) {
+            case "landing" -> new PageType("landing",
                 "Detected promotional/campaign language suggesting a landing page optimized for conversions",
                 85,
                 List.of("Product showcase page", "Simple CTA page"));
-        }
-
-        // Product page patterns
-        if (containsAny(input, "product", "buy", "purchase", "pricing", "features", "specs", "compare")) {
-            return new PageType("product",
+            case "product" -> new PageType("product",
                 "Product-related keywords indicate a product showcase or e-commerce page",
                 88,
                 List.of("Comparison page", "Features page"));
-        }
-
-        // Blog/article patterns
-        if (containsAny(input, "blog", "article", "story", "news", "post", "content", "read")) {
-            return new PageType("blog",
+            case "blog" -> new PageType("blog",
                 "Content-focused keywords suggest a blog or article page layout",
                 82,
                 List.of("News page", "Resource page"));
-        }
-
-        // About/company patterns
-        if (containsAny(input, "about", "team", "company", "story", "mission", "values", "history")) {
-            return new PageType("about",
+            case "about" -> new PageType("about",
                 "Company/brand keywords indicate an about or team page",
                 80,
                 List.of("Team page", "Culture page"));
-        }
-
-        // Contact/support patterns
-        if (containsAny(input, "contact", "support", "help", "faq", "question")) {
-            return new PageType("contact",
+            case "contact" -> new PageType("contact",
                 "Support-related keywords suggest a contact or FAQ page",
                 83,
                 List.of("Support page", "Help center"));
-        }
-
-        // Default: general landing page
-        return new PageType("general",
-            "General content page with balanced component mix",
-            70,
-            List.of("Landing page", "Product page", "Blog page"));
+            // Default: general landing page
+            default -> new PageType("general",
+                "General content page with balanced component mix",
+                70,
+                List.of("Landing page", "Product page", "Blog page"));
+        };
     }
 
     /**
@@ -362,16 +344,6 @@ public class AgentRecommendationService {
         return prefix + " " + cleaned;
     }
 
-    private boolean containsAny(String input, String... keywords) {
-        for (String keyword : keywords) {
-            if (Pattern.compile("\\b" + keyword + "\\b", Pattern.CASE_INSENSITIVE)
-                       .matcher(input).find()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     // Helper records
     private record ComponentInfo(String displayName, String icon, String description) {}
 
@@ -0,0 +1,99 @@
+package com.example.aema2ui.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore bulkhead capping concurrent calls to a downstream resource.
+ *
+ * Virtual threads make waiting cheap, so the number of threads no longer
+ * limits upstream load; this does. A caller waits up to the acquire timeout
+ * for a permit and is rejected with BulkheadFullException after that.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, Duration acquireTimeout) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive: " + maxConcurrent);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Wait for a permit. Every successful acquire must be paired with release().
+     *
+     * @throws BulkheadFullException if no permit frees up within the acquire timeout
+     */
+    public void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new BulkheadFullException(name, maxConcurrent);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.incrementAndGet();
+            throw new BulkheadFullException(name, maxConcurrent);
+        }
+        accepted.incrementAndGet();
+        peakInFlight.accumulateAndGet(maxConcurrent - permits.availablePermits(), Math::max);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Run a call while holding a permit.
+     */
+    public <T> T call(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Bulkhead statistics.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inFlight", maxConcurrent - permits.availablePermits());
+        stats.put("peakInFlight", peakInFlight.get());
+        stats.put("waiting", permits.getQueueLength());
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    /**
+     * Thrown when a bulkhead has no permit available in time.
+     */
+    public static class BulkheadFullException extends RuntimeException {
+        public BulkheadFullException(String name, int maxConcurrent) {
+            super("Too many concurrent " + name + " requests (limit " + maxConcurrent + ")");
+        }
+    }
+}
@@ -4,12 +4,29 @@ import com.example.aema2ui.agent.AemContentAgent;
 import com.example.aema2ui.model.ContentSuggestion;
 import com.example.aema2ui.model.UserInput;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Service that generates content suggestions and A2UI responses.
@@ -26,6 +43,20 @@ public class ContentSuggestionService {
     @Value("${aem.agent.ai.enabled:false}")
     private boolean aiEnabled;
 
+    // Variations generated at once; further ones queue
+    @Value("${aem.agent.suggestions.parallelism:3}")
+    private int variationParallelism;
+
+    // Overall time budget for all variations of one request
+    @Value("${aem.agent.suggestions.deadline:20000}")
+    private long variationDeadlineMillis;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ExecutorService variationExecutor;
+    private Semaphore variationSlots;
+
     @Autowired
     public ContentSuggestionService(A2UIMessageBuilder builder, AemContentAgent contentAgent, ObjectMapper objectMapper) {
         this.builder = builder;
@@ -33,6 +64,31 @@ public class ContentSuggestionService {
         this.objectMapper = objectMapper;
     }
 
+    @PostConstruct
+    void init() {
+        if (virtualThreads) {
+            // A waiting variation costs no platform thread; the slots cap how many run
+            variationExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            // Bounded pool and queue; when both are full further variations are rejected
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                variationParallelism, variationParallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(variationParallelism * 16),
+                Thread.ofPlatform().name("suggestion-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            variationExecutor = executor;
+        }
+        variationSlots = new Semaphore(variationParallelism, true);
+        log.info("Variation executor: {} threads, {} at once",
+            virtualThreads ? "virtual" : "platform", variationParallelism);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        variationExecutor.shutdownNow();
+    }
+
     /**
      * Result record for multiple suggestions.
      */
@@ -42,21 +98,35 @@ public class ContentSuggestionService {
      * Generates multiple content suggestions with variations.
      */
     public SuggestionsResult generateMultipleSuggestions(String userInput, int count) {
+        return generateMultipleSuggestions(userInput, count, artifact -> {});
+    }
+
+    /**
+     * Generates multiple content suggestions with variations, handing each artifact
+     * to onArtifact as soon as its variation completes (one call at a time, completion order).
+     */
+    public SuggestionsResult generateMultipleSuggestions(String userInput, int count,
+                                                         Consumer<Map<String, Object>> onArtifact) {
         List<Map<String, Object>> messages = new ArrayList<>();
         List<Map<String, Object>> artifacts = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(variationDeadlineMillis);
 
         // Parse user intent once
         UserInput parsed = contentAgent.parseUserIntent(userInput);
-        String componentType = parsed.getDetectedComponentType();
 
-        // Generate multiple variations
-        List<ContentSuggestion> suggestions = generateVariations(parsed, count);
+        // Generate multiple variations concurrently
+        SortedMap<Integer, ContentSuggestion> completed = generateVariations(parsed, count, deadline,
+            (index, suggestion) -> {
+                try {
+                    onArtifact.accept(createArtifact(suggestion, index));
+                } catch (Exception e) {
+                    log.debug("Artifact consumer failed: {}", e.getMessage());
+                }
+            });
+        List<ContentSuggestion> suggestions = new ArrayList<>(completed.values());
 
         // Create artifacts with the suggestions data for client consumption
-        for (int i = 0; i < suggestions.size(); i++) {
-            ContentSuggestion suggestion = suggestions.get(i);
-            artifacts.add(createArtifact(suggestion, i + 1));
-        }
+        completed.forEach((index, suggestion) -> artifacts.add(createArtifact(suggestion, index)));
 
         // Also include A2UI messages for the first suggestion
         if (!suggestions.isEmpty()) {
@@ -70,30 +140,127 @@ public class ContentSuggestionService {
     }
 
     /**
-     * Generate multiple variations of content.
+     * Generate multiple variations of content concurrently.
+     * Returns the variations that finished before the deadline, keyed by 1-based index;
+     * if none did, a template suggestion is returned so the response is never empty.
+     * onComplete is called once per returned variation, never concurrently.
      */
-    private List<ContentSuggestion> generateVariations(UserInput parsed, int count) {
-        List<ContentSuggestion> variations = new ArrayList<>();
+    private SortedMap<Integer, ContentSuggestion> generateVariations(UserInput parsed, int count, long deadline,
+                                                                     BiConsumer<Integer, ContentSuggestion> onComplete) {
+        List<UserInput> inputs = new ArrayList<>();
 
         // First variation from the agent
-        variations.add(contentAgent.generateContent(parsed));
+        inputs.add(parsed);
 
         // Generate additional variations with different styles
         String[] styles = {"bold and impactful", "friendly and conversational", "professional and elegant"};
 
         for (int i = 1; i < count && i < styles.length; i++) {
-            UserInput variantInput = UserInput.builder()
+            inputs.add(UserInput.builder()
                 .rawText(parsed.getRawText() + ". Style: " + styles[i])
                 .detectedComponentType(parsed.getDetectedComponentType())
                 .targetAudience(parsed.getTargetAudience())
                 .brandStyle(styles[i])
                 .toneOfVoice(parsed.getToneOfVoice())
-                .build();
+                .build());
+        }
+
+        SortedMap<Integer, ContentSuggestion> completed = new TreeMap<>();
 
-            variations.add(contentAgent.generateContent(variantInput));
+        // A single variation needs no fan-out
+        if (inputs.size() == 1) {
+            ContentSuggestion suggestion = contentAgent.generateContent(parsed);
+            completed.put(1, suggestion);
+            onComplete.accept(1, suggestion);
+            return completed;
         }
 
-        return variations;
+        // Guards completed/closed so a variation finishing at the deadline is either in the result or dropped
+        ReentrantLock resultLock = new ReentrantLock();
+        boolean[] closed = {false};
+
+        List<CompletableFuture<ContentSuggestion>> variations = new ArrayList<>();
+        List<CompletableFuture<ContentSuggestion>> recorded = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            int index = i + 1;
+            UserInput input = inputs.get(i);
+            CompletableFuture<ContentSuggestion> variation;
+            try {
+                variation = CompletableFuture.supplyAsync(() -> generateVariation(input, deadline), variationExecutor);
+            } catch (RejectedExecutionException e) {
+                log.warn("Variation {} rejected: executor saturated", index);
+                continue;
+            }
+            variations.add(variation);
+            recorded.add(variation.whenComplete((suggestion, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    if (!(cause instanceof CancellationException)) {
+                        log.warn("Variation {} failed: {}", index, cause.getMessage());
+                    }
+                    return;
+                }
+                resultLock.lock();
+                try {
+                    if (!closed[0]) {
+                        completed.put(index, suggestion);
+                        onComplete.accept(index, suggestion);
+                    }
+                } finally {
+                    resultLock.unlock();
+                }
+            }));
+        }
+
+        try {
+            CompletableFuture.allOf(recorded.toArray(CompletableFuture[]::new))
+                .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Variation deadline of {}ms reached", variationDeadlineMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Individual failures are logged above; keep whatever completed
+        }
+        // Queued variations never start; running ones finish in the background,
+        // bounded by the LLM timeouts, and are discarded
+        variations.forEach(variation -> variation.cancel(false));
+
+        resultLock.lock();
+        try {
+            closed[0] = true;
+            log.info("Generated {} of {} variations", completed.size(), inputs.size());
+            if (completed.isEmpty()) {
+                ContentSuggestion fallback = contentAgent.generateTemplateContent(
+                    parsed.getRawText(), parsed.getDetectedComponentType());
+                completed.put(1, fallback);
+                onComplete.accept(1, fallback);
+            }
+            return completed;
+        } finally {
+            resultLock.unlock();
+        }
+    }
+
+    /**
+     * Generate one variation once a slot frees up, giving up at the deadline.
+     */
+    private ContentSuggestion generateVariation(UserInput input, long deadline) {
+        try {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !variationSlots.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                throw new CancellationException("Variation deadline reached before it started");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting for a variation slot");
+        }
+        try {
+            return contentAgent.generateContent(input);
+        } finally {
+            variationSlots.release();
+        }
     }
 
     /**
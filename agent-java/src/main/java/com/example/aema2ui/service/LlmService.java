@@ -1,21 +1,28 @@
 package com.example.aema2ui.service;
 
+import com.example.aema2ui.service.llm.AdaptiveConcurrencyLimiter;
+import com.example.aema2ui.service.llm.JdkHttpLlmTransport;
+import com.example.aema2ui.service.llm.LlmRequestCoalescer;
+import com.example.aema2ui.service.llm.LlmResponseCache;
+import com.example.aema2ui.service.llm.LlmTransport;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
 /**
@@ -23,13 +30,20 @@ import java.util.function.Consumer;
  * - OpenAI (GPT models)
  * - Anthropic (Claude models)
  * - Ollama (Local models like Llama, Mistral, etc.)
+ *
+ * Each provider gets its own pooled LlmTransport (keep-alive, HTTP/2 where supported).
+ * Identical prompts are answered from LlmResponseCache when possible, and
+ * identical in-flight requests share one upstream call via LlmRequestCoalescer.
  */
 @Slf4j
 @Service
 public class LlmService {
 
     private final ObjectMapper objectMapper;
-    private final RestClient restClient;
+    private final LlmResponseCache responseCache;
+    private final LlmRequestCoalescer coalescer;
+    private final Map<String, LlmTransport> transports = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
 
     @Value("${aem.agent.ai.enabled:false}")
     private boolean aiEnabled;
@@ -71,17 +85,175 @@ public class LlmService {
     @Value("${aem.agent.llm.timeout.read:60000}")
     private int readTimeout;
 
-    public LlmService(ObjectMapper objectMapper) {
+    // Connection pool configuration (per provider)
+    @Value("${aem.agent.llm.openai.pool.max-connections:20}")
+    private int openaiMaxConnections;
+
+    @Value("${aem.agent.llm.openai.http2:true}")
+    private boolean openaiHttp2;
+
+    @Value("${aem.agent.llm.anthropic.pool.max-connections:20}")
+    private int anthropicMaxConnections;
+
+    @Value("${aem.agent.llm.anthropic.http2:true}")
+    private boolean anthropicHttp2;
+
+    @Value("${aem.agent.llm.ollama.pool.max-connections:4}")
+    private int ollamaMaxConnections;
+
+    @Value("${aem.agent.llm.ollama.http2:false}")
+    private boolean ollamaHttp2;
+
+    // Adaptive admission control (per provider); the limit never exceeds the pool size
+    @Value("${aem.agent.llm.admission.enabled:true}")
+    private boolean admissionEnabled;
+
+    @Value("${aem.agent.llm.admission.initial-limit:4}")
+    private int admissionInitialLimit;
+
+    @Value("${aem.agent.llm.admission.min-limit:1}")
+    private int admissionMinLimit;
+
+    @Value("${aem.agent.llm.admission.max-queue:16}")
+    private int admissionMaxQueue;
+
+    @Value("${aem.agent.llm.admission.max-wait:2000}")
+    private long admissionMaxWait;
+
+    @Value("${aem.agent.llm.admission.latency-tolerance:2.0}")
+    private double admissionLatencyTolerance;
+
+    @Value("${aem.agent.llm.admission.backoff-ratio:0.9}")
+    private double admissionBackoffRatio;
+
+    public LlmService(ObjectMapper objectMapper, LlmResponseCache responseCache, LlmRequestCoalescer coalescer) {
         this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Get (or lazily create) the pooled transport for a provider.
+     */
+    private LlmTransport transport(String provider) {
+        return transports.computeIfAbsent(provider.toLowerCase(), this::createTransport);
+    }
+
+    /**
+     * Replace the transport for a provider (tests use this to simulate provider failures).
+     */
+    void setTransport(String provider, LlmTransport transport) {
+        transports.put(provider.toLowerCase(), transport);
+    }
 
-        // Configure timeouts to prevent hanging on slow responses
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(5000);  // 5 second connect timeout
-        factory.setReadTimeout(60000);    // 60 second read timeout for LLM responses
+    private LlmTransport createTransport(String provider) {
+        Duration connect = Duration.ofMillis(connectTimeout);
+        Duration read = Duration.ofMillis(readTimeout);
 
-        this.restClient = RestClient.builder()
-            .requestFactory(factory)
-            .build();
+        JdkHttpLlmTransport.Settings settings = switch (provider) {
+            case "openai" -> new JdkHttpLlmTransport.Settings(openaiMaxConnections, openaiHttp2, connect, read);
+            case "anthropic" -> new JdkHttpLlmTransport.Settings(anthropicMaxConnections, anthropicHttp2, connect, read);
+            case "ollama" -> new JdkHttpLlmTransport.Settings(ollamaMaxConnections, ollamaHttp2, connect, read);
+            default -> throw new IllegalArgumentException("Unknown LLM provider: " + provider);
+        };
+
+        return new JdkHttpLlmTransport(provider, settings);
+    }
+
+    /**
+     * Get (or lazily create) the admission limiter for a provider.
+     */
+    private AdaptiveConcurrencyLimiter limiter(String provider) {
+        return limiters.computeIfAbsent(provider.toLowerCase(), this::createLimiter);
+    }
+
+    private AdaptiveConcurrencyLimiter createLimiter(String provider) {
+        int maxLimit = switch (provider) {
+            case "openai" -> openaiMaxConnections;
+            case "anthropic" -> anthropicMaxConnections;
+            case "ollama" -> ollamaMaxConnections;
+            default -> throw new IllegalArgumentException("Unknown LLM provider: " + provider);
+        };
+        maxLimit = Math.max(1, maxLimit);
+        int minLimit = Math.max(1, Math.min(admissionMinLimit, maxLimit));
+
+        return new AdaptiveConcurrencyLimiter(provider, new AdaptiveConcurrencyLimiter.Settings(
+                admissionInitialLimit, minLimit, maxLimit, admissionMaxQueue,
+                Duration.ofMillis(admissionMaxWait), admissionLatencyTolerance, admissionBackoffRatio));
+    }
+
+    /**
+     * Admit a provider call, or null when admission control is disabled.
+     *
+     * @throws AdaptiveConcurrencyLimiter.AdmissionRejectedException when the provider is saturated
+     */
+    private AdaptiveConcurrencyLimiter.Permit admit() {
+        return admissionEnabled ? limiter(llmProvider).acquire() : null;
+    }
+
+    /**
+     * Complete a permit after a failed call: provider overload shrinks the limit.
+     * Provider calls wrap transport errors, so the whole cause chain is inspected.
+     */
+    private static void releaseFailed(AdaptiveConcurrencyLimiter.Permit permit, RuntimeException e) {
+        if (permit == null) return;
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LlmTransport.LlmTransportException transportError) {
+                if (isOverload(transportError)) {
+                    permit.overloaded();
+                    return;
+                }
+                break;
+            }
+        }
+        permit.ignored();
+    }
+
+    /**
+     * 429, 5xx and connection-level failures (status -1: timeout, pool exhausted) signal overload.
+     */
+    private static boolean isOverload(LlmTransport.LlmTransportException e) {
+        int status = e.getStatusCode();
+        return status == -1 || status == 429 || status >= 500;
+    }
+
+    /**
+     * Response cache statistics.
+     */
+    public Map<String, Object> getCacheStats() {
+        return responseCache.getStats();
+    }
+
+    /**
+     * Request coalescing statistics.
+     */
+    public Map<String, Object> getCoalescingStats() {
+        return coalescer.getStats();
+    }
+
+    /**
+     * Drop all cached responses.
+     */
+    public void clearCache() {
+        responseCache.clear();
+    }
+
+    /**
+     * Admission control statistics (limit, queue depth, rejections) for every provider used so far.
+     */
+    public Map<String, Object> getAdmissionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        limiters.forEach((provider, limiter) -> stats.put(provider, limiter.getStats()));
+        return stats;
+    }
+
+    /**
+     * Connection pool statistics for every provider used so far.
+     */
+    public Map<String, Object> getTransportStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        transports.forEach((provider, transport) -> stats.put(provider, transport.getStats()));
+        return stats;
     }
 
     /**
@@ -105,22 +277,75 @@ public class LlmService {
         return llmProvider;
     }
 
+    /**
+     * Get the model name for the configured provider.
+     */
+    public String getModel() {
+        return switch (llmProvider.toLowerCase()) {
+            case "openai" -> openaiModel;
+            case "anthropic" -> anthropicModel;
+            case "ollama" -> ollamaModel;
+            default -> "unknown";
+        };
+    }
+
     /**
      * Generate text completion from the LLM.
      */
     public String generate(String prompt) {
+        requireEnabled();
+
+        String cacheKey = LlmResponseCache.key(llmProvider, getModel(), "text", prompt);
+        JsonNode cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            log.info("LLM cache hit ({} provider)", llmProvider);
+            return cached.asText();
+        }
+
+        // Concurrent identical prompts share one upstream call
+        return coalescer.execute(cacheKey, () -> {
+            String response = callProvider(prompt);
+            responseCache.put(cacheKey, TextNode.valueOf(response));
+            return response;
+        });
+    }
+
+    private void requireEnabled() {
         if (!isEnabled()) {
             throw new IllegalStateException("LLM is not enabled or configured. Set AI_ENABLED=true and configure provider.");
         }
+    }
 
+    /**
+     * Call the configured provider, bypassing the cache.
+     */
+    private String callProvider(String prompt) {
+        AdaptiveConcurrencyLimiter.Permit permit = admit();
         log.info("Generating with {} provider", llmProvider);
 
-        return switch (llmProvider.toLowerCase()) {
-            case "openai" -> generateWithOpenAI(prompt);
-            case "anthropic" -> generateWithAnthropic(prompt);
-            case "ollama" -> generateWithOllama(prompt);
-            default -> throw new IllegalArgumentException("Unknown LLM provider: " + llmProvider);
-        };
+        try {
+            String response = switch (llmProvider.toLowerCase()) {
+                case "openai" -> generateWithOpenAI(prompt);
+                case "anthropic" -> generateWithAnthropic(prompt);
+                case "ollama" -> generateWithOllama(prompt);
+                default -> throw new IllegalArgumentException("Unknown LLM provider: " + llmProvider);
+            };
+            if (permit != null) {
+                // Per output token, so long answers don't read as overload
+                permit.success(System.nanoTime() - permit.getStartNanos(), estimateTokens(response));
+            }
+            return response;
+        } catch (RuntimeException e) {
+            releaseFailed(permit, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Rough output token count (about four characters per token), for latency per token.
+     */
+    static int estimateTokens(String text) {
+        return text != null ? Math.max(1, text.length() / 4) : 1;
     }
 
     /**
@@ -138,13 +363,10 @@ public class LlmService {
         );
 
         try {
-            String response = restClient.post()
-                .uri(openaiBaseUrl + "/chat/completions")
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + openaiApiKey)
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(request)
-                .retrieve()
-                .body(String.class);
+            String response = transport("openai").postJson(
+                openaiBaseUrl + "/chat/completions",
+                Map.of(HttpHeaders.AUTHORIZATION, "Bearer " + openaiApiKey),
+                objectMapper.writeValueAsString(request));
 
             JsonNode json = objectMapper.readTree(response);
             return json.path("choices").get(0).path("message").path("content").asText();
@@ -169,14 +391,10 @@ public class LlmService {
         );
 
         try {
-            String response = restClient.post()
-                .uri(anthropicBaseUrl + "/messages")
-                .header("x-api-key", anthropicApiKey)
-                .header("anthropic-version", "2023-06-01")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(request)
-                .retrieve()
-                .body(String.class);
+            String response = transport("anthropic").postJson(
+                anthropicBaseUrl + "/messages",
+                Map.of("x-api-key", anthropicApiKey, "anthropic-version", "2023-06-01"),
+                objectMapper.writeValueAsString(request));
 
             JsonNode json = objectMapper.readTree(response);
             return json.path("content").get(0).path("text").asText();
@@ -199,12 +417,10 @@ public class LlmService {
         );
 
         try {
-            String response = restClient.post()
-                .uri(ollamaBaseUrl + "/api/generate")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(request)
-                .retrieve()
-                .body(String.class);
+            String response = transport("ollama").postJson(
+                ollamaBaseUrl + "/api/generate",
+                Map.of(),
+                objectMapper.writeValueAsString(request));
 
             JsonNode json = objectMapper.readTree(response);
             return json.path("response").asText();
@@ -215,27 +431,178 @@ public class LlmService {
     }
 
     /**
-     * Stream generation from Ollama with real-time token callbacks.
+     * Stream generation with real-time token callbacks.
      * This provides true streaming like CLI does.
      */
     public void generateStreaming(String prompt, Consumer<String> onToken, Runnable onComplete) {
-        if (!isEnabled() || !llmProvider.equalsIgnoreCase("ollama")) {
-            // Fallback: generate full response and send as one chunk
-            String response = generate(prompt);
-            onToken.accept(response);
+        generateStreaming(prompt, onToken, onComplete, () -> false);
+    }
+
+    /**
+     * Stream generation with real-time token callbacks and cancellation.
+     *
+     * All providers stream natively: Ollama NDJSON, OpenAI chat-completions SSE
+     * and Anthropic messages SSE. Concurrent callers with the same prompt join a
+     * single upstream token stream, which is closed once every caller cancels.
+     *
+     * @param cancelled Polled between tokens; return true to stop (e.g. client disconnected)
+     */
+    public void generateStreaming(String prompt, Consumer<String> onToken, Runnable onComplete,
+                                  BooleanSupplier cancelled) {
+        requireEnabled();
+
+        // A cached answer is replayed as a single chunk
+        String cacheKey = LlmResponseCache.key(llmProvider, getModel(), "text", prompt);
+        JsonNode cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            log.info("LLM cache hit for stream ({} provider)", llmProvider);
+            onToken.accept(cached.asText());
             onComplete.run();
             return;
         }
 
+        String streamKey = LlmResponseCache.key(llmProvider, getModel(), "stream", prompt);
+        coalescer.stream(streamKey, onToken, onComplete, cancelled, (publish, upstreamCancelled) -> {
+            AdaptiveConcurrencyLimiter.Permit permit = admit();
+
+            // Time to first token reflects provider queueing; total time mostly reflects answer length
+            long[] firstTokenNanos = {0};
+            StringBuilder fullResponse = new StringBuilder();
+            Consumer<String> collect = token -> {
+                if (firstTokenNanos[0] == 0) firstTokenNanos[0] = System.nanoTime();
+                fullResponse.append(token);
+                publish.accept(token);
+            };
+
+            log.info("Streaming with {} provider", llmProvider);
+            boolean completed;
+            try {
+                completed = switch (llmProvider.toLowerCase()) {
+                    case "openai" -> streamFromOpenAI(prompt, collect, upstreamCancelled);
+                    case "anthropic" -> streamFromAnthropic(prompt, collect, upstreamCancelled);
+                    case "ollama" -> streamFromOllama(prompt, collect, upstreamCancelled);
+                    default -> throw new IllegalArgumentException("Unknown LLM provider: " + llmProvider);
+                };
+            } catch (RuntimeException e) {
+                releaseFailed(permit, e);
+                throw e;
+            }
+            if (permit != null) {
+                if (firstTokenNanos[0] != 0) {
+                    permit.success(firstTokenNanos[0] - permit.getStartNanos());
+                } else {
+                    permit.ignored();
+                }
+            }
+
+            // Only complete answers are reusable: a body that ends without the
+            // provider's end marker may have been cut off
+            if (completed) {
+                responseCache.put(cacheKey, TextNode.valueOf(fullResponse.toString()));
+            } else if (!upstreamCancelled.getAsBoolean()) {
+                log.warn("{} stream ended without a completion marker; not caching", llmProvider);
+            }
+        });
+    }
+
+    /**
+     * Stream tokens from OpenAI chat completions (SSE, stream=true).
+     *
+     * @return True once the [DONE] marker was read
+     */
+    private boolean streamFromOpenAI(String prompt, Consumer<String> onToken, BooleanSupplier cancelled) {
+        log.debug("Streaming from OpenAI API with model: {}", openaiModel);
+
+        Map<String, Object> request = Map.of(
+            "model", openaiModel,
+            "messages", List.of(
+                Map.of("role", "user", "content", prompt)
+            ),
+            "temperature", 0.7,
+            "stream", true
+        );
+
+        try {
+            InputStream stream = transport("openai").postJsonForStream(
+                openaiBaseUrl + "/chat/completions",
+                Map.of(HttpHeaders.AUTHORIZATION, "Bearer " + openaiApiKey,
+                       HttpHeaders.ACCEPT, "text/event-stream"),
+                objectMapper.writeValueAsString(request));
+
+            return readEventStream(stream, cancelled, data -> {
+                if ("[DONE]".equals(data)) return false;
+
+                JsonNode json = objectMapper.readTree(data);
+                String token = json.path("choices").path(0).path("delta").path("content").asText("");
+                if (!token.isEmpty()) {
+                    onToken.accept(token);
+                }
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("OpenAI streaming error: {}", e.getMessage());
+            throw new RuntimeException("OpenAI streaming failed", e);
+        }
+    }
+
+    /**
+     * Stream tokens from Anthropic messages (SSE, stream=true).
+     *
+     * @return True once the message_stop event was read
+     */
+    private boolean streamFromAnthropic(String prompt, Consumer<String> onToken, BooleanSupplier cancelled) {
+        log.debug("Streaming from Anthropic API with model: {}", anthropicModel);
+
+        Map<String, Object> request = Map.of(
+            "model", anthropicModel,
+            "max_tokens", 1024,
+            "messages", List.of(
+                Map.of("role", "user", "content", prompt)
+            ),
+            "stream", true
+        );
+
         try {
-            URL url = new URL(ollamaBaseUrl + "/api/generate");
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(connectTimeout);
-            conn.setReadTimeout(readTimeout);
+            InputStream stream = transport("anthropic").postJsonForStream(
+                anthropicBaseUrl + "/messages",
+                Map.of("x-api-key", anthropicApiKey,
+                       "anthropic-version", "2023-06-01",
+                       HttpHeaders.ACCEPT, "text/event-stream"),
+                objectMapper.writeValueAsString(request));
+
+            return readEventStream(stream, cancelled, data -> {
+                JsonNode json = objectMapper.readTree(data);
+                switch (json.path("type").asText()) {
+                    case "content_block_delta" -> {
+                        String token = json.path("delta").path("text").asText("");
+                        if (!token.isEmpty()) {
+                            onToken.accept(token);
+                        }
+                    }
+                    case "message_stop" -> {
+                        return false;
+                    }
+                    case "error" -> throw new IllegalStateException(
+                        "Anthropic stream error: " + json.path("error").path("message").asText());
+                    default -> {
+                        // message_start, content_block_start/stop, message_delta, ping
+                    }
+                }
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("Anthropic streaming error: {}", e.getMessage());
+            throw new RuntimeException("Anthropic streaming failed", e);
+        }
+    }
 
+    /**
+     * Stream tokens from Ollama's NDJSON generate endpoint.
+     *
+     * @return True once a line with done=true was read
+     */
+    private boolean streamFromOllama(String prompt, Consumer<String> onToken, BooleanSupplier cancelled) {
+        try {
             // Request with streaming enabled
             String requestBody = objectMapper.writeValueAsString(Map.of(
                 "model", ollamaModel,
@@ -243,13 +610,14 @@ public class LlmService {
                 "stream", true
             ));
 
-            conn.getOutputStream().write(requestBody.getBytes());
+            InputStream stream = transport("ollama").postJsonForStream(
+                ollamaBaseUrl + "/api/generate", Map.of(), requestBody);
 
             // Read streaming response line by line
             try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(conn.getInputStream()))) {
+                    new InputStreamReader(stream, StandardCharsets.UTF_8))) {
                 String line;
-                while ((line = reader.readLine()) != null) {
+                while (!cancelled.getAsBoolean() && (line = reader.readLine()) != null) {
                     if (line.trim().isEmpty()) continue;
 
                     JsonNode json = objectMapper.readTree(line);
@@ -261,12 +629,11 @@ public class LlmService {
 
                     // Check if done
                     if (json.path("done").asBoolean(false)) {
-                        break;
+                        return true;
                     }
                 }
             }
-
-            onComplete.run();
+            return false;
 
         } catch (Exception e) {
             log.error("Ollama streaming error: {}", e.getMessage());
@@ -274,30 +641,171 @@ public class LlmService {
         }
     }
 
+    /**
+     * Callback for one SSE data payload; returns false once the end marker is read.
+     */
+    @FunctionalInterface
+    private interface EventDataHandler {
+        boolean onData(String data) throws Exception;
+    }
+
+    /**
+     * Read a Server-Sent Events body, passing each event's data to the handler.
+     * Closing the stream early (cancel or handler stop) aborts the HTTP exchange.
+     *
+     * @return True if the handler saw the end marker, false on cancel or a body that just ended
+     */
+    private boolean readEventStream(InputStream stream, BooleanSupplier cancelled, EventDataHandler handler)
+            throws Exception {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (!cancelled.getAsBoolean() && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    // Blank line dispatches the event
+                    if (data.length() > 0) {
+                        if (!handler.onData(data.toString())) return true;
+                        data.setLength(0);
+                    }
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) data.append('\n');
+                    data.append(line.substring(5).stripLeading());
+                }
+                // event:, id:, retry: and comments are not needed
+            }
+            if (data.length() > 0 && !cancelled.getAsBoolean()) {
+                return !handler.onData(data.toString());
+            }
+            return false;
+        }
+    }
+
     /**
      * Generate structured JSON output from the LLM.
      */
     public <T> T generateObject(String prompt, Class<T> targetClass) {
-        String jsonPrompt = prompt + "\n\nRespond with valid JSON only, no markdown or explanation. " +
-            "The response should be parseable as: " + targetClass.getSimpleName();
+        String jsonPrompt = jsonPrompt(prompt, targetClass);
+
+        requireEnabled();
+
+        // Cached entries hold the parsed tree, so a hit skips cleanup and repair.
+        // A fresh object is bound per call because callers mutate the result.
+        String cacheKey = LlmResponseCache.key(llmProvider, getModel(), targetClass.getName(), jsonPrompt);
+        JsonNode cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            try {
+                log.info("LLM cache hit for {} ({} provider)", targetClass.getSimpleName(), llmProvider);
+                return objectMapper.treeToValue(cached, targetClass);
+            } catch (Exception e) {
+                log.warn("Cached {} no longer binds, regenerating: {}", targetClass.getSimpleName(), e.getMessage());
+            }
+        }
+
+        // Concurrent identical prompts share one upstream call and its parsed tree
+        JsonNode tree = coalescer.execute(cacheKey, () -> generateTree(jsonPrompt, targetClass, cacheKey));
+
+        try {
+            return objectMapper.treeToValue(tree, targetClass);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse LLM response", e);
+        }
+    }
+
+    /**
+     * Call the provider and cache its answer as a JSON tree that binds to targetClass.
+     */
+    private JsonNode generateTree(String jsonPrompt, Class<?> targetClass, String cacheKey) {
+        JsonNode tree = parseResponseTree(callProvider(jsonPrompt), targetClass);
+        responseCache.put(cacheKey, tree);
+        return tree;
+    }
 
-        String response = generate(jsonPrompt);
+    /**
+     * Stream structured JSON output from the LLM.
+     *
+     * Raw tokens are passed to onToken as they arrive so callers can render
+     * fields while the object is still being written (see IncrementalJsonFieldParser).
+     * The complete answer is then parsed like generateObject and shares its cache,
+     * so a cached object is replayed to onToken as a single chunk.
+     *
+     * @param cancelled Polled between tokens; return true to stop (e.g. client disconnected)
+     */
+    public <T> T generateObjectStreaming(String prompt, Class<T> targetClass, Consumer<String> onToken,
+                                         BooleanSupplier cancelled) {
+        String jsonPrompt = jsonPrompt(prompt, targetClass);
+
+        requireEnabled();
+
+        String cacheKey = LlmResponseCache.key(llmProvider, getModel(), targetClass.getName(), jsonPrompt);
+        JsonNode cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            try {
+                log.info("LLM cache hit for streamed {} ({} provider)", targetClass.getSimpleName(), llmProvider);
+                T value = objectMapper.treeToValue(cached, targetClass);
+                onToken.accept(objectMapper.writeValueAsString(cached));
+                return value;
+            } catch (Exception e) {
+                log.warn("Cached {} no longer binds, regenerating: {}", targetClass.getSimpleName(), e.getMessage());
+            }
+        }
+
+        StringBuilder fullResponse = new StringBuilder();
+        generateStreaming(jsonPrompt, token -> {
+            fullResponse.append(token);
+            onToken.accept(token);
+        }, () -> {}, cancelled);
+
+        if (cancelled.getAsBoolean()) {
+            throw new IllegalStateException("LLM stream cancelled");
+        }
+
+        JsonNode tree = parseResponseTree(fullResponse.toString(), targetClass);
+        responseCache.put(cacheKey, tree);
+
+        try {
+            return objectMapper.treeToValue(tree, targetClass);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse LLM response", e);
+        }
+    }
+
+    private static String jsonPrompt(String prompt, Class<?> targetClass) {
+        return prompt + "\n\nRespond with valid JSON only, no markdown or explanation. " +
+            "The response should be parseable as: " + targetClass.getSimpleName();
+    }
 
+    /**
+     * Parse a raw answer into a JSON tree that binds to targetClass, repairing it if needed.
+     */
+    private JsonNode parseResponseTree(String response, Class<?> targetClass) {
         // Clean up response - remove markdown code blocks if present
         response = cleanJsonResponse(response);
 
+        JsonNode tree;
         try {
-            return objectMapper.readValue(response, targetClass);
+            tree = parseTree(response);
+            objectMapper.treeToValue(tree, targetClass);
         } catch (Exception e) {
             // Try to repair common JSON issues
             String repaired = repairJson(response);
             try {
-                return objectMapper.readValue(repaired, targetClass);
+                tree = parseTree(repaired);
+                objectMapper.treeToValue(tree, targetClass);
             } catch (Exception e2) {
                 log.error("Failed to parse LLM response as {}: {}", targetClass.getSimpleName(), response);
                 throw new RuntimeException("Failed to parse LLM response", e);
             }
         }
+        return tree;
+    }
+
+    private JsonNode parseTree(String json) throws Exception {
+        JsonNode tree = objectMapper.readTree(json);
+        if (tree == null || tree.isMissingNode()) {
+            throw new IllegalArgumentException("Empty JSON response");
+        }
+        return tree;
     }
 
     /**
@@ -0,0 +1,191 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.config.RetentionProperties;
+import com.example.aema2ui.model.ReviewStatus;
+import com.example.aema2ui.model.WorkflowStatus;
+import com.example.aema2ui.repository.ReviewRepository;
+import com.example.aema2ui.repository.WorkflowRepository;
+import com.example.aema2ui.repository.persistence.PersistenceEngine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps finished workflows and closed reviews from accumulating in memory.
+ *
+ * A background sweep applies the per-status policies from
+ * {@link RetentionProperties}, moving items to the persistence engine's
+ * archive, from where they are still found by id. Stats include JVM heap usage
+ * and an estimate of the memory held by resident items.
+ *
+ * An engine that cannot archive (the memory engine) would make archiving a
+ * delete, so retention does nothing with it and warns once at startup.
+ */
+@Slf4j
+@Service
+public class RetentionService {
+
+    private static final int SIZE_SAMPLE = 64;
+
+    private final RetentionProperties properties;
+    private final WorkflowRepository workflows;
+    private final ReviewRepository reviews;
+    private final ObjectMapper objectMapper;
+    private final boolean canArchive;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("retention").daemon().factory());
+    private final Map<String, AtomicLong> archived = new ConcurrentHashMap<>();
+    private final AtomicLong sweeps = new AtomicLong();
+    private volatile Instant lastSweepAt;
+    private volatile long lastSweepMillis;
+    private volatile String lastError;
+
+    public RetentionService(RetentionProperties properties, WorkflowRepository workflows, ReviewRepository reviews,
+                            PersistenceEngine persistence, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.workflows = workflows;
+        this.reviews = reviews;
+        this.objectMapper = objectMapper;
+        this.canArchive = persistence.canArchive();
+    }
+
+    @PostConstruct
+    void startSweeps() {
+        if (!properties.isEnabled()) {
+            log.info("Retention disabled: finished workflows and closed reviews stay in memory");
+            return;
+        }
+        if (!canArchive) {
+            log.warn("Retention disabled: the persistence engine cannot archive, so sweeps would delete "
+                + "finished workflows and closed reviews; they stay in memory instead");
+            return;
+        }
+        long interval = Math.max(1000, properties.getSweepIntervalMillis());
+        // First sweep after one interval, once the persistence engine has replayed
+        sweeper.scheduleWithFixedDelay(this::runSweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopSweeps() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Apply all retention policies now, on the calling thread. Does nothing
+     * if the persistence engine cannot archive.
+     *
+     * @return Items archived per collection and status
+     */
+    public synchronized Map<String, Integer> sweep() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        int batchSize = Math.max(1, properties.getBatchSize());
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (!canArchive) {
+            return result;
+        }
+
+        for (Map.Entry<WorkflowStatus, RetentionProperties.Policy> entry : properties.getWorkflows().entrySet()) {
+            RetentionProperties.Policy policy = entry.getValue();
+            int count = workflows.archive(entry.getKey(), cutoff(now, policy), policy.getMaxCount(), batchSize);
+            record(result, "workflows." + entry.getKey(), count);
+        }
+        for (Map.Entry<ReviewStatus, RetentionProperties.Policy> entry : properties.getReviews().entrySet()) {
+            RetentionProperties.Policy policy = entry.getValue();
+            int count = reviews.archive(entry.getKey(), cutoff(now, policy), policy.getMaxCount(), batchSize);
+            record(result, "reviews." + entry.getKey(), count);
+        }
+
+        sweeps.incrementAndGet();
+        lastSweepAt = now;
+        lastSweepMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (!result.isEmpty()) {
+            log.info("Retention sweep archived {} in {}ms", result, lastSweepMillis);
+        }
+        return result;
+    }
+
+    /**
+     * Sweep counters, resident item counts with estimated size, and JVM heap usage.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled() && canArchive);
+        stats.put("sweepIntervalMillis", properties.getSweepIntervalMillis());
+        stats.put("sweeps", sweeps.get());
+        stats.put("lastSweepAt", lastSweepAt != null ? lastSweepAt.toString() : null);
+        stats.put("lastSweepMillis", lastSweepMillis);
+        stats.put("lastError", lastError);
+        Map<String, Long> archivedCounts = new LinkedHashMap<>();
+        archived.forEach((key, count) -> archivedCounts.put(key, count.get()));
+        stats.put("archived", archivedCounts);
+
+        stats.put("workflows", resident(workflows.count(), workflows.sample(SIZE_SAMPLE)));
+        stats.put("reviews", resident(reviews.count(), reviews.sample(SIZE_SAMPLE)));
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        Map<String, Object> heapStats = new LinkedHashMap<>();
+        heapStats.put("usedBytes", heap.getUsed());
+        heapStats.put("committedBytes", heap.getCommitted());
+        heapStats.put("maxBytes", heap.getMax());
+        stats.put("heap", heapStats);
+        return stats;
+    }
+
+    private void runSweep() {
+        try {
+            sweep();
+            lastError = null;
+        } catch (RuntimeException e) {
+            // Items stay in memory; the next sweep retries
+            lastError = e.getMessage();
+            log.error("Retention sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void record(Map<String, Integer> result, String key, int count) {
+        if (count > 0) {
+            result.put(key, count);
+            archived.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(count);
+        }
+    }
+
+    private static Instant cutoff(Instant now, RetentionProperties.Policy policy) {
+        return policy.getTtlMillis() > 0 ? now.minusMillis(policy.getTtlMillis()) : null;
+    }
+
+    /**
+     * Resident count and estimated size, extrapolated from the serialized size
+     * of a sample. Serialized size understates heap footprint, typically by 2-4x.
+     */
+    private Map<String, Object> resident(int count, List<?> sample) {
+        long sampledBytes = 0;
+        for (Object item : sample) {
+            try {
+                sampledBytes += objectMapper.writeValueAsBytes(item).length;
+            } catch (JsonProcessingException e) {
+                // Leave it out of the estimate
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("resident", count);
+        stats.put("estimatedSerializedBytes", sample.isEmpty() ? 0 : sampledBytes * count / sample.size());
+        return stats;
+    }
+}
@@ -2,23 +2,33 @@ package com.example.aema2ui.service;
 
 import com.example.aema2ui.model.*;
 import com.example.aema2ui.repository.ReviewRepository;
+import com.example.aema2ui.service.event.EventStreamService;
+import com.example.aema2ui.service.event.StateEvent;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * Service for managing content reviews and collaborative feedback.
+ * Transitions go through ReviewRepository.update, which applies them to a
+ * copy under the review's lock, so concurrent changes are never lost.
  */
 @Service
 public class ReviewService {
 
     private final ReviewRepository reviewRepository;
+    private final EventStreamService events;
 
-    public ReviewService(ReviewRepository reviewRepository) {
+    public ReviewService(ReviewRepository reviewRepository, EventStreamService events) {
         this.reviewRepository = reviewRepository;
+        this.events = events;
     }
 
     /**
@@ -40,7 +50,7 @@ public class ReviewService {
         // Save initial version
         saveContentVersion(contentId, content, createdBy, "Initial version for review");
 
-        return reviewRepository.save(review);
+        return publish("REVIEW_CREATED", reviewRepository.save(review));
     }
 
     /**
@@ -68,9 +78,6 @@ public class ReviewService {
      * Add a comment to a review.
      */
     public Review addComment(String reviewId, String author, String authorName, String commentContent, String field) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
         ReviewComment comment = ReviewComment.builder()
                 .id(UUID.randomUUID().toString())
                 .author(author)
@@ -81,123 +88,107 @@ public class ReviewService {
                 .resolved(false)
                 .build();
 
-        review.getComments().add(comment);
-        review.setUpdatedAt(Instant.now());
-
-        // If not already in review, transition to in review
-        if (review.getStatus() == ReviewStatus.PENDING_REVIEW) {
-            review.setStatus(ReviewStatus.IN_REVIEW);
-        }
+        return reviewRepository.update(reviewId, review -> {
+            review.getComments().add(comment);
+            review.setUpdatedAt(Instant.now());
 
-        return reviewRepository.save(review);
+            // If not already in review, transition to in review
+            if (review.getStatus() == ReviewStatus.PENDING_REVIEW) {
+                review.setStatus(ReviewStatus.IN_REVIEW);
+            }
+        }, stored -> publish("REVIEW_COMMENTED", stored));
     }
 
     /**
      * Resolve a comment.
      */
     public Review resolveComment(String reviewId, String commentId, String resolvedBy) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        review.getComments().stream()
-                .filter(c -> c.getId().equals(commentId))
-                .findFirst()
-                .ifPresent(comment -> {
-                    comment.setResolved(true);
-                    comment.setResolvedBy(resolvedBy);
-                    comment.setResolvedAt(Instant.now());
-                });
-
-        review.setUpdatedAt(Instant.now());
-        return reviewRepository.save(review);
+        return reviewRepository.update(reviewId, review -> {
+            review.getComments().stream()
+                    .filter(c -> c.getId().equals(commentId))
+                    .findFirst()
+                    .ifPresent(comment -> {
+                        comment.setResolved(true);
+                        comment.setResolvedBy(resolvedBy);
+                        comment.setResolvedAt(Instant.now());
+                    });
+
+            review.setUpdatedAt(Instant.now());
+        }, stored -> publish("REVIEW_COMMENT_RESOLVED", stored));
     }
 
     /**
      * Unresolve a comment.
      */
     public Review unresolveComment(String reviewId, String commentId) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        review.getComments().stream()
-                .filter(c -> c.getId().equals(commentId))
-                .findFirst()
-                .ifPresent(comment -> {
-                    comment.setResolved(false);
-                    comment.setResolvedBy(null);
-                    comment.setResolvedAt(null);
-                });
-
-        review.setUpdatedAt(Instant.now());
-        return reviewRepository.save(review);
+        return reviewRepository.update(reviewId, review -> {
+            review.getComments().stream()
+                    .filter(c -> c.getId().equals(commentId))
+                    .findFirst()
+                    .ifPresent(comment -> {
+                        comment.setResolved(false);
+                        comment.setResolvedBy(null);
+                        comment.setResolvedAt(null);
+                    });
+
+            review.setUpdatedAt(Instant.now());
+        }, stored -> publish("REVIEW_COMMENT_REOPENED", stored));
     }
 
     /**
      * Approve a review.
      */
     public Review approve(String reviewId, String approvedBy) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        review.setStatus(ReviewStatus.APPROVED);
-        review.setApprovedBy(approvedBy);
-        review.setApprovedAt(Instant.now());
-        review.setUpdatedAt(Instant.now());
-
-        return reviewRepository.save(review);
+        return reviewRepository.update(reviewId, review -> {
+            review.setStatus(ReviewStatus.APPROVED);
+            review.setApprovedBy(approvedBy);
+            review.setApprovedAt(Instant.now());
+            review.setUpdatedAt(Instant.now());
+        }, stored -> publish("REVIEW_APPROVED", stored));
     }
 
     /**
      * Reject a review.
      */
     public Review reject(String reviewId, String rejectedBy, String reason) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        review.setStatus(ReviewStatus.REJECTED);
-        review.setRejectedBy(rejectedBy);
-        review.setRejectedAt(Instant.now());
-        review.setRejectionReason(reason);
-        review.setUpdatedAt(Instant.now());
-
-        return reviewRepository.save(review);
+        return reviewRepository.update(reviewId, review -> {
+            review.setStatus(ReviewStatus.REJECTED);
+            review.setRejectedBy(rejectedBy);
+            review.setRejectedAt(Instant.now());
+            review.setRejectionReason(reason);
+            review.setUpdatedAt(Instant.now());
+        }, stored -> publish("REVIEW_REJECTED", stored));
     }
 
     /**
      * Request changes on a review.
      */
     public Review requestChanges(String reviewId, String requestedBy, String reason) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        review.setStatus(ReviewStatus.CHANGES_REQUESTED);
-        review.setRejectionReason(reason);
-        review.setUpdatedAt(Instant.now());
-
-        return reviewRepository.save(review);
+        return reviewRepository.update(reviewId, review -> {
+            review.setStatus(ReviewStatus.CHANGES_REQUESTED);
+            review.setRejectionReason(reason);
+            review.setUpdatedAt(Instant.now());
+        }, stored -> publish("REVIEW_CHANGES_REQUESTED", stored));
     }
 
     /**
      * Update content in a review (creates new version).
      */
     public Review updateContent(String reviewId, ContentSuggestion newContent, String updatedBy, String changeNote) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        // Save new version
-        int newVersion = reviewRepository.getNextVersionNumber(review.getContentId());
-        saveContentVersion(review.getContentId(), newContent, updatedBy, changeNote);
-
-        review.setContent(newContent);
-        review.setVersion(newVersion);
-        review.setUpdatedAt(Instant.now());
-
-        // If changes were requested, move back to pending
-        if (review.getStatus() == ReviewStatus.CHANGES_REQUESTED) {
-            review.setStatus(ReviewStatus.PENDING_REVIEW);
-        }
-
-        return reviewRepository.save(review);
+        return reviewRepository.update(reviewId, review -> {
+            // Save new version
+            int newVersion = reviewRepository.getNextVersionNumber(review.getContentId());
+            saveContentVersion(review.getContentId(), newContent, updatedBy, changeNote);
+
+            review.setContent(newContent);
+            review.setVersion(newVersion);
+            review.setUpdatedAt(Instant.now());
+
+            // If changes were requested, move back to pending
+            if (review.getStatus() == ReviewStatus.CHANGES_REQUESTED) {
+                review.setStatus(ReviewStatus.PENDING_REVIEW);
+            }
+        }, stored -> publish("REVIEW_CONTENT_UPDATED", stored));
     }
 
     /**
@@ -237,15 +228,37 @@ public class ReviewService {
      * Mark a reviewer as having reviewed.
      */
     public Review markReviewed(String reviewId, String reviewerId) {
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
-
-        review.getReviewers().stream()
-                .filter(r -> r.getId().equals(reviewerId))
-                .findFirst()
-                .ifPresent(reviewer -> reviewer.setHasReviewed(true));
+        return reviewRepository.update(reviewId, review -> {
+            review.getReviewers().stream()
+                    .filter(r -> r.getId().equals(reviewerId))
+                    .findFirst()
+                    .ifPresent(reviewer -> reviewer.setHasReviewed(true));
+
+            review.setUpdatedAt(Instant.now());
+        }, stored -> publish("REVIEW_MARKED_REVIEWED", stored));
+    }
 
-        review.setUpdatedAt(Instant.now());
-        return reviewRepository.save(review);
+    /**
+     * Push a review change to event stream subscribers. Reviewers are the
+     * assignees. Updates call this under the review's repository lock.
+     */
+    private Review publish(String type, Review review) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", review.getId());
+        data.put("status", review.getStatus());
+        data.put("version", review.getVersion());
+        data.put("updatedAt", review.getUpdatedAt());
+        data.put("comments", review.getComments() != null ? review.getComments().size() : 0);
+
+        Set<String> assignees = new HashSet<>();
+        if (review.getReviewers() != null) {
+            review.getReviewers().forEach(reviewer -> {
+                if (reviewer.getId() != null) {
+                    assignees.add(reviewer.getId());
+                }
+            });
+        }
+        events.publish(type, StateEvent.SOURCE_REVIEW, review.getId(), review.getContentId(), assignees, data);
+        return review;
     }
 }
@@ -3,14 +3,21 @@ package com.example.aema2ui.service;
 import com.example.aema2ui.agent.AemContentAgent;
 import com.example.aema2ui.model.ContentSuggestion;
 import com.example.aema2ui.model.UserInput;
+import com.example.aema2ui.service.llm.IncrementalJsonFieldParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -21,8 +28,10 @@ import java.util.concurrent.Executors;
  * Implements AG-UI protocol event types:
  * - RUN_STARTED: Generation begins
  * - TEXT_MESSAGE_START: New text field beginning
- * - TEXT_MESSAGE_DELTA: Incremental text update
- * - TEXT_MESSAGE_END: Field complete
+ * - TEXT_MESSAGE_DELTA: Incremental text update (only the new text)
+ * - TEXT_MESSAGE_END: Field complete, with the full value
+ * - TEXT_MESSAGE_CHECKPOINT: Full text so far (raw streams in delta wire mode)
+ * - ARTIFACT: One suggestion variation, as soon as it is generated
  * - RUN_FINISHED: Generation complete
  *
  * This creates the "typing" effect where content appears progressively.
@@ -35,20 +44,70 @@ public class StreamingContentService {
     private final AemContentAgent contentAgent;
     private final LlmService llmService;
     private final ObjectMapper objectMapper;
+    private final ContentSuggestionService suggestionService;
 
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // spring.threads.virtual.enabled also switches Tomcat request handling to virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Caps concurrent generations however many threads are available
+    @Value("${aem.agent.streaming.max-concurrent:64}")
+    private int maxConcurrentStreams;
+
+    @Value("${aem.agent.streaming.acquire-timeout:2000}")
+    private long streamAcquireTimeout;
+
+    private ExecutorService executor;
+    private Bulkhead streamBulkhead;
+
+    // Tokens between full-text checkpoints in DELTA wire mode (0 disables checkpoints)
+    @Value("${aem.agent.streaming.checkpoint-interval:100}")
+    private int checkpointInterval;
 
     // AG-UI Event Types
     public static final String RUN_STARTED = "RUN_STARTED";
     public static final String TEXT_MESSAGE_START = "TEXT_MESSAGE_START";
     public static final String TEXT_MESSAGE_DELTA = "TEXT_MESSAGE_DELTA";
     public static final String TEXT_MESSAGE_END = "TEXT_MESSAGE_END";
+    public static final String TEXT_MESSAGE_CHECKPOINT = "TEXT_MESSAGE_CHECKPOINT";
     public static final String TOOL_CALL_START = "TOOL_CALL_START";
     public static final String TOOL_CALL_END = "TOOL_CALL_END";
     public static final String STATE_DELTA = "STATE_DELTA";
+    public static final String ARTIFACT = "ARTIFACT";
     public static final String RUN_FINISHED = "RUN_FINISHED";
     public static final String RUN_ERROR = "RUN_ERROR";
 
+    // ContentSuggestion fields streamed live from the LLM JSON
+    private static final Set<String> LIVE_FIELDS = Set.of(
+        "title", "subtitle", "description", "ctaText", "ctaUrl", "price", "imageUrl");
+
+    @PostConstruct
+    void init() {
+        // Each stream blocks on the LLM for its whole duration: a virtual thread
+        // per stream costs no platform thread while waiting on I/O
+        executor = virtualThreads
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newCachedThreadPool();
+        streamBulkhead = new Bulkhead("stream", maxConcurrentStreams, Duration.ofMillis(streamAcquireTimeout));
+        log.info("Streaming executor: {} threads, max {} concurrent streams",
+            virtualThreads ? "virtual" : "platform", maxConcurrentStreams);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Streaming executor and bulkhead statistics.
+     */
+    public Map<String, Object> getStreamingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("bulkhead", streamBulkhead.getStats());
+        return stats;
+    }
+
     /**
      * Stream content generation with real-time updates.
      * @param useAi If false, uses templates for instant response. If true, uses LLM (slower).
@@ -75,7 +134,7 @@ public class StreamingContentService {
             }
         });
 
-        executor.execute(() -> {
+        submit(runId, emitter, emitterCompleted, () -> {
             try {
                 // 1. Emit RUN_STARTED
                 if (emitterCompleted.get()) return;
@@ -86,8 +145,10 @@ public class StreamingContentService {
                 ));
 
                 // 2. Generate content
-                // When useAi=false, skip LLM entirely for instant response
+                // When useAi=false, skip LLM entirely for instant response.
+                // When useAi=true, fields are emitted as the LLM writes them.
                 ContentSuggestion content;
+                Map<String, String> streamed = Map.of();
                 if (useAi) {
                     // Full LLM path (slower but smarter)
                     UserInput parsed = contentAgent.parseUserIntent(userInput);
@@ -100,29 +161,27 @@ public class StreamingContentService {
                             .toneOfVoice(parsed.getToneOfVoice())
                             .build();
                     }
-                    content = contentAgent.generateContent(parsed);
+
+                    // 3. Fields are streamed while the LLM writes them
+                    LiveFieldEmitter live = new LiveFieldEmitter(emitter, runId, emitterCompleted);
+                    IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(live);
+                    content = contentAgent.generateContentStreaming(parsed, parser::feed, emitterCompleted::get,
+                        live::reset);
+                    streamed = live.getStreamedValues();
                 } else {
                     // Template path (instant)
                     content = contentAgent.generateTemplateContent(userInput, componentType);
                 }
 
-                // 4. Stream each field progressively (check emitter state before each)
-                if (!emitterCompleted.get()) streamField(emitter, runId, "title", content.getTitle(), emitterCompleted);
-                if (!emitterCompleted.get()) streamField(emitter, runId, "subtitle", content.getSubtitle(), emitterCompleted);
-                if (!emitterCompleted.get()) streamField(emitter, runId, "description", content.getDescription(), emitterCompleted);
-
-                if (!emitterCompleted.get() && content.getCtaText() != null) {
-                    streamField(emitter, runId, "ctaText", content.getCtaText(), emitterCompleted);
-                }
-                if (!emitterCompleted.get() && content.getCtaUrl() != null) {
-                    streamField(emitter, runId, "ctaUrl", content.getCtaUrl(), emitterCompleted);
-                }
-                if (!emitterCompleted.get() && content.getPrice() != null) {
-                    streamField(emitter, runId, "price", content.getPrice(), emitterCompleted);
-                }
-                if (!emitterCompleted.get() && content.getImageUrl() != null) {
-                    streamField(emitter, runId, "imageUrl", content.getImageUrl(), emitterCompleted);
-                }
+                // 4. Stream fields not already streamed live with their final value
+                // (defaults, repaired values, template fallback)
+                streamRemainingField(emitter, runId, "title", content.getTitle(), streamed, emitterCompleted);
+                streamRemainingField(emitter, runId, "subtitle", content.getSubtitle(), streamed, emitterCompleted);
+                streamRemainingField(emitter, runId, "description", content.getDescription(), streamed, emitterCompleted);
+                streamRemainingField(emitter, runId, "ctaText", content.getCtaText(), streamed, emitterCompleted);
+                streamRemainingField(emitter, runId, "ctaUrl", content.getCtaUrl(), streamed, emitterCompleted);
+                streamRemainingField(emitter, runId, "price", content.getPrice(), streamed, emitterCompleted);
+                streamRemainingField(emitter, runId, "imageUrl", content.getImageUrl(), streamed, emitterCompleted);
 
                 // 5. Emit complete content as state
                 if (!emitterCompleted.get()) {
@@ -168,6 +227,107 @@ public class StreamingContentService {
         });
     }
 
+    /**
+     * Stream suggestion variations as A2A artifacts, each as soon as it is generated.
+     * RUN_FINISHED carries the A2UI messages and all artifacts, like POST /tasks.
+     */
+    public void streamSuggestions(String userInput, int count, SseEmitter emitter) {
+        String runId = UUID.randomUUID().toString();
+        final java.util.concurrent.atomic.AtomicBoolean emitterCompleted = new java.util.concurrent.atomic.AtomicBoolean(false);
+
+        emitter.onCompletion(() -> emitterCompleted.set(true));
+        emitter.onTimeout(() -> emitterCompleted.set(true));
+        emitter.onError(e -> emitterCompleted.set(true));
+
+        submit(runId, emitter, emitterCompleted, () -> {
+            try {
+                emitEvent(emitter, RUN_STARTED, Map.of(
+                    "runId", runId,
+                    "mode", "suggestions",
+                    "count", count
+                ));
+
+                ContentSuggestionService.SuggestionsResult result =
+                    suggestionService.generateMultipleSuggestions(userInput, count, artifact -> {
+                        if (emitterCompleted.get()) return;
+                        try {
+                            emitEvent(emitter, ARTIFACT, Map.of(
+                                "runId", runId,
+                                "artifact", artifact
+                            ));
+                        } catch (Exception e) {
+                            log.debug("Failed to emit artifact: {}", e.getMessage());
+                        }
+                    });
+
+                if (!emitterCompleted.get()) {
+                    emitEvent(emitter, RUN_FINISHED, Map.of(
+                        "runId", runId,
+                        "status", "completed",
+                        "messages", result.messages(),
+                        "artifacts", result.artifacts()
+                    ));
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                if (!isClientDisconnection(e) && !emitterCompleted.get()) {
+                    log.error("Suggestion streaming error: {}", e.getMessage());
+                    try {
+                        emitEvent(emitter, RUN_ERROR, Map.of(
+                            "runId", runId,
+                            "error", e.getMessage() != null ? e.getMessage() : "Unknown error"
+                        ));
+                        emitter.completeWithError(e);
+                    } catch (Exception ignored) {}
+                }
+            }
+        });
+    }
+
+    /**
+     * Run a stream on the executor once the bulkhead admits it.
+     * When the limit is reached the client gets a retryable RUN_ERROR instead of queueing forever.
+     */
+    private void submit(String runId, SseEmitter emitter,
+            java.util.concurrent.atomic.AtomicBoolean emitterCompleted, Runnable task) {
+        executor.execute(() -> {
+            try {
+                streamBulkhead.acquire();
+            } catch (Bulkhead.BulkheadFullException e) {
+                log.warn("Rejecting stream {}: {}", runId, e.getMessage());
+                if (!emitterCompleted.get()) {
+                    try {
+                        emitEvent(emitter, RUN_ERROR, Map.of(
+                            "runId", runId,
+                            "error", e.getMessage(),
+                            "retryable", true
+                        ));
+                        emitter.complete();
+                    } catch (Exception ignored) {
+                        // Emitter already closed, ignore
+                    }
+                }
+                return;
+            }
+
+            try {
+                task.run();
+            } finally {
+                streamBulkhead.release();
+            }
+        });
+    }
+
+    /**
+     * Stream a field unless the same value was already streamed live.
+     */
+    private void streamRemainingField(SseEmitter emitter, String runId, String fieldName, String value,
+            Map<String, String> streamed, java.util.concurrent.atomic.AtomicBoolean emitterCompleted)
+            throws IOException, InterruptedException {
+        if (value == null || value.equals(streamed.get(fieldName))) return;
+        streamField(emitter, runId, fieldName, value, emitterCompleted);
+    }
+
     /**
      * Stream a single field - sends complete value immediately (no artificial delay).
      */
@@ -191,8 +351,7 @@ public class StreamingContentService {
             "runId", runId,
             "messageId", messageId,
             "field", fieldName,
-            "delta", value,
-            "content", value
+            "delta", value
         ));
 
         if (emitterCompleted.get()) return;
@@ -206,19 +365,110 @@ public class StreamingContentService {
         ));
     }
 
+    /**
+     * Emits TEXT_MESSAGE_* events for content fields while the LLM is still writing them.
+     * Deltas carry only the new text; the full value is sent once, in TEXT_MESSAGE_END.
+     * Emission failures are logged and swallowed so the LLM answer is still collected.
+     */
+    private class LiveFieldEmitter implements IncrementalJsonFieldParser.Listener {
+
+        private final SseEmitter emitter;
+        private final String runId;
+        private final java.util.concurrent.atomic.AtomicBoolean emitterCompleted;
+
+        private final Map<String, String> streamedValues = new LinkedHashMap<>();
+        private final StringBuilder current = new StringBuilder();
+        private String messageId;
+        private String openField;
+
+        LiveFieldEmitter(SseEmitter emitter, String runId,
+                java.util.concurrent.atomic.AtomicBoolean emitterCompleted) {
+            this.emitter = emitter;
+            this.runId = runId;
+            this.emitterCompleted = emitterCompleted;
+        }
+
+        Map<String, String> getStreamedValues() {
+            return streamedValues;
+        }
+
+        /**
+         * Discard the live output when generation falls back to templates:
+         * close the field left open by the failed stream and forget streamed
+         * values so every fallback field is streamed as a fresh message.
+         */
+        void reset() {
+            if (openField != null) {
+                emit(TEXT_MESSAGE_END, Map.of(
+                    "runId", runId,
+                    "messageId", messageId,
+                    "field", openField,
+                    "content", current.toString(),
+                    "discarded", true
+                ));
+                openField = null;
+            }
+            streamedValues.clear();
+        }
+
+        @Override
+        public void onFieldStart(String field) {
+            if (!LIVE_FIELDS.contains(field)) return;
+
+            messageId = UUID.randomUUID().toString();
+            openField = field;
+            current.setLength(0);
+            emit(TEXT_MESSAGE_START, Map.of(
+                "runId", runId,
+                "messageId", messageId,
+                "field", field
+            ));
+        }
+
+        @Override
+        public void onFieldDelta(String field, String delta) {
+            if (!LIVE_FIELDS.contains(field)) return;
+
+            current.append(delta);
+            emit(TEXT_MESSAGE_DELTA, Map.of(
+                "runId", runId,
+                "messageId", messageId,
+                "field", field,
+                "delta", delta
+            ));
+        }
+
+        @Override
+        public void onFieldEnd(String field, String value) {
+            if (!LIVE_FIELDS.contains(field)) return;
+
+            emit(TEXT_MESSAGE_END, Map.of(
+                "runId", runId,
+                "messageId", messageId,
+                "field", field,
+                "content", value
+            ));
+            openField = null;
+            streamedValues.put(field, value);
+        }
+
+        private void emit(String eventType, Map<String, Object> data) {
+            if (emitterCompleted.get()) return;
+            try {
+                emitEvent(emitter, eventType, data);
+            } catch (Exception e) {
+                log.debug("Failed to emit live field event: {}", e.getMessage());
+            }
+        }
+    }
+
     /**
      * Emit an SSE event with AG-UI format.
      */
     private void emitEvent(SseEmitter emitter, String eventType, Map<String, Object> data)
             throws IOException {
         try {
-            Map<String, Object> event = Map.of(
-                "type", eventType,
-                "timestamp", System.currentTimeMillis(),
-                "data", data
-            );
-
-            String json = objectMapper.writeValueAsString(event);
+            String json = eventJson(eventType, data);
             emitter.send(SseEmitter.event()
                 .name(eventType)
                 .data(json));
@@ -234,6 +484,18 @@ public class StreamingContentService {
         }
     }
 
+    /**
+     * Serialize an event in the AG-UI envelope.
+     */
+    String eventJson(String eventType, Map<String, Object> data) throws IOException {
+        Map<String, Object> event = Map.of(
+            "type", eventType,
+            "timestamp", System.currentTimeMillis(),
+            "data", data
+        );
+        return objectMapper.writeValueAsString(event);
+    }
+
     /**
      * Create a configured SseEmitter with appropriate timeout.
      * Note: Callbacks are set in streamContentGeneration to track state.
@@ -243,10 +505,39 @@ public class StreamingContentService {
     }
 
     /**
-     * Stream raw LLM output directly - true streaming like CLI.
-     * Tokens are sent to client as soon as Ollama generates them.
+     * Wire format for raw token streams.
+     */
+    public enum WireMode {
+        /** Every delta also carries the full text so far (default, original format). */
+        CUMULATIVE,
+        /** Deltas carry only the token with seq/offset; full text is sent in periodic checkpoints. */
+        DELTA;
+
+        /**
+         * Parse a client-supplied mode, defaulting to CUMULATIVE.
+         */
+        public static WireMode parse(String value) {
+            return value != null && value.trim().equalsIgnoreCase("delta") ? DELTA : CUMULATIVE;
+        }
+    }
+
+    /**
+     * Stream raw LLM output in the original cumulative wire format.
      */
     public void streamRawGeneration(String prompt, SseEmitter emitter) {
+        streamRawGeneration(prompt, emitter, WireMode.CUMULATIVE);
+    }
+
+    /**
+     * Stream raw LLM output directly - true streaming like CLI.
+     * Tokens are sent to client as soon as the provider generates them.
+     * The upstream request is cancelled when the client disconnects.
+     *
+     * In DELTA mode each TEXT_MESSAGE_DELTA carries only the token, its seq and
+     * offset, and a TEXT_MESSAGE_CHECKPOINT with the full text follows every
+     * checkpoint-interval tokens.
+     */
+    public void streamRawGeneration(String prompt, SseEmitter emitter, WireMode wireMode) {
         String runId = UUID.randomUUID().toString();
         final java.util.concurrent.atomic.AtomicBoolean emitterCompleted = new java.util.concurrent.atomic.AtomicBoolean(false);
 
@@ -254,13 +545,18 @@ public class StreamingContentService {
         emitter.onTimeout(() -> emitterCompleted.set(true));
         emitter.onError(e -> emitterCompleted.set(true));
 
-        executor.execute(() -> {
+        submit(runId, emitter, emitterCompleted, () -> {
             try {
                 // Emit RUN_STARTED
-                emitEvent(emitter, RUN_STARTED, Map.of("runId", runId, "mode", "raw_streaming"));
+                emitEvent(emitter, RUN_STARTED, Map.of(
+                    "runId", runId,
+                    "mode", "raw_streaming",
+                    "wire", wireMode.name().toLowerCase()
+                ));
 
-                StringBuilder fullResponse = new StringBuilder();
                 String messageId = UUID.randomUUID().toString();
+                TokenStreamEncoder encoder = new TokenStreamEncoder(runId, messageId, "content",
+                    wireMode, checkpointInterval);
 
                 // Start message
                 emitEvent(emitter, TEXT_MESSAGE_START, Map.of(
@@ -271,18 +567,14 @@ public class StreamingContentService {
 
                 // True streaming from LLM
                 llmService.generateStreaming(prompt,
-                    // onToken - called for each token from Ollama
+                    // onToken - called for each token from the provider
                     token -> {
                         if (emitterCompleted.get()) return;
-                        fullResponse.append(token);
                         try {
-                            emitEvent(emitter, TEXT_MESSAGE_DELTA, Map.of(
-                                "runId", runId,
-                                "messageId", messageId,
-                                "field", "content",
-                                "delta", token,
-                                "content", fullResponse.toString()
-                            ));
+                            emitEvent(emitter, TEXT_MESSAGE_DELTA, encoder.delta(token));
+                            if (encoder.isCheckpointDue()) {
+                                emitEvent(emitter, TEXT_MESSAGE_CHECKPOINT, encoder.checkpoint());
+                            }
                         } catch (Exception e) {
                             log.debug("Failed to emit token: {}", e.getMessage());
                         }
@@ -291,22 +583,25 @@ public class StreamingContentService {
                     () -> {
                         if (emitterCompleted.get()) return;
                         try {
+                            String fullResponse = encoder.getContent();
                             emitEvent(emitter, TEXT_MESSAGE_END, Map.of(
                                 "runId", runId,
                                 "messageId", messageId,
                                 "field", "content",
-                                "content", fullResponse.toString()
+                                "content", fullResponse
                             ));
                             emitEvent(emitter, RUN_FINISHED, Map.of(
                                 "runId", runId,
                                 "status", "completed",
-                                "content", fullResponse.toString()
+                                "content", fullResponse
                             ));
                             emitter.complete();
                         } catch (Exception e) {
                             log.debug("Failed to complete: {}", e.getMessage());
                         }
-                    }
+                    },
+                    // cancelled - stop reading from the provider once the client is gone
+                    emitterCompleted::get
                 );
 
             } catch (Exception e) {
@@ -0,0 +1,90 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.service.StreamingContentService.WireMode;
+
+import java.util.Map;
+
+/**
+ * Builds TEXT_MESSAGE_DELTA payloads for a raw token stream.
+ *
+ * In CUMULATIVE mode every delta repeats the full text so far, so the bytes
+ * sent grow quadratically with the answer. In DELTA mode a delta carries only
+ * the token, its sequence number and the offset it starts at (in UTF-16 chars,
+ * i.e. JavaScript string length). A checkpoint with the full text is due every
+ * checkpointInterval tokens so clients can resynchronise after a gap.
+ */
+class TokenStreamEncoder {
+
+    private final String runId;
+    private final String messageId;
+    private final String field;
+    private final WireMode mode;
+    private final int checkpointInterval;
+
+    private final StringBuilder content = new StringBuilder();
+    private long seq;
+
+    TokenStreamEncoder(String runId, String messageId, String field, WireMode mode, int checkpointInterval) {
+        this.runId = runId;
+        this.messageId = messageId;
+        this.field = field;
+        this.mode = mode;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Append a token and build its delta payload.
+     */
+    Map<String, Object> delta(String token) {
+        int offset = content.length();
+        content.append(token);
+        seq++;
+
+        if (mode == WireMode.CUMULATIVE) {
+            return Map.of(
+                "runId", runId,
+                "messageId", messageId,
+                "field", field,
+                "delta", token,
+                "content", content.toString()
+            );
+        }
+        return Map.of(
+            "runId", runId,
+            "messageId", messageId,
+            "field", field,
+            "delta", token,
+            "seq", seq,
+            "offset", offset
+        );
+    }
+
+    /**
+     * True when a checkpoint should follow the last delta.
+     */
+    boolean isCheckpointDue() {
+        return mode == WireMode.DELTA && checkpointInterval > 0 && seq % checkpointInterval == 0;
+    }
+
+    /**
+     * Full text so far, tagged with the sequence number of the last token it includes.
+     */
+    Map<String, Object> checkpoint() {
+        return Map.of(
+            "runId", runId,
+            "messageId", messageId,
+            "field", field,
+            "seq", seq,
+            "length", content.length(),
+            "content", content.toString()
+        );
+    }
+
+    long getSeq() {
+        return seq;
+    }
+
+    String getContent() {
+        return content.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.model.WorkflowModel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory registry of workflow models, indexed by id.
+ *
+ * Lookups read an immutable snapshot and never wait for AEM. The snapshot is
+ * replaced by refreshes running on the given executor: scheduled by the
+ * owner, and triggered by reads when the snapshot is older than the refresh
+ * interval or an id is not found (at most once per minRefreshInterval). Until
+ * a refresh succeeds, callers keep getting the previous snapshot.
+ *
+ * The loader returns the current models, or null when they cannot be loaded
+ * right now; the snapshot is then kept as is.
+ */
+@Slf4j
+public class WorkflowModelRegistry {
+
+    private record Snapshot(List<WorkflowModel> models, Map<String, WorkflowModel> byId, Instant loadedAt) {
+
+        static Snapshot of(List<WorkflowModel> models) {
+            Map<String, WorkflowModel> byId = new LinkedHashMap<>();
+            for (WorkflowModel model : models) {
+                if (model.getId() != null) {
+                    byId.putIfAbsent(model.getId(), model);
+                }
+            }
+            return new Snapshot(List.copyOf(models), Map.copyOf(byId), Instant.now());
+        }
+    }
+
+    private final Supplier<List<WorkflowModel>> loader;
+    private final Executor executor;
+    private final long refreshIntervalMillis;
+    private final long minRefreshIntervalMillis;
+
+    private volatile Snapshot snapshot;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile long lastAttemptMillis;
+    private volatile String lastError;
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param initial Models served until the first refresh succeeds
+     */
+    public WorkflowModelRegistry(Supplier<List<WorkflowModel>> loader, List<WorkflowModel> initial, Executor executor,
+                                 Duration refreshInterval, Duration minRefreshInterval) {
+        this.loader = loader;
+        this.executor = executor;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+        this.minRefreshIntervalMillis = minRefreshInterval.toMillis();
+        this.snapshot = Snapshot.of(initial);
+    }
+
+    /**
+     * All models, in the order the loader returned them.
+     */
+    public List<WorkflowModel> getModels() {
+        Snapshot current = snapshot;
+        refreshIfStale(current);
+        return current.models();
+    }
+
+    /**
+     * Look up a model by id. A miss schedules a refresh, since the model may
+     * have been added in AEM since the last one.
+     */
+    public Optional<WorkflowModel> find(String id) {
+        lookups.incrementAndGet();
+        Snapshot current = snapshot;
+        WorkflowModel model = id != null ? current.byId().get(id) : null;
+        if (model == null) {
+            misses.incrementAndGet();
+            requestRefresh(false);
+        } else {
+            refreshIfStale(current);
+        }
+        return Optional.ofNullable(model);
+    }
+
+    /**
+     * Start a refresh in the background unless one is running or, when not
+     * forced, one was attempted within minRefreshInterval.
+     *
+     * @return Whether a refresh was started
+     */
+    public boolean requestRefresh(boolean force) {
+        if (!force && System.currentTimeMillis() - lastAttemptMillis < minRefreshIntervalMillis) {
+            return false;
+        }
+        if (!refreshing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(this::runRefresh);
+            return true;
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            return false;
+        }
+    }
+
+    /**
+     * Refresh on the calling thread, unless a refresh is already running.
+     */
+    public void refresh() {
+        if (refreshing.compareAndSet(false, true)) {
+            runRefresh();
+        }
+    }
+
+    /**
+     * Snapshot size and age, lookup and refresh counters.
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("models", current.models().size());
+        stats.put("loadedAt", current.loadedAt().toString());
+        stats.put("refreshing", refreshing.get());
+        stats.put("lookups", lookups.get());
+        stats.put("misses", misses.get());
+        stats.put("refreshes", refreshes.get());
+        stats.put("failures", failures.get());
+        stats.put("lastError", lastError);
+        stats.put("refreshIntervalMillis", refreshIntervalMillis);
+        return stats;
+    }
+
+    private void refreshIfStale(Snapshot current) {
+        if (System.currentTimeMillis() - current.loadedAt().toEpochMilli() >= refreshIntervalMillis) {
+            requestRefresh(false);
+        }
+    }
+
+    private void runRefresh() {
+        lastAttemptMillis = System.currentTimeMillis();
+        try {
+            List<WorkflowModel> models = loader.get();
+            if (models != null) {
+                snapshot = Snapshot.of(models);
+                refreshes.incrementAndGet();
+                lastError = null;
+                log.debug("Workflow model registry refreshed: {} models", models.size());
+            }
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot
+            failures.incrementAndGet();
+            lastError = e.getMessage();
+            log.warn("Workflow model refresh failed: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+}
@@ -2,15 +2,22 @@ package com.example.aema2ui.service;
 
 import com.example.aema2ui.config.AemConfig;
 import com.example.aema2ui.model.*;
+import com.example.aema2ui.repository.WorkflowRepository;
 import com.example.aema2ui.service.aem.AemHttpClient;
 import com.example.aema2ui.service.aem.AemWorkflowClient;
-import lombok.RequiredArgsConstructor;
+import com.example.aema2ui.service.event.EventStreamService;
+import com.example.aema2ui.service.event.StateEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for managing AEM workflow operations.
@@ -18,14 +25,15 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class WorkflowService {
 
+    private static final String AEM_MODELS_PATH = "/etc/workflow/models.json";
+
     private final AemConfig aemConfig;
     private final AemHttpClient aemHttpClient;
     private final AemWorkflowClient aemWorkflowClient;
-
-    private final Map<String, WorkflowInstance> workflows = new ConcurrentHashMap<>();
+    private final WorkflowRepository workflows;
+    private final EventStreamService events;
 
     // Predefined workflow models (fallback when AEM not connected)
     private final List<WorkflowModel> defaultModels = List.of(
@@ -35,6 +43,34 @@ public class WorkflowService {
             WorkflowModel.TRANSLATION
     );
 
+    private final ScheduledExecutorService modelRefresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("workflow-models").daemon().factory());
+    private final WorkflowModelRegistry modelRegistry;
+
+    public WorkflowService(AemConfig aemConfig, AemHttpClient aemHttpClient, AemWorkflowClient aemWorkflowClient,
+                           WorkflowRepository workflows, EventStreamService events) {
+        this.aemConfig = aemConfig;
+        this.aemHttpClient = aemHttpClient;
+        this.aemWorkflowClient = aemWorkflowClient;
+        this.workflows = workflows;
+        this.events = events;
+        AemConfig.WorkflowModelRegistryProperties settings = aemConfig.getWorkflowModelRegistry();
+        this.modelRegistry = new WorkflowModelRegistry(this::loadModels, defaultModels, modelRefresher,
+                Duration.ofMillis(settings.getRefreshIntervalMillis()),
+                Duration.ofMillis(settings.getMinRefreshIntervalMillis()));
+    }
+
+    @PostConstruct
+    void startModelRefresh() {
+        long interval = Math.max(1000, aemConfig.getWorkflowModelRegistry().getRefreshIntervalMillis());
+        modelRefresher.scheduleWithFixedDelay(modelRegistry::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopModelRefresh() {
+        modelRefresher.shutdownNow();
+    }
+
     /**
      * Check if using real AEM integration.
      */
@@ -44,30 +80,66 @@ public class WorkflowService {
 
     /**
      * Get all available workflow models.
-     * Returns real AEM models when connected, or default models in mock mode.
+     * Returns the registry's last loaded AEM models, or default models in mock mode.
      */
     public List<WorkflowModel> getAvailableWorkflows() {
-        if (isUsingRealAem()) {
-            try {
-                List<WorkflowModel> aemModels = aemWorkflowClient.getWorkflowModels();
-                if (!aemModels.isEmpty()) {
-                    log.info("Loaded {} workflow models from AEM", aemModels.size());
-                    return aemModels;
-                }
-            } catch (Exception e) {
-                log.warn("Failed to load models from AEM, using defaults: {}", e.getMessage());
-            }
-        }
-        return defaultModels;
+        return modelRegistry.getModels();
     }
 
     /**
-     * Get a workflow model by ID.
+     * Get a workflow model by ID, without calling AEM.
      */
     public Optional<WorkflowModel> getWorkflowModel(String modelId) {
-        return getAvailableWorkflows().stream()
-                .filter(m -> m.getId().equals(modelId))
-                .findFirst();
+        return modelRegistry.find(modelId);
+    }
+
+    /**
+     * Reload workflow models from AEM in the background, bypassing the JSON cache.
+     */
+    public Map<String, Object> refreshWorkflowModels() {
+        aemHttpClient.invalidateCache(AEM_MODELS_PATH);
+        boolean started = modelRegistry.requestRefresh(true);
+        Map<String, Object> stats = new LinkedHashMap<>(modelRegistry.getStats());
+        stats.put("refreshStarted", started);
+        return stats;
+    }
+
+    /**
+     * Workflow model registry statistics.
+     */
+    public Map<String, Object> getModelRegistryStats() {
+        return modelRegistry.getStats();
+    }
+
+    /**
+     * Workflow instance counts and persistence statistics.
+     */
+    public Map<String, Object> getStoreStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("instances", workflows.count());
+        stats.put("byStatus", workflows.countByStatus());
+        stats.put("persistence", workflows.getPersistenceStats());
+        return stats;
+    }
+
+    /**
+     * Models for the registry: AEM's when connected, the defaults when AEM
+     * integration is disabled, and null (keep the current ones) otherwise.
+     */
+    private List<WorkflowModel> loadModels() {
+        if (!aemConfig.isEnabled()) {
+            return defaultModels;
+        }
+        if (!aemHttpClient.isConnected()) {
+            return null;
+        }
+        List<WorkflowModel> aemModels = aemWorkflowClient.getWorkflowModels();
+        if (aemModels.isEmpty()) {
+            log.warn("No workflow models loaded from AEM, keeping {} current models",
+                    modelRegistry.getModels().size());
+            return null;
+        }
+        return aemModels;
     }
 
     /**
@@ -139,125 +211,148 @@ public class WorkflowService {
         steps.get(0).setStatus("active");
         steps.get(0).setStartedAt(Instant.now());
 
-        workflows.put(instance.getId(), instance);
-        return instance;
+        return workflows.save(instance, stored -> publish("WORKFLOW_STARTED", stored));
     }
 
     /**
      * Get workflow instance by ID.
      */
     public Optional<WorkflowInstance> getWorkflowInstance(String workflowId) {
-        return Optional.ofNullable(workflows.get(workflowId));
+        return workflows.findById(workflowId);
     }
 
     /**
-     * Get all workflow instances for content.
+     * Get all workflow instances for content, newest first.
      */
     public List<WorkflowInstance> getWorkflowsByContentId(String contentId) {
-        return workflows.values().stream()
-                .filter(w -> contentId.equals(w.getContentId()))
-                .sorted(Comparator.comparing(WorkflowInstance::getStartedAt).reversed())
-                .toList();
+        return workflows.findByContentId(contentId);
     }
 
     /**
-     * Get all workflow instances.
+     * Get all workflow instances, newest first.
      */
     public List<WorkflowInstance> getAllWorkflows() {
-        return new ArrayList<>(workflows.values());
+        return workflows.findAll();
+    }
+
+    /**
+     * Get a page of workflow instances, newest first, optionally filtered by content and status.
+     */
+    public WorkflowRepository.Page findWorkflows(String contentId, WorkflowStatus status, int offset, int limit) {
+        return workflows.find(contentId, status, Math.max(0, offset), Math.max(0, limit));
     }
 
     /**
      * Advance workflow to next step.
      */
     public WorkflowInstance advanceWorkflow(String workflowId, String comment) {
-        WorkflowInstance instance = workflows.get(workflowId);
-        if (instance == null) {
-            throw new IllegalArgumentException("Workflow not found: " + workflowId);
-        }
-
-        if (instance.getStatus() != WorkflowStatus.RUNNING) {
-            throw new IllegalStateException("Workflow is not running: " + workflowId);
-        }
+        return advanceWorkflow(workflowId, comment, WorkflowRepository.ANY_VERSION);
+    }
 
-        List<WorkflowInstance.WorkflowStep> steps = instance.getSteps();
-        int currentIndex = instance.getCurrentStepIndex();
-
-        // Complete current step
-        WorkflowInstance.WorkflowStep currentStep = steps.get(currentIndex);
-        currentStep.setStatus("completed");
-        currentStep.setCompletedAt(Instant.now());
-        currentStep.setComment(comment);
-
-        // Check if there's a next step
-        if (currentIndex + 1 < steps.size()) {
-            // Move to next step
-            WorkflowInstance.WorkflowStep nextStep = steps.get(currentIndex + 1);
-            nextStep.setStatus("active");
-            nextStep.setStartedAt(Instant.now());
-
-            instance.setCurrentStep(nextStep.getName());
-            instance.setCurrentStepIndex(currentIndex + 1);
-        } else {
-            // Workflow complete
-            instance.setStatus(WorkflowStatus.COMPLETED);
-            instance.setCompletedAt(Instant.now());
-            instance.setCurrentStep("Completed");
-        }
+    /**
+     * Advance workflow to next step, if it is still at expectedVersion.
+     *
+     * @throws WorkflowRepository.VersionConflictException if another change got there first
+     */
+    public WorkflowInstance advanceWorkflow(String workflowId, String comment, long expectedVersion) {
+        return workflows.update(workflowId, expectedVersion, instance -> {
+            if (instance.getStatus() != WorkflowStatus.RUNNING) {
+                throw new IllegalStateException("Workflow is not running: " + workflowId);
+            }
 
-        return instance;
+            List<WorkflowInstance.WorkflowStep> steps = instance.getSteps();
+            int currentIndex = instance.getCurrentStepIndex();
+
+            // Complete current step
+            WorkflowInstance.WorkflowStep currentStep = steps.get(currentIndex);
+            currentStep.setStatus("completed");
+            currentStep.setCompletedAt(Instant.now());
+            currentStep.setComment(comment);
+
+            // Check if there's a next step
+            if (currentIndex + 1 < steps.size()) {
+                // Move to next step
+                WorkflowInstance.WorkflowStep nextStep = steps.get(currentIndex + 1);
+                nextStep.setStatus("active");
+                nextStep.setStartedAt(Instant.now());
+
+                instance.setCurrentStep(nextStep.getName());
+                instance.setCurrentStepIndex(currentIndex + 1);
+            } else {
+                // Workflow complete
+                instance.setStatus(WorkflowStatus.COMPLETED);
+                instance.setCompletedAt(Instant.now());
+                instance.setCurrentStep("Completed");
+            }
+        }, advanced -> publish(advanced.getStatus() == WorkflowStatus.COMPLETED
+                ? "WORKFLOW_COMPLETED" : "WORKFLOW_ADVANCED", advanced));
     }
 
     /**
      * Cancel/abort a workflow.
      */
     public WorkflowInstance cancelWorkflow(String workflowId, String reason) {
-        WorkflowInstance instance = workflows.get(workflowId);
-        if (instance == null) {
-            throw new IllegalArgumentException("Workflow not found: " + workflowId);
-        }
-
-        instance.setStatus(WorkflowStatus.ABORTED);
-        instance.setCompletedAt(Instant.now());
+        return cancelWorkflow(workflowId, reason, WorkflowRepository.ANY_VERSION);
+    }
 
-        // Mark current step as skipped
-        int currentIndex = instance.getCurrentStepIndex();
-        if (currentIndex < instance.getSteps().size()) {
-            instance.getSteps().get(currentIndex).setStatus("skipped");
-            instance.getSteps().get(currentIndex).setComment("Workflow cancelled: " + reason);
-        }
+    public WorkflowInstance cancelWorkflow(String workflowId, String reason, long expectedVersion) {
+        return workflows.update(workflowId, expectedVersion, instance -> {
+            instance.setStatus(WorkflowStatus.ABORTED);
+            instance.setCompletedAt(Instant.now());
 
-        return instance;
+            // Mark current step as skipped
+            int currentIndex = instance.getCurrentStepIndex();
+            if (currentIndex < instance.getSteps().size()) {
+                instance.getSteps().get(currentIndex).setStatus("skipped");
+                instance.getSteps().get(currentIndex).setComment("Workflow cancelled: " + reason);
+            }
+        }, stored -> publish("WORKFLOW_ABORTED", stored));
     }
 
     /**
      * Suspend a workflow.
      */
     public WorkflowInstance suspendWorkflow(String workflowId) {
-        WorkflowInstance instance = workflows.get(workflowId);
-        if (instance == null) {
-            throw new IllegalArgumentException("Workflow not found: " + workflowId);
-        }
+        return suspendWorkflow(workflowId, WorkflowRepository.ANY_VERSION);
+    }
 
-        instance.setStatus(WorkflowStatus.SUSPENDED);
-        return instance;
+    public WorkflowInstance suspendWorkflow(String workflowId, long expectedVersion) {
+        return workflows.update(workflowId, expectedVersion,
+                instance -> instance.setStatus(WorkflowStatus.SUSPENDED),
+                stored -> publish("WORKFLOW_SUSPENDED", stored));
     }
 
     /**
      * Resume a suspended workflow.
      */
     public WorkflowInstance resumeWorkflow(String workflowId) {
-        WorkflowInstance instance = workflows.get(workflowId);
-        if (instance == null) {
-            throw new IllegalArgumentException("Workflow not found: " + workflowId);
-        }
+        return resumeWorkflow(workflowId, WorkflowRepository.ANY_VERSION);
+    }
 
-        if (instance.getStatus() != WorkflowStatus.SUSPENDED) {
-            throw new IllegalStateException("Workflow is not suspended: " + workflowId);
-        }
+    public WorkflowInstance resumeWorkflow(String workflowId, long expectedVersion) {
+        return workflows.update(workflowId, expectedVersion, instance -> {
+            if (instance.getStatus() != WorkflowStatus.SUSPENDED) {
+                throw new IllegalStateException("Workflow is not suspended: " + workflowId);
+            }
+            instance.setStatus(WorkflowStatus.RUNNING);
+        }, stored -> publish("WORKFLOW_RESUMED", stored));
+    }
 
-        instance.setStatus(WorkflowStatus.RUNNING);
-        return instance;
+    /**
+     * Push a transition to event stream subscribers. Called under the
+     * instance's repository lock, so its events are published in version order.
+     * Steps carry no assignee, so workflow events have none.
+     */
+    private void publish(String type, WorkflowInstance instance) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", instance.getId());
+        data.put("version", instance.getVersion());
+        data.put("status", instance.getStatus());
+        data.put("currentStep", instance.getCurrentStep());
+        data.put("currentStepIndex", instance.getCurrentStepIndex());
+        data.put("workflowModelId", instance.getWorkflowModelId());
+        data.put("contentPath", instance.getContentPath());
+        events.publish(type, StateEvent.SOURCE_WORKFLOW, instance.getId(), instance.getContentId(), Set.of(), data);
     }
 
     /**
@@ -1,15 +1,18 @@
 package com.example.aema2ui.service.aem;
 
 import com.example.aema2ui.config.AemConfig;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Client for AEM Content operations.
@@ -20,8 +23,14 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AemContentClient {
 
+    private static final int MAX_KNOWN_FOLDERS = 1024;
+
     private final AemHttpClient httpClient;
     private final AemConfig config;
+    private final ObjectMapper objectMapper;
+
+    // Folders known to exist, so repeated fragment saves skip the existence check
+    private final Set<String> knownFolders = ConcurrentHashMap.newKeySet();
 
     /**
      * Create a new page in AEM
@@ -68,6 +77,38 @@ public class AemContentClient {
         }
     }
 
+    /**
+     * Create a page together with its components in a single Sling import
+     * request. Fails if a page with the same name already exists.
+     *
+     * @param parentPath Parent path (e.g., /content/aem-demo)
+     * @param pageName   Page name (will be slugified)
+     * @param template   Template path
+     * @param properties Page properties
+     * @param components Components for the page's root container, in order
+     * @return The created page path
+     */
+    public String createPage(String parentPath, String pageName, String template, Map<String, Object> properties,
+                             List<PageImport.Component> components) {
+        if (!httpClient.isConnected()) {
+            throw new IllegalStateException("AEM not connected");
+        }
+
+        try {
+            String safeName = slugify(pageName);
+            String pagePath = parentPath + "/" + safeName;
+
+            PageImport page = new PageImport(pageName, template, properties, components);
+            httpClient.postForm(parentPath, page.toForm(safeName, objectMapper));
+            log.info("Created page with {} components: {}", page.componentCount(), pagePath);
+
+            return pagePath;
+        } catch (Exception e) {
+            log.error("Failed to create page: {}/{}", parentPath, pageName, e);
+            throw new RuntimeException("Failed to create page: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Create a content fragment in AEM DAM
      *
@@ -173,6 +214,7 @@ public class AemContentClient {
             formData.put(":operation", "delete");
 
             httpClient.postForm(path, formData);
+            knownFolders.removeIf(folder -> folder.equals(path) || folder.startsWith(path + "/"));
             log.info("Deleted content: {}", path);
         } catch (Exception e) {
             log.error("Failed to delete content: {}", path, e);
@@ -181,12 +223,17 @@ public class AemContentClient {
     }
 
     /**
-     * Ensure a folder exists in DAM, creating if necessary
+     * Ensure a folder exists in DAM, creating if necessary. Folders seen once
+     * are remembered, so only the first save into a folder checks AEM.
      */
     private void ensureFolderExists(String folderPath) {
+        if (knownFolders.contains(folderPath)) {
+            return;
+        }
         try {
             // Check if folder exists
             httpClient.get(folderPath + ".json");
+            rememberFolder(folderPath);
         } catch (Exception e) {
             // Folder doesn't exist, create it
             try {
@@ -195,6 +242,7 @@ public class AemContentClient {
                 formData.put("./jcr:content/jcr:primaryType", "nt:unstructured");
 
                 httpClient.postForm(folderPath, formData);
+                rememberFolder(folderPath);
                 log.info("Created folder: {}", folderPath);
             } catch (Exception createError) {
                 log.warn("Could not create folder: {}", folderPath);
@@ -202,6 +250,13 @@ public class AemContentClient {
         }
     }
 
+    private void rememberFolder(String folderPath) {
+        if (knownFolders.size() >= MAX_KNOWN_FOLDERS) {
+            knownFolders.clear();
+        }
+        knownFolders.add(folderPath);
+    }
+
     /**
      * Convert a name to a URL-safe slug
      */
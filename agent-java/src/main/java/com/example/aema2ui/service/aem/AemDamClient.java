@@ -2,12 +2,19 @@ package com.example.aema2ui.service.aem;
 
 import com.example.aema2ui.config.AemConfig;
 import com.example.aema2ui.model.aem.DamAsset;
+import com.example.aema2ui.model.aem.DamSearchResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Client for AEM DAM (Digital Asset Management) operations.
@@ -21,6 +28,9 @@ public class AemDamClient {
     private final AemHttpClient httpClient;
     private final AemConfig config;
 
+    static final int DEFAULT_SEARCH_LIMIT = 50;
+    static final int MAX_SEARCH_LIMIT = 200;
+
     /**
      * List assets in a folder using Sling JSON export.
      * Works on all AEM versions without additional configuration.
@@ -36,29 +46,7 @@ public class AemDamClient {
 
         try {
             // Use Sling JSON export with depth 1 (immediate children only)
-            String apiPath = folderPath + ".1.json";
-            JsonNode response = httpClient.get(apiPath);
-
-            List<DamAsset> assets = new ArrayList<>();
-
-            // Iterate through all child nodes
-            Iterator<String> fieldNames = response.fieldNames();
-            while (fieldNames.hasNext()) {
-                String childName = fieldNames.next();
-                // Skip JCR system properties
-                if (childName.startsWith("jcr:") || childName.startsWith("rep:")) {
-                    continue;
-                }
-
-                JsonNode childNode = response.get(childName);
-                if (childNode.isObject()) {
-                    DamAsset asset = parseSlingAsset(childNode, folderPath + "/" + childName, childName);
-                    if (asset != null) {
-                        assets.add(asset);
-                    }
-                }
-            }
-
+            List<DamAsset> assets = listFolder(folderPath, 1);
             log.debug("Listed {} assets in {}", assets.size(), folderPath);
             return assets;
         } catch (Exception e) {
@@ -68,54 +56,194 @@ public class AemDamClient {
     }
 
     /**
-     * Search assets using QueryBuilder
+     * List the folders and assets in a folder, failing instead of returning an
+     * empty list. With depth 2 each asset's jcr:content is included, so
+     * lastModified is filled in.
+     *
+     * @throws AemHttpClient.AemClientException if the folder cannot be read
+     */
+    List<DamAsset> listFolder(String folderPath, int depth) {
+        JsonNode response = httpClient.get(folderPath + "." + depth + ".json");
+
+        List<DamAsset> assets = new ArrayList<>();
+
+        // Iterate through all child nodes
+        Iterator<String> fieldNames = response.fieldNames();
+        while (fieldNames.hasNext()) {
+            String childName = fieldNames.next();
+            // Skip JCR system properties
+            if (childName.startsWith("jcr:") || childName.startsWith("rep:")) {
+                continue;
+            }
+
+            JsonNode childNode = response.get(childName);
+            if (childNode.isObject()) {
+                DamAsset asset = parseSlingAsset(childNode, folderPath + "/" + childName, childName);
+                if (asset != null) {
+                    assets.add(asset);
+                }
+            }
+        }
+        return assets;
+    }
+
+    /**
+     * Search assets using QueryBuilder (first page)
      *
      * @param query    Search query (fulltext)
      * @param mimeType Optional MIME type filter (e.g., "image/")
      * @return List of matching assets
      */
     public List<DamAsset> searchAssets(String query, String mimeType) {
+        return searchAssets(query, mimeType, 0, DEFAULT_SEARCH_LIMIT).getAssets();
+    }
+
+    /**
+     * Search assets using QueryBuilder, one page at a time.
+     *
+     * Hits come back as full nodes two levels deep (p.hits=full, p.nodedepth=2),
+     * the same shape as the asset's .2.json export, so one request returns the
+     * metadata for the whole page. Only hits without metadata in the response
+     * are fetched individually, in bounded parallel.
+     *
+     * @param offset Index of the first hit (p.offset)
+     * @param limit  Page size (p.limit), capped at MAX_SEARCH_LIMIT
+     */
+    public DamSearchResult searchAssets(String query, String mimeType, int offset, int limit) {
+        int pageOffset = Math.max(0, offset);
+        int pageLimit = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
         if (!httpClient.isConnected()) {
-            return Collections.emptyList();
+            return DamSearchResult.empty(pageOffset, pageLimit);
         }
 
         try {
-            StringBuilder queryPath = new StringBuilder("/bin/querybuilder.json?");
-            queryPath.append("path=").append(config.getDamRoot());
-            queryPath.append("&type=dam:Asset");
-            queryPath.append("&p.limit=50");
-
+            StringBuilder predicates = new StringBuilder();
             if (query != null && !query.isEmpty()) {
-                queryPath.append("&fulltext=").append(query);
+                predicates.append("&fulltext=").append(query);
             }
 
             if (mimeType != null && !mimeType.isEmpty()) {
-                queryPath.append("&property=jcr:content/metadata/dc:format");
-                queryPath.append("&property.operation=like");
-                queryPath.append("&property.value=").append(mimeType).append("%");
+                predicates.append("&property=jcr:content/metadata/dc:format");
+                predicates.append("&property.operation=like");
+                predicates.append("&property.value=").append(mimeType).append("%");
             }
 
-            JsonNode response = httpClient.get(queryPath.toString());
-            List<DamAsset> assets = new ArrayList<>();
-
-            if (response.has("hits") && response.get("hits").isArray()) {
-                for (JsonNode hit : response.get("hits")) {
-                    String path = getTextValue(hit, "path", null);
-                    if (path != null) {
-                        // Fetch full asset details
-                        DamAsset asset = getAsset(path);
-                        if (asset != null) {
-                            assets.add(asset);
-                        }
-                    }
+            DamSearchResult result = queryAssets(predicates.toString(), pageOffset, pageLimit);
+            log.info("Found {} of {} assets matching query: {} (offset {})",
+                result.getAssets().size(), result.getTotal(), query, pageOffset);
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to search assets", e);
+            return DamSearchResult.empty(pageOffset, pageLimit);
+        }
+    }
+
+    /**
+     * Find assets under the DAM root whose jcr:content/jcr:lastModified is at
+     * or after the given instant, reading all result pages.
+     *
+     * @param since ISO-8601 timestamp, e.g. 2024-05-01T10:00:00.000Z
+     * @throws AemHttpClient.AemClientException if a QueryBuilder request fails
+     */
+    public List<DamAsset> findModifiedSince(String since) {
+        // Raw values: the RestClient encodes the URI template, so pre-encoded ones would be encoded twice
+        String predicates = "&daterange.property=jcr:content/jcr:lastModified"
+            + "&daterange.lowerBound=" + since
+            + "&daterange.lowerOperation=>=";
+        List<DamAsset> assets = new ArrayList<>();
+        for (int offset = 0; ; offset += MAX_SEARCH_LIMIT) {
+            DamSearchResult page = queryAssets(predicates, offset, MAX_SEARCH_LIMIT);
+            assets.addAll(page.getAssets());
+            if (!page.isMore() || page.getAssets().isEmpty()) {
+                return assets;
+            }
+        }
+    }
+
+    /**
+     * Run one page of a dam:Asset QueryBuilder query under the DAM root.
+     *
+     * Hits come back as full nodes two levels deep, the same shape as the
+     * asset's .2.json export; hits without metadata are fetched separately.
+     *
+     * @param predicates Additional predicates, each starting with '&amp;'
+     */
+    private DamSearchResult queryAssets(String predicates, int pageOffset, int pageLimit) {
+        String queryPath = "/bin/querybuilder.json?path=" + config.getDamRoot()
+            + "&type=dam:Asset"
+            + "&p.offset=" + pageOffset
+            + "&p.limit=" + pageLimit
+            + "&p.hits=full"
+            + "&p.nodedepth=2"
+            + predicates;
+
+        JsonNode response = httpClient.get(queryPath);
+        List<DamAsset> assets = new ArrayList<>();
+        Map<Integer, String> missingDetails = new LinkedHashMap<>();
+
+        if (response.has("hits") && response.get("hits").isArray()) {
+            for (JsonNode hit : response.get("hits")) {
+                String path = getTextValue(hit, "jcr:path", getTextValue(hit, "path", null));
+                if (path == null) {
+                    continue;
+                }
+                if (hit.path("jcr:content").has("metadata")) {
+                    String name = path.substring(path.lastIndexOf('/') + 1);
+                    assets.add(parseSlingAssetDetails(hit, path, name));
+                } else {
+                    // Placeholder keeps the hit order; filled in below
+                    missingDetails.put(assets.size(), path);
+                    assets.add(null);
                 }
             }
+        }
+
+        if (!missingDetails.isEmpty()) {
+            log.debug("{} QueryBuilder hits without metadata, fetching separately", missingDetails.size());
+            List<DamAsset> details = getAssets(new ArrayList<>(missingDetails.values()));
+            int i = 0;
+            for (int index : missingDetails.keySet()) {
+                assets.set(index, details.get(i++));
+            }
+        }
+        assets.removeIf(Objects::isNull);
+
+        long total = response.path("total").asLong(assets.size());
+        int results = response.path("results").asInt(assets.size());
+        boolean more = response.has("more")
+            ? response.get("more").asBoolean()
+            : pageOffset + results < total;
+        return new DamSearchResult(assets, total, pageOffset, pageLimit, more);
+    }
+
+    /**
+     * Get details for several assets, at most damDetailParallelism requests at a time.
+     * Results are in the order of the given paths; failed lookups are null.
+     */
+    public List<DamAsset> getAssets(List<String> assetPaths) {
+        int parallelism = Math.max(1, Math.min(config.getDamDetailParallelism(), assetPaths.size()));
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory())) {
+            List<Future<DamAsset>> futures = new ArrayList<>(assetPaths.size());
+            for (String path : assetPaths) {
+                futures.add(executor.submit(() -> getAsset(path)));
+            }
 
-            log.info("Found {} assets matching query: {}", assets.size(), query);
+            List<DamAsset> assets = new ArrayList<>(futures.size());
+            for (Future<DamAsset> future : futures) {
+                try {
+                    assets.add(future.get());
+                } catch (ExecutionException e) {
+                    assets.add(null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(f -> f.cancel(true));
+                    break;
+                }
+            }
+            while (assets.size() < futures.size()) {
+                assets.add(null);
+            }
             return assets;
-        } catch (Exception e) {
-            log.error("Failed to search assets", e);
-            return Collections.emptyList();
         }
     }
 
@@ -191,11 +319,13 @@ public class AemDamClient {
 
             String title = name;
             String mimeType = null;
+            String lastModified = null;
             String type = isFolder ? "folder" : "file";
 
             // For assets, try to get metadata from jcr:content/metadata
             if (isAsset && node.has("jcr:content")) {
                 JsonNode jcrContent = node.get("jcr:content");
+                lastModified = getTextValue(jcrContent, "jcr:lastModified", null);
                 if (jcrContent.has("metadata")) {
                     JsonNode metadata = jcrContent.get("metadata");
                     title = getTextValue(metadata, "dc:title", name);
@@ -211,7 +341,8 @@ public class AemDamClient {
                 .type(type)
                 .folder(isFolder)
                 .mimeType(mimeType)
-                .thumbnailUrl(isAsset ? buildThumbnailUrl(path) : null)
+                .lastModified(lastModified)
+                .thumbnailUrl(isAsset ? buildThumbnailUrl(path, lastModified) : null)
                 .build();
         } catch (Exception e) {
             log.warn("Failed to parse asset: {}", path, e);
@@ -244,6 +375,9 @@ public class AemDamClient {
 
             String title = getTextValue(metadata, "dc:title", name);
             String mimeType = getTextValue(metadata, "dc:format", null);
+            String lastModified = getTextValue(jcrContent, "jcr:lastModified", null);
+            List<String> tags = new ArrayList<>();
+            metadata.path("cq:tags").forEach(tag -> tags.add(tag.asText()));
 
             return DamAsset.builder()
                 .path(path)
@@ -255,10 +389,11 @@ public class AemDamClient {
                 .height(getIntValue(metadata, "tiff:ImageLength", null))
                 .description(getTextValue(metadata, "dc:description", null))
                 .created(getTextValue(response, "jcr:created", null))
-                .lastModified(getTextValue(jcrContent, "jcr:lastModified", null))
+                .lastModified(lastModified)
                 .createdBy(getTextValue(response, "jcr:createdBy", null))
-                .thumbnailUrl(buildThumbnailUrl(path))
-                .originalUrl(buildOriginalUrl(path))
+                .tags(tags)
+                .thumbnailUrl(buildThumbnailUrl(path, lastModified))
+                .originalUrl(buildOriginalUrl(path, lastModified))
                 .folder(false)
                 .build();
         } catch (Exception e) {
@@ -284,28 +419,26 @@ public class AemDamClient {
     /**
      * Build thumbnail URL for an asset.
      * Uses the proxy endpoint to avoid CORS issues and handle authentication.
+     * The asset's jcr:lastModified is passed as v so the proxy can cache the
+     * rendition per version.
      */
-    private String buildThumbnailUrl(String path) {
+    private String buildThumbnailUrl(String path, String lastModified) {
         if (path == null) return null;
-        // Use proxy endpoint to avoid CORS issues - the frontend will call this
-        // URL format: /dam/proxy?path=/content/dam/...&rendition=cq5dam.thumbnail.319.319.png
-        try {
-            return "/dam/proxy?path=" + java.net.URLEncoder.encode(path, "UTF-8") + "&rendition=cq5dam.thumbnail.319.319.png";
-        } catch (java.io.UnsupportedEncodingException e) {
-            return "/dam/proxy?path=" + path + "&rendition=cq5dam.thumbnail.319.319.png";
-        }
+        // URL format: /dam/proxy?path=/content/dam/...&rendition=cq5dam.thumbnail.319.319.png&v=...
+        return buildProxyUrl(path, "cq5dam.thumbnail.319.319.png", lastModified);
     }
 
     /**
      * Build original asset URL using proxy
      */
-    private String buildOriginalUrl(String path) {
+    private String buildOriginalUrl(String path, String lastModified) {
         if (path == null) return null;
-        try {
-            return "/dam/proxy?path=" + java.net.URLEncoder.encode(path, "UTF-8") + "&rendition=original";
-        } catch (java.io.UnsupportedEncodingException e) {
-            return "/dam/proxy?path=" + path + "&rendition=original";
-        }
+        return buildProxyUrl(path, "original", lastModified);
+    }
+
+    private String buildProxyUrl(String path, String rendition, String lastModified) {
+        String url = "/dam/proxy?path=" + URLEncoder.encode(path, StandardCharsets.UTF_8) + "&rendition=" + rendition;
+        return lastModified == null ? url : url + "&v=" + URLEncoder.encode(lastModified, StandardCharsets.UTF_8);
     }
 
     private String getTextValue(JsonNode node, String field, String defaultValue) {
@@ -1,27 +1,70 @@
 package com.example.aema2ui.service.aem;
 
 import com.example.aema2ui.config.AemConfig;
+import com.example.aema2ui.service.Bulkhead;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Base HTTP client for AEM SDK integration.
  * Provides authenticated access to AEM REST APIs.
+ *
+ * Transport:
+ * - Pooled JDK HttpClient; connections to the author instance are kept alive and
+ *   reused, idle ones are evicted after jdk.httpclient.keepalive.timeout
+ * - Connect and read timeouts from AemConfig, so a stalled author fails the call
+ *   instead of holding the request thread
+ * - At most maxConnectionsPerRoute requests in flight to the author route
+ * - Idempotent requests are retried per AemRetryPolicy
+ * - Latency and errors are tracked per Sling route (see AemRouteMetrics)
+ *
+ * Health: a background prober sends a HEAD to a cheap endpoint every
+ * health-check interval, so isConnected() is a plain volatile read and never
+ * does I/O on the caller's thread. Startup does not wait for AEM unless
+ * aem.health-check.wait-on-startup is set.
+ *
+ * Circuit breakers: one for the author host and one per endpoint family
+ * (dam, querybuilder, workflow, sling-post, content). Every attempt needs a
+ * permission from both, so an overloaded author or endpoint fails fast instead
+ * of waiting for timeouts. An open host breaker makes isConnected() false,
+ * which sends callers to their mock/template fallbacks straight away.
+ *
+ * JSON cache: get(path) and getAsMap(path) read through an AemJsonCache with
+ * per-path TTLs, revalidating expired entries with conditional GETs. post,
+ * postForm and delete invalidate what they write. Returned trees may be shared
+ * and must not be modified.
  */
 @Slf4j
 @Service
@@ -29,84 +72,194 @@ public class AemHttpClient {
 
     private final AemConfig config;
     private final RestClient restClient;
+    private final RestClient probeClient;
     private final ObjectMapper objectMapper;
-    private final AtomicBoolean connected = new AtomicBoolean(false);
-    private final AtomicReference<Instant> lastHealthCheck = new AtomicReference<>(Instant.EPOCH);
+    private final Bulkhead bulkhead;
+    private final AemRetryPolicy retryPolicy;
+    private final AemRouteMetrics routeMetrics = new AemRouteMetrics();
+    private final CircuitBreaker hostBreaker;
+    private final Map<String, CircuitBreaker> familyBreakers = new LinkedHashMap<>();
+    private final AemJsonCache jsonCache;
 
-    private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofSeconds(30);
+    // Written only by health probes
+    private volatile boolean connected;
+    private volatile Instant lastHealthCheck;
+    private volatile long lastProbeMillis;
+    private volatile String lastProbeError;
+    private volatile int consecutiveFailures;
+
+    private ScheduledExecutorService healthProber;
+
+    private static final String[] ENDPOINT_FAMILIES = {"dam", "querybuilder", "workflow", "sling-post", "content"};
 
     public AemHttpClient(AemConfig config, ObjectMapper objectMapper) {
         this.config = config;
         this.objectMapper = objectMapper;
+        // Caps concurrent AEM calls (one pooled connection each) so virtual threads cannot flood the author
+        this.bulkhead = new Bulkhead("aem", config.getMaxConnectionsPerRoute(),
+                Duration.ofMillis(config.getConnectTimeout()));
+        this.retryPolicy = new AemRetryPolicy(config.getMaxRetries(), config.getRetryDelayMillis());
+
+        AemConfig.CircuitBreakerProperties breaker = config.getCircuitBreaker();
+        CircuitBreaker.Settings breakerSettings = new CircuitBreaker.Settings(
+                breaker.getWindowSize(), breaker.getMinimumCalls(), breaker.getFailureRateThreshold(),
+                Duration.ofMillis(breaker.getSlowCallMillis()), breaker.getSlowCallRateThreshold(),
+                Duration.ofMillis(breaker.getOpenMillis()), breaker.getHalfOpenCalls());
+        this.hostBreaker = new CircuitBreaker("author", breakerSettings);
+        for (String family : ENDPOINT_FAMILIES) {
+            familyBreakers.put(family, new CircuitBreaker("author:" + family, breakerSettings));
+        }
+
+        AemConfig.JsonCacheProperties cache = config.getJsonCache();
+        Map<String, Duration> ttls = new LinkedHashMap<>();
+        ttls.put("/content/", Duration.ofMillis(cache.getContentTtlMillis()));
+        ttls.put("/content/dam/", Duration.ofMillis(cache.getDamTtlMillis()));
+        ttls.put("/etc/workflow/models", Duration.ofMillis(cache.getWorkflowModelsTtlMillis()));
+        ttls.put(config.getWorkflowModelsPath(), Duration.ofMillis(cache.getWorkflowModelsTtlMillis()));
+        ttls.put("/etc/workflow/instances", Duration.ofMillis(cache.getWorkflowInstancesTtlMillis()));
+        ttls.put("/var/workflow/instances", Duration.ofMillis(cache.getWorkflowInstancesTtlMillis()));
+        this.jsonCache = new AemJsonCache(cache.isEnabled() ? cache.getMaxMemoryMb() * 1024 * 1024 : 0, ttls);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(config.getConnectTimeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(config.getReadTimeout()));
+
         this.restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                .build();
+
+        // Probes share the connection pool but give up after the connect timeout
+        JdkClientHttpRequestFactory probeFactory = new JdkClientHttpRequestFactory(httpClient);
+        probeFactory.setReadTimeout(Duration.ofMillis(config.getConnectTimeout()));
+        this.probeClient = RestClient.builder()
+                .requestFactory(probeFactory)
                 .defaultHeader(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
                 .build();
 
-        // Initial health check
-        checkConnection();
+        log.info("AEM transport: maxConnectionsPerRoute={}, connectTimeout={}ms, readTimeout={}ms, maxRetries={}",
+                config.getMaxConnectionsPerRoute(), config.getConnectTimeout(), config.getReadTimeout(),
+                config.getMaxRetries());
     }
 
-    /**
-     * Check if AEM is enabled and connected
-     */
-    public boolean isConnected() {
+    @PostConstruct
+    void startHealthProber() {
         if (!config.isEnabled()) {
-            return false;
+            return;
         }
-
-        // Refresh health check if stale
-        Instant now = Instant.now();
-        Instant lastCheck = lastHealthCheck.get();
-        if (Duration.between(lastCheck, now).compareTo(HEALTH_CHECK_INTERVAL) > 0) {
+        if (config.isHealthCheckWaitOnStartup()) {
             checkConnection();
         }
 
-        return connected.get();
+        long interval = Math.max(1_000, config.getHealthCheckIntervalMillis());
+        healthProber = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("aem-health").daemon().factory());
+        healthProber.scheduleWithFixedDelay(this::probeQuietly,
+                config.isHealthCheckWaitOnStartup() ? interval : 0, interval, TimeUnit.MILLISECONDS);
+        log.info("AEM health prober started: HEAD {} every {}ms (waitOnStartup={})",
+                config.getHealthCheckPath(), interval, config.isHealthCheckWaitOnStartup());
+    }
+
+    @PreDestroy
+    void stopHealthProber() {
+        if (healthProber != null) {
+            healthProber.shutdownNow();
+        }
     }
 
     /**
-     * Perform health check against AEM
+     * Check if AEM is enabled and connected, as of the last health probe,
+     * and the host circuit breaker lets calls through
+     */
+    public boolean isConnected() {
+        return config.isEnabled() && connected
+                && (!config.getCircuitBreaker().isEnabled() || hostBreaker.isCallPermitted());
+    }
+
+    /**
+     * Probe AEM now and update the connection state
      */
     public boolean checkConnection() {
         if (!config.isEnabled()) {
-            connected.set(false);
+            connected = false;
             return false;
         }
 
+        String path = config.getHealthCheckPath();
+        String route = AemRouteMetrics.routeOf("HEAD", path);
+        long start = System.nanoTime();
         try {
-            String response = restClient.get()
-                    .uri(config.getAuthorUrl() + "/libs/granite/core/content/login.html")
+            // Bypasses the bulkhead and retries: a busy or down author should show up quickly
+            probeClient.head()
+                    .uri(config.getAuthorUrl() + path)
                     .retrieve()
-                    .body(String.class);
+                    .toBodilessEntity();
+            recordProbe(route, start, null);
+            return true;
+        } catch (Exception e) {
+            recordProbe(route, start, e);
+            return false;
+        }
+    }
+
+    /**
+     * Health prober state
+     */
+    public Map<String, Object> getHealthStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connected", isConnected());
+        stats.put("path", config.getHealthCheckPath());
+        stats.put("intervalMillis", config.getHealthCheckIntervalMillis());
+        stats.put("lastCheck", lastHealthCheck != null ? lastHealthCheck.toString() : null);
+        stats.put("lastProbeMillis", lastProbeMillis);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("lastError", lastProbeError);
+        return stats;
+    }
+
+    private void probeQuietly() {
+        try {
+            checkConnection();
+        } catch (RuntimeException e) {
+            // Never let an unexpected error cancel the schedule
+            log.warn("AEM health probe error: {}", e.getMessage());
+        }
+    }
 
-            boolean isConnected = response != null && !response.isEmpty();
-            connected.set(isConnected);
-            lastHealthCheck.set(Instant.now());
+    private synchronized void recordProbe(String route, long startNanos, Exception failure) {
+        long elapsed = System.nanoTime() - startNanos;
+        routeMetrics.record(route, elapsed, failure != null);
+        lastProbeMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        lastHealthCheck = Instant.now();
 
-            if (isConnected) {
+        boolean wasConnected = connected;
+        connected = failure == null;
+        if (failure == null) {
+            consecutiveFailures = 0;
+            lastProbeError = null;
+            if (!wasConnected) {
                 log.info("AEM connection successful: {}", config.getAuthorUrl());
             }
-            return isConnected;
-        } catch (Exception e) {
-            log.warn("AEM connection failed: {} - {}", config.getAuthorUrl(), e.getMessage());
-            connected.set(false);
-            lastHealthCheck.set(Instant.now());
-            return false;
+        } else {
+            consecutiveFailures++;
+            lastProbeError = failure.getMessage();
+            // Log transitions, not every failed probe while AEM stays down
+            if (wasConnected || consecutiveFailures == 1) {
+                log.warn("AEM connection failed: {} - {}", config.getAuthorUrl(), failure.getMessage());
+            }
         }
     }
 
     /**
-     * GET request returning raw JSON
+     * GET request returning raw JSON, served from the JSON cache when possible
      */
     public JsonNode get(String path) {
         try {
-            String response = restClient.get()
-                    .uri(config.getAuthorUrl() + path)
-                    .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
-                    .retrieve()
-                    .body(String.class);
-
-            return objectMapper.readTree(response);
+            return readJson(path);
         } catch (Exception e) {
             log.error("AEM GET failed: {} - {}", path, e.getMessage());
             throw new AemClientException("GET request failed: " + path, e);
@@ -118,11 +271,11 @@ public class AemHttpClient {
      */
     public <T> T get(String path, Class<T> responseType) {
         try {
-            return restClient.get()
-                    .uri(config.getAuthorUrl() + path)
-                    .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
-                    .retrieve()
-                    .body(responseType);
+            return execute("GET", path, true, () -> restClient.get()
+                        .uri(config.getAuthorUrl() + path)
+                        .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                        .retrieve()
+                        .body(responseType));
         } catch (Exception e) {
             log.error("AEM GET failed: {} - {}", path, e.getMessage());
             throw new AemClientException("GET request failed: " + path, e);
@@ -130,21 +283,61 @@ public class AemHttpClient {
     }
 
     /**
-     * GET request returning Map
+     * GET request returning Map, converted from the (possibly cached) JSON tree
      */
     public Map<String, Object> getAsMap(String path) {
         try {
-            String response = restClient.get()
+            return objectMapper.convertValue(readJson(path), new TypeReference<>() {});
+        } catch (Exception e) {
+            log.error("AEM GET failed: {} - {}", path, e.getMessage());
+            throw new AemClientException("GET request failed: " + path, e);
+        }
+    }
+
+    /**
+     * Read JSON through the cache: fresh entries are returned as is, expired
+     * ones are revalidated with their ETag/Last-Modified and reused on 304.
+     */
+    private JsonNode readJson(String path) throws IOException {
+        if (!jsonCache.isCacheable(path)) {
+            String response = execute("GET", path, true, () -> restClient.get()
+                        .uri(config.getAuthorUrl() + path)
+                        .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                        .retrieve()
+                        .body(String.class));
+            return objectMapper.readTree(response);
+        }
+
+        AemJsonCache.Entry cached = jsonCache.get(path);
+        if (cached != null && cached.isFresh()) {
+            return cached.node();
+        }
+
+        AemJsonCache.Entry stale = cached != null && cached.canRevalidate() ? cached : null;
+        long generation = jsonCache.generation();
+        ResponseEntity<String> response = execute("GET", path, true, () -> restClient.get()
                     .uri(config.getAuthorUrl() + path)
                     .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                    .headers(headers -> {
+                        if (stale != null && stale.etag() != null) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, stale.etag());
+                        }
+                        if (stale != null && stale.lastModified() != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, stale.lastModified());
+                        }
+                    })
                     .retrieve()
-                    .body(String.class);
+                    .toEntity(String.class));
 
-            return objectMapper.readValue(response, new TypeReference<>() {});
-        } catch (Exception e) {
-            log.error("AEM GET failed: {} - {}", path, e.getMessage());
-            throw new AemClientException("GET request failed: " + path, e);
+        if (stale != null && response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            return jsonCache.revalidated(path, stale).node();
         }
+        String body = response.getBody();
+        JsonNode node = objectMapper.readTree(body);
+        jsonCache.put(path, node, response.getHeaders().getETag(),
+                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                body != null ? body.length() : 0, generation);
+        return node;
     }
 
     /**
@@ -153,13 +346,19 @@ public class AemHttpClient {
     public JsonNode post(String path, Object body) {
         try {
             String requestBody = objectMapper.writeValueAsString(body);
-            String response = restClient.post()
-                    .uri(config.getAuthorUrl() + path)
-                    .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(requestBody)
-                    .retrieve()
-                    .body(String.class);
+            String response;
+            try {
+                response = execute("POST", path, true, () -> restClient.post()
+                        .uri(config.getAuthorUrl() + path)
+                        .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(requestBody)
+                        .retrieve()
+                        .body(String.class));
+            } finally {
+                // Even a failed write may have been applied
+                jsonCache.invalidate(path);
+            }
 
             return response != null ? objectMapper.readTree(response) : null;
         } catch (Exception e) {
@@ -176,13 +375,22 @@ public class AemHttpClient {
             MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
             formData.forEach(form::add);
 
-            return restClient.post()
-                    .uri(config.getAuthorUrl() + path)
-                    .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
-                    .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .body(form)
-                    .retrieve()
-                    .body(String.class);
+            try {
+                return execute("POST", path, true, () -> restClient.post()
+                        .uri(config.getAuthorUrl() + path)
+                        .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .body(form)
+                        .retrieve()
+                        .body(String.class));
+            } finally {
+                // Even a failed write may have been applied; moves and copies also change :dest
+                jsonCache.invalidate(path);
+                String destination = formData.get(":dest");
+                if (destination != null) {
+                    jsonCache.invalidate(destination);
+                }
+            }
         } catch (Exception e) {
             log.error("AEM POST form failed: {} - {}", path, e.getMessage());
             throw new AemClientException("POST form request failed: " + path, e);
@@ -194,17 +402,63 @@ public class AemHttpClient {
      */
     public void delete(String path) {
         try {
-            restClient.delete()
-                    .uri(config.getAuthorUrl() + path)
-                    .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
-                    .retrieve()
-                    .toBodilessEntity();
+            try {
+                execute("DELETE", path, true, () -> restClient.delete()
+                        .uri(config.getAuthorUrl() + path)
+                        .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                        .retrieve()
+                        .toBodilessEntity());
+            } finally {
+                jsonCache.invalidate(path);
+            }
         } catch (Exception e) {
             log.error("AEM DELETE failed: {} - {}", path, e.getMessage());
             throw new AemClientException("DELETE request failed: " + path, e);
         }
     }
 
+    /**
+     * Transport settings, connection usage and per-route latency/error statistics
+     */
+    public Map<String, Object> getTransportStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connectTimeoutMillis", config.getConnectTimeout());
+        stats.put("readTimeoutMillis", config.getReadTimeout());
+        stats.put("maxRetries", retryPolicy.getMaxRetries());
+        stats.put("retryDelayMillis", config.getRetryDelayMillis());
+        stats.put("connections", bulkhead.getStats());
+        stats.put("routes", routeMetrics.getStats());
+        return stats;
+    }
+
+    /**
+     * Drop cached JSON for a path, so the next read goes to AEM. For changes
+     * made in AEM by others, which the cache cannot see.
+     */
+    public void invalidateCache(String path) {
+        jsonCache.invalidate(path);
+    }
+
+    /**
+     * JSON cache hit rate, size and TTLs
+     */
+    public Map<String, Object> getJsonCacheStats() {
+        return jsonCache.getStats();
+    }
+
+    /**
+     * Circuit breaker state for the author host and each endpoint family
+     */
+    public Map<String, Object> getCircuitBreakerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.getCircuitBreaker().isEnabled());
+        stats.put("host", hostBreaker.getStats());
+        Map<String, Object> families = new LinkedHashMap<>();
+        familyBreakers.forEach((family, breaker) -> families.put(family, breaker.getStats()));
+        stats.put("families", families);
+        return stats;
+    }
+
     /**
      * Get AEM configuration
      */
@@ -226,17 +480,196 @@ public class AemHttpClient {
      */
     public byte[] getBinary(String path) {
         try {
-            return restClient.get()
-                    .uri(config.getAuthorUrl() + path)
-                    .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
-                    .retrieve()
-                    .body(byte[].class);
+            return execute("GET", path, true, () -> restClient.get()
+                        .uri(config.getAuthorUrl() + path)
+                        .header(HttpHeaders.AUTHORIZATION, createBasicAuthHeader())
+                        .retrieve()
+                        .body(byte[].class));
         } catch (Exception e) {
             log.error("AEM GET binary failed: {} - {}", path, e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Open a binary resource for streaming (renditions, originals, video).
+     *
+     * The body is not buffered: the caller reads it from the returned response
+     * and must close it, which also frees the connection slot. Status and headers
+     * (Content-Type, Content-Length, Content-Range, ...) are AEM's own; error
+     * statuses come back with an empty body instead of an exception so callers
+     * can try another rendition.
+     *
+     * @param range Optional HTTP Range header to forward, e.g. "bytes=0-1048575"
+     */
+    public BinaryResponse openBinary(String path, String range) {
+        String route = AemRouteMetrics.routeOf("GET", path);
+        CircuitBreaker familyBreaker = familyBreakers.get(endpointFamily("GET", path));
+        boolean breakersEnabled = config.getCircuitBreaker().isEnabled();
+        if (breakersEnabled) {
+            acquireBreakers(familyBreaker);
+        }
+        try {
+            bulkhead.acquire();
+        } catch (RuntimeException e) {
+            if (breakersEnabled) {
+                hostBreaker.releasePermission();
+                familyBreaker.releasePermission();
+            }
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        ClientHttpResponse response = null;
+        try {
+            response = restClient.get()
+                    .uri(config.getAuthorUrl() + path)
+                    .headers(headers -> {
+                        if (range != null && !range.isBlank()) {
+                            headers.set(HttpHeaders.RANGE, range);
+                        }
+                    })
+                    .exchange((request, clientResponse) -> clientResponse, false);
+            int status = response.getStatusCode().value();
+
+            // Time to headers is what the breakers and route metrics judge; streaming time is the client's
+            long elapsed = System.nanoTime() - start;
+            routeMetrics.record(route, elapsed, status >= 400);
+            if (breakersEnabled) {
+                hostBreaker.onResult(elapsed, isOverload(status));
+                familyBreaker.onResult(elapsed, isOverload(status));
+            }
+
+            if (status >= 400) {
+                response.close();
+                bulkhead.release();
+                return new BinaryResponse(status, response.getHeaders(), InputStream.nullInputStream());
+            }
+            return new BinaryResponse(status, response.getHeaders(),
+                    new SlotReleasingInputStream(response.getBody(), response));
+        } catch (IOException | RuntimeException e) {
+            long elapsed = System.nanoTime() - start;
+            routeMetrics.record(route, elapsed, true);
+            if (breakersEnabled) {
+                hostBreaker.onResult(elapsed, true);
+                familyBreaker.onResult(elapsed, true);
+            }
+            if (response != null) {
+                response.close();
+            }
+            bulkhead.release();
+            log.error("AEM GET stream failed: {} - {}", path, e.getMessage());
+            throw new AemClientException("GET stream failed: " + path, e);
+        }
+    }
+
+    /**
+     * Run one request with circuit breaker permissions and a connection slot,
+     * recording route metrics and retrying failures the retry policy allows.
+     * The slot is released while backing off.
+     */
+    private <T> T execute(String method, String path, boolean retry, Supplier<T> request) {
+        String route = AemRouteMetrics.routeOf(method, path);
+        CircuitBreaker familyBreaker = familyBreakers.get(endpointFamily(method, path));
+        boolean breakersEnabled = config.getCircuitBreaker().isEnabled();
+        for (int attempt = 1; ; attempt++) {
+            if (breakersEnabled) {
+                acquireBreakers(familyBreaker);
+            }
+            try {
+                bulkhead.acquire();
+            } catch (RuntimeException e) {
+                if (breakersEnabled) {
+                    hostBreaker.releasePermission();
+                    familyBreaker.releasePermission();
+                }
+                throw e;
+            }
+
+            RuntimeException failure;
+            long start = System.nanoTime();
+            try {
+                T result = request.get();
+                long elapsed = System.nanoTime() - start;
+                routeMetrics.record(route, elapsed, false);
+                if (breakersEnabled) {
+                    hostBreaker.onResult(elapsed, false);
+                    familyBreaker.onResult(elapsed, false);
+                }
+                return result;
+            } catch (RuntimeException e) {
+                long elapsed = System.nanoTime() - start;
+                routeMetrics.record(route, elapsed, true);
+                if (breakersEnabled) {
+                    // Client errors (4xx) mean AEM answered; only overload and I/O failures count
+                    boolean overloaded = isOverload(failureStatus(e));
+                    hostBreaker.onResult(elapsed, overloaded);
+                    familyBreaker.onResult(elapsed, overloaded);
+                }
+                failure = e;
+            } finally {
+                bulkhead.release();
+            }
+
+            if (!retry || !retryPolicy.shouldRetry(method, attempt, failureStatus(failure))) {
+                throw failure;
+            }
+            long delay = retryPolicy.backoffMillis(attempt);
+            log.debug("AEM {} {} failed ({}), retry {} of {} in {}ms",
+                    method, path, failure.getMessage(), attempt, retryPolicy.getMaxRetries(), delay);
+            routeMetrics.recordRetry(route);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure;
+            }
+        }
+    }
+
+    private void acquireBreakers(CircuitBreaker familyBreaker) {
+        hostBreaker.acquirePermission();
+        try {
+            familyBreaker.acquirePermission();
+        } catch (RuntimeException e) {
+            hostBreaker.releasePermission();
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint family used to pick a circuit breaker.
+     */
+    static String endpointFamily(String method, String path) {
+        if (path.startsWith("/bin/querybuilder")) {
+            return "querybuilder";
+        }
+        if (path.startsWith("/etc/workflow") || path.startsWith("/var/workflow") || path.startsWith("/bin/workflow")) {
+            return "workflow";
+        }
+        if ("POST".equals(method)) {
+            return "sling-post";
+        }
+        if (path.startsWith("/content/dam") || path.startsWith("/api/assets")) {
+            return "dam";
+        }
+        return "content";
+    }
+
+    private static boolean isOverload(int status) {
+        return status == AemRetryPolicy.IO_FAILURE || status == 429 || status >= 500;
+    }
+
+    private static int failureStatus(RuntimeException e) {
+        if (e instanceof RestClientResponseException response) {
+            return response.getStatusCode().value();
+        }
+        if (e instanceof ResourceAccessException) {
+            return AemRetryPolicy.IO_FAILURE;
+        }
+        return 0;
+    }
+
     /**
      * Create Basic Auth header value
      */
@@ -245,6 +678,47 @@ public class AemHttpClient {
         return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes());
     }
 
+    /**
+     * A streamed AEM response. Close it when done reading the body.
+     */
+    public record BinaryResponse(int status, HttpHeaders headers, InputStream body) implements Closeable {
+
+        public boolean isError() {
+            return status >= 400;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+    }
+
+    /**
+     * Closes the AEM response and frees its connection slot when the body is closed.
+     */
+    private class SlotReleasingInputStream extends FilterInputStream {
+
+        private final ClientHttpResponse response;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        SlotReleasingInputStream(InputStream in, ClientHttpResponse response) {
+            super(in);
+            this.response = response;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    response.close();
+                    bulkhead.release();
+                }
+            }
+        }
+    }
+
     /**
      * Custom exception for AEM client errors
      */
@@ -0,0 +1,256 @@
+package com.example.aema2ui.service.aem;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of parsed Sling JSON responses for AemHttpClient.
+ *
+ * Each path prefix has its own TTL; the longest matching prefix wins and paths
+ * without a rule (QueryBuilder, inbox) are never cached. Expired entries are
+ * kept so the next read can revalidate with If-None-Match / If-Modified-Since
+ * and reuse the parsed tree on 304. Memory is bounded by an estimate of the
+ * tree size (body length * WEIGHT_FACTOR) with LRU eviction.
+ *
+ * Writes made through AemHttpClient invalidate every entry for the written
+ * resource, its descendants and its ancestors (whose .1.json / .2.json
+ * exports list it). A fetch that overlaps an invalidation is not stored, so a
+ * response read before the write cannot repopulate the cache afterwards.
+ *
+ * Cached trees are shared between callers and must be treated as read-only.
+ */
+public class AemJsonCache {
+
+    /** Rough heap bytes of a parsed JsonNode tree per character of JSON */
+    static final int WEIGHT_FACTOR = 4;
+
+    /**
+     * A cached response.
+     *
+     * @param etag         AEM's ETag, sent back as If-None-Match (may be null)
+     * @param lastModified AEM's Last-Modified, sent back as If-Modified-Since (may be null)
+     */
+    public record Entry(JsonNode node, String etag, String lastModified, long weight, long expiresAtNanos) {
+
+        public boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+
+        public boolean canRevalidate() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    private record TtlRule(String prefix, long ttlNanos) {}
+
+    private final long maxBytes;
+    private final List<TtlRule> rules;
+
+    // Access-ordered map gives LRU iteration order; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param ttlByPrefix TTL per path prefix; zero or negative disables caching under it
+     */
+    public AemJsonCache(long maxBytes, Map<String, Duration> ttlByPrefix) {
+        this.maxBytes = maxBytes;
+        this.rules = ttlByPrefix.entrySet().stream()
+                .map(rule -> new TtlRule(rule.getKey(), rule.getValue().toNanos()))
+                .sorted(Comparator.comparingInt((TtlRule rule) -> rule.prefix().length()).reversed())
+                .toList();
+    }
+
+    /**
+     * Whether GET responses for this path are cached at all.
+     */
+    public boolean isCacheable(String path) {
+        return maxBytes > 0 && ttlNanos(path) > 0;
+    }
+
+    /**
+     * Cached entry for a path, fresh or expired, or null. Callers serve fresh
+     * entries directly and revalidate expired ones.
+     */
+    public Entry get(String path) {
+        synchronized (entries) {
+            Entry entry = entries.get(path);
+            if (entry == null) {
+                misses.incrementAndGet();
+            } else if (entry.isFresh()) {
+                hits.incrementAndGet();
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Current write generation. Read it before fetching and pass it to put.
+     */
+    public long generation() {
+        synchronized (entries) {
+            return generation;
+        }
+    }
+
+    /**
+     * Store a freshly fetched response, unless a write invalidated the cache
+     * since the fetch started or the tree alone would exceed the budget.
+     */
+    public void put(String path, JsonNode node, String etag, String lastModified, int bodyLength,
+                    long fetchGeneration) {
+        long weight = (long) bodyLength * WEIGHT_FACTOR;
+        if (weight > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(node, etag, lastModified, weight, System.nanoTime() + ttlNanos(path));
+        synchronized (entries) {
+            if (fetchGeneration != generation) {
+                return;
+            }
+            Entry previous = entries.put(path, entry);
+            if (previous != null) {
+                totalBytes -= previous.weight();
+            }
+            totalBytes += weight;
+            stores.incrementAndGet();
+            evictOverBudget();
+        }
+    }
+
+    /**
+     * AEM answered 304 for an expired entry: keep the tree for another TTL.
+     */
+    public Entry revalidated(String path, Entry stale) {
+        notModified.incrementAndGet();
+        Entry renewed = new Entry(stale.node(), stale.etag(), stale.lastModified(), stale.weight(),
+                System.nanoTime() + ttlNanos(path));
+        synchronized (entries) {
+            // Only renew what is still cached; an invalidated entry stays gone
+            if (entries.get(path) == stale) {
+                entries.put(path, renewed);
+            }
+        }
+        return renewed;
+    }
+
+    /**
+     * Drop cached responses affected by a write to the given resource path.
+     */
+    public void invalidate(String writtenPath) {
+        String written = resourcePath(writtenPath);
+        synchronized (entries) {
+            generation++;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> cached = it.next();
+                if (isAffected(resourcePath(cached.getKey()), written)) {
+                    it.remove();
+                    totalBytes -= cached.getValue().weight();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache statistics.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("estimatedBytes", totalBytes);
+            stats.put("maxBytes", maxBytes);
+        }
+        long h = hits.get();
+        long m = misses.get();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m > 0 ? Math.round(h * 1000.0 / (h + m)) / 1000.0 : 0.0);
+        stats.put("notModified", notModified.get());
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        Map<String, Object> ttls = new LinkedHashMap<>();
+        rules.forEach(rule -> ttls.put(rule.prefix(), rule.ttlNanos() / 1_000_000));
+        stats.put("ttlMillis", ttls);
+        return stats;
+    }
+
+    /**
+     * Whether a cached export of the resource at cachedKey may have changed
+     * after a write to written. The cached key still carries its Sling
+     * selectors and extension ("/content/dam/a.jpg.2.json"); since resource
+     * names may contain dots, every dot in its last segment is tried as the
+     * start of the selectors.
+     */
+    static boolean isAffected(String cachedKey, String written) {
+        // The written resource itself and its descendants
+        if (cachedKey.startsWith(written)) {
+            return true;
+        }
+        // Ancestors: their exports list the written resource
+        int lastSlash = cachedKey.lastIndexOf('/');
+        String candidate = cachedKey;
+        while (true) {
+            if (written.startsWith(candidate) && written.startsWith("/", candidate.length())) {
+                return true;
+            }
+            int dot = candidate.lastIndexOf('.');
+            if (dot <= lastSlash) {
+                return false;
+            }
+            candidate = candidate.substring(0, dot);
+        }
+    }
+
+    private static String resourcePath(String path) {
+        String clean = path;
+        int query = clean.indexOf('?');
+        if (query >= 0) {
+            clean = clean.substring(0, query);
+        }
+        // Sling POST to "folder/*" creates a child of folder
+        if (clean.endsWith("/*")) {
+            clean = clean.substring(0, clean.length() - 2);
+        }
+        while (clean.length() > 1 && clean.endsWith("/")) {
+            clean = clean.substring(0, clean.length() - 1);
+        }
+        return clean;
+    }
+
+    private long ttlNanos(String path) {
+        for (TtlRule rule : rules) {
+            if (path.startsWith(rule.prefix())) {
+                return rule.ttlNanos();
+            }
+        }
+        return 0;
+    }
+
+    private void evictOverBudget() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().weight();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.aema2ui.service.aem;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy for AEM requests.
+ *
+ * Only idempotent methods are retried, so a Sling POST that timed out after
+ * AEM applied it is never replayed. Retries happen on I/O failures (connect
+ * refused, read timeout) and on 429/502/503/504; other statuses are final.
+ * Backoff is exponential from the base delay with equal jitter: half the
+ * delay is fixed, the other half random, so retries from many callers spread
+ * out instead of hitting a recovering author instance together.
+ */
+public class AemRetryPolicy {
+
+    /** Status used for failures without an HTTP response */
+    public static final int IO_FAILURE = -1;
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+
+    public AemRetryPolicy(int maxRetries, long baseDelayMillis) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+    }
+
+    /**
+     * Whether a failed attempt should be retried.
+     *
+     * @param attempt Number of attempts made so far (1 after the first failure)
+     * @param status  HTTP status of the failure, or IO_FAILURE
+     */
+    public boolean shouldRetry(String method, int attempt, int status) {
+        return attempt <= maxRetries
+            && IDEMPOTENT_METHODS.contains(method)
+            && (status == IO_FAILURE || RETRYABLE_STATUSES.contains(status));
+    }
+
+    /**
+     * Delay before the given retry (1-based): base * 2^(retry-1), half of it jittered.
+     */
+    public long backoffMillis(int retry) {
+        long delay = baseDelayMillis << Math.min(Math.max(retry - 1, 0), MAX_BACKOFF_SHIFT);
+        long half = delay / 2;
+        return delay - half + (half > 0 ? ThreadLocalRandom.current().nextLong(half + 1) : 0);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+}
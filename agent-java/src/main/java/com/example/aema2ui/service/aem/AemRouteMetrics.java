@@ -0,0 +1,155 @@
+package com.example.aema2ui.service.aem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error counters per AEM route.
+ *
+ * A route is the HTTP method plus the first path segments of the Sling
+ * endpoint with the rest collapsed, e.g. "GET /etc/workflow/instances/*.json",
+ * so one slow endpoint family stands out without unbounded cardinality.
+ * Latencies go into fixed millisecond buckets; percentiles report the upper
+ * bound of the bucket they fall in, capped at the observed maximum.
+ */
+public class AemRouteMetrics {
+
+    static final int MAX_ROUTES = 200;
+    static final String OTHER_ROUTE = "other";
+
+    private static final int ROUTE_SEGMENTS = 3;
+    private static final long[] BUCKET_BOUNDS_MILLIS = {
+        5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, Long.MAX_VALUE
+    };
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Normalized route key for a request.
+     */
+    public static String routeOf(String method, String path) {
+        String clean = path == null ? "" : path;
+        int query = clean.indexOf('?');
+        if (query >= 0) {
+            clean = clean.substring(0, query);
+        }
+
+        String[] segments = clean.split("/");
+        StringBuilder route = new StringBuilder(method).append(' ');
+        int kept = 0;
+        int total = 0;
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            total++;
+            if (kept < ROUTE_SEGMENTS) {
+                route.append('/').append(segment);
+                kept++;
+            }
+        }
+        if (total == 0) {
+            route.append('/');
+        } else if (total > kept) {
+            String last = segments[segments.length - 1];
+            int dot = last.lastIndexOf('.');
+            route.append("/*").append(dot > 0 ? last.substring(dot) : "");
+        }
+        return route.toString();
+    }
+
+    /**
+     * Record one attempt against a route.
+     */
+    public void record(String route, long latencyNanos, boolean failed) {
+        route(route).record(TimeUnit.NANOSECONDS.toMillis(latencyNanos), failed);
+    }
+
+    /**
+     * Record that a failed attempt is being retried.
+     */
+    public void recordRetry(String route) {
+        route(route).retries.increment();
+    }
+
+    /**
+     * Per-route statistics, sorted by route.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        routes.forEach((name, route) -> stats.put(name, route.getStats()));
+        return stats;
+    }
+
+    private Route route(String name) {
+        Route route = routes.get(name);
+        if (route != null) {
+            return route;
+        }
+        if (routes.size() >= MAX_ROUTES) {
+            return routes.computeIfAbsent(OTHER_ROUTE, k -> new Route());
+        }
+        return routes.computeIfAbsent(name, k -> new Route());
+    }
+
+    private static class Route {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length);
+
+        void record(long millis, boolean failed) {
+            requests.increment();
+            if (failed) {
+                errors.increment();
+            }
+            totalMillis.add(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            int bucket = 0;
+            while (millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        Map<String, Object> getStats() {
+            long count = requests.sum();
+            long failures = errors.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", count);
+            stats.put("errors", failures);
+            stats.put("errorRate", count > 0 ? Math.round(failures * 1000.0 / count) / 1000.0 : 0.0);
+            stats.put("retries", retries.sum());
+            stats.put("avgMillis", count > 0 ? totalMillis.sum() / count : 0);
+            stats.put("p50Millis", percentile(count, 0.50));
+            stats.put("p95Millis", percentile(count, 0.95));
+            stats.put("p99Millis", percentile(count, 0.99));
+            stats.put("maxMillis", maxMillis.get());
+            return stats;
+        }
+
+        private long percentile(long count, double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * quantile);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis.get());
+                }
+            }
+            return maxMillis.get();
+        }
+    }
+}
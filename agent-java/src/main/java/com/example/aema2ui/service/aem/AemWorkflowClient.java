@@ -118,28 +118,36 @@ public class AemWorkflowClient {
         }
 
         try {
-            JsonNode response = httpClient.get("/bin/workflow/inbox");
-            List<Map<String, Object>> items = new ArrayList<>();
-
-            if (response.has("workflows") && response.get("workflows").isArray()) {
-                for (JsonNode item : response.get("workflows")) {
-                    items.add(Map.of(
-                        "id", getTextValue(item, "uri", ""),
-                        "title", getTextValue(item, "currentAssignee/item/title", "Work Item"),
-                        "payload", getTextValue(item, "payload", ""),
-                        "model", getTextValue(item, "model", ""),
-                        "startTime", getTextValue(item, "startTime", "")
-                    ));
-                }
-            }
-
-            return items;
+            return fetchInbox();
         } catch (Exception e) {
             log.error("Failed to get workflow inbox", e);
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Get the workflow inbox, failing instead of returning an empty list, so
+     * callers can tell an empty inbox from an unreachable one.
+     */
+    public List<Map<String, Object>> fetchInbox() {
+        JsonNode response = httpClient.get("/bin/workflow/inbox");
+        List<Map<String, Object>> items = new ArrayList<>();
+
+        if (response.has("workflows") && response.get("workflows").isArray()) {
+            for (JsonNode item : response.get("workflows")) {
+                items.add(Map.of(
+                    "id", getTextValue(item, "uri", ""),
+                    "title", getTextValue(item, "currentAssignee/item/title", "Work Item"),
+                    "payload", getTextValue(item, "payload", ""),
+                    "model", getTextValue(item, "model", ""),
+                    "startTime", getTextValue(item, "startTime", "")
+                ));
+            }
+        }
+
+        return items;
+    }
+
     /**
      * Complete a work item (advance workflow)
      */
@@ -0,0 +1,234 @@
+package com.example.aema2ui.service.aem;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count-based circuit breaker for calls to AEM.
+ *
+ * CLOSED: calls pass and their outcomes fill a sliding window of the last
+ * windowSize calls. Once minimumCalls are recorded and the failure rate or the
+ * slow-call rate reaches its threshold, the breaker OPENs.
+ * OPEN: calls fail fast with CircuitOpenException until openDuration passes.
+ * HALF_OPEN: up to halfOpenCalls trial calls pass. Any failure or slow call
+ * reopens the breaker; when all of them succeed it closes with a fresh window.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Breaker thresholds.
+     *
+     * @param failureRateThreshold  Percentage of failed calls in the window that opens the breaker
+     * @param slowCallThreshold     Calls slower than this count as slow
+     * @param slowCallRateThreshold Percentage of slow calls in the window that opens the breaker
+     */
+    public record Settings(int windowSize, int minimumCalls, int failureRateThreshold,
+                           Duration slowCallThreshold, int slowCallRateThreshold,
+                           Duration openDuration, int halfOpenCalls) {}
+
+    private final String name;
+    private final Settings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by lock
+    private State state = State.CLOSED;
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlow;
+    private long openedAtNanos;
+    private Instant lastTransition = Instant.now();
+    private int halfOpenIssued;
+    private int halfOpenSucceeded;
+    private long notPermitted;
+    private long timesOpened;
+
+    public CircuitBreaker(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.failedCalls = new boolean[Math.max(1, settings.windowSize())];
+        this.slowCalls = new boolean[failedCalls.length];
+    }
+
+    /**
+     * Ask to make a call. Every granted permission must be followed by
+     * onResult or releasePermission.
+     *
+     * @throws CircuitOpenException when the breaker is open or half-open trials are taken
+     */
+    public void acquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && openDurationElapsed()) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return;
+            }
+            if (state == State.HALF_OPEN && halfOpenIssued < settings.halfOpenCalls()) {
+                halfOpenIssued++;
+                return;
+            }
+            notPermitted++;
+            throw new CircuitOpenException(name, state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give back a permission for a call that was never made.
+     */
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && halfOpenIssued > 0) {
+                halfOpenIssued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     */
+    public void onResult(long durationNanos, boolean failed) {
+        boolean slow = durationNanos > settings.slowCallThreshold().toNanos();
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    record(failed, slow);
+                    if (windowCount >= settings.minimumCalls()
+                            && (rate(windowFailures) >= settings.failureRateThreshold()
+                                || rate(windowSlow) >= settings.slowCallRateThreshold())) {
+                        transitionTo(State.OPEN);
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (failed || slow) {
+                        transitionTo(State.OPEN);
+                    } else if (++halfOpenSucceeded >= settings.halfOpenCalls()) {
+                        transitionTo(State.CLOSED);
+                    }
+                }
+                case OPEN -> {
+                    // Late result of a call admitted before the breaker opened
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a call would currently be permitted, without taking a permission.
+     */
+    public boolean isCallPermitted() {
+        lock.lock();
+        try {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> openDurationElapsed();
+                case HALF_OPEN -> halfOpenIssued < settings.halfOpenCalls();
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Breaker statistics.
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("state", state.name());
+            stats.put("since", lastTransition.toString());
+            stats.put("bufferedCalls", windowCount);
+            stats.put("failureRate", windowCount > 0 ? rate(windowFailures) : 0.0);
+            stats.put("slowCallRate", windowCount > 0 ? rate(windowSlow) : 0.0);
+            stats.put("notPermitted", notPermitted);
+            stats.put("timesOpened", timesOpened);
+            if (state == State.OPEN) {
+                long remaining = settings.openDuration().toNanos() - (System.nanoTime() - openedAtNanos);
+                stats.put("retryInMillis", Math.max(0, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (windowCount == failedCalls.length) {
+            // Evict the oldest outcome
+            if (failedCalls[windowNext]) windowFailures--;
+            if (slowCalls[windowNext]) windowSlow--;
+        } else {
+            windowCount++;
+        }
+        failedCalls[windowNext] = failed;
+        slowCalls[windowNext] = slow;
+        if (failed) windowFailures++;
+        if (slow) windowSlow++;
+        windowNext = (windowNext + 1) % failedCalls.length;
+    }
+
+    private double rate(int count) {
+        return Math.round(count * 1000.0 / windowCount) / 10.0;
+    }
+
+    private boolean openDurationElapsed() {
+        return System.nanoTime() - openedAtNanos >= settings.openDuration().toNanos();
+    }
+
+    private void transitionTo(State next) {
+        log.info("Circuit breaker '{}': {} -> {} (failureRate={}%, slowCallRate={}%)", name, state, next,
+                windowCount > 0 ? rate(windowFailures) : 0.0, windowCount > 0 ? rate(windowSlow) : 0.0);
+        state = next;
+        lastTransition = Instant.now();
+        halfOpenIssued = 0;
+        halfOpenSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+            timesOpened++;
+        } else if (next == State.CLOSED) {
+            windowNext = 0;
+            windowCount = 0;
+            windowFailures = 0;
+            windowSlow = 0;
+        }
+    }
+
+    /**
+     * Thrown instead of calling AEM while the breaker is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String name, State state) {
+            super("AEM circuit '" + name + "' is " + state + "; failing fast");
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.aem.DamAsset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable, memory-mapped inverted index over DAM asset metadata.
+ *
+ * A segment is written once from a list of assets and then only read, straight
+ * from the mapped file with absolute reads, so it is safe to share between
+ * threads and opening it after a restart costs one mmap plus a pass over the
+ * MIME types. Updates write a new segment and swap it in.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   header    MAGIC, VERSION, docCount, termCount, docTablePos, termTablePos, createdAtMillis
+ *   docs      per asset: stored fields (strings as length + UTF-8, -1 for null)
+ *   terms     per term, sorted: term, postingCount, postings (docId &lt;&lt; 5 | field mask)
+ *   docTable  long offset per doc
+ *   termTable long offset per term
+ * </pre>
+ * Docs are sorted by path, so doc id order is path order. Terms come from
+ * title, name, tags, description and MIME type, lower-cased and split on
+ * anything that is not a letter or digit.
+ */
+public class DamIndexSegment {
+
+    static final int MAGIC = 0x44414d49; // "DAMI"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 * 4 + 3 * 8;
+
+    // Field bits in a posting; the weights rank title matches above description matches
+    static final int TITLE = 1;
+    static final int NAME = 2;
+    static final int TAGS = 4;
+    static final int DESCRIPTION = 8;
+    static final int MIME_TYPE = 16;
+    private static final int FIELD_BITS = 5;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    // Stored string fields per doc, in writeDoc order; mimeType is the fifth
+    private static final int DOC_STRING_FIELDS = 11;
+    private static final int DOC_MIME_FIELD = 4;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+    private final int docCount;
+    private final int termCount;
+    private final long docTablePos;
+    private final long termTablePos;
+    private final long createdAtMillis;
+    private final String[] mimeTypes;
+
+    /**
+     * One page of matches.
+     *
+     * @param total Number of matching assets
+     */
+    public record Hits(int total, List<DamAsset> assets) {}
+
+    /**
+     * A term completing a typeahead prefix.
+     *
+     * @param assets Number of assets containing the term
+     */
+    public record Suggestion(String term, int assets) {}
+
+    private DamIndexSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a DAM index segment: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported DAM index segment version " + buffer.getInt(4) + ": " + file);
+        }
+        this.docCount = buffer.getInt(8);
+        this.termCount = buffer.getInt(12);
+        this.docTablePos = buffer.getLong(16);
+        this.termTablePos = buffer.getLong(24);
+        this.createdAtMillis = buffer.getLong(32);
+
+        // Kept on heap: the MIME filter checks every candidate
+        this.mimeTypes = new String[docCount];
+        for (int doc = 0; doc < docCount; doc++) {
+            int pos = docOffset(doc);
+            for (int field = 0; field < DOC_MIME_FIELD; field++) {
+                pos = skipString(pos);
+            }
+            mimeTypes[doc] = readString(pos);
+        }
+    }
+
+    /**
+     * Map an existing segment file.
+     *
+     * @throws IOException if the file is missing, truncated or not a segment
+     */
+    public static DamIndexSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("DAM index segment larger than 2GB: " + file);
+            }
+            return new DamIndexSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt DAM index segment: " + file, e);
+        }
+    }
+
+    /**
+     * Write a segment for the given assets (folders are skipped) and map it.
+     * The file is written next to the target and moved into place atomically.
+     */
+    public static DamIndexSegment write(Path file, List<DamAsset> assets) throws IOException {
+        List<DamAsset> docs = assets.stream()
+            .filter(asset -> asset != null && !asset.isFolder() && asset.getPath() != null)
+            .sorted(Comparator.comparing(DamAsset::getPath))
+            .toList();
+
+        TreeMap<String, Postings> terms = new TreeMap<>();
+        for (int doc = 0; doc < docs.size(); doc++) {
+            DamAsset asset = docs.get(doc);
+            addTerms(terms, doc, TITLE, asset.getTitle());
+            addTerms(terms, doc, NAME, asset.getName());
+            addTerms(terms, doc, DESCRIPTION, asset.getDescription());
+            addTerms(terms, doc, MIME_TYPE, asset.getMimeType());
+            if (asset.getTags() != null) {
+                for (String tag : asset.getTags()) {
+                    addTerms(terms, doc, TAGS, tag);
+                }
+            }
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            long[] docOffsets = new long[docs.size()];
+            long[] termOffsets = new long[terms.size()];
+            long pos = HEADER_BYTES;
+
+            // Header is rewritten below once the table positions are known
+            out.write(new byte[HEADER_BYTES]);
+            for (int doc = 0; doc < docs.size(); doc++) {
+                docOffsets[doc] = pos;
+                pos += writeDoc(out, docs.get(doc));
+            }
+            int term = 0;
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                termOffsets[term++] = pos;
+                pos += writeString(out, entry.getKey());
+                Postings postings = entry.getValue();
+                out.writeInt(postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    out.writeInt(postings.values[i]);
+                }
+                pos += 4 + 4L * postings.size;
+            }
+            long docTablePos = pos;
+            for (long offset : docOffsets) {
+                out.writeLong(offset);
+            }
+            long termTablePos = docTablePos + 8L * docOffsets.length;
+            for (long offset : termOffsets) {
+                out.writeLong(offset);
+            }
+            out.flush();
+
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(docs.size()).putInt(terms.size())
+                    .putLong(docTablePos).putLong(termTablePos).putLong(System.currentTimeMillis()).flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    /**
+     * Split text into index terms.
+     */
+    public static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Search for assets matching every query token as a term prefix, so the
+     * last word of a half-typed query matches too. Results are ranked by the
+     * fields they matched in (exact terms count double), then by path.
+     *
+     * @param mimePrefix Optional MIME type prefix filter, e.g. "image/"
+     */
+    public Hits search(String query, String mimePrefix, int offset, int limit) {
+        List<String> tokens = tokens(query);
+        boolean filterMime = mimePrefix != null && !mimePrefix.isEmpty();
+
+        // Candidates are sized to the postings, not the segment: a query
+        // touching a few hundred docs allocates a few hundred slots
+        int[] docs = null;
+        int[] scores = null;
+        int candidates = 0;
+        for (String token : tokens) {
+            long[] matches = tokenMatches(token);
+            if (docs == null) {
+                docs = new int[matches.length];
+                scores = new int[matches.length];
+                for (int i = 0; i < matches.length; i++) {
+                    docs[i] = (int) (matches[i] >>> 32);
+                    scores[i] = (int) matches[i];
+                }
+                candidates = matches.length;
+            } else {
+                // Every token must match: intersect with the docs that matched the earlier ones
+                int kept = 0;
+                for (int i = 0, j = 0; i < candidates && j < matches.length; ) {
+                    int doc = (int) (matches[j] >>> 32);
+                    if (docs[i] < doc) {
+                        i++;
+                    } else if (docs[i] > doc) {
+                        j++;
+                    } else {
+                        docs[kept] = doc;
+                        scores[kept++] = scores[i++] + (int) matches[j++];
+                    }
+                }
+                candidates = kept;
+            }
+            if (candidates == 0) {
+                return new Hits(0, List.of());
+            }
+        }
+
+        // Sort key: score descending, then doc id (path order)
+        long[] matches = new long[docs == null ? docCount : candidates];
+        int matchCount = 0;
+        for (int i = 0; i < matches.length; i++) {
+            int doc = docs == null ? i : docs[i];
+            if (filterMime && (mimeTypes[doc] == null || !mimeTypes[doc].startsWith(mimePrefix))) {
+                continue;
+            }
+            int score = docs == null ? 0 : scores[i];
+            matches[matchCount++] = (long) (Integer.MAX_VALUE - score) << 32 | doc;
+        }
+        Arrays.sort(matches, 0, matchCount);
+
+        List<DamAsset> page = new ArrayList<>();
+        for (int i = Math.max(0, offset); i < matchCount && page.size() < limit; i++) {
+            page.add(doc((int) matches[i]));
+        }
+        return new Hits(matchCount, page);
+    }
+
+    /**
+     * Docs matching a query token as a term prefix, as (doc &lt;&lt; 32 | weight)
+     * sorted by doc, keeping each doc's best weight. Exact terms weigh double.
+     */
+    private long[] tokenMatches(String token) {
+        long[][] matches = {new long[16]};
+        int[] size = {0};
+        forEachTerm(token, (term, pos, postings) -> {
+            int factor = term.equals(token) ? 2 : 1;
+            if (size[0] + postings > matches[0].length) {
+                matches[0] = Arrays.copyOf(matches[0], Math.max(matches[0].length * 2, size[0] + postings));
+            }
+            for (int i = 0; i < postings; i++) {
+                int posting = buffer.getInt(pos + 4 * i);
+                matches[0][size[0]++] = (long) (posting >>> FIELD_BITS) << 32 | weight(posting & FIELD_MASK) * factor;
+            }
+            return true;
+        });
+
+        long[] sorted = matches[0];
+        Arrays.sort(sorted, 0, size[0]);
+        // Entries for one doc are adjacent and ascending by weight: keep the last
+        int unique = 0;
+        for (int i = 0; i < size[0]; i++) {
+            if (i + 1 < size[0] && sorted[i + 1] >>> 32 == sorted[i] >>> 32) {
+                continue;
+            }
+            sorted[unique++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    /**
+     * Terms starting with the prefix, most common first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        List<String> tokens = tokens(prefix);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        List<Suggestion> suggestions = new ArrayList<>();
+        forEachTerm(tokens.get(tokens.size() - 1), (term, pos, count) -> {
+            suggestions.add(new Suggestion(term, count));
+            return true;
+        });
+        suggestions.sort(Comparator.comparingInt(Suggestion::assets).reversed()
+            .thenComparing(Suggestion::term));
+        return suggestions.size() > limit ? suggestions.subList(0, limit) : suggestions;
+    }
+
+    /**
+     * All indexed assets, in path order.
+     */
+    public List<DamAsset> docs() {
+        List<DamAsset> docs = new ArrayList<>(docCount);
+        for (int doc = 0; doc < docCount; doc++) {
+            docs.add(doc(doc));
+        }
+        return docs;
+    }
+
+    public int docCount() {
+        return docCount;
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    public long createdAtMillis() {
+        return createdAtMillis;
+    }
+
+    public long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    // ---- Reading ----
+
+    private DamAsset doc(int doc) {
+        int pos = docOffset(doc);
+        String[] fields = new String[DOC_STRING_FIELDS];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = readString(pos);
+            pos = skipString(pos);
+        }
+        int width = buffer.getInt(pos);
+        int height = buffer.getInt(pos + 4);
+        int tagCount = buffer.getInt(pos + 8);
+        pos += 12;
+        List<String> tags = null;
+        if (tagCount >= 0) {
+            tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                tags.add(readString(pos));
+                pos = skipString(pos);
+            }
+        }
+        return DamAsset.builder()
+            .path(fields[0])
+            .name(fields[1])
+            .title(fields[2])
+            .type(fields[3])
+            .mimeType(fields[4])
+            .description(fields[5])
+            .lastModified(fields[6])
+            .created(fields[7])
+            .createdBy(fields[8])
+            .thumbnailUrl(fields[9])
+            .originalUrl(fields[10])
+            .width(width >= 0 ? width : null)
+            .height(height >= 0 ? height : null)
+            .tags(tags)
+            .folder(false)
+            .build();
+    }
+
+    private interface TermVisitor {
+        /** Visit a term whose postings start at pos; return false to stop */
+        boolean visit(String term, int pos, int count);
+    }
+
+    /**
+     * Visit every term starting with the prefix, in term order.
+     */
+    private void forEachTerm(String prefix, TermVisitor visitor) {
+        // Binary search for the first term >= prefix
+        int low = 0;
+        int high = termCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (readString(termOffset(mid)).compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int term = low; term < termCount; term++) {
+            int pos = termOffset(term);
+            String text = readString(pos);
+            if (!text.startsWith(prefix)) {
+                return;
+            }
+            pos = skipString(pos);
+            if (!visitor.visit(text, pos + 4, buffer.getInt(pos))) {
+                return;
+            }
+        }
+    }
+
+    private int docOffset(int doc) {
+        return (int) buffer.getLong((int) (docTablePos + 8L * doc));
+    }
+
+    private int termOffset(int term) {
+        return (int) buffer.getLong((int) (termTablePos + 8L * term));
+    }
+
+    private String readString(int pos) {
+        int length = buffer.getInt(pos);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(pos + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int pos) {
+        return pos + 4 + Math.max(0, buffer.getInt(pos));
+    }
+
+    private static int weight(int fields) {
+        int weight = 0;
+        if ((fields & TITLE) != 0) weight = Math.max(weight, 8);
+        if ((fields & (NAME | TAGS)) != 0) weight = Math.max(weight, 4);
+        if ((fields & DESCRIPTION) != 0) weight = Math.max(weight, 2);
+        if ((fields & MIME_TYPE) != 0) weight = Math.max(weight, 1);
+        return weight;
+    }
+
+    // ---- Writing ----
+
+    private static long writeDoc(DataOutputStream out, DamAsset asset) throws IOException {
+        long bytes = 0;
+        bytes += writeString(out, asset.getPath());
+        bytes += writeString(out, asset.getName());
+        bytes += writeString(out, asset.getTitle());
+        bytes += writeString(out, asset.getType());
+        bytes += writeString(out, asset.getMimeType());
+        bytes += writeString(out, asset.getDescription());
+        bytes += writeString(out, asset.getLastModified());
+        bytes += writeString(out, asset.getCreated());
+        bytes += writeString(out, asset.getCreatedBy());
+        bytes += writeString(out, asset.getThumbnailUrl());
+        bytes += writeString(out, asset.getOriginalUrl());
+        out.writeInt(asset.getWidth() != null ? asset.getWidth() : -1);
+        out.writeInt(asset.getHeight() != null ? asset.getHeight() : -1);
+        List<String> tags = asset.getTags();
+        out.writeInt(tags != null ? tags.size() : -1);
+        bytes += 12;
+        if (tags != null) {
+            for (String tag : tags) {
+                bytes += writeString(out, tag);
+            }
+        }
+        return bytes;
+    }
+
+    private static int writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return 4;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    private static void addTerms(TreeMap<String, Postings> terms, int doc, int field, String text) {
+        for (String token : tokens(text)) {
+            terms.computeIfAbsent(token, t -> new Postings()).add(doc, field);
+        }
+    }
+
+    /**
+     * Growable posting list; docs are added in increasing order.
+     */
+    private static final class Postings {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int doc, int field) {
+            if (size > 0 && values[size - 1] >>> FIELD_BITS == doc) {
+                values[size - 1] |= field;
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = doc << FIELD_BITS | field;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.config.AemConfig;
+import com.example.aema2ui.model.aem.DamAsset;
+import com.example.aema2ui.model.aem.DamSearchResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local search index over the DAM, so /dam/search does not have to run a
+ * fulltext QueryBuilder query on the author for every keystroke.
+ *
+ * A full crawl walks damRoot folder by folder (listing with depth 2, which
+ * carries each asset's jcr:lastModified) and fetches details only for assets
+ * that are new or changed since the previous segment. Between full crawls, an
+ * incremental refresh asks QueryBuilder for assets modified since the last
+ * refresh and merges them in. Deletions are picked up by the next full crawl.
+ * Every update writes a new DamIndexSegment and swaps it in; the segment file
+ * survives restarts, so the index is searchable right after startup.
+ *
+ * Disabled by default (aem.dam-index.enabled). Until the first segment exists,
+ * callers fall back to QueryBuilder.
+ */
+@Slf4j
+@Service
+public class DamIndexService {
+
+    private static final String SEGMENT_FILE = "dam-index.seg";
+    private static final String STATE_FILE = "dam-index.properties";
+    // Overlap incremental refreshes so clock skew between us and AEM cannot skip changes
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final AemDamClient damClient;
+    private final AemHttpClient httpClient;
+    private final AemConfig config;
+    private final AemConfig.DamIndexProperties settings;
+    private final Path directory;
+
+    private volatile DamIndexSegment segment;
+    // Written only by the update thread
+    private volatile Instant lastFullCrawl;
+    private volatile Instant lastRefresh;
+    private volatile long lastUpdateMillis;
+    private volatile String lastError;
+
+    private ScheduledExecutorService updater;
+
+    public DamIndexService(AemDamClient damClient, AemHttpClient httpClient, AemConfig config) {
+        this.damClient = damClient;
+        this.httpClient = httpClient;
+        this.config = config;
+        this.settings = config.getDamIndex();
+        this.directory = settings.getDirectory() == null || settings.getDirectory().isBlank()
+            ? Path.of(System.getProperty("java.io.tmpdir"), "aem-dam-index")
+            : Path.of(settings.getDirectory());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            segment = DamIndexSegment.open(directory.resolve(SEGMENT_FILE));
+            loadState();
+            log.info("DAM index loaded: {} assets, {} terms from {}",
+                segment.docCount(), segment.termCount(), segment.file());
+        } catch (NoSuchFileException e) {
+            log.info("No DAM index at {}; building one in the background", directory);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable DAM index in {}: {}", directory, e.getMessage());
+        }
+
+        long interval = Math.max(10_000, settings.getRefreshIntervalMillis());
+        updater = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("dam-index").daemon().factory());
+        updater.scheduleWithFixedDelay(this::updateQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (updater != null) {
+            updater.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether searches can be served from the index.
+     */
+    public boolean isReady() {
+        return settings.isEnabled() && segment != null;
+    }
+
+    /**
+     * Search the index. Every word must match the start of a term in the
+     * title, name, tags, description or MIME type.
+     *
+     * @return One page of results, or null when the index is not ready
+     */
+    public DamSearchResult search(String query, String mimeType, int offset, int limit) {
+        DamIndexSegment current = segment;
+        if (!settings.isEnabled() || current == null) {
+            return null;
+        }
+        int pageOffset = Math.max(0, offset);
+        int pageLimit = Math.max(1, Math.min(limit, AemDamClient.MAX_SEARCH_LIMIT));
+        DamIndexSegment.Hits hits = current.search(query, mimeType, pageOffset, pageLimit);
+        return new DamSearchResult(hits.assets(), hits.total(), pageOffset, pageLimit,
+            pageOffset + hits.assets().size() < hits.total());
+    }
+
+    /**
+     * Typeahead: indexed terms completing the last word of the input.
+     */
+    public List<DamIndexSegment.Suggestion> suggest(String prefix, int limit) {
+        DamIndexSegment current = segment;
+        return current != null ? current.suggest(prefix, Math.max(1, limit)) : List.of();
+    }
+
+    /**
+     * Index size and update state.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        DamIndexSegment current = segment;
+        stats.put("enabled", settings.isEnabled());
+        stats.put("ready", isReady());
+        if (current != null) {
+            stats.put("assets", current.docCount());
+            stats.put("terms", current.termCount());
+            stats.put("segmentBytes", current.sizeBytes());
+        }
+        stats.put("lastFullCrawl", lastFullCrawl != null ? lastFullCrawl.toString() : null);
+        stats.put("lastRefresh", lastRefresh != null ? lastRefresh.toString() : null);
+        stats.put("lastUpdateMillis", lastUpdateMillis);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    private void updateQuietly() {
+        if (!httpClient.isConnected()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            boolean fullCrawlDue = segment == null || lastFullCrawl == null
+                || Duration.between(lastFullCrawl, Instant.now()).toMillis() >= settings.getFullCrawlIntervalMillis();
+            if (fullCrawlDue) {
+                fullCrawl();
+            } else {
+                refreshModified();
+            }
+            lastError = null;
+        } catch (Exception e) {
+            // Keep serving the previous segment; the next run retries
+            lastError = e.getMessage();
+            log.warn("DAM index update failed: {}", e.getMessage());
+        } finally {
+            lastUpdateMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Crawl damRoot and rebuild the segment, reusing indexed assets whose
+     * lastModified has not changed.
+     */
+    private void fullCrawl() throws IOException {
+        Instant started = Instant.now();
+        Map<String, DamAsset> previous = indexedAssets();
+
+        List<DamAsset> assets = new ArrayList<>();
+        List<DamAsset> changed = new ArrayList<>();
+        Deque<String> folders = new ArrayDeque<>();
+        folders.add(config.getDamRoot());
+        int folderCount = 0;
+        while (!folders.isEmpty() && assets.size() + changed.size() < settings.getMaxAssets()) {
+            String folder = folders.poll();
+            folderCount++;
+            for (DamAsset entry : damClient.listFolder(folder, 2)) {
+                if (entry.isFolder()) {
+                    folders.add(entry.getPath());
+                    continue;
+                }
+                DamAsset indexed = previous.get(entry.getPath());
+                if (indexed != null && entry.getLastModified() != null
+                        && entry.getLastModified().equals(indexed.getLastModified())) {
+                    assets.add(indexed);
+                } else {
+                    changed.add(entry);
+                }
+            }
+        }
+        if (!folders.isEmpty()) {
+            log.warn("DAM index crawl stopped at {} assets (aem.dam-index.max-assets)", settings.getMaxAssets());
+        }
+
+        assets.addAll(fetchDetails(changed));
+        segment = DamIndexSegment.write(directory.resolve(SEGMENT_FILE), assets);
+        lastFullCrawl = started;
+        lastRefresh = started;
+        saveState();
+        log.info("DAM index crawl: {} assets in {} folders, {} fetched, {}ms",
+            segment.docCount(), folderCount, changed.size(), Duration.between(started, Instant.now()).toMillis());
+    }
+
+    /**
+     * Merge assets modified since the last refresh into a new segment.
+     */
+    private void refreshModified() throws IOException {
+        Instant started = Instant.now();
+        List<DamAsset> modified = damClient.findModifiedSince(lastRefresh.minus(REFRESH_OVERLAP).toString());
+        if (!modified.isEmpty()) {
+            Map<String, DamAsset> assets = indexedAssets();
+            for (DamAsset asset : modified) {
+                assets.put(asset.getPath(), asset);
+            }
+            segment = DamIndexSegment.write(directory.resolve(SEGMENT_FILE), new ArrayList<>(assets.values()));
+            log.info("DAM index refresh: {} modified assets merged, {} total", modified.size(), segment.docCount());
+        }
+        lastRefresh = started;
+        saveState();
+    }
+
+    /**
+     * Full details for changed assets. Assets whose details cannot be loaded
+     * are indexed from the listing without lastModified, so the next crawl
+     * fetches them again.
+     */
+    private List<DamAsset> fetchDetails(List<DamAsset> listed) {
+        List<DamAsset> details = damClient.getAssets(listed.stream().map(DamAsset::getPath).toList());
+        List<DamAsset> assets = new ArrayList<>(listed.size());
+        for (int i = 0; i < listed.size(); i++) {
+            DamAsset detail = details.get(i);
+            if (detail == null) {
+                detail = listed.get(i).toBuilder().lastModified(null).build();
+            }
+            assets.add(detail);
+        }
+        return assets;
+    }
+
+    private Map<String, DamAsset> indexedAssets() {
+        Map<String, DamAsset> assets = new HashMap<>();
+        DamIndexSegment current = segment;
+        if (current != null) {
+            for (DamAsset asset : current.docs()) {
+                assets.put(asset.getPath(), asset);
+            }
+        }
+        return assets;
+    }
+
+    private void loadState() throws IOException {
+        Path file = directory.resolve(STATE_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties state = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            state.load(reader);
+        }
+        String fullCrawl = state.getProperty("lastFullCrawl");
+        String refresh = state.getProperty("lastRefresh");
+        // A segment from a different DAM root must be rebuilt
+        if (Objects.equals(state.getProperty("damRoot"), config.getDamRoot())) {
+            lastFullCrawl = fullCrawl != null ? Instant.parse(fullCrawl) : null;
+            lastRefresh = refresh != null ? Instant.parse(refresh) : lastFullCrawl;
+        }
+    }
+
+    private void saveState() throws IOException {
+        Properties state = new Properties();
+        state.setProperty("damRoot", config.getDamRoot());
+        state.setProperty("lastFullCrawl", lastFullCrawl.toString());
+        state.setProperty("lastRefresh", lastRefresh.toString());
+        try (Writer writer = Files.newBufferedWriter(directory.resolve(STATE_FILE), StandardCharsets.UTF_8)) {
+            state.store(writer, "DAM index state");
+        }
+    }
+}
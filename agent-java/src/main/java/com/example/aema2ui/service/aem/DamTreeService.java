@@ -0,0 +1,289 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.config.AemConfig;
+import com.example.aema2ui.model.aem.DamFolderNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * DAM folder trees for navigation.
+ *
+ * Trees are walked in parallel by DamTreeWalker and kept per (root, depth).
+ * Cached trees are served immediately, also while AEM is down; a background
+ * refresher re-walks trees older than the refresh interval so they stay warm,
+ * and drops trees nobody requested for idleMillis. Streaming callers receive
+ * folders while the walk discovers them, so a large DAM loads incrementally.
+ */
+@Slf4j
+@Service
+public class DamTreeService {
+
+    public static final String FOLDER_EVENT = "folder";
+    public static final String COMPLETE_EVENT = "complete";
+    public static final String ERROR_EVENT = "error";
+
+    private final AemHttpClient httpClient;
+    private final AemConfig.DamTreeProperties settings;
+    private final DamTreeWalker walker;
+
+    // Access-ordered for LRU eviction; guarded by itself
+    private final LinkedHashMap<String, CachedTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+
+    private ScheduledExecutorService refresher;
+
+    /**
+     * A walked tree.
+     *
+     * @param folders All folders, parents before children
+     */
+    public record Tree(String root, int depth, List<DamFolderNode> folders, boolean truncated, int failures,
+                       Instant loadedAt) {}
+
+    /**
+     * A tree and whether it came from the cache.
+     */
+    public record TreeResult(Tree tree, boolean cached) {}
+
+    private static final class CachedTree {
+        private final Tree tree;
+        private volatile long lastRequestedMillis = System.currentTimeMillis();
+
+        CachedTree(Tree tree) {
+            this.tree = tree;
+        }
+    }
+
+    public DamTreeService(AemHttpClient httpClient, AemConfig config) {
+        this.httpClient = httpClient;
+        this.settings = config.getDamTree();
+        this.walker = new DamTreeWalker(httpClient::get, settings.getParallelism(), settings.getSelectorDepth(),
+            settings.getMaxFolders());
+    }
+
+    @PostConstruct
+    void startRefresher() {
+        long interval = Math.max(10_000, settings.getRefreshIntervalMillis());
+        refresher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("dam-tree-refresh").daemon().factory());
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopRefresher() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Clamp a requested depth to 1..maxDepth.
+     */
+    public int clampDepth(int depth) {
+        return Math.max(1, Math.min(depth, settings.getMaxDepth()));
+    }
+
+    /**
+     * Whether a tree can be served without AEM.
+     */
+    public boolean isCached(String root, int depth) {
+        synchronized (trees) {
+            return trees.containsKey(key(root, depth));
+        }
+    }
+
+    /**
+     * Get a tree, walking it if it is not cached.
+     */
+    public TreeResult getTree(String root, int depth) throws InterruptedException {
+        Tree cached = cached(root, depth);
+        if (cached != null) {
+            return new TreeResult(cached, true);
+        }
+        return new TreeResult(walk(root, depth, folder -> { }), false);
+    }
+
+    /**
+     * Stream a tree folder by folder: replayed from the cache, or as the walk
+     * discovers folders.
+     */
+    public TreeResult streamTree(String root, int depth, Consumer<DamFolderNode> sink) throws InterruptedException {
+        Tree cached = cached(root, depth);
+        if (cached != null) {
+            cached.folders().forEach(sink);
+            return new TreeResult(cached, true);
+        }
+        return new TreeResult(walk(root, depth, sink), false);
+    }
+
+    /**
+     * Stream a tree as SSE: one "folder" event per folder, then a "complete"
+     * event with the summary (or "error"). Runs on a virtual thread.
+     */
+    public void streamTreeEvents(String root, int depth, SseEmitter emitter) {
+        Thread.ofVirtual().name("dam-tree-sse").start(() -> {
+            try {
+                TreeResult result = streamTree(root, depth, folder -> {
+                    try {
+                        emitter.send(SseEmitter.event().name(FOLDER_EVENT).data(folder));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name(COMPLETE_EVENT).data(summary(result)));
+                emitter.complete();
+            } catch (UncheckedIOException e) {
+                log.debug("DAM tree stream closed by client: {}", root);
+                emitter.completeWithError(e.getCause());
+            } catch (Exception e) {
+                log.warn("DAM tree stream failed: {} - {}", root, e.getMessage());
+                try {
+                    emitter.send(SseEmitter.event().name(ERROR_EVENT).data(Map.of("message", String.valueOf(e.getMessage()))));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Summary of a tree without its folders.
+     */
+    public Map<String, Object> summary(TreeResult result) {
+        Tree tree = result.tree();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("root", tree.root());
+        summary.put("depth", tree.depth());
+        summary.put("count", tree.folders().size());
+        summary.put("truncated", tree.truncated());
+        summary.put("failures", tree.failures());
+        summary.put("cached", result.cached());
+        summary.put("loadedAt", tree.loadedAt().toString());
+        return summary;
+    }
+
+    /**
+     * Cached trees and refresh settings.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Object> cachedTrees = new LinkedHashMap<>();
+        synchronized (trees) {
+            trees.forEach((key, cached) -> cachedTrees.put(key, Map.of(
+                "folders", cached.tree.folders().size(),
+                "loadedAt", cached.tree.loadedAt().toString())));
+        }
+        stats.put("trees", cachedTrees);
+        stats.put("refreshIntervalMillis", settings.getRefreshIntervalMillis());
+        stats.put("parallelism", settings.getParallelism());
+        stats.put("selectorDepth", settings.getSelectorDepth());
+        return stats;
+    }
+
+    private Tree cached(String root, int depth) {
+        synchronized (trees) {
+            CachedTree cached = trees.get(key(root, depth));
+            if (cached == null) {
+                return null;
+            }
+            cached.lastRequestedMillis = System.currentTimeMillis();
+            return cached.tree;
+        }
+    }
+
+    /**
+     * Walk a tree, feeding the sink and collecting the folders; the tree is
+     * cached unless the walk failed at the root or the sink gave up.
+     */
+    private Tree walk(String root, int depth, Consumer<DamFolderNode> sink) throws InterruptedException {
+        List<DamFolderNode> folders = new ArrayList<>();
+        long start = System.nanoTime();
+        DamTreeWalker.Result result = walker.walk(root, depth, folder -> {
+            // The walker serializes sink calls
+            folders.add(folder);
+            sink.accept(folder);
+        });
+        Tree tree = new Tree(root, depth, List.copyOf(folders), result.truncated(), result.failures(), Instant.now());
+        log.info("DAM tree {} depth {}: {} folders in {}ms ({} failures{})", root, depth, result.folders(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), result.failures(),
+            result.truncated() ? ", truncated" : "");
+
+        boolean rootLoaded = !folders.isEmpty() && folders.get(0).isExpanded();
+        if (rootLoaded) {
+            store(tree);
+        }
+        return tree;
+    }
+
+    private void store(Tree tree) {
+        synchronized (trees) {
+            CachedTree previous = trees.get(key(tree.root(), tree.depth()));
+            if (previous != null && tree.failures() > previous.tree.failures()) {
+                // Keep the more complete tree; the next refresh tries again
+                return;
+            }
+            CachedTree replacement = new CachedTree(tree);
+            if (previous != null) {
+                replacement.lastRequestedMillis = previous.lastRequestedMillis;
+            }
+            trees.put(key(tree.root(), tree.depth()), replacement);
+            Iterator<CachedTree> eldest = trees.values().iterator();
+            while (trees.size() > settings.getMaxCachedTrees() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Re-walk trees older than the refresh interval, one at a time, and drop idle ones.
+     */
+    private void refreshQuietly() {
+        try {
+            if (!httpClient.isConnected()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            List<Tree> due = new ArrayList<>();
+            synchronized (trees) {
+                // Iterate a copy: reading through get() would reorder the access-ordered map
+                for (Map.Entry<String, CachedTree> entry : new ArrayList<>(trees.entrySet())) {
+                    CachedTree cached = entry.getValue();
+                    if (now - cached.lastRequestedMillis > settings.getIdleMillis()) {
+                        trees.remove(entry.getKey());
+                    } else if (now - cached.tree.loadedAt().toEpochMilli() >= settings.getRefreshIntervalMillis()) {
+                        due.add(cached.tree);
+                    }
+                }
+            }
+            for (Tree tree : due) {
+                walk(tree.root(), tree.depth(), folder -> { });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Never let an unexpected error cancel the schedule
+            log.warn("DAM tree refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private static String key(String root, int depth) {
+        return root + "|" + depth;
+    }
+}
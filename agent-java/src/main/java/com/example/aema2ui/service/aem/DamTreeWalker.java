@@ -0,0 +1,249 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.aem.DamFolderNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Walks a DAM folder hierarchy breadth-first with bounded parallelism.
+ *
+ * Each request uses Sling's depth selector (folder.N.json, N up to
+ * selectorDepth) so one round trip covers several levels; folders at the
+ * bottom of a response are fetched as new tasks. When Sling refuses a deep
+ * export (it answers with a list of alternative URLs once a response gets too
+ * large) the folder is fetched again with depth 1.
+ *
+ * Folders are handed to the sink as soon as their children are known, parents
+ * before children. The sink is never called concurrently. If it throws, the
+ * walk stops and the exception is rethrown from walk.
+ */
+@Slf4j
+public class DamTreeWalker {
+
+    /**
+     * Outcome of a walk.
+     *
+     * @param truncated Whether the walk stopped at maxFolders
+     * @param failures  Folders whose children could not be loaded
+     */
+    public record Result(int folders, boolean truncated, int failures) {}
+
+    private final Function<String, JsonNode> fetcher;
+    private final int parallelism;
+    private final int selectorDepth;
+    private final int maxFolders;
+
+    /**
+     * @param fetcher Returns the Sling JSON export for a path such as /content/dam/x.2.json
+     */
+    public DamTreeWalker(Function<String, JsonNode> fetcher, int parallelism, int selectorDepth, int maxFolders) {
+        this.fetcher = fetcher;
+        this.parallelism = Math.max(1, parallelism);
+        this.selectorDepth = Math.max(1, selectorDepth);
+        this.maxFolders = Math.max(1, maxFolders);
+    }
+
+    /**
+     * Walk the folders under root down to depth levels below it.
+     *
+     * @throws InterruptedException if interrupted while waiting for the walk
+     */
+    public Result walk(String root, int depth, Consumer<DamFolderNode> sink) throws InterruptedException {
+        Walk walk = new Walk(Math.max(0, depth), sink);
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofVirtual().name("dam-tree-", 0).factory())) {
+            walk.executor = executor;
+            walk.submit(root, null, 0);
+            try {
+                walk.done.get();
+            } catch (InterruptedException e) {
+                walk.stopped = true;
+                executor.shutdownNow();
+                throw e;
+            } catch (ExecutionException e) {
+                // done is only ever completed normally
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        if (walk.sinkFailure != null) {
+            throw walk.sinkFailure;
+        }
+        return new Result(walk.emitted.get(), walk.truncated, walk.failures.get());
+    }
+
+    private class Walk {
+
+        private final int limit;
+        private final Consumer<DamFolderNode> sink;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger emitted = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Not synchronized: the sink writes to the client, and blocking inside
+        // a monitor would pin the virtual walker thread to its carrier
+        private final ReentrantLock emitLock = new ReentrantLock();
+        private ExecutorService executor;
+        private volatile boolean stopped;
+        private volatile boolean truncated;
+        private volatile RuntimeException sinkFailure;
+
+        Walk(int limit, Consumer<DamFolderNode> sink) {
+            this.limit = limit;
+            this.sink = sink;
+        }
+
+        void submit(String path, String parentPath, int depth) {
+            if (stopped) {
+                return;
+            }
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        fetch(path, parentPath, depth);
+                    } finally {
+                        finishTask();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                finishTask();
+            }
+        }
+
+        private void finishTask() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        private void fetch(String path, String parentPath, int depth) {
+            if (stopped) {
+                return;
+            }
+            // One extra level so the deepest folders still get their child counts
+            int levels = Math.max(1, Math.min(selectorDepth, limit - depth + 1));
+            try {
+                JsonNode folder = fetcher.apply(path + "." + levels + ".json");
+                if (folder != null && folder.isArray() && levels > 1) {
+                    // Too large for Sling to export at this depth
+                    levels = 1;
+                    folder = fetcher.apply(path + ".1.json");
+                }
+                if (folder == null || !folder.isObject()) {
+                    throw new IllegalStateException("No folder export for " + path);
+                }
+                visit(folder, path, parentPath, depth, levels);
+            } catch (RuntimeException e) {
+                if (e == sinkFailure) {
+                    return;
+                }
+                log.debug("DAM tree: failed to load {} - {}", path, e.getMessage());
+                failures.incrementAndGet();
+                emit(node(path, null, parentPath, depth, null, null, false));
+            }
+        }
+
+        /**
+         * Emit a folder whose export (with levels levels of descendants) is at hand,
+         * then continue with its subfolders.
+         */
+        private void visit(JsonNode folder, String path, String parentPath, int depth, int levels) {
+            List<Map.Entry<String, JsonNode>> subfolders = new ArrayList<>();
+            int assets = 0;
+            Iterator<Map.Entry<String, JsonNode>> fields = folder.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> child = fields.next();
+                String name = child.getKey();
+                if (name.startsWith("jcr:") || name.startsWith("rep:") || !child.getValue().isObject()) {
+                    continue;
+                }
+                String type = child.getValue().path("jcr:primaryType").asText("");
+                if (isFolderType(type)) {
+                    subfolders.add(child);
+                } else if ("dam:Asset".equals(type)) {
+                    assets++;
+                }
+            }
+
+            boolean expand = depth < limit;
+            if (!emit(node(path, folder, parentPath, depth, subfolders.size(), assets, expand)) || !expand) {
+                return;
+            }
+            for (Map.Entry<String, JsonNode> subfolder : subfolders) {
+                String childPath = path + "/" + subfolder.getKey();
+                if (levels > 1) {
+                    visit(subfolder.getValue(), childPath, path, depth + 1, levels - 1);
+                } else {
+                    submit(childPath, path, depth + 1);
+                }
+                if (stopped) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Hand a folder to the sink, one at a time. Returns false once the walk stops.
+         */
+        private boolean emit(DamFolderNode node) {
+            emitLock.lock();
+            try {
+                if (stopped) {
+                    return false;
+                }
+                if (emitted.get() >= maxFolders) {
+                    truncated = true;
+                    stopped = true;
+                    return false;
+                }
+                try {
+                    sink.accept(node);
+                } catch (RuntimeException e) {
+                    sinkFailure = e;
+                    stopped = true;
+                    throw e;
+                }
+                emitted.incrementAndGet();
+                return true;
+            } finally {
+                emitLock.unlock();
+            }
+        }
+    }
+
+    static boolean isFolderType(String primaryType) {
+        return "sling:Folder".equals(primaryType)
+            || "sling:OrderedFolder".equals(primaryType)
+            || "nt:folder".equals(primaryType);
+    }
+
+    private static DamFolderNode node(String path, JsonNode folder, String parentPath, int depth,
+                                      Integer folderCount, Integer assetCount, boolean expanded) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        String title = folder != null ? folder.path("jcr:content").path("jcr:title").asText(name) : name;
+        return DamFolderNode.builder()
+            .path(path)
+            .name(name)
+            .title(title)
+            .parentPath(parentPath)
+            .depth(depth)
+            .folderCount(folderCount)
+            .assetCount(assetCount)
+            .expanded(expanded)
+            .build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.PageRecommendation;
+import com.example.aema2ui.model.PageRecommendation.SectionRecommendation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A page with its component subtree, written in a single Sling POST using
+ * :operation=import with a JSON payload instead of one request per node.
+ *
+ * Components go into the page's root container (jcr:content/root/container)
+ * in list order. Property values keep their JSON types; nested maps become
+ * child nodes and lists become multi-value properties.
+ */
+public class PageImport {
+
+    static final String PAGE_RESOURCE_TYPE = "aem-demo/components/page";
+    static final String CONTAINER_RESOURCE_TYPE = "aem-demo/components/container";
+    static final String COMPONENT_RESOURCE_PREFIX = "aem-demo/components/";
+
+    /**
+     * One component under the page's root container.
+     *
+     * @param name         Node name; made unique within the page
+     * @param resourceType sling:resourceType; defaults to aem-demo/components/{name}
+     * @param properties   Component properties (may be null)
+     */
+    public record Component(String name, String resourceType, Map<String, Object> properties) {}
+
+    private final String title;
+    private final String template;
+    private final Map<String, Object> properties;
+    private final List<Component> components;
+
+    public PageImport(String title, String template, Map<String, Object> properties, List<Component> components) {
+        this.title = title;
+        this.template = template;
+        this.properties = properties;
+        this.components = components != null ? components : List.of();
+    }
+
+    /**
+     * Components for the sections of a recommended layout, in position order.
+     * Each section becomes an empty component of its type carrying the
+     * display name as title and the suggested prompt for later generation.
+     */
+    public static List<Component> fromRecommendation(PageRecommendation recommendation) {
+        if (recommendation == null || recommendation.getSections() == null) {
+            return List.of();
+        }
+        List<SectionRecommendation> sections = new ArrayList<>(recommendation.getSections());
+        sections.sort(Comparator.comparingInt(SectionRecommendation::getPosition));
+
+        List<Component> components = new ArrayList<>(sections.size());
+        for (SectionRecommendation section : sections) {
+            String type = section.getComponentType() != null ? section.getComponentType() : "text";
+            Map<String, Object> props = new LinkedHashMap<>();
+            props.put("jcr:title", section.getDisplayName());
+            props.put("suggestedPrompt", section.getSuggestedPrompt());
+            components.add(new Component(type, COMPONENT_RESOURCE_PREFIX + nodeName(type), props));
+        }
+        return components;
+    }
+
+    /**
+     * The node tree to import, rooted at the cq:Page node.
+     */
+    public Map<String, Object> toTree() {
+        Map<String, Object> container = new LinkedHashMap<>();
+        container.put("jcr:primaryType", "nt:unstructured");
+        container.put("sling:resourceType", CONTAINER_RESOURCE_TYPE);
+        Set<String> names = new HashSet<>();
+        for (Component component : components) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("jcr:primaryType", "nt:unstructured");
+            node.put("sling:resourceType", component.resourceType() != null
+                    ? component.resourceType() : COMPONENT_RESOURCE_PREFIX + nodeName(component.name()));
+            putAll(node, component.properties());
+            container.put(uniqueName(nodeName(component.name()), names), node);
+        }
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("jcr:primaryType", "nt:unstructured");
+        root.put("sling:resourceType", CONTAINER_RESOURCE_TYPE);
+        root.put("container", container);
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("jcr:primaryType", "cq:PageContent");
+        content.put("jcr:title", title);
+        content.put("cq:template", template);
+        content.put("sling:resourceType", PAGE_RESOURCE_TYPE);
+        putAll(content, properties);
+        content.put("root", root);
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("jcr:primaryType", "cq:Page");
+        page.put("jcr:content", content);
+        return page;
+    }
+
+    /**
+     * Sling POST form importing the page as nodeName under the target path.
+     * Nothing is replaced: Sling rejects the import if a page of that name
+     * already exists, instead of wiping its child pages and authored content.
+     */
+    public Map<String, String> toForm(String nodeName, ObjectMapper objectMapper) throws JsonProcessingException {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put(":operation", "import");
+        form.put(":contentType", "json");
+        form.put(":name", nodeName);
+        form.put(":content", objectMapper.writeValueAsString(toTree()));
+        return form;
+    }
+
+    public int componentCount() {
+        return components.size();
+    }
+
+    private static void putAll(Map<String, Object> node, Map<String, Object> values) {
+        if (values != null) {
+            values.forEach((key, value) -> {
+                if (value != null) {
+                    node.put(key, value);
+                }
+            });
+        }
+    }
+
+    /**
+     * JCR-safe node name: lower case letters, digits, '-' and '_'.
+     */
+    static String nodeName(String input) {
+        String name = input == null ? "" : input.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9_\\-]", "-")
+                .replaceAll("-+", "-")
+                .replaceAll("^-|-$", "");
+        return name.isEmpty() ? "component" : name;
+    }
+
+    private static String uniqueName(String name, Set<String> taken) {
+        String candidate = name;
+        for (int i = 1; !taken.add(candidate); i++) {
+            candidate = name + "_" + i;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.aema2ui.service.aem;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local disk cache for DAM renditions served by /dam/proxy.
+ *
+ * Entries are keyed by asset path + rendition + version (the asset's
+ * jcr:lastModified, carried in the proxy URL), so a changed asset gets a new
+ * key instead of a stale hit. Entries without a version expire after
+ * unversionedTtl. Each entry is a body file plus a small properties file; the
+ * in-memory index is rebuilt from those on startup, so the cache survives
+ * restarts. Total size is capped with LRU eviction.
+ *
+ * Responses read entries through a channel from open(): eviction and
+ * replacement unlink the file, so a response already reading it completes.
+ */
+@Slf4j
+@Component
+public class RenditionCache {
+
+    private static final String DATA_SUFFIX = ".bin";
+    private static final String META_SUFFIX = ".properties";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final long unversionedTtlMillis;
+
+    // Access-ordered map gives LRU iteration order; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * A cached rendition on disk.
+     *
+     * @param etag Strong ETag served to clients, derived from the key and AEM's validators
+     */
+    public record Entry(String key, Path file, String contentType, String etag, long size,
+                        boolean versioned, long storedAtMillis) {}
+
+    public RenditionCache(@Value("${aem.rendition-cache.enabled:true}") boolean enabled,
+                          @Value("${aem.rendition-cache.directory:}") String directory,
+                          @Value("${aem.rendition-cache.max-size-mb:512}") long maxSizeMb,
+                          @Value("${aem.rendition-cache.max-entry-mb:16}") long maxEntryMb,
+                          @Value("${aem.rendition-cache.unversioned-ttl-seconds:600}") long unversionedTtlSeconds) {
+        this.enabled = enabled && maxSizeMb > 0;
+        this.directory = directory == null || directory.isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "aem-rendition-cache")
+                : Path.of(directory);
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.maxEntryBytes = Math.min(maxEntryMb * 1024 * 1024, this.maxBytes);
+        this.unversionedTtlMillis = unversionedTtlSeconds * 1000;
+    }
+
+    /**
+     * Cache key for a rendition of an asset at a given version (may be null).
+     */
+    public static String key(String assetPath, String rendition, String version) {
+        return assetPath + "|" + rendition + "|" + (version == null ? "" : version);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether a response of this length may be cached. Unknown lengths (-1) are not.
+     */
+    public boolean accepts(long contentLength) {
+        return enabled && contentLength >= 0 && contentLength <= maxEntryBytes;
+    }
+
+    /**
+     * Get a cached rendition, or null on miss or expiry.
+     */
+    public Entry get(String key) {
+        if (!enabled) return null;
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (!entry.versioned() && entry.storedAtMillis() + unversionedTtlMillis <= System.currentTimeMillis()) {
+                remove(entry);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry;
+        }
+    }
+
+    /**
+     * Copy a rendition body to disk and index it. The body is read through a
+     * bounded buffer; the entry only becomes visible once completely written.
+     *
+     * @param versioned Whether the key includes the asset version; unversioned entries expire
+     * @param aemValidator AEM's ETag or Last-Modified, folded into the served ETag (may be null)
+     * @throws IOException if reading the body or writing the file fails; nothing is cached then
+     */
+    public Entry store(String key, boolean versioned, String contentType, String aemValidator,
+                       InputStream body) throws IOException {
+        String name = hash(key);
+        Path file = directory.resolve(name + DATA_SUFFIX);
+        Path temp = directory.resolve(name + "." + Thread.currentThread().threadId() + TEMP_SUFFIX);
+
+        long size;
+        try {
+            size = Files.copy(body, temp, StandardCopyOption.REPLACE_EXISTING);
+            if (size > maxEntryBytes) {
+                throw new IOException("Rendition larger than cache entry limit: " + size + " bytes");
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        String etag = "\"" + hash(key + "|" + aemValidator + "|" + size).substring(0, 32) + "\"";
+        Entry entry = new Entry(key, file, contentType, etag, size, versioned, System.currentTimeMillis());
+
+        synchronized (entries) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeMeta(directory.resolve(name + META_SUFFIX), entry);
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size();
+            }
+            totalBytes += size;
+            stores.incrementAndGet();
+            evictOverCap();
+        }
+        return entry;
+    }
+
+    /**
+     * Open an entry's file for reading, or null if it has been evicted or
+     * replaced since it was looked up. The channel stays readable after a
+     * later eviction; the caller must close it.
+     */
+    public FileChannel open(Entry entry) throws IOException {
+        synchronized (entries) {
+            if (entries.get(entry.key()) != entry) {
+                return null;
+            }
+            try {
+                return FileChannel.open(entry.file(), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                remove(entry);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Cache statistics.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("enabled", enabled);
+            stats.put("directory", directory.toString());
+            stats.put("entries", entries.size());
+            stats.put("sizeBytes", totalBytes);
+            stats.put("maxBytes", maxBytes);
+        }
+        long h = hits.get();
+        long m = misses.get();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m > 0 ? (double) h / (h + m) : 0.0);
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    /**
+     * Rebuild the index from the cache directory, oldest files first so the
+     * most recently written entries are the last to be evicted.
+     */
+    @PostConstruct
+    public void loadIndex() {
+        if (!enabled) return;
+
+        try {
+            Files.createDirectories(directory);
+            List<Entry> loaded = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path path : files) {
+                    String fileName = path.getFileName().toString();
+                    if (fileName.endsWith(TEMP_SUFFIX)) {
+                        // Left over from an interrupted store
+                        Files.deleteIfExists(path);
+                    } else if (fileName.endsWith(META_SUFFIX)) {
+                        Entry entry = readMeta(path);
+                        if (entry != null) {
+                            loaded.add(entry);
+                        }
+                    }
+                }
+            }
+            loaded.sort(Comparator.comparingLong(Entry::storedAtMillis));
+
+            synchronized (entries) {
+                for (Entry entry : loaded) {
+                    entries.put(entry.key(), entry);
+                    totalBytes += entry.size();
+                }
+                evictOverCap();
+            }
+            log.info("Rendition cache at {}: {} entries, {} bytes (max {})",
+                    directory, entries.size(), totalBytes, maxBytes);
+        } catch (IOException e) {
+            log.warn("Failed to load rendition cache index from {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void evictOverCap() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size();
+            deleteFiles(entry);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key());
+        totalBytes -= entry.size();
+        deleteFiles(entry);
+    }
+
+    private void deleteFiles(Entry entry) {
+        String name = hash(entry.key());
+        try {
+            Files.deleteIfExists(entry.file());
+            Files.deleteIfExists(directory.resolve(name + META_SUFFIX));
+        } catch (IOException e) {
+            log.debug("Failed to delete cached rendition {}: {}", entry.file(), e.getMessage());
+        }
+    }
+
+    private void writeMeta(Path path, Entry entry) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("key", entry.key());
+        meta.setProperty("contentType", entry.contentType() == null ? "" : entry.contentType());
+        meta.setProperty("etag", entry.etag());
+        meta.setProperty("size", Long.toString(entry.size()));
+        meta.setProperty("versioned", Boolean.toString(entry.versioned()));
+        meta.setProperty("storedAt", Long.toString(entry.storedAtMillis()));
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            meta.store(writer, null);
+        }
+    }
+
+    private Entry readMeta(Path path) {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            Properties meta = new Properties();
+            meta.load(reader);
+            String key = meta.getProperty("key");
+            Path file = directory.resolve(hash(key) + DATA_SUFFIX);
+            long size = Long.parseLong(meta.getProperty("size"));
+            if (!Files.exists(file) || Files.size(file) != size) {
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(file);
+                return null;
+            }
+            String contentType = meta.getProperty("contentType", "");
+            return new Entry(key, file, contentType.isEmpty() ? null : contentType, meta.getProperty("etag"),
+                    size, Boolean.parseBoolean(meta.getProperty("versioned")),
+                    Long.parseLong(meta.getProperty("storedAt")));
+        } catch (Exception e) {
+            log.debug("Ignoring unreadable rendition cache entry {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.aema2ui.service.event;
+
+import com.example.aema2ui.config.AemConfig;
+import com.example.aema2ui.service.aem.AemHttpClient;
+import com.example.aema2ui.service.aem.AemWorkflowClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns changes in the AEM workflow inbox into stream events.
+ *
+ * Polls /bin/workflow/inbox in the background while anyone is subscribed and
+ * publishes INBOX_ITEM_ADDED, INBOX_ITEM_UPDATED and INBOX_ITEM_REMOVED for
+ * the differences from the previous poll, so clients no longer fetch the
+ * whole inbox themselves. The first successful poll only records a baseline.
+ */
+@Slf4j
+@Service
+public class AemInboxPoller {
+
+    public static final String ITEM_ADDED = "INBOX_ITEM_ADDED";
+    public static final String ITEM_UPDATED = "INBOX_ITEM_UPDATED";
+    public static final String ITEM_REMOVED = "INBOX_ITEM_REMOVED";
+
+    private final AemConfig aemConfig;
+    private final AemHttpClient aemHttpClient;
+    private final AemWorkflowClient aemWorkflowClient;
+    private final EventStreamService events;
+    private final long pollMillis;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("aem-inbox-poller").daemon().factory());
+    private volatile Map<String, Map<String, Object>> lastItems;
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    public AemInboxPoller(AemConfig aemConfig, AemHttpClient aemHttpClient, AemWorkflowClient aemWorkflowClient,
+                          EventStreamService events,
+                          @Value("${aem.agent.events.inbox-poll-millis:30000}") long pollMillis) {
+        this.aemConfig = aemConfig;
+        this.aemHttpClient = aemHttpClient;
+        this.aemWorkflowClient = aemWorkflowClient;
+        this.events = events;
+        this.pollMillis = pollMillis;
+    }
+
+    @PostConstruct
+    void startPolling() {
+        if (pollMillis <= 0 || !aemConfig.isEnabled()) {
+            return;
+        }
+        long interval = Math.max(1000, pollMillis);
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopPolling() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Fetch the inbox and publish what changed; does nothing without subscribers
+     * or an AEM connection.
+     */
+    void poll() {
+        if (events.subscriberCount() == 0 || !aemHttpClient.isConnected()) {
+            return;
+        }
+        List<Map<String, Object>> fetched;
+        try {
+            fetched = aemWorkflowClient.fetchInbox();
+        } catch (RuntimeException e) {
+            // Keep the baseline; an unreachable inbox is not an empty one
+            log.debug("Inbox poll failed: {}", e.getMessage());
+            return;
+        }
+        polls.incrementAndGet();
+
+        Map<String, Map<String, Object>> items = new LinkedHashMap<>();
+        for (Map<String, Object> item : fetched) {
+            Object id = item.get("id");
+            if (id != null && !id.toString().isEmpty()) {
+                items.put(id.toString(), item);
+            }
+        }
+        Map<String, Map<String, Object>> previous = lastItems;
+        lastItems = items;
+        if (previous == null) {
+            return;
+        }
+
+        items.forEach((id, item) -> {
+            Map<String, Object> before = previous.get(id);
+            if (before == null) {
+                publish(ITEM_ADDED, id, item);
+            } else if (!Objects.equals(before, item)) {
+                publish(ITEM_UPDATED, id, item);
+            }
+        });
+        previous.forEach((id, item) -> {
+            if (!items.containsKey(id)) {
+                publish(ITEM_REMOVED, id, item);
+            }
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pollMillis", pollMillis);
+        stats.put("polls", polls.get());
+        stats.put("published", published.get());
+        Map<String, Map<String, Object>> current = lastItems;
+        stats.put("items", current != null ? current.size() : null);
+        return stats;
+    }
+
+    private void publish(String type, String id, Map<String, Object> item) {
+        // The inbox is the connected user's; items carry no assignee of their own
+        events.publish(type, StateEvent.SOURCE_AEM_INBOX, id, null, Set.of(), item);
+        published.incrementAndGet();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.aema2ui.service.event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/**
+ * Fixed-size ring of the most recent values, each tagged with a sequence number.
+ *
+ * Lock-free for any number of publishers and readers: a publisher claims the
+ * next sequence number and stores its value in the slot for it; readers keep
+ * their own position and read slots without coordinating with anyone. When a
+ * reader falls more than capacity behind, the values it missed are gone and
+ * {@link #isOverwritten} tells it so.
+ *
+ * A claimed sequence number becomes readable only once its value is stored,
+ * so a reader may briefly see a later value before an earlier one; it should
+ * stop at the first unreadable sequence number and retry later.
+ */
+public class EventRing<T> {
+
+    private record Slot<T>(long seq, T value) {}
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final int mask;
+    private final long firstSeq;
+    private final AtomicLong head;
+
+    /**
+     * @param capacity Rounded up to a power of two
+     * @param lastSeq  Sequence number before the first one handed out
+     */
+    public EventRing(int capacity, long lastSeq) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.firstSeq = lastSeq + 1;
+        this.head = new AtomicLong(lastSeq);
+    }
+
+    /**
+     * Store a value under the next sequence number.
+     *
+     * @param factory Creates the value from its sequence number
+     * @return The stored value
+     */
+    public T publish(LongFunction<T> factory) {
+        long seq = head.incrementAndGet();
+        T value = factory.apply(seq);
+        Slot<T> slot = new Slot<>(seq, value);
+        // A publisher lapped while stalled must not replace a newer value
+        slots.getAndUpdate(index(seq), current -> current == null || current.seq() < seq ? slot : current);
+        return value;
+    }
+
+    /**
+     * The value for a sequence number, or null if it is not readable:
+     * either not yet stored, or overwritten (see isOverwritten).
+     */
+    public T get(long seq) {
+        Slot<T> slot = slots.get(index(seq));
+        return slot != null && slot.seq() == seq ? slot.value() : null;
+    }
+
+    /**
+     * Whether the value for a sequence number was already replaced by a newer
+     * one, or predates this ring.
+     */
+    public boolean isOverwritten(long seq) {
+        if (seq < firstSeq || seq <= head.get() - slots.length()) {
+            return true;
+        }
+        Slot<T> slot = slots.get(index(seq));
+        return slot != null && slot.seq() > seq;
+    }
+
+    /**
+     * The last sequence number handed out.
+     */
+    public long lastSeq() {
+        return head.get();
+    }
+
+    /**
+     * The oldest sequence number that can still be read.
+     */
+    public long oldestSeq() {
+        return Math.max(firstSeq, head.get() - slots.length() + 1);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    private int index(long seq) {
+        return (int) (seq & mask);
+    }
+}
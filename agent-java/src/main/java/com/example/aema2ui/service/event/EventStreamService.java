@@ -0,0 +1,283 @@
+package com.example.aema2ui.service.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Pushes workflow, review and AEM inbox state changes to SSE subscribers.
+ *
+ * Publishers append to an {@link EventRing} and wake the dispatcher thread;
+ * they never wait for subscribers. The dispatcher hands each subscriber that
+ * is behind, or due a keep-alive, to a virtual thread that sends its pending
+ * events in order, one sender per subscriber at a time, so a slow client only
+ * delays itself.
+ *
+ * Every event carries its sequence number as the SSE id. A client that
+ * reconnects with Last-Event-ID (browsers do this automatically) receives the
+ * events it missed, as long as they are still in the ring; otherwise it gets a
+ * RESYNC event and should reload state before continuing. Sequence numbers
+ * start from the startup time, so ids from before a restart always resync.
+ */
+@Slf4j
+@Service
+public class EventStreamService {
+
+    public static final String RESYNC = "RESYNC";
+    public static final String SUBSCRIBED = "SUBSCRIBED";
+
+    private final EventRing<StateEvent> ring;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile Thread dispatcher;
+    private volatile boolean running;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+
+    public EventStreamService(@Value("${aem.agent.events.ring-capacity:8192}") int ringCapacity,
+                              @Value("${aem.agent.events.heartbeat-millis:15000}") long heartbeatMillis,
+                              @Value("${aem.agent.events.timeout-millis:1800000}") long timeoutMillis,
+                              @Value("${aem.agent.events.max-subscribers:1000}") int maxSubscribers) {
+        // Millisecond-based start keeps sequence numbers increasing across restarts
+        this.ring = new EventRing<>(ringCapacity, System.currentTimeMillis() * 1000);
+        this.heartbeatMillis = Math.max(1000, heartbeatMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @PostConstruct
+    void startDispatcher() {
+        running = true;
+        dispatcher = Thread.ofPlatform().name("event-dispatcher").daemon().start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    void stopDispatcher() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Append an event to the stream. Never blocks on subscribers.
+     */
+    public StateEvent publish(String type, String source, String entityId, String contentId, Set<String> assignees,
+                              Map<String, Object> data) {
+        Instant now = Instant.now();
+        StateEvent event = ring.publish(seq -> new StateEvent(seq, type, source, entityId, contentId,
+            assignees != null ? assignees : Set.of(), now, data != null ? data : Map.of()));
+        Thread current = dispatcher;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+        return event;
+    }
+
+    /**
+     * Open a stream of the events matching filter.
+     *
+     * @param lastEventId Resume after this event id (Last-Event-ID); null or blank = only new events
+     * @return The emitter, or null if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(StateEvent.Filter filter, String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        long head = ring.lastSeq();
+        Long resumeAfter = parseEventId(lastEventId);
+        boolean known = lastEventId == null || lastEventId.isBlank()
+            || (resumeAfter != null && resumeAfter <= head);
+        long start = resumeAfter != null && known ? resumeAfter + 1 : head + 1;
+        Subscriber subscriber = new Subscriber(subscriberIds.incrementAndGet(), emitter, filter, start);
+        // A malformed id, or one from the future (issued before a clock change), cannot be resumed
+        subscriber.resyncPending = !known;
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        try {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("resumeFrom", start);
+            data.put("oldestAvailable", ring.oldestSeq());
+            emitter.send(SseEmitter.event().name(SUBSCRIBED).data(data));
+            subscriber.lastSendMillis = System.currentTimeMillis();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscribers.put(subscriber.id, subscriber);
+        LockSupport.unpark(dispatcher);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ring position, subscriber and delivery counters.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lastSeq", ring.lastSeq());
+        stats.put("oldestSeq", ring.oldestSeq());
+        stats.put("capacity", ring.capacity());
+        stats.put("subscribers", subscribers.size());
+        stats.put("maxSubscribers", maxSubscribers);
+        long maxLag = 0;
+        long head = ring.lastSeq();
+        for (Subscriber subscriber : subscribers.values()) {
+            maxLag = Math.max(maxLag, head - subscriber.cursor + 1);
+        }
+        stats.put("maxSubscriberLag", maxLag);
+        stats.put("delivered", delivered.get());
+        stats.put("resyncs", resyncs.get());
+        stats.put("disconnects", disconnects.get());
+        return stats;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            // Woken by publish; the timeout drives keep-alives
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+            long head = ring.lastSeq();
+            long now = System.currentTimeMillis();
+            for (Subscriber subscriber : subscribers.values()) {
+                boolean behind = subscriber.cursor <= head || subscriber.resyncPending;
+                boolean idle = now - subscriber.lastSendMillis >= heartbeatMillis;
+                if ((behind || idle) && subscriber.sending.compareAndSet(false, true)) {
+                    try {
+                        senders.execute(() -> drain(subscriber));
+                    } catch (RejectedExecutionException e) {
+                        subscriber.sending.set(false);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Send a subscriber's pending events; runs on one sender at a time per subscriber.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            int sent = 0;
+            while (subscribers.containsKey(subscriber.id)) {
+                long seq = subscriber.cursor;
+                StateEvent event = subscriber.resyncPending ? null : ring.get(seq);
+                if (event == null) {
+                    if (subscriber.resyncPending || ring.isOverwritten(seq)) {
+                        resync(subscriber, seq);
+                        sent++;
+                        continue;
+                    }
+                    // Not published yet; the publisher wakes the dispatcher once it is
+                    break;
+                }
+                subscriber.cursor = seq + 1;
+                if (subscriber.filter.matches(event)) {
+                    subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.seq()))
+                        .name(event.type())
+                        .data(event));
+                    delivered.incrementAndGet();
+                    sent++;
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (sent > 0) {
+                subscriber.lastSendMillis = now;
+            } else if (now - subscriber.lastSendMillis >= heartbeatMillis) {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                subscriber.lastSendMillis = now;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            log.debug("Event subscriber {} disconnected: {}", subscriber.id, e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+        if (subscribers.containsKey(subscriber.id) && subscriber.cursor <= ring.lastSeq()) {
+            // Events may have arrived after the last check
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    private void resync(Subscriber subscriber, long missedFrom) throws IOException {
+        long resumeFrom = Math.max(ring.oldestSeq(), subscriber.resyncPending ? ring.lastSeq() + 1 : missedFrom);
+        subscriber.resyncPending = false;
+        subscriber.cursor = resumeFrom;
+        resyncs.incrementAndGet();
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("missedFrom", missedFrom);
+        data.put("resumeFrom", resumeFrom);
+        // Carries an id so a reconnect resumes after the resync instead of repeating it
+        subscriber.emitter.send(SseEmitter.event()
+            .id(String.valueOf(resumeFrom - 1))
+            .name(RESYNC)
+            .data(data));
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber.id) != null) {
+            disconnects.incrementAndGet();
+        }
+    }
+
+    private static final class Subscriber {
+        private final long id;
+        private final SseEmitter emitter;
+        private final StateEvent.Filter filter;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean resyncPending;
+        private volatile long lastSendMillis;
+
+        Subscriber(long id, SseEmitter emitter, StateEvent.Filter filter, long cursor) {
+            this.id = id;
+            this.emitter = emitter;
+            this.filter = filter;
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.aema2ui.service.event;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A state change pushed to event stream subscribers.
+ *
+ * @param seq       Position in the stream; sent as the SSE id for resuming
+ * @param type      Event name, e.g. WORKFLOW_ADVANCED or REVIEW_APPROVED
+ * @param source    What changed: workflow, review or aem-inbox
+ * @param entityId  Id of the workflow, review or inbox item
+ * @param contentId Content the entity belongs to, if any
+ * @param assignees Users the entity is currently assigned to; only review
+ *                  events carry them (the reviewers)
+ * @param data      Summary of the entity's new state
+ */
+public record StateEvent(long seq, String type, String source, String entityId, String contentId,
+                         Set<String> assignees, Instant timestamp, Map<String, Object> data) {
+
+    public static final String SOURCE_WORKFLOW = "workflow";
+    public static final String SOURCE_REVIEW = "review";
+    public static final String SOURCE_AEM_INBOX = "aem-inbox";
+
+    /**
+     * Which events a subscriber receives; null fields match anything. The
+     * assignee applies to review events only: workflow and inbox events have
+     * no assignee to match, so they pass it.
+     */
+    public record Filter(String source, String entityId, String contentId, String assignee) {
+
+        public boolean matches(StateEvent event) {
+            return (source == null || source.equals(event.source()))
+                && (entityId == null || entityId.equals(event.entityId()))
+                && (contentId == null || contentId.equals(event.contentId()))
+                && (assignee == null || !SOURCE_REVIEW.equals(event.source())
+                    || event.assignees().contains(assignee));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.aema2ui.service.intent;
+
+/**
+ * Keyword tables for page type, component type and demo detection, compiled
+ * once into a shared IntentMatcher so every input is classified in one pass.
+ *
+ * Groups are listed in priority order. Page types match whole words only;
+ * component types and demos match anywhere in the input.
+ */
+public final class IntentClassifier {
+
+    public static final String PAGE_TYPE = "pageType";
+    public static final String COMPONENT_TYPE = "componentType";
+    public static final String DEMO = "demo";
+
+    public static final String DEFAULT_PAGE_TYPE = "general";
+    public static final String DEFAULT_COMPONENT_TYPE = "general";
+    public static final String DEFAULT_DEMO = "ai";
+
+    private static final IntentMatcher MATCHER = IntentMatcher.builder()
+        // Page types
+        .words(PAGE_TYPE, "landing", "landing", "campaign", "promotion", "launch", "sale", "offer", "discount")
+        .words(PAGE_TYPE, "product", "product", "buy", "purchase", "pricing", "features", "specs", "compare")
+        .words(PAGE_TYPE, "blog", "blog", "article", "story", "news", "post", "content", "read")
+        .words(PAGE_TYPE, "about", "about", "team", "company", "story", "mission", "values", "history")
+        .words(PAGE_TYPE, "contact", "contact", "support", "help", "faq", "question")
+        // Component types
+        .substrings(COMPONENT_TYPE, "hero", "hero")
+        .substrings(COMPONENT_TYPE, "product", "product")
+        .substrings(COMPONENT_TYPE, "teaser", "teaser")
+        .substrings(COMPONENT_TYPE, "banner", "banner")
+        // Demos
+        .substrings(DEMO, "list", "list", "asset", "dam", "browse")
+        .substrings(DEMO, "wizard", "wizard", "step", "create")
+        .substrings(DEMO, "tabs", "tab", "properties", "config")
+        .substrings(DEMO, "collab", "collab", "comment", "team")
+        .build();
+
+    /**
+     * Classification of one input across all categories.
+     */
+    public record Intent(String pageType, String componentType, String demo) {}
+
+    private IntentClassifier() {
+    }
+
+    public static Intent classify(String input) {
+        long matched = MATCHER.scan(input);
+        return new Intent(
+            orDefault(MATCHER.classify(matched, PAGE_TYPE), DEFAULT_PAGE_TYPE),
+            orDefault(MATCHER.classify(matched, COMPONENT_TYPE), DEFAULT_COMPONENT_TYPE),
+            orDefault(MATCHER.classify(matched, DEMO), DEFAULT_DEMO));
+    }
+
+    public static String pageType(String input) {
+        return orDefault(MATCHER.classify(input, PAGE_TYPE), DEFAULT_PAGE_TYPE);
+    }
+
+    public static String componentType(String input) {
+        return orDefault(MATCHER.classify(input, COMPONENT_TYPE), DEFAULT_COMPONENT_TYPE);
+    }
+
+    public static String demo(String input) {
+        return orDefault(MATCHER.classify(input, DEMO), DEFAULT_DEMO);
+    }
+
+    private static String orDefault(String group, String fallback) {
+        return group != null ? group : fallback;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.aema2ui.service.intent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Precompiled multi-keyword matcher (Aho-Corasick automaton).
+ *
+ * Keywords are grouped into categories (e.g. page type) and groups within a
+ * category (e.g. "landing"). One scan over the input reports every matched
+ * group of every category as a bit mask; the first group added to a category
+ * wins when several match, mirroring an if/else chain.
+ *
+ * Matching is ASCII case-insensitive, like Pattern.CASE_INSENSITIVE. Whole-word
+ * keywords only match between word boundaries (as regex \b), substring keywords
+ * match anywhere (as String.contains on the lowercased input). The scan does
+ * not allocate, and the matcher is immutable and thread-safe.
+ */
+public final class IntentMatcher {
+
+    private static final int MAX_GROUPS = Long.SIZE;
+
+    /** ASCII char -> symbol; 0 for chars no keyword contains */
+    private final byte[] alphabet;
+    private final int width;
+    /** Full transition table: next[state * width + symbol] */
+    private final int[] next;
+    private final int[] depth;
+    /** Substring groups ending at a state, including those of its suffix states */
+    private final long[] anyOutput;
+    /** Whole-word groups of the keyword ending exactly at a state */
+    private final long[] wordOutput;
+    /** Nearest suffix state with whole-word output, or 0 */
+    private final int[] wordLink;
+
+    private final String[] groupNames;
+    private final Map<String, Long> categoryMasks;
+
+    private IntentMatcher(Builder builder) {
+        this.groupNames = builder.groupNames.toArray(String[]::new);
+        this.categoryMasks = Map.copyOf(builder.categoryMasks);
+
+        // Alphabet: symbol per distinct keyword char, both cases mapped together
+        this.alphabet = new byte[128];
+        int symbols = 1;
+        for (Keyword keyword : builder.keywords) {
+            for (char c : keyword.text().toCharArray()) {
+                if (alphabet[c] == 0) {
+                    if (symbols > Byte.MAX_VALUE) {
+                        throw new IllegalArgumentException("Too many distinct keyword characters");
+                    }
+                    alphabet[c] = (byte) symbols;
+                    alphabet[Character.toUpperCase(c)] = (byte) symbols;
+                    symbols++;
+                }
+            }
+        }
+        this.width = symbols;
+
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<long[]> outputs = new ArrayList<>();
+        gotos.add(new int[width]);
+        depths.add(0);
+        outputs.add(new long[2]);
+        for (Keyword keyword : builder.keywords) {
+            int state = 0;
+            for (char c : keyword.text().toCharArray()) {
+                int symbol = alphabet[c];
+                if (gotos.get(state)[symbol] == 0) {
+                    gotos.get(state)[symbol] = gotos.size();
+                    gotos.add(new int[width]);
+                    depths.add(depths.get(state) + 1);
+                    outputs.add(new long[2]);
+                }
+                state = gotos.get(state)[symbol];
+            }
+            outputs.get(state)[keyword.wholeWord() ? 1 : 0] |= keyword.groupBit();
+        }
+
+        int states = gotos.size();
+        this.next = new int[states * width];
+        this.depth = new int[states];
+        this.anyOutput = new long[states];
+        this.wordOutput = new long[states];
+        this.wordLink = new int[states];
+        for (int s = 0; s < states; s++) {
+            depth[s] = depths.get(s);
+            anyOutput[s] = outputs.get(s)[0];
+            wordOutput[s] = outputs.get(s)[1];
+        }
+
+        // Failure links in breadth-first order, folded into a full transition table
+        int[] fail = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 1; symbol < width; symbol++) {
+            int child = gotos.get(0)[symbol];
+            next[symbol] = child;
+            if (child != 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            anyOutput[state] |= anyOutput[fail[state]];
+            wordLink[state] = wordOutput[fail[state]] != 0 ? fail[state] : wordLink[fail[state]];
+            for (int symbol = 1; symbol < width; symbol++) {
+                int child = gotos.get(state)[symbol];
+                if (child != 0) {
+                    fail[child] = next[fail[state] * width + symbol];
+                    next[state * width + symbol] = child;
+                    queue.add(child);
+                } else {
+                    next[state * width + symbol] = next[fail[state] * width + symbol];
+                }
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Scan the input once and return the bit mask of all matched groups.
+     */
+    public long scan(CharSequence input) {
+        if (input == null) {
+            return 0L;
+        }
+        long matched = 0L;
+        int state = 0;
+        int length = input.length();
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            state = next[state * width + (c < 128 ? alphabet[c] : 0)];
+            matched |= anyOutput[state];
+            for (int s = wordOutput[state] != 0 ? state : wordLink[state]; s != 0; s = wordLink[s]) {
+                if (isWordBoundary(input, i - depth[s] + 1, i)) {
+                    matched |= wordOutput[s];
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * First matched group of a category, or null when none matched.
+     */
+    public String classify(long matched, String category) {
+        Long mask = categoryMasks.get(category);
+        if (mask == null) {
+            throw new IllegalArgumentException("Unknown intent category: " + category);
+        }
+        long hits = matched & mask;
+        return hits == 0 ? null : groupNames[Long.numberOfTrailingZeros(hits)];
+    }
+
+    public String classify(CharSequence input, String category) {
+        return classify(scan(input), category);
+    }
+
+    private static boolean isWordBoundary(CharSequence input, int start, int end) {
+        return (start == 0 || !isWordChar(input.charAt(start - 1)))
+            && (end == input.length() - 1 || !isWordChar(input.charAt(end + 1)));
+    }
+
+    /** Same word characters as java.util.regex \b without UNICODE_CHARACTER_CLASS */
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private record Keyword(String text, long groupBit, boolean wholeWord) {}
+
+    public static final class Builder {
+
+        private final List<Keyword> keywords = new ArrayList<>();
+        private final List<String> groupNames = new ArrayList<>();
+        private final Map<String, Long> categoryMasks = new LinkedHashMap<>();
+        private final Map<String, Long> groupBits = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Keywords that must appear as whole words.
+         */
+        public Builder words(String category, String group, String... keywords) {
+            return add(category, group, true, keywords);
+        }
+
+        /**
+         * Keywords that may appear anywhere, including inside longer words.
+         */
+        public Builder substrings(String category, String group, String... keywords) {
+            return add(category, group, false, keywords);
+        }
+
+        public IntentMatcher build() {
+            return new IntentMatcher(this);
+        }
+
+        private Builder add(String category, String group, boolean wholeWord, String... words) {
+            Long bit = groupBits.get(category + '\0' + group);
+            if (bit == null) {
+                if (groupNames.size() >= MAX_GROUPS) {
+                    throw new IllegalStateException("IntentMatcher supports at most " + MAX_GROUPS + " groups");
+                }
+                bit = 1L << groupNames.size();
+                groupNames.add(group);
+                groupBits.put(category + '\0' + group, bit);
+                categoryMasks.merge(category, bit, (a, b) -> a | b);
+            }
+            for (String word : words) {
+                if (word.isEmpty() || !word.chars().allMatch(c -> c < 128)) {
+                    throw new IllegalArgumentException("Keywords must be non-empty ASCII: '" + word + "'");
+                }
+                keywords.add(new Keyword(word.toLowerCase(Locale.ROOT), bit, wholeWord));
+            }
+            return this;
+        }
+    }
+}
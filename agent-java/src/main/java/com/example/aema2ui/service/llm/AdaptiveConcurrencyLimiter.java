@@ -0,0 +1,292 @@
+package com.example.aema2ui.service.llm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive admission control for one LLM provider.
+ *
+ * At most {@code limit} calls run at once. Further callers wait in a bounded
+ * FIFO queue until a slot frees up or their deadline passes; when the queue
+ * is full they are rejected immediately, so callers can degrade (e.g. to
+ * templates) instead of piling up behind a slow provider.
+ *
+ * The limit follows AIMD: it grows by 1/limit for every call that completes
+ * within latencyTolerance x the observed minimum latency, and shrinks by
+ * backoffRatio when latency rises above that or the provider reports overload.
+ * The minimum latency is re-measured every window so it tracks drift.
+ *
+ * Samples must not grow with the length of the answer, or long generations
+ * read as overload: streams report time to first token, whole responses
+ * report time per output token. Each {@link Signal} keeps its own minimum,
+ * since the two are not comparable.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_LATENCY_WINDOW = 100;
+
+    /**
+     * What a latency sample measures.
+     */
+    public enum Signal {
+        /** Time from admission to the first streamed token */
+        FIRST_TOKEN,
+        /** Duration of a whole response divided by its output tokens */
+        PER_TOKEN
+    }
+
+    /**
+     * Minimum latency of one signal; guarded by the limiter's lock.
+     */
+    private static final class Baseline {
+        long minLatencyNanos = Long.MAX_VALUE;
+        long windowMinLatencyNanos = Long.MAX_VALUE;
+        int windowSamples;
+        long lastLatencyNanos;
+    }
+
+    private final String name;
+    private final Settings settings;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotFreed = lock.newCondition();
+
+    // Guarded by lock
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private int peakWaiting;
+    private final Map<Signal, Baseline> baselines = new EnumMap<>(Signal.class);
+    private long admitted;
+    private long rejectedQueueFull;
+    private long rejectedTimeout;
+    private long increases;
+    private long decreases;
+
+    /**
+     * Limiter settings for one provider.
+     *
+     * @param maxWait Deadline for a queued caller before it is rejected
+     */
+    public record Settings(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait,
+                           double latencyTolerance, double backoffRatio) {}
+
+    public AdaptiveConcurrencyLimiter(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.limit = Math.max(settings.minLimit(), Math.min(settings.initialLimit(), settings.maxLimit()));
+        for (Signal signal : Signal.values()) {
+            baselines.put(signal, new Baseline());
+        }
+
+        log.info("LLM admission for '{}': limit={} (min {}, max {}), queue={}, maxWait={}ms",
+                name, (int) limit, settings.minLimit(), settings.maxLimit(),
+                settings.maxQueue(), settings.maxWait().toMillis());
+    }
+
+    /**
+     * Wait for admission. The returned permit must be completed exactly once.
+     *
+     * @throws AdmissionRejectedException when the queue is full or the deadline passes
+     */
+    public Permit acquire() {
+        lock.lock();
+        try {
+            // Fast path only when nobody is queued, so waiters keep FIFO order
+            if (waiting == 0 && inFlight < currentLimit()) {
+                return admit();
+            }
+            if (waiting >= settings.maxQueue()) {
+                rejectedQueueFull++;
+                throw new AdmissionRejectedException(name + " LLM is saturated ("
+                        + inFlight + " in flight, " + waiting + " queued)");
+            }
+
+            waiting++;
+            peakWaiting = Math.max(peakWaiting, waiting);
+            try {
+                long remaining = settings.maxWait().toNanos();
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        rejectedTimeout++;
+                        throw new AdmissionRejectedException(name + " LLM admission timed out after "
+                                + settings.maxWait().toMillis() + "ms");
+                    }
+                    remaining = slotFreed.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            return admit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException(name + " LLM admission interrupted");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admission statistics.
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("provider", name);
+            stats.put("limit", currentLimit());
+            stats.put("minLimit", settings.minLimit());
+            stats.put("maxLimit", settings.maxLimit());
+            stats.put("inFlight", inFlight);
+            stats.put("queueDepth", waiting);
+            stats.put("peakQueueDepth", peakWaiting);
+            stats.put("maxQueue", settings.maxQueue());
+            stats.put("admitted", admitted);
+            stats.put("rejectedQueueFull", rejectedQueueFull);
+            stats.put("rejectedTimeout", rejectedTimeout);
+            stats.put("limitIncreases", increases);
+            stats.put("limitDecreases", decreases);
+            Baseline firstToken = baselines.get(Signal.FIRST_TOKEN);
+            stats.put("minFirstTokenMillis", firstToken.minLatencyNanos == Long.MAX_VALUE
+                    ? null : TimeUnit.NANOSECONDS.toMillis(firstToken.minLatencyNanos));
+            stats.put("lastFirstTokenMillis", TimeUnit.NANOSECONDS.toMillis(firstToken.lastLatencyNanos));
+            Baseline perToken = baselines.get(Signal.PER_TOKEN);
+            stats.put("minPerTokenMicros", perToken.minLatencyNanos == Long.MAX_VALUE
+                    ? null : TimeUnit.NANOSECONDS.toMicros(perToken.minLatencyNanos));
+            stats.put("lastPerTokenMicros", TimeUnit.NANOSECONDS.toMicros(perToken.lastLatencyNanos));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private Permit admit() {
+        inFlight++;
+        admitted++;
+        return new Permit(System.nanoTime());
+    }
+
+    private void complete(Signal signal, Long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= currentLimit();
+            inFlight--;
+
+            if (overloaded) {
+                decrease();
+            } else if (latencyNanos != null) {
+                sample(baselines.get(signal), latencyNanos, saturated);
+            }
+
+            for (int free = currentLimit() - inFlight; free > 0; free--) {
+                slotFreed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sample(Baseline baseline, long latencyNanos, boolean saturated) {
+        baseline.lastLatencyNanos = latencyNanos;
+        baseline.minLatencyNanos = Math.min(baseline.minLatencyNanos, latencyNanos);
+        baseline.windowMinLatencyNanos = Math.min(baseline.windowMinLatencyNanos, latencyNanos);
+        if (++baseline.windowSamples >= MIN_LATENCY_WINDOW) {
+            baseline.minLatencyNanos = baseline.windowMinLatencyNanos;
+            baseline.windowMinLatencyNanos = Long.MAX_VALUE;
+            baseline.windowSamples = 0;
+        }
+
+        if (latencyNanos > baseline.minLatencyNanos * settings.latencyTolerance()) {
+            decrease();
+        } else if (saturated && limit < settings.maxLimit()) {
+            // Only probe upwards while the current limit is actually in use
+            limit = Math.min(settings.maxLimit(), limit + 1.0 / limit);
+            increases++;
+        }
+    }
+
+    private void decrease() {
+        double reduced = Math.max(settings.minLimit(), limit * settings.backoffRatio());
+        if (reduced < limit) {
+            limit = reduced;
+            decreases++;
+        }
+    }
+
+    /**
+     * An admitted call. Complete it with success, overloaded or ignored.
+     */
+    public class Permit {
+
+        private final long startNanos;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * A stream succeeded; its time to first token feeds the limit.
+         */
+        public void success(long firstTokenNanos) {
+            success(Signal.FIRST_TOKEN, firstTokenNanos);
+        }
+
+        /**
+         * A whole response of outputTokens succeeded; its time per token feeds the limit.
+         */
+        public void success(long durationNanos, int outputTokens) {
+            success(Signal.PER_TOKEN, durationNanos / Math.max(1, outputTokens));
+        }
+
+        private void success(Signal signal, long latencyNanos) {
+            if (completed.compareAndSet(false, true)) {
+                complete(signal, latencyNanos, false);
+            }
+        }
+
+        /**
+         * The provider signalled overload (429, 5xx, timeout): back off.
+         */
+        public void overloaded() {
+            if (completed.compareAndSet(false, true)) {
+                complete(null, null, true);
+            }
+        }
+
+        /**
+         * Release without a latency sample (cancelled or unrelated failure).
+         */
+        public void ignored() {
+            if (completed.compareAndSet(false, true)) {
+                complete(null, null, false);
+            }
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+    }
+
+    /**
+     * Thrown when a call is shed instead of admitted.
+     */
+    public static class AdmissionRejectedException extends RuntimeException {
+        public AdmissionRejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.aema2ui.service.llm;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Incremental parser for a streamed top-level JSON object.
+ *
+ * LLM tokens are fed in as they arrive and every string-valued top-level
+ * property is reported as it is written: start when its opening quote is
+ * seen, a delta with the characters decoded from each chunk, and end with
+ * the complete value. Non-string and nested values are skipped.
+ *
+ * Text before the first '{' (e.g. a markdown fence) is ignored. The parser
+ * is lenient and never throws; malformed input simply stops producing events.
+ * Not thread-safe: feed from one thread.
+ */
+public class IncrementalJsonFieldParser {
+
+    /**
+     * Receives field events.
+     */
+    public interface Listener {
+        void onFieldStart(String field);
+
+        void onFieldDelta(String field, String delta);
+
+        void onFieldEnd(String field, String value);
+    }
+
+    private enum State {
+        BEFORE_OBJECT, EXPECT_KEY, IN_KEY, EXPECT_COLON, EXPECT_VALUE,
+        IN_STRING_VALUE, IN_OTHER_VALUE, IN_NESTED, EXPECT_SEPARATOR, DONE
+    }
+
+    private final Listener listener;
+
+    private State state = State.BEFORE_OBJECT;
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+    private final StringBuilder pendingDelta = new StringBuilder();
+    private String currentField;
+
+    // String escape handling (shared by keys, values and nested strings)
+    private boolean escaped;
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+
+    // Nested object/array skipping
+    private int nestedDepth;
+    private boolean nestedInString;
+
+    private final Set<String> completedFields = new LinkedHashSet<>();
+
+    public IncrementalJsonFieldParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Feed the next chunk of streamed text.
+     */
+    public void feed(String chunk) {
+        if (chunk == null || chunk.isEmpty()) return;
+
+        for (int i = 0; i < chunk.length() && state != State.DONE; i++) {
+            process(chunk.charAt(i));
+        }
+        flushDelta();
+    }
+
+    /**
+     * True once the closing brace of the top-level object has been read.
+     */
+    public boolean isComplete() {
+        return state == State.DONE;
+    }
+
+    /**
+     * Names of string fields whose value has been fully read, in order.
+     */
+    public Set<String> getCompletedFields() {
+        return Collections.unmodifiableSet(completedFields);
+    }
+
+    private void process(char c) {
+        switch (state) {
+            case BEFORE_OBJECT -> {
+                if (c == '{') state = State.EXPECT_KEY;
+            }
+            case EXPECT_KEY -> {
+                if (c == '"') {
+                    key.setLength(0);
+                    state = State.IN_KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                }
+            }
+            case IN_KEY -> {
+                int decoded = decodeStringChar(c);
+                if (decoded == END_OF_STRING) {
+                    state = State.EXPECT_COLON;
+                } else if (decoded >= 0) {
+                    key.append((char) decoded);
+                }
+            }
+            case EXPECT_COLON -> {
+                if (c == ':') state = State.EXPECT_VALUE;
+            }
+            case EXPECT_VALUE -> startValue(c);
+            case IN_STRING_VALUE -> {
+                int decoded = decodeStringChar(c);
+                if (decoded == END_OF_STRING) {
+                    flushDelta();
+                    String field = currentField;
+                    currentField = null;
+                    completedFields.add(field);
+                    listener.onFieldEnd(field, value.toString());
+                    state = State.EXPECT_SEPARATOR;
+                } else if (decoded >= 0) {
+                    value.append((char) decoded);
+                    pendingDelta.append((char) decoded);
+                }
+            }
+            case IN_OTHER_VALUE -> {
+                if (c == ',') {
+                    state = State.EXPECT_KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                }
+            }
+            case IN_NESTED -> skipNested(c);
+            case EXPECT_SEPARATOR -> {
+                if (c == ',') {
+                    state = State.EXPECT_KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                }
+            }
+            case DONE -> {
+                // Ignore trailing text (closing fence etc.)
+            }
+        }
+    }
+
+    private void startValue(char c) {
+        if (Character.isWhitespace(c)) return;
+
+        if (c == '"') {
+            currentField = key.toString();
+            value.setLength(0);
+            pendingDelta.setLength(0);
+            state = State.IN_STRING_VALUE;
+            listener.onFieldStart(currentField);
+        } else if (c == '{' || c == '[') {
+            nestedDepth = 1;
+            nestedInString = false;
+            state = State.IN_NESTED;
+        } else {
+            // number, true, false, null
+            state = State.IN_OTHER_VALUE;
+        }
+    }
+
+    private void skipNested(char c) {
+        if (nestedInString) {
+            if (decodeStringChar(c) == END_OF_STRING) {
+                nestedInString = false;
+            }
+            return;
+        }
+        switch (c) {
+            case '"' -> nestedInString = true;
+            case '{', '[' -> nestedDepth++;
+            case '}', ']' -> {
+                if (--nestedDepth == 0) state = State.EXPECT_SEPARATOR;
+            }
+            default -> {
+                // scalar inside nested value
+            }
+        }
+    }
+
+    private static final int END_OF_STRING = -2;
+    private static final int NO_CHAR = -1;
+
+    /**
+     * Decode one character inside a JSON string.
+     *
+     * @return the decoded char, NO_CHAR while an escape is incomplete,
+     *         or END_OF_STRING for the closing quote
+     */
+    private int decodeStringChar(char c) {
+        if (unicodeDigits >= 0) {
+            int digit = Character.digit(c, 16);
+            unicodeValue = (unicodeValue << 4) | Math.max(digit, 0);
+            if (++unicodeDigits == 4) {
+                unicodeDigits = -1;
+                return unicodeValue;
+            }
+            return NO_CHAR;
+        }
+        if (escaped) {
+            escaped = false;
+            return switch (c) {
+                case 'n' -> '\n';
+                case 't' -> '\t';
+                case 'r' -> '\r';
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'u' -> {
+                    unicodeDigits = 0;
+                    unicodeValue = 0;
+                    yield NO_CHAR;
+                }
+                default -> c; // \" \\ \/
+            };
+        }
+        if (c == '\\') {
+            escaped = true;
+            return NO_CHAR;
+        }
+        if (c == '"') {
+            return END_OF_STRING;
+        }
+        return c;
+    }
+
+    /**
+     * Emit characters decoded since the last flush as one delta.
+     * A trailing high surrogate is held back until its pair arrives.
+     */
+    private void flushDelta() {
+        if (currentField == null || pendingDelta.isEmpty()) return;
+
+        int length = pendingDelta.length();
+        if (Character.isHighSurrogate(pendingDelta.charAt(length - 1)) && state == State.IN_STRING_VALUE) {
+            length--;
+            if (length == 0) return;
+        }
+
+        listener.onFieldDelta(currentField, pendingDelta.substring(0, length));
+        pendingDelta.delete(0, length);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.aema2ui.service.llm;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLM transport backed by a pooled JDK HttpClient.
+ *
+ * - Connections are kept alive and reused across requests (no TLS handshake per call)
+ * - HTTP/2 is negotiated via ALPN when enabled, so calls multiplex over one connection
+ * - Concurrent requests are capped at maxConnections; callers wait up to the connect timeout
+ * - Idle connections are evicted by the JDK pool after jdk.httpclient.keepalive.timeout
+ *   (JVM-wide, so it is left to the command line)
+ * - The request timeout only covers the wait for response headers; a streamed body
+ *   that goes quiet for longer than the read timeout is closed by a watchdog, and
+ *   the reader gets a SocketTimeoutException instead of holding its slot forever
+ */
+@Slf4j
+public class JdkHttpLlmTransport implements LlmTransport {
+
+    private final String name;
+    private final Settings settings;
+    private final HttpClient httpClient;
+    private final Semaphore permits;
+    private final ScheduledExecutorService watchdog;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong stalledStreams = new AtomicLong();
+
+    /**
+     * Transport settings for one provider.
+     */
+    public record Settings(int maxConnections, boolean http2, Duration connectTimeout, Duration readTimeout) {}
+
+    public JdkHttpLlmTransport(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.permits = new Semaphore(Math.max(1, settings.maxConnections()), true);
+        this.httpClient = HttpClient.newBuilder()
+                .version(settings.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("llm-stream-watchdog-" + name).daemon().factory());
+
+        log.info("LLM transport '{}' created: http2={}, maxConnections={}, connectTimeout={}ms, readTimeout={}ms",
+                name, settings.http2(), settings.maxConnections(),
+                settings.connectTimeout().toMillis(), settings.readTimeout().toMillis());
+    }
+
+    @Override
+    public String postJson(String uri, Map<String, String> headers, String jsonBody) {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(
+                    buildRequest(uri, headers, jsonBody),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+
+            if (response.statusCode() >= 400) {
+                throw new LlmTransportException(
+                        name + " returned HTTP " + response.statusCode() + ": " + truncate(response.body()),
+                        response.statusCode(), null);
+            }
+            return response.body();
+        } catch (LlmTransportException e) {
+            failures.incrementAndGet();
+            throw e;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            throw new LlmTransportException(name + " request failed: " + e.getMessage(), -1, e);
+        } catch (InterruptedException e) {
+            failures.incrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new LlmTransportException(name + " request interrupted", -1, e);
+        } finally {
+            release(start);
+        }
+    }
+
+    @Override
+    public InputStream postJsonForStream(String uri, Map<String, String> headers, String jsonBody) {
+        acquire();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(
+                    buildRequest(uri, headers, jsonBody),
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            if (response.statusCode() >= 400) {
+                String body;
+                try (InputStream errorStream = response.body()) {
+                    body = new String(errorStream.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                throw new LlmTransportException(
+                        name + " returned HTTP " + response.statusCode() + ": " + truncate(body),
+                        response.statusCode(), null);
+            }
+
+            // Connection is held until the caller closes the stream
+            return new PermitReleasingInputStream(response.body(), start);
+        } catch (LlmTransportException e) {
+            failures.incrementAndGet();
+            release(start);
+            throw e;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            release(start);
+            throw new LlmTransportException(name + " stream request failed: " + e.getMessage(), -1, e);
+        } catch (InterruptedException e) {
+            failures.incrementAndGet();
+            release(start);
+            Thread.currentThread().interrupt();
+            throw new LlmTransportException(name + " stream request interrupted", -1, e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long total = requests.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("provider", name);
+        stats.put("httpVersion", settings.http2() ? "HTTP/2" : "HTTP/1.1");
+        stats.put("maxConnections", settings.maxConnections());
+        stats.put("inFlight", inFlight.get());
+        stats.put("peakInFlight", peakInFlight.get());
+        stats.put("available", permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("requests", total);
+        stats.put("failures", failures.get());
+        stats.put("rejected", rejected.get());
+        stats.put("stalledStreams", stalledStreams.get());
+        stats.put("avgLatencyMillis", total > 0 ? totalLatencyMillis.get() / total : 0);
+        return stats;
+    }
+
+    private HttpRequest buildRequest(String uri, Map<String, String> headers, String jsonBody) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(settings.readTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(jsonBody, StandardCharsets.UTF_8));
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+    /**
+     * Wait for a free connection slot, bounded by the connect timeout.
+     */
+    private void acquire() {
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(settings.connectTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new LlmTransportException(name + " connection pool exhausted ("
+                        + settings.maxConnections() + " in use)", -1, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmTransportException(name + " interrupted while waiting for connection", -1, e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+
+        requests.incrementAndGet();
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+    }
+
+    private void release(long startNanos) {
+        totalLatencyMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        inFlight.decrementAndGet();
+        permits.release();
+    }
+
+    private String truncate(String body) {
+        if (body == null) return "";
+        return body.length() > 200 ? body.substring(0, 200) + "..." : body;
+    }
+
+    /**
+     * Returns the connection slot when the streaming body is closed, and
+     * closes it when no data arrives for the read timeout.
+     */
+    private class PermitReleasingInputStream extends FilterInputStream {
+
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private final ScheduledFuture<?> idleCheck;
+        private volatile long lastReadNanos = System.nanoTime();
+        private volatile boolean stalled;
+
+        PermitReleasingInputStream(InputStream in, long startNanos) {
+            super(in);
+            this.startNanos = startNanos;
+            long period = Math.max(100, settings.readTimeout().toMillis() / 4);
+            this.idleCheck = watchdog.scheduleWithFixedDelay(this::closeIfIdle, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkStalled();
+            try {
+                int b = super.read();
+                lastReadNanos = System.nanoTime();
+                checkStalled();
+                return b;
+            } catch (IOException e) {
+                checkStalled();
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkStalled();
+            try {
+                int n = super.read(b, off, len);
+                lastReadNanos = System.nanoTime();
+                checkStalled();
+                return n;
+            } catch (IOException e) {
+                checkStalled();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            idleCheck.cancel(false);
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    release(startNanos);
+                }
+            }
+        }
+
+        /**
+         * Closing the body wakes a reader blocked on it; it then sees the timeout.
+         */
+        private void closeIfIdle() {
+            long idleNanos = System.nanoTime() - lastReadNanos;
+            if (idleNanos < settings.readTimeout().toNanos() || stalled) {
+                return;
+            }
+            stalled = true;
+            stalledStreams.incrementAndGet();
+            failures.incrementAndGet();
+            log.warn("LLM stream from {} idle for {}ms, closing", name, TimeUnit.NANOSECONDS.toMillis(idleNanos));
+            try {
+                close();
+            } catch (IOException e) {
+                log.debug("Closing stalled {} stream failed: {}", name, e.getMessage());
+            }
+        }
+
+        private void checkStalled() throws SocketTimeoutException {
+            if (stalled) {
+                throw new SocketTimeoutException(name + " stream idle for more than "
+                        + settings.readTimeout().toMillis() + "ms");
+            }
+        }
+    }
+}
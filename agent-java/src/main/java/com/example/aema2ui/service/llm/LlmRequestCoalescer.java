@@ -0,0 +1,337 @@
+package com.example.aema2ui.service.llm;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight coalescing for LLM calls.
+ *
+ * Concurrent callers with the same key share one upstream call: the first
+ * caller (the leader) runs it and every other caller waits for its result.
+ *
+ * Streaming callers join the leader's token stream. A late joiner first
+ * receives the tokens already produced, then live tokens in order. The
+ * upstream stream is only cancelled once every subscriber has cancelled.
+ * The upstream read thread only appends tokens; each subscriber is fed by its
+ * own delivery thread, so a slow client cannot hold up the others.
+ */
+@Slf4j
+@Component
+public class LlmRequestCoalescer {
+
+    private final Map<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final Map<String, SharedStream> streams = new ConcurrentHashMap<>();
+    private final ExecutorService deliveries = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong streamLeaders = new AtomicLong();
+    private final AtomicLong streamJoins = new AtomicLong();
+
+    private static final long CANCEL_POLL_MILLIS = 250;
+
+    /**
+     * A streaming upstream call.
+     */
+    @FunctionalInterface
+    public interface StreamingCall {
+        /**
+         * @param publish   Receives each token as it is produced
+         * @param cancelled True once no subscriber wants more tokens; the call should stop reading
+         */
+        void run(Consumer<String> publish, BooleanSupplier cancelled);
+    }
+
+    /**
+     * Run the call once per key across concurrent callers.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> call) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = calls.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            log.debug("Joining in-flight LLM call: {}", key);
+            return (T) await(existing);
+        }
+
+        leaders.incrementAndGet();
+        try {
+            T result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, mine);
+        }
+    }
+
+    /**
+     * Stream tokens once per key across concurrent callers.
+     * Blocks until this caller has been given every token and onComplete has run,
+     * or this caller cancels, like a direct streaming call.
+     *
+     * @param cancelled True once this caller no longer wants tokens
+     * @param upstream  Runs the real streaming call
+     */
+    public void stream(String key, Consumer<String> onToken, Runnable onComplete,
+                       BooleanSupplier cancelled, StreamingCall upstream) {
+        SharedStream mine = new SharedStream();
+        SharedStream existing = streams.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            streamJoins.incrementAndGet();
+            log.debug("Joining in-flight LLM stream: {}", key);
+            awaitDelivery(existing.subscribe(onToken, onComplete, cancelled, deliveries), cancelled);
+            return;
+        }
+
+        streamLeaders.incrementAndGet();
+        CompletableFuture<Void> delivered = mine.subscribe(onToken, onComplete, cancelled, deliveries);
+        try {
+            upstream.run(mine::publish, mine::allCancelled);
+            streams.remove(key, mine);
+            mine.complete();
+        } catch (RuntimeException e) {
+            streams.remove(key, mine);
+            mine.fail(e);
+            // Tokens read before the failure still reach this caller first
+            awaitDelivery(delivered, cancelled);
+            throw e;
+        }
+        awaitDelivery(delivered, cancelled);
+    }
+
+    /**
+     * Coalescing statistics.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlightCalls", calls.size());
+        stats.put("inFlightStreams", streams.size());
+        stats.put("leaders", leaders.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("streamLeaders", streamLeaders.get());
+        stats.put("streamJoins", streamJoins.get());
+        return stats;
+    }
+
+    @PreDestroy
+    void stopDeliveries() {
+        deliveries.shutdownNow();
+    }
+
+    /**
+     * Wait for this caller's deliveries, returning early if it cancels.
+     */
+    private static void awaitDelivery(CompletableFuture<Void> delivered, BooleanSupplier cancelled) {
+        while (true) {
+            try {
+                delivered.get(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                if (cancelled.getAsBoolean()) return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for shared LLM stream", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Shared LLM stream failed", e.getCause());
+            }
+        }
+    }
+
+    private static Object await(CompletableFuture<?> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shared LLM call", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shared LLM call failed", cause);
+        }
+    }
+
+    /**
+     * Token stream shared by a leader and its joiners.
+     * Tokens are kept in an append-only list; each subscriber reads it from its
+     * own cursor on a delivery thread, so every subscriber sees tokens in order
+     * and the upstream thread never waits on a client socket.
+     * A ReentrantLock rather than synchronized so waiting delivery threads,
+     * which are virtual, are not pinned to their carriers.
+     */
+    private static class SharedStream {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private final List<String> tokens = new ArrayList<>();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private boolean finished;
+        private RuntimeException failure;
+
+        private record Subscriber(Consumer<String> onToken, Runnable onComplete, BooleanSupplier cancelled,
+                                  CompletableFuture<Void> delivered) {}
+
+        /**
+         * @return Completes once the subscriber has had every token and its completion,
+         *         or stopped early; completes exceptionally if the stream failed
+         */
+        CompletableFuture<Void> subscribe(Consumer<String> onToken, Runnable onComplete,
+                                          BooleanSupplier cancelled, Executor deliveries) {
+            Subscriber subscriber = new Subscriber(onToken, onComplete, cancelled, new CompletableFuture<>());
+            lock.lock();
+            try {
+                subscribers.add(subscriber);
+            } finally {
+                lock.unlock();
+            }
+            try {
+                deliveries.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.delivered().completeExceptionally(e);
+            }
+            return subscriber.delivered();
+        }
+
+        void publish(String token) {
+            lock.lock();
+            try {
+                tokens.add(token);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * True when no live subscriber remains.
+         */
+        boolean allCancelled() {
+            lock.lock();
+            try {
+                subscribers.removeIf(subscriber -> subscriber.delivered().isDone()
+                        || subscriber.cancelled().getAsBoolean());
+                return subscribers.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void complete() {
+            finish(null);
+        }
+
+        void fail(RuntimeException e) {
+            finish(e);
+        }
+
+        private void finish(RuntimeException e) {
+            lock.lock();
+            try {
+                finished = true;
+                failure = e;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Hand the subscriber every token from its cursor on, in batches,
+         * then its completion. A failing subscriber is dropped so it cannot
+         * break the stream for others.
+         */
+        private void drain(Subscriber subscriber) {
+            int next = 0;
+            boolean reachedEnd = false;
+            try {
+                while (true) {
+                    List<String> batch;
+                    lock.lock();
+                    try {
+                        while (next == tokens.size() && !finished && !subscriber.cancelled().getAsBoolean()) {
+                            changed.await(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        }
+                        if (subscriber.cancelled().getAsBoolean()) {
+                            break;
+                        }
+                        if (next == tokens.size()) {
+                            if (failure != null) {
+                                subscriber.delivered().completeExceptionally(failure);
+                                return;
+                            }
+                            reachedEnd = true;
+                            break;
+                        }
+                        batch = new ArrayList<>(tokens.subList(next, tokens.size()));
+                        next = tokens.size();
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (!deliver(subscriber, batch)) {
+                        break;
+                    }
+                }
+                if (reachedEnd) {
+                    runCompletion(subscriber);
+                }
+                subscriber.delivered().complete(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                subscriber.delivered().completeExceptionally(
+                        new IllegalStateException("Interrupted while delivering shared LLM stream", e));
+            }
+        }
+
+        private boolean deliver(Subscriber subscriber, List<String> batch) {
+            try {
+                for (String token : batch) {
+                    if (subscriber.cancelled().getAsBoolean()) return false;
+                    subscriber.onToken().accept(token);
+                }
+                return true;
+            } catch (Exception e) {
+                log.debug("Dropping LLM stream subscriber: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        private void runCompletion(Subscriber subscriber) {
+            try {
+                subscriber.onComplete().run();
+            } catch (Exception e) {
+                log.debug("LLM stream subscriber completion failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.aema2ui.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded exact-match cache for LLM responses.
+ *
+ * Entries are keyed on provider, model, response kind and a SHA-256 of the
+ * normalized prompt. Values are stored as parsed JSON trees so a hit on a
+ * structured response skips cleanup, repair and re-parsing.
+ *
+ * Eviction is LRU by entry count plus a fixed TTL. When a spill file is
+ * configured, live entries are written on shutdown and reloaded on startup.
+ */
+@Slf4j
+@Component
+public class LlmResponseCache {
+
+    private static final int SPILL_FORMAT_VERSION = 1;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final String spillFile;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    private record Entry(JsonNode value, long expiresAt) {}
+
+    public LlmResponseCache(ObjectMapper objectMapper,
+                            @Value("${aem.agent.llm.cache.enabled:true}") boolean enabled,
+                            @Value("${aem.agent.llm.cache.max-entries:500}") int maxEntries,
+                            @Value("${aem.agent.llm.cache.ttl:3600000}") long ttlMillis,
+                            @Value("${aem.agent.llm.cache.spill-file:}") String spillFile) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled && maxEntries > 0;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.spillFile = spillFile;
+
+        // Access-ordered map gives LRU iteration order
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > LlmResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Build a cache key from provider, model, response kind and prompt.
+     */
+    public static String key(String provider, String model, String kind, String prompt) {
+        return provider.toLowerCase(Locale.ROOT) + "|" + model + "|" + kind + "|" + hash(normalize(prompt));
+    }
+
+    /**
+     * Normalize a prompt so trivially different inputs share an entry:
+     * trimmed and whitespace runs collapsed. Case is preserved because brand
+     * names and raw text reach the prompt verbatim and shape the output.
+     */
+    static String normalize(String prompt) {
+        if (prompt == null) return "";
+        return prompt.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Get a cached value, or null on miss or expiry.
+     */
+    public JsonNode get(String key) {
+        if (!enabled) return null;
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value();
+        }
+    }
+
+    /**
+     * Store a value for the configured TTL.
+     */
+    public void put(String key, JsonNode value) {
+        if (!enabled || value == null) return;
+
+        synchronized (entries) {
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Cache statistics.
+     */
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", h + m > 0 ? (double) h / (h + m) : 0.0);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("spillFile", spillFile.isBlank() ? null : spillFile);
+        return stats;
+    }
+
+    /**
+     * Reload entries spilled by a previous run.
+     */
+    @PostConstruct
+    public void loadSpill() {
+        if (!enabled || spillFile.isBlank()) return;
+
+        Path path = Path.of(spillFile);
+        if (!Files.exists(path)) return;
+
+        try {
+            JsonNode root = objectMapper.readTree(path.toFile());
+            if (root.path("version").asInt() != SPILL_FORMAT_VERSION) {
+                log.warn("Ignoring LLM cache spill file with unknown version: {}", path);
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            int loaded = 0;
+            synchronized (entries) {
+                for (JsonNode node : root.path("entries")) {
+                    long expiresAt = node.path("expiresAt").asLong();
+                    if (expiresAt > now) {
+                        entries.put(node.path("key").asText(), new Entry(node.get("value"), expiresAt));
+                        loaded++;
+                    }
+                }
+            }
+            log.info("Loaded {} LLM cache entries from {}", loaded, path);
+        } catch (Exception e) {
+            log.warn("Failed to load LLM cache spill file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Write live entries to the spill file for a warm restart.
+     */
+    @PreDestroy
+    public void spill() {
+        if (!enabled || spillFile.isBlank()) return;
+
+        Path path = Path.of(spillFile);
+        try {
+            ObjectNode root = objectMapper.createObjectNode();
+            root.put("version", SPILL_FORMAT_VERSION);
+            ArrayNode array = root.putArray("entries");
+
+            long now = System.currentTimeMillis();
+            synchronized (entries) {
+                Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<String, Entry> e = it.next();
+                    if (e.getValue().expiresAt() > now) {
+                        ObjectNode node = array.addObject();
+                        node.put("key", e.getKey());
+                        node.put("expiresAt", e.getValue().expiresAt());
+                        node.set("value", e.getValue().value());
+                    }
+                }
+            }
+
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), root);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Spilled {} LLM cache entries to {}", array.size(), path);
+        } catch (Exception e) {
+            log.warn("Failed to spill LLM cache to {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
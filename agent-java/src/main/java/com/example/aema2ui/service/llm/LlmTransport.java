@@ -0,0 +1,48 @@
+package com.example.aema2ui.service.llm;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * HTTP transport used by LlmService to reach an LLM provider.
+ *
+ * One transport is created per provider so that each provider gets its own
+ * connection pool, protocol version and timeouts.
+ */
+public interface LlmTransport {
+
+    /**
+     * POST a JSON body and return the full response body.
+     */
+    String postJson(String uri, Map<String, String> headers, String jsonBody);
+
+    /**
+     * POST a JSON body and return the response as a stream (NDJSON / SSE).
+     * The caller must close the stream to return the connection to the pool.
+     */
+    InputStream postJsonForStream(String uri, Map<String, String> headers, String jsonBody);
+
+    /**
+     * Pool and request statistics for sizing.
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * Exception for LLM transport errors
+     */
+    class LlmTransportException extends RuntimeException {
+        private final int statusCode;
+
+        public LlmTransportException(String message, int statusCode, Throwable cause) {
+            super(message, cause);
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * HTTP status returned by the provider, or -1 if no response was received.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.example.aema2ui;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "aem.agent.persistence.engine=memory")
 class AemA2uiAgentApplicationTests {
 
     @Test
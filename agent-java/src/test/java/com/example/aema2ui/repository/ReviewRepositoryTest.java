@@ -0,0 +1,72 @@
+package com.example.aema2ui.repository;
+
+import com.example.aema2ui.model.Review;
+import com.example.aema2ui.model.ReviewComment;
+import com.example.aema2ui.model.ReviewStatus;
+import com.example.aema2ui.repository.persistence.MemoryPersistenceEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewRepositoryTest {
+
+    private final ReviewRepository repository = new ReviewRepository(new MemoryPersistenceEngine());
+
+    private static Review review(String id) {
+        return Review.builder()
+            .id(id)
+            .contentId("c1")
+            .status(ReviewStatus.PENDING_REVIEW)
+            .createdAt(Instant.ofEpochSecond(1))
+            .version(1)
+            .build();
+    }
+
+    @Test
+    void testUpdateChangesACopy() {
+        Review original = repository.save(review("r1"));
+
+        Review updated = repository.update("r1", review -> {
+            review.getComments().add(ReviewComment.builder().id("k1").content("Shorter title").build());
+            review.setStatus(ReviewStatus.IN_REVIEW);
+        }, stored -> {});
+
+        assertNotSame(original, updated);
+        assertTrue(original.getComments().isEmpty());
+        assertEquals(ReviewStatus.PENDING_REVIEW, original.getStatus());
+        assertSame(updated, repository.findById("r1").orElseThrow());
+        assertEquals(1, updated.getComments().size());
+        assertThrows(IllegalArgumentException.class, () -> repository.update("missing", review -> {}, stored -> {}));
+    }
+
+    @Test
+    void testConcurrentCommentsAreAllKept() throws Exception {
+        repository.save(review("r1"));
+        int writers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String commentId = "k" + i;
+            tasks.add(() -> repository.update("r1", review -> review.getComments().add(
+                ReviewComment.builder().id(commentId).build()), stored -> {}));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            tasks.forEach(task -> executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+            start.countDown();
+        }
+
+        assertEquals(writers, repository.findById("r1").orElseThrow().getComments().size());
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.aema2ui.repository;
+
+import com.example.aema2ui.model.WorkflowInstance;
+import com.example.aema2ui.model.WorkflowStatus;
+import com.example.aema2ui.repository.persistence.JournalPersistenceEngine;
+import com.example.aema2ui.repository.persistence.MemoryPersistenceEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkflowRepositoryTest {
+
+    private final WorkflowRepository repository = new WorkflowRepository(new MemoryPersistenceEngine());
+
+    private static WorkflowInstance instance(String id, String contentId, WorkflowStatus status, long startedAtSecond) {
+        return WorkflowInstance.builder()
+            .id(id)
+            .contentId(contentId)
+            .status(status)
+            .startedAt(Instant.ofEpochSecond(startedAtSecond))
+            .steps(new ArrayList<>(List.of(
+                WorkflowInstance.WorkflowStep.builder().id("a").status("active").build(),
+                WorkflowInstance.WorkflowStep.builder().id("b").status("pending").build())))
+            .build();
+    }
+
+    private static List<String> ids(List<WorkflowInstance> instances) {
+        return instances.stream().map(WorkflowInstance::getId).toList();
+    }
+
+    @Test
+    void testIndexesListNewestFirst() {
+        repository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+        repository.save(instance("w2", "c2", WorkflowStatus.RUNNING, 2));
+        repository.save(instance("w3", "c1", WorkflowStatus.COMPLETED, 3));
+
+        assertEquals(List.of("w3", "w2", "w1"), ids(repository.findAll()));
+        assertEquals(List.of("w3", "w1"), ids(repository.findByContentId("c1")));
+
+        WorkflowRepository.Page running = repository.find(null, WorkflowStatus.RUNNING, 0, 10);
+        assertEquals(List.of("w2", "w1"), ids(running.items()));
+        assertEquals(2, running.total());
+
+        WorkflowRepository.Page page = repository.find(null, null, 1, 1);
+        assertEquals(List.of("w2"), ids(page.items()));
+        assertEquals(3, page.total());
+
+        WorkflowRepository.Page contentAndStatus = repository.find("c1", WorkflowStatus.RUNNING, 0, 10);
+        assertEquals(List.of("w1"), ids(contentAndStatus.items()));
+        assertEquals(1, contentAndStatus.total());
+    }
+
+    @Test
+    void testUpdateMovesStatusIndexAndBumpsVersion() {
+        WorkflowInstance saved = repository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+        assertEquals(1, saved.getVersion());
+
+        WorkflowInstance updated = repository.update("w1", saved.getVersion(),
+            instance -> instance.setStatus(WorkflowStatus.SUSPENDED));
+        assertEquals(2, updated.getVersion());
+        assertEquals(Integer.valueOf(0), repository.countByStatus().get(WorkflowStatus.RUNNING));
+        assertEquals(Integer.valueOf(1), repository.countByStatus().get(WorkflowStatus.SUSPENDED));
+        assertEquals(List.of("w1"), ids(repository.find(null, WorkflowStatus.SUSPENDED, 0, 10).items()));
+
+        // The previously returned snapshot is not changed by later updates
+        assertEquals(WorkflowStatus.RUNNING, saved.getStatus());
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        WorkflowInstance saved = repository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+        repository.update("w1", saved.getVersion(), instance -> instance.setCurrentStepIndex(1));
+
+        WorkflowRepository.VersionConflictException conflict = assertThrows(
+            WorkflowRepository.VersionConflictException.class,
+            () -> repository.update("w1", saved.getVersion(), instance -> instance.setCurrentStepIndex(2)));
+        assertEquals(2, conflict.getCurrentVersion());
+        assertEquals(1, repository.findById("w1").orElseThrow().getCurrentStepIndex());
+    }
+
+    @Test
+    void testFailedChangeLeavesInstanceUntouched() {
+        repository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+
+        assertThrows(IllegalStateException.class, () -> repository.update("w1", WorkflowRepository.ANY_VERSION,
+            instance -> {
+                instance.getSteps().get(0).setStatus("completed");
+                throw new IllegalStateException("rejected");
+            }));
+
+        WorkflowInstance stored = repository.findById("w1").orElseThrow();
+        assertEquals("active", stored.getSteps().get(0).getStatus());
+        assertEquals(1, stored.getVersion());
+    }
+
+    @Test
+    void testUnrecordedChangeIsRolledBack() {
+        AtomicBoolean failing = new AtomicBoolean();
+        WorkflowRepository failingRepository = new WorkflowRepository(new MemoryPersistenceEngine() {
+            @Override
+            public void put(String collection, String id, Object value) {
+                if (failing.get()) {
+                    throw new IllegalStateException("Journal writer is failing");
+                }
+            }
+        });
+        failingRepository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+        failing.set(true);
+
+        assertThrows(IllegalStateException.class, () -> failingRepository.update("w1", WorkflowRepository.ANY_VERSION,
+            instance -> instance.setStatus(WorkflowStatus.COMPLETED)));
+        assertThrows(IllegalStateException.class,
+            () -> failingRepository.save(instance("w2", "c1", WorkflowStatus.RUNNING, 2)));
+
+        WorkflowInstance stored = failingRepository.findById("w1").orElseThrow();
+        assertEquals(WorkflowStatus.RUNNING, stored.getStatus());
+        assertEquals(1, stored.getVersion());
+        assertTrue(failingRepository.findById("w2").isEmpty());
+        assertEquals(List.of("w1"), ids(failingRepository.find(null, WorkflowStatus.RUNNING, 0, 10).items()));
+        assertEquals(Integer.valueOf(0), failingRepository.countByStatus().get(WorkflowStatus.COMPLETED));
+    }
+
+    @Test
+    void testConcurrentConditionalUpdatesApplyOnce() throws Exception {
+        repository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+        int threads = 16;
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        repository.update("w1", 1, instance -> instance.setCurrentStepIndex(instance.getCurrentStepIndex() + 1));
+                        applied.incrementAndGet();
+                    } catch (WorkflowRepository.VersionConflictException e) {
+                        conflicts.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(1, applied.get());
+        assertEquals(threads - 1, conflicts.get());
+        assertEquals(1, repository.findById("w1").orElseThrow().getCurrentStepIndex());
+    }
+
+    @Test
+    void testDeleteRemovesFromIndexes() {
+        repository.save(instance("w1", "c1", WorkflowStatus.RUNNING, 1));
+        repository.deleteById("w1");
+
+        assertTrue(repository.findAll().isEmpty());
+        assertTrue(repository.findByContentId("c1").isEmpty());
+        assertEquals(Integer.valueOf(0), repository.countByStatus().get(WorkflowStatus.RUNNING));
+    }
+
+    @Test
+    void testArchiveKeepsNewestWithinCountAndAge() {
+        for (int i = 1; i <= 6; i++) {
+            WorkflowInstance done = instance("w" + i, "c1", WorkflowStatus.COMPLETED, i);
+            done.setCompletedAt(Instant.ofEpochSecond(100 + i));
+            repository.save(done);
+        }
+        repository.save(instance("w7", "c1", WorkflowStatus.RUNNING, 0));
+
+        // Count limit keeps w6..w3; the age limit then also takes w3
+        int archived = repository.archive(WorkflowStatus.COMPLETED, Instant.ofEpochSecond(104), 4, 2);
+
+        assertEquals(3, archived);
+        assertEquals(List.of("w6", "w5", "w4"), ids(repository.find(null, WorkflowStatus.COMPLETED, 0, 10).items()));
+        assertEquals(Integer.valueOf(3), repository.countByStatus().get(WorkflowStatus.COMPLETED));
+        assertEquals(List.of("w6", "w5", "w4", "w7"), ids(repository.findByContentId("c1")));
+    }
+
+    @Test
+    void testArchivedInstancesStayOutOfMemoryAfterRestart(@TempDir Path directory) {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        JournalPersistenceEngine engine = new JournalPersistenceEngine(directory, objectMapper, 64 * 1024, 16, 0, 1000);
+        WorkflowRepository journaled = new WorkflowRepository(engine);
+        engine.start();
+        for (int i = 1; i <= 3; i++) {
+            journaled.save(instance("w" + i, "c1", WorkflowStatus.COMPLETED, i));
+        }
+        assertEquals(2, journaled.archive(WorkflowStatus.COMPLETED, null, 1, 10));
+        engine.close();
+
+        JournalPersistenceEngine reopened = new JournalPersistenceEngine(directory, objectMapper, 64 * 1024, 16, 0, 1000);
+        WorkflowRepository restored = new WorkflowRepository(reopened);
+        reopened.start();
+        try {
+            assertEquals(List.of("w3"), ids(restored.findAll()));
+            assertEquals("w1", restored.findById("w1").orElseThrow().getId());
+        } finally {
+            reopened.close();
+        }
+    }
+}
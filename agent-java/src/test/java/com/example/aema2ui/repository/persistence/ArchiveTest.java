@@ -0,0 +1,89 @@
+package com.example.aema2ui.repository.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+
+    @Test
+    void testEntriesAreReadableAfterReopen() throws Exception {
+        Path file = directory.resolve("workflow.arc");
+        Archive archive = Archive.open(file);
+        archive.putAll(Map.of("w1", bytes("{\"status\":\"COMPLETED\"}"), "w2", bytes("{\"status\":\"ABORTED\"}")));
+        archive.putAll(Map.of("w1", bytes("{\"status\":\"COMPLETED\",\"v\":2}")));
+        archive.remove("w2");
+        archive.close();
+
+        Archive reopened = Archive.open(file);
+        assertEquals(1, reopened.count());
+        assertEquals("{\"status\":\"COMPLETED\",\"v\":2}", string(reopened.get("w1")));
+        assertFalse(reopened.contains("w2"));
+        assertNull(reopened.get("w2"));
+        reopened.close();
+    }
+
+    @Test
+    void testDamagedTailIsTruncated() throws Exception {
+        Path file = directory.resolve("review.arc");
+        Archive archive = Archive.open(file);
+        archive.putAll(Map.of("r1", bytes("first")));
+        archive.close();
+        long intact = Files.size(file);
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        Archive reopened = Archive.open(file);
+        assertEquals(intact, Files.size(file));
+        reopened.putAll(Map.of("r2", bytes("second")));
+        assertEquals("first", string(reopened.get("r1")));
+        assertEquals("second", string(reopened.get("r2")));
+        reopened.close();
+    }
+
+    @Test
+    void testRewritesKeepOnlyLiveEntries() throws Exception {
+        Path file = directory.resolve("workflow.arc");
+        Archive archive = Archive.open(file);
+        // Random-ish payloads so compression cannot hide the garbage
+        StringBuilder noise = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            noise.append(Integer.toHexString(i * 7919));
+        }
+        for (int round = 0; round < 20; round++) {
+            Map<String, byte[]> batch = new LinkedHashMap<>();
+            for (int i = 0; i < 20; i++) {
+                batch.put("w" + i, bytes(round + ":" + noise));
+            }
+            archive.putAll(batch);
+        }
+        Map<String, Object> stats = archive.getStats();
+        assertTrue((Long) stats.get("compactions") > 0);
+        assertTrue((Long) stats.get("fileBytes") < 2 * (Long) stats.get("liveBytes") + 1024 * 1024);
+        assertEquals("19:" + noise, string(archive.get("w7")));
+        archive.close();
+
+        Archive reopened = Archive.open(file);
+        assertEquals(20, reopened.count());
+        assertEquals("19:" + noise, string(reopened.get("w0")));
+        reopened.close();
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.aema2ui.repository.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replays the journal into a map of collection/id to payload.
+     */
+    private static Map<String, String> recover(Journal journal) throws IOException {
+        Map<String, String> state = new LinkedHashMap<>();
+        journal.recover(entry -> {
+            String key = entry.collection() + "/" + entry.id();
+            if (entry.op() == Journal.DELETE) {
+                state.remove(key);
+            } else {
+                state.put(key, new String(entry.payload(), StandardCharsets.UTF_8));
+            }
+        });
+        return state;
+    }
+
+    private static List<Path> files(Path directory, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    @Test
+    void testEntriesSurviveReopen() throws Exception {
+        Journal journal = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        assertTrue(recover(journal).isEmpty());
+
+        journal.append(Journal.PUT, "workflow", "w1", bytes("{\"v\":1}"));
+        journal.append(Journal.PUT, "workflow", "w2", bytes("{\"v\":1}"));
+        journal.append(Journal.PUT, "workflow", "w1", bytes("{\"v\":2}"));
+        long last = journal.append(Journal.DELETE, "workflow", "w2", null);
+        assertTrue(journal.flush(5000));
+        journal.close();
+
+        Journal reopened = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        Map<String, String> state = recover(reopened);
+        assertEquals(Map.of("workflow/w1", "{\"v\":2}"), state);
+        assertEquals(last + 1, reopened.append(Journal.PUT, "review", "r1", bytes("{}")));
+        reopened.close();
+    }
+
+    @Test
+    void testTornTailIsDiscardedAndOverwritten() throws Exception {
+        Journal journal = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        recover(journal);
+        journal.append(Journal.PUT, "review", "r1", bytes("first"));
+        journal.append(Journal.PUT, "review", "r2", bytes("second"));
+        journal.flush(5000);
+        journal.close();
+
+        // Corrupt the body of the second record, as a write cut short by a crash would
+        Path segment = files(directory, Journal.SEGMENT_SUFFIX).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            channel.read(header, 0);
+            int second = 8 + header.getInt(0);
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f, 0x7f}), second + 12);
+        }
+
+        Journal reopened = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        assertEquals(Map.of("review/r1", "first"), recover(reopened));
+        reopened.append(Journal.PUT, "review", "r3", bytes("third"));
+        reopened.flush(5000);
+        reopened.close();
+
+        Journal again = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        assertEquals(Map.of("review/r1", "first", "review/r3", "third"), recover(again));
+        again.close();
+    }
+
+    @Test
+    void testSnapshotReplacesCoveredSegments() throws Exception {
+        Journal journal = new Journal(directory, SEGMENT_BYTES, 64, 0);
+        recover(journal);
+        Map<String, String> live = new LinkedHashMap<>();
+        String padding = "x".repeat(1000);
+        for (int i = 0; i < 300; i++) {
+            String id = "w" + (i % 50);
+            String value = i + padding;
+            live.put("workflow/" + id, value);
+            journal.append(Journal.PUT, "workflow", id, bytes(value));
+        }
+        journal.flush(5000);
+        assertTrue(files(directory, Journal.SEGMENT_SUFFIX).size() > 2);
+
+        long seq = journal.snapshot(sink -> live.forEach((key, value) -> {
+            try {
+                sink.put("workflow", key.substring("workflow/".length()), bytes(value));
+            } catch (IOException e) {
+                throw new Journal.UncheckedSnapshotException(e);
+            }
+        }));
+        assertEquals(300L, seq);
+        assertEquals(1, files(directory, Journal.SEGMENT_SUFFIX).size());
+        assertEquals(1, files(directory, Journal.SNAPSHOT_SUFFIX).size());
+
+        journal.append(Journal.DELETE, "workflow", "w0", null);
+        live.remove("workflow/w0");
+        journal.flush(5000);
+        journal.close();
+
+        List<Long> replayed = new ArrayList<>();
+        Journal reopened = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        Map<String, String> state = new LinkedHashMap<>();
+        reopened.recover(entry -> {
+            replayed.add(entry.seq());
+            String key = entry.collection() + "/" + entry.id();
+            if (entry.op() == Journal.DELETE) {
+                state.remove(key);
+            } else {
+                state.put(key, new String(entry.payload(), StandardCharsets.UTF_8));
+            }
+        });
+        assertEquals(live, state);
+        // 50 snapshot entities plus the delete, not the 300 original puts
+        assertEquals(51, replayed.size());
+        reopened.close();
+    }
+
+    @Test
+    void testSecondJournalFailsWhileDirectoryIsLocked() throws Exception {
+        Journal journal = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        recover(journal);
+        journal.append(Journal.PUT, "workflow", "w1", bytes("{}"));
+
+        Journal second = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        assertThrows(IOException.class, () -> recover(second));
+        second.close();
+
+        journal.flush(5000);
+        journal.close();
+        Journal reopened = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        assertEquals(Map.of("workflow/w1", "{}"), recover(reopened));
+        reopened.close();
+    }
+
+    @Test
+    void testFailedWritesAreRetriedAndAppendsRejectedMeanwhile() throws Exception {
+        Journal journal = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        recover(journal);
+        // Occupy the first segment's name so the writer cannot create it
+        Path blocker = Files.createFile(directory.resolve(
+            String.format("%s%020d%s", Journal.SEGMENT_PREFIX, 1, Journal.SEGMENT_SUFFIX)));
+
+        journal.append(Journal.PUT, "workflow", "w1", bytes("accepted"));
+        awaitWriterFailure(journal, true);
+        assertThrows(IllegalStateException.class, () -> journal.append(Journal.PUT, "workflow", "w2", bytes("rejected")));
+        assertFalse(journal.flush(100));
+
+        Files.delete(blocker);
+        awaitWriterFailure(journal, false);
+        assertTrue(journal.flush(5000));
+        journal.append(Journal.PUT, "workflow", "w3", bytes("later"));
+        assertTrue(journal.flush(5000));
+        journal.close();
+
+        Journal reopened = new Journal(directory, SEGMENT_BYTES, 16, 0);
+        assertEquals(Map.of("workflow/w1", "accepted", "workflow/w3", "later"), recover(reopened));
+        reopened.close();
+    }
+
+    private static void awaitWriterFailure(Journal journal, boolean failing) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((journal.getStats().get("writerFailure") != null) != failing) {
+            assertTrue(System.currentTimeMillis() < deadline, "writer failure state did not become " + failing);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.service.llm.LlmRequestCoalescer;
+import com.example.aema2ui.service.llm.LlmResponseCache;
+import com.example.aema2ui.service.llm.LlmTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmServiceAdmissionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LlmService service(int failureStatus) {
+        LlmService service = new LlmService(objectMapper,
+                new LlmResponseCache(objectMapper, true, 10, 60_000, ""), new LlmRequestCoalescer());
+        ReflectionTestUtils.setField(service, "aiEnabled", true);
+        ReflectionTestUtils.setField(service, "llmProvider", "ollama");
+        ReflectionTestUtils.setField(service, "ollamaBaseUrl", "http://localhost:11434");
+        ReflectionTestUtils.setField(service, "ollamaModel", "llama3.2");
+        ReflectionTestUtils.setField(service, "ollamaMaxConnections", 4);
+        ReflectionTestUtils.setField(service, "admissionEnabled", true);
+        ReflectionTestUtils.setField(service, "admissionInitialLimit", 4);
+        ReflectionTestUtils.setField(service, "admissionMinLimit", 1);
+        ReflectionTestUtils.setField(service, "admissionMaxQueue", 16);
+        ReflectionTestUtils.setField(service, "admissionMaxWait", 2_000L);
+        ReflectionTestUtils.setField(service, "admissionLatencyTolerance", 2.0);
+        ReflectionTestUtils.setField(service, "admissionBackoffRatio", 0.5);
+        service.setTransport("ollama", new FailingTransport(failureStatus));
+        return service;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> admission(LlmService service) {
+        return (Map<String, Object>) service.getAdmissionStats().get("ollama");
+    }
+
+    @Test
+    void testProviderOverloadShrinksLimit() {
+        LlmService service = service(429);
+
+        assertThrows(RuntimeException.class, () -> service.generate("hero banner"));
+
+        Map<String, Object> stats = admission(service);
+        assertEquals(1L, stats.get("limitDecreases"));
+        assertEquals(2, stats.get("limit"));
+        assertEquals(0, stats.get("inFlight"));
+    }
+
+    @Test
+    void testTimeoutShrinksLimit() {
+        LlmService service = service(-1);
+
+        assertThrows(RuntimeException.class, () -> service.generate("hero banner"));
+
+        assertEquals(1L, admission(service).get("limitDecreases"));
+    }
+
+    @Test
+    void testClientErrorLeavesLimitUnchanged() {
+        LlmService service = service(400);
+
+        assertThrows(RuntimeException.class, () -> service.generate("hero banner"));
+
+        Map<String, Object> stats = admission(service);
+        assertEquals(0L, stats.get("limitDecreases"));
+        assertEquals(4, stats.get("limit"));
+        assertEquals(0, stats.get("inFlight"));
+    }
+
+    /**
+     * Transport that fails every call with a fixed status.
+     */
+    private static class FailingTransport implements LlmTransport {
+
+        private final int status;
+
+        FailingTransport(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public String postJson(String uri, Map<String, String> headers, String jsonBody) {
+            throw new LlmTransportException("HTTP " + status, status, null);
+        }
+
+        @Override
+        public InputStream postJsonForStream(String uri, Map<String, String> headers, String jsonBody) {
+            throw new LlmTransportException("HTTP " + status, status, null);
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.service.llm.LlmRequestCoalescer;
+import com.example.aema2ui.service.llm.LlmResponseCache;
+import com.example.aema2ui.service.llm.LlmTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmServiceStreamingTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LlmService service(String provider, StreamTransport transport) {
+        LlmService service = new LlmService(objectMapper,
+                new LlmResponseCache(objectMapper, true, 10, 60_000, ""), new LlmRequestCoalescer());
+        ReflectionTestUtils.setField(service, "aiEnabled", true);
+        ReflectionTestUtils.setField(service, "llmProvider", provider);
+        ReflectionTestUtils.setField(service, "ollamaBaseUrl", "http://localhost:11434");
+        ReflectionTestUtils.setField(service, "ollamaModel", "llama3.2");
+        ReflectionTestUtils.setField(service, "openaiBaseUrl", "http://localhost:8000/v1");
+        ReflectionTestUtils.setField(service, "openaiModel", "gpt-4o-mini");
+        ReflectionTestUtils.setField(service, "openaiApiKey", "test");
+        service.setTransport(provider, transport);
+        return service;
+    }
+
+    private static String stream(LlmService service) {
+        StringBuilder text = new StringBuilder();
+        service.generateStreaming("hero banner", text::append, () -> {});
+        return text.toString();
+    }
+
+    @Test
+    void testCompletedStreamIsCached() {
+        StreamTransport transport = new StreamTransport("""
+                {"response":"Summer","done":false}
+                {"response":" Savings","done":true}
+                """);
+        LlmService service = service("ollama", transport);
+
+        assertEquals("Summer Savings", stream(service));
+        assertEquals("Summer Savings", stream(service));
+        assertEquals(1, transport.calls.get());
+    }
+
+    @Test
+    void testStreamEndingWithoutDoneIsNotCached() {
+        StreamTransport transport = new StreamTransport("""
+                {"response":"Summer","done":false}
+                """);
+        LlmService service = service("ollama", transport);
+
+        assertEquals("Summer", stream(service));
+        assertEquals("Summer", stream(service));
+        assertEquals(2, transport.calls.get());
+    }
+
+    @Test
+    void testEventStreamEndingWithoutDoneMarkerIsNotCached() {
+        StreamTransport transport = new StreamTransport("""
+                data: {"choices":[{"delta":{"content":"Summer"}}]}
+
+                """);
+        LlmService service = service("openai", transport);
+
+        assertEquals("Summer", stream(service));
+        stream(service);
+        assertEquals(2, transport.calls.get());
+    }
+
+    /**
+     * Transport that answers every stream with a fixed body.
+     */
+    private static class StreamTransport implements LlmTransport {
+
+        private final String body;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        StreamTransport(String body) {
+            this.body = body;
+        }
+
+        @Override
+        public String postJson(String uri, Map<String, String> headers, String jsonBody) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public InputStream postJsonForStream(String uri, Map<String, String> headers, String jsonBody) {
+            calls.incrementAndGet();
+            return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+    }
+}
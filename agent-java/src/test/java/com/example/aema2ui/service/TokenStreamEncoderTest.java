@@ -0,0 +1,102 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.service.StreamingContentService.WireMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenStreamEncoderTest {
+
+    private static final int TOKENS = 2_000;
+    private static final int CHECKPOINT_INTERVAL = 100;
+
+    private final StreamingContentService service = new StreamingContentService(null, null, new ObjectMapper(), null);
+
+    private static List<String> tokens() {
+        List<String> tokens = new ArrayList<>(TOKENS);
+        for (int i = 0; i < TOKENS; i++) {
+            tokens.add(i % 10 == 0 ? "\n" : " word" + (i % 7));
+        }
+        return tokens;
+    }
+
+    @Test
+    void testCumulativeModeKeepsOriginalPayload() {
+        TokenStreamEncoder encoder = new TokenStreamEncoder("run", "msg", "content", WireMode.CUMULATIVE, CHECKPOINT_INTERVAL);
+
+        encoder.delta("Hello");
+        Map<String, Object> delta = encoder.delta(" world");
+
+        assertEquals(" world", delta.get("delta"));
+        assertEquals("Hello world", delta.get("content"));
+        assertFalse(delta.containsKey("seq"));
+        assertFalse(encoder.isCheckpointDue());
+    }
+
+    @Test
+    void testDeltaModeOffsetsRebuildContent() {
+        TokenStreamEncoder encoder = new TokenStreamEncoder("run", "msg", "content", WireMode.DELTA, CHECKPOINT_INTERVAL);
+        StringBuilder client = new StringBuilder();
+
+        long expectedSeq = 0;
+        for (String token : tokens()) {
+            Map<String, Object> delta = encoder.delta(token);
+            assertFalse(delta.containsKey("content"));
+            assertEquals(++expectedSeq, delta.get("seq"));
+            assertEquals(client.length(), delta.get("offset"));
+            client.append((String) delta.get("delta"));
+        }
+
+        assertEquals(encoder.getContent(), client.toString());
+    }
+
+    @Test
+    void testCheckpointsAtInterval() {
+        TokenStreamEncoder encoder = new TokenStreamEncoder("run", "msg", "content", WireMode.DELTA, CHECKPOINT_INTERVAL);
+
+        int checkpoints = 0;
+        for (String token : tokens()) {
+            encoder.delta(token);
+            if (encoder.isCheckpointDue()) {
+                Map<String, Object> checkpoint = encoder.checkpoint();
+                assertEquals(encoder.getSeq(), checkpoint.get("seq"));
+                assertEquals(encoder.getContent(), checkpoint.get("content"));
+                checkpoints++;
+            }
+        }
+
+        assertEquals(TOKENS / CHECKPOINT_INTERVAL, checkpoints);
+    }
+
+    /**
+     * Bytes sent per 2,000-token stream in each wire mode,
+     * using the same serialization as the SSE endpoint.
+     */
+    @Test
+    void testDeltaModeSendsFewerBytes() throws Exception {
+        long cumulativeBytes = encodeStream(WireMode.CUMULATIVE);
+        long deltaBytes = encodeStream(WireMode.DELTA);
+
+        assertTrue(deltaBytes * 5 < cumulativeBytes, "delta mode should send far fewer bytes");
+    }
+
+    private long encodeStream(WireMode mode) throws Exception {
+        TokenStreamEncoder encoder = new TokenStreamEncoder("run", "msg", "content", mode, CHECKPOINT_INTERVAL);
+        long bytes = 0;
+        for (String token : tokens()) {
+            bytes += service.eventJson(StreamingContentService.TEXT_MESSAGE_DELTA, encoder.delta(token))
+                .getBytes(StandardCharsets.UTF_8).length;
+            if (encoder.isCheckpointDue()) {
+                bytes += service.eventJson(StreamingContentService.TEXT_MESSAGE_CHECKPOINT, encoder.checkpoint())
+                    .getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return bytes;
+    }
+}
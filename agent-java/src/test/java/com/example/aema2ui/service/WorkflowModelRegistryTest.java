@@ -0,0 +1,102 @@
+package com.example.aema2ui.service;
+
+import com.example.aema2ui.model.WorkflowModel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkflowModelRegistryTest {
+
+    private static final WorkflowModel PUBLISH = model("publish");
+    private static final WorkflowModel AEM_REVIEW = model("/var/workflow/models/review");
+
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private WorkflowModelRegistry registry(AtomicReference<List<WorkflowModel>> source, Duration minRefreshInterval) {
+        return new WorkflowModelRegistry(source::get, List.of(PUBLISH), queued::add,
+            Duration.ofMinutes(5), minRefreshInterval);
+    }
+
+    private void runQueued() {
+        List<Runnable> tasks = new ArrayList<>(queued);
+        queued.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void testServesInitialModelsUntilRefreshed() {
+        AtomicReference<List<WorkflowModel>> source = new AtomicReference<>(List.of(AEM_REVIEW));
+        WorkflowModelRegistry registry = registry(source, Duration.ZERO);
+
+        assertEquals(PUBLISH, registry.find("publish").orElseThrow());
+        assertEquals(List.of(PUBLISH), registry.getModels());
+
+        registry.refresh();
+        assertEquals(List.of(AEM_REVIEW), registry.getModels());
+        assertEquals(AEM_REVIEW, registry.find(AEM_REVIEW.getId()).orElseThrow());
+        assertTrue(registry.find("publish").isEmpty());
+    }
+
+    @Test
+    void testUnavailableOrFailingLoaderKeepsSnapshot() {
+        AtomicReference<List<WorkflowModel>> source = new AtomicReference<>(List.of(AEM_REVIEW));
+        WorkflowModelRegistry registry = registry(source, Duration.ZERO);
+        registry.refresh();
+
+        source.set(null);
+        registry.refresh();
+        assertEquals(List.of(AEM_REVIEW), registry.getModels());
+
+        WorkflowModelRegistry failing = new WorkflowModelRegistry(() -> {
+            throw new IllegalStateException("AEM down");
+        }, List.of(PUBLISH), queued::add, Duration.ofMinutes(5), Duration.ZERO);
+        failing.refresh();
+        assertEquals(List.of(PUBLISH), failing.getModels());
+        assertEquals(1L, failing.getStats().get("failures"));
+        assertEquals("AEM down", failing.getStats().get("lastError"));
+    }
+
+    @Test
+    void testMissRefreshesInBackgroundOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<List<WorkflowModel>> source = new AtomicReference<>(List.of(PUBLISH, AEM_REVIEW));
+        WorkflowModelRegistry registry = new WorkflowModelRegistry(() -> {
+            loads.incrementAndGet();
+            return source.get();
+        }, List.of(PUBLISH), queued::add, Duration.ofMinutes(5), Duration.ZERO);
+
+        // The lookup does not wait for AEM; the refresh is queued
+        assertTrue(registry.find(AEM_REVIEW.getId()).isEmpty());
+        assertTrue(registry.find(AEM_REVIEW.getId()).isEmpty());
+        assertEquals(1, queued.size());
+        assertEquals(0, loads.get());
+
+        runQueued();
+        assertEquals(1, loads.get());
+        assertEquals(AEM_REVIEW, registry.find(AEM_REVIEW.getId()).orElseThrow());
+    }
+
+    @Test
+    void testMissRefreshesAreThrottled() {
+        AtomicReference<List<WorkflowModel>> source = new AtomicReference<>(List.of(PUBLISH));
+        WorkflowModelRegistry registry = registry(source, Duration.ofMinutes(1));
+        registry.refresh();
+
+        assertTrue(registry.find("unknown").isEmpty());
+        assertTrue(queued.isEmpty());
+
+        // Explicit refreshes are not throttled
+        assertTrue(registry.requestRefresh(true));
+        assertEquals(1, queued.size());
+    }
+
+    private static WorkflowModel model(String id) {
+        return WorkflowModel.builder().id(id).name(id).build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.config.AemConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AemDamClientTest {
+
+    private HttpServer server;
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bin/querybuilder.json", exchange -> {
+            queries.add(exchange.getRequestURI().getRawQuery());
+            byte[] body = "{\"hits\":[],\"total\":0,\"more\":false}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testModifiedSinceSendsDateRangeEncodedOnce() {
+        AemConfig config = new AemConfig();
+        config.setAuthorUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        AemDamClient client = new AemDamClient(new AemHttpClient(config, new ObjectMapper()), config);
+
+        assertTrue(client.findModifiedSince("2024-05-01T10:00:00Z").isEmpty());
+
+        assertEquals(1, queries.size());
+        String rawQuery = queries.get(0);
+        assertFalse(rawQuery.contains("%25"), rawQuery);
+        List<String> params = List.of(URLDecoder.decode(rawQuery, StandardCharsets.UTF_8).split("&"));
+        assertTrue(params.contains("daterange.property=jcr:content/jcr:lastModified"), rawQuery);
+        assertTrue(params.contains("daterange.lowerBound=2024-05-01T10:00:00Z"), rawQuery);
+        assertTrue(params.contains("daterange.lowerOperation=>="), rawQuery);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.aema2ui.service.aem;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AemJsonCacheTest {
+
+    private static final JsonNode NODE = JsonNodeFactory.instance.objectNode().put("jcr:primaryType", "dam:Asset");
+
+    private static AemJsonCache cache(long maxBytes) {
+        return new AemJsonCache(maxBytes, Map.of(
+            "/content/", Duration.ofSeconds(10),
+            "/content/dam/", Duration.ofMinutes(1),
+            "/etc/workflow/instances", Duration.ZERO));
+    }
+
+    @Test
+    void testTtlRules() {
+        AemJsonCache cache = cache(1024 * 1024);
+
+        assertTrue(cache.isCacheable("/content/dam/a.jpg.2.json"));
+        assertTrue(cache.isCacheable("/content/site/page.json"));
+        assertFalse(cache.isCacheable("/etc/workflow/instances/x.json"));
+        assertFalse(cache.isCacheable("/bin/querybuilder.json?path=/content/dam"));
+    }
+
+    @Test
+    void testGetPutAndRevalidate() {
+        AemJsonCache cache = cache(1024 * 1024);
+        String path = "/content/dam/a.jpg.2.json";
+
+        assertNull(cache.get(path));
+        cache.put(path, NODE, "\"e1\"", null, 100, cache.generation());
+
+        AemJsonCache.Entry entry = cache.get(path);
+        assertTrue(entry.isFresh());
+        assertTrue(entry.canRevalidate());
+        assertSame(NODE, entry.node());
+
+        AemJsonCache.Entry expired = new AemJsonCache.Entry(NODE, "\"e1\"", null, 400, System.nanoTime() - 1);
+        assertFalse(expired.isFresh());
+        assertTrue(cache.revalidated(path, expired).isFresh());
+        assertEquals(1L, cache.getStats().get("notModified"));
+    }
+
+    @Test
+    void testWriteInvalidatesResourceDescendantsAndAncestors() {
+        AemJsonCache cache = cache(1024 * 1024);
+        String folder = "/content/dam/my.folder.1.json";
+        String asset = "/content/dam/my.folder/a.jpg.2.json";
+        String renditions = "/content/dam/my.folder/a.jpg/jcr:content/renditions.json";
+        String sibling = "/content/dam/other/b.jpg.2.json";
+        for (String path : new String[] {folder, asset, renditions, sibling}) {
+            cache.put(path, NODE, null, null, 10, cache.generation());
+        }
+
+        cache.invalidate("/content/dam/my.folder/a.jpg");
+
+        assertNull(cache.get(folder));
+        assertNull(cache.get(asset));
+        assertNull(cache.get(renditions));
+        assertNotNull(cache.get(sibling));
+    }
+
+    @Test
+    void testFetchOverlappingWriteIsNotStored() {
+        AemJsonCache cache = cache(1024 * 1024);
+        long generation = cache.generation();
+
+        cache.invalidate("/content/dam/x/*");
+        cache.put("/content/dam/x.1.json", NODE, null, null, 10, generation);
+
+        assertNull(cache.get("/content/dam/x.1.json"));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedOverBudget() {
+        AemJsonCache cache = cache(100 * AemJsonCache.WEIGHT_FACTOR);
+        cache.put("/content/dam/a.json", NODE, null, null, 40, cache.generation());
+        cache.put("/content/dam/b.json", NODE, null, null, 40, cache.generation());
+        assertNotNull(cache.get("/content/dam/a.json"));
+
+        cache.put("/content/dam/c.json", NODE, null, null, 40, cache.generation());
+
+        assertNotNull(cache.get("/content/dam/a.json"));
+        assertNull(cache.get("/content/dam/b.json"));
+        assertNotNull(cache.get("/content/dam/c.json"));
+    }
+}
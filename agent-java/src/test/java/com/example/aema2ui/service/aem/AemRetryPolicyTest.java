@@ -0,0 +1,33 @@
+package com.example.aema2ui.service.aem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AemRetryPolicyTest {
+
+    private final AemRetryPolicy policy = new AemRetryPolicy(3, 100);
+
+    @Test
+    void testRetriesIdempotentTransientFailuresOnly() {
+        assertTrue(policy.shouldRetry("GET", 1, AemRetryPolicy.IO_FAILURE));
+        assertTrue(policy.shouldRetry("GET", 3, 503));
+        assertTrue(policy.shouldRetry("DELETE", 1, 429));
+
+        assertFalse(policy.shouldRetry("GET", 4, 503), "retry budget exhausted");
+        assertFalse(policy.shouldRetry("GET", 1, 404));
+        assertFalse(policy.shouldRetry("GET", 1, 500));
+        assertFalse(policy.shouldRetry("POST", 1, AemRetryPolicy.IO_FAILURE), "Sling POST must not be replayed");
+    }
+
+    @Test
+    void testBackoffDoublesWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            long first = policy.backoffMillis(1);
+            long third = policy.backoffMillis(3);
+            assertTrue(first >= 50 && first <= 100, "first retry: " + first);
+            assertTrue(third >= 200 && third <= 400, "third retry: " + third);
+        }
+        assertEquals(0L, new AemRetryPolicy(3, 0).backoffMillis(2));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.aema2ui.service.aem;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AemRouteMetricsTest {
+
+    @Test
+    void testRouteNormalization() {
+        assertEquals("GET /bin/querybuilder.json", AemRouteMetrics.routeOf("GET", "/bin/querybuilder.json?path=/content/dam&p.limit=20"));
+        assertEquals("GET /etc/workflow/instances/*.json", AemRouteMetrics.routeOf("GET", "/etc/workflow/instances/2024-01-01/model_1.json"));
+        assertEquals("POST /etc/workflow/instances", AemRouteMetrics.routeOf("POST", "/etc/workflow/instances"));
+        assertEquals("GET /content/dam/aem-demo/*", AemRouteMetrics.routeOf("GET", "/content/dam/aem-demo/hero.png/jcr:content/renditions/original"));
+        assertEquals("GET /", AemRouteMetrics.routeOf("GET", ""));
+    }
+
+    @Test
+    void testRouteMetricsPercentilesAndErrors() {
+        AemRouteMetrics metrics = new AemRouteMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.record("GET /a", 3_000_000L, false);
+        }
+        metrics.record("GET /a", 700_000_000L, true);
+        metrics.recordRetry("GET /a");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> route = (Map<String, Object>) metrics.getStats().get("GET /a");
+        assertEquals(100L, route.get("requests"));
+        assertEquals(1L, route.get("errors"));
+        assertEquals(1L, route.get("retries"));
+        assertEquals(5L, route.get("p50Millis"));
+        assertEquals(5L, route.get("p99Millis"));
+        assertEquals(700L, route.get("maxMillis"));
+    }
+}
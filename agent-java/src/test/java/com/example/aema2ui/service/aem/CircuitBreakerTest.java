@@ -0,0 +1,87 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.service.aem.CircuitBreaker.CircuitOpenException;
+import com.example.aema2ui.service.aem.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static CircuitBreaker breaker(long openMillis) {
+        return new CircuitBreaker("test", new CircuitBreaker.Settings(
+                10, 4, 50, Duration.ofMillis(100), 80, Duration.ofMillis(openMillis), 2));
+    }
+
+    private static void call(CircuitBreaker breaker, long nanos, boolean failed) {
+        breaker.acquirePermission();
+        breaker.onResult(nanos, failed);
+    }
+
+    @Test
+    void testOpensOnFailureRateAfterMinimumCalls() {
+        CircuitBreaker breaker = breaker(60_000);
+
+        call(breaker, FAST, true);
+        call(breaker, FAST, true);
+        call(breaker, FAST, false);
+        assertEquals(State.CLOSED, breaker.getState(), "below minimum calls");
+
+        call(breaker, FAST, false);
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertThrows(CircuitOpenException.class, breaker::acquirePermission);
+        assertEquals(1L, breaker.getStats().get("notPermitted"));
+    }
+
+    @Test
+    void testOpensOnSlowCallRate() {
+        CircuitBreaker breaker = breaker(60_000);
+
+        for (int i = 0; i < 4; i++) {
+            call(breaker, SLOW, false);
+        }
+
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenLimitsTrialsThenCloses() throws Exception {
+        CircuitBreaker breaker = breaker(20);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        Thread.sleep(30);
+
+        assertTrue(breaker.isCallPermitted());
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, breaker::acquirePermission);
+
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, false);
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStats().get("bufferedCalls"));
+    }
+
+    @Test
+    void testHalfOpenFailureReopens() throws Exception {
+        CircuitBreaker breaker = breaker(20);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, FAST, true);
+        }
+        Thread.sleep(30);
+
+        call(breaker, FAST, true);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(2L, breaker.getStats().get("timesOpened"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.aem.DamAsset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DamIndexSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    private static DamAsset asset(String path, String title, String mimeType, String description, List<String> tags) {
+        return DamAsset.builder()
+            .path(path)
+            .name(path.substring(path.lastIndexOf('/') + 1))
+            .title(title)
+            .type(mimeType.startsWith("image/") ? "image" : "document")
+            .mimeType(mimeType)
+            .description(description)
+            .tags(tags)
+            .lastModified("2024-05-01T10:00:00.000Z")
+            .width(mimeType.startsWith("image/") ? 1920 : null)
+            .build();
+    }
+
+    private static List<DamAsset> assets() {
+        return List.of(
+            asset("/content/dam/demo/surf.jpg", "Surfing at dawn", "image/jpeg", "Big waves", List.of("wknd:activity/surfing")),
+            asset("/content/dam/demo/ski.png", "Ski lift", "image/png", "Surfers go skiing too", null),
+            asset("/content/dam/demo/guide.pdf", "Surf guide", "application/pdf", null, List.of()),
+            asset("/content/dam/demo/city.jpg", "City lights", "image/jpeg", null, null));
+    }
+
+    private DamIndexSegment segment() throws IOException {
+        return DamIndexSegment.write(dir.resolve("dam-index.seg"), assets());
+    }
+
+    @Test
+    void testPrefixSearchRanksTitleAboveDescription() throws IOException {
+        DamIndexSegment.Hits hits = segment().search("surf", null, 0, 10);
+
+        assertEquals(3, hits.total());
+        // Exact title term beats prefix title match, which beats a description match
+        assertEquals("/content/dam/demo/guide.pdf", hits.assets().get(0).getPath());
+        assertEquals("/content/dam/demo/surf.jpg", hits.assets().get(1).getPath());
+        assertEquals("/content/dam/demo/ski.png", hits.assets().get(2).getPath());
+    }
+
+    @Test
+    void testAllTokensMustMatchAndMimeFilterApplies() throws IOException {
+        DamIndexSegment segment = segment();
+
+        assertEquals(1, segment.search("surf daw", null, 0, 10).total());
+        assertEquals(0, segment.search("surf city", null, 0, 10).total());
+        assertEquals(2, segment.search("surf", "image/", 0, 10).total());
+        assertEquals(4, segment.search("", null, 0, 10).total());
+        assertEquals(2, segment.search(null, "image/jpeg", 0, 10).total());
+        assertEquals(1, segment.search("activity", null, 0, 10).total());
+    }
+
+    @Test
+    void testPagingAndStoredFields() throws IOException {
+        DamIndexSegment.Hits page = segment().search("", null, 1, 2);
+
+        assertEquals(4, page.total());
+        assertEquals(2, page.assets().size());
+        DamAsset guide = page.assets().get(0);
+        assertEquals("/content/dam/demo/guide.pdf", guide.getPath());
+        assertEquals("Surf guide", guide.getTitle());
+        assertEquals("application/pdf", guide.getMimeType());
+        assertEquals(List.of(), guide.getTags());
+        assertNull(guide.getWidth());
+        assertEquals("2024-05-01T10:00:00.000Z", guide.getLastModified());
+    }
+
+    @Test
+    void testSuggestCompletesLastWord() throws IOException {
+        List<DamIndexSegment.Suggestion> suggestions = segment().suggest("big su", 10);
+
+        assertEquals("surf", suggestions.get(0).term());
+        assertEquals(2, suggestions.get(0).assets());
+        assertTrue(suggestions.stream().anyMatch(s -> s.term().equals("surfers")));
+    }
+
+    @Test
+    void testReopenAndRejectGarbage() throws IOException {
+        DamIndexSegment written = segment();
+
+        DamIndexSegment reopened = DamIndexSegment.open(written.file());
+        assertEquals(4, reopened.docCount());
+        assertEquals(written.termCount(), reopened.termCount());
+        assertEquals(assets().size(), reopened.docs().size());
+
+        Path garbage = written.file().resolveSibling("garbage.seg");
+        Files.writeString(garbage, "not a segment at all, definitely not");
+        assertThrows(IOException.class, () -> DamIndexSegment.open(garbage));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.aem.DamFolderNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DamTreeWalkerTest {
+
+    private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+    /**
+     * In-memory DAM: folder path -> child folder names; every folder also holds two assets.
+     */
+    private static Function<String, JsonNode> sling(Map<String, List<String>> folders, List<String> requests) {
+        return request -> {
+            synchronized (requests) {
+                requests.add(request);
+            }
+            int dot = request.indexOf('.', request.lastIndexOf('/'));
+            String path = request.substring(0, dot);
+            int levels = Integer.parseInt(request.substring(dot + 1, request.lastIndexOf('.')));
+            if (!folders.containsKey(path)) {
+                throw new IllegalStateException("404 " + path);
+            }
+            return export(folders, path, levels);
+        };
+    }
+
+    private static ObjectNode export(Map<String, List<String>> folders, String path, int levels) {
+        ObjectNode node = JSON.objectNode().put("jcr:primaryType", "sling:Folder");
+        if (levels == 0) {
+            return node;
+        }
+        node.putObject("jcr:content").put("jcr:title", "Title of " + path);
+        node.putObject("a.jpg").put("jcr:primaryType", "dam:Asset");
+        node.putObject("b.jpg").put("jcr:primaryType", "dam:Asset");
+        for (String child : folders.getOrDefault(path, List.of())) {
+            node.set(child, export(folders, path + "/" + child, levels - 1));
+        }
+        return node;
+    }
+
+    private static Map<String, List<String>> dam() {
+        Map<String, List<String>> folders = new HashMap<>();
+        folders.put("/content/dam", List.of("a", "b"));
+        folders.put("/content/dam/a", List.of("a1", "a2"));
+        folders.put("/content/dam/a/a1", List.of("deep"));
+        folders.put("/content/dam/a/a1/deep", List.of());
+        folders.put("/content/dam/a/a2", List.of());
+        folders.put("/content/dam/b", List.of("b1"));
+        folders.put("/content/dam/b/b1", List.of());
+        return folders;
+    }
+
+    @Test
+    void testWalksToDepthWithParentsFirst() throws InterruptedException {
+        List<String> requests = new ArrayList<>();
+        List<DamFolderNode> nodes = new ArrayList<>();
+        DamTreeWalker walker = new DamTreeWalker(sling(dam(), requests), 4, 2, 1000);
+
+        DamTreeWalker.Result result = walker.walk("/content/dam", 2, nodes::add);
+
+        assertEquals(6, result.folders());
+        assertEquals(0, result.failures());
+        Map<String, DamFolderNode> byPath = nodes.stream()
+            .collect(Collectors.toMap(DamFolderNode::getPath, n -> n));
+        assertFalse(byPath.containsKey("/content/dam/a/a1/deep"));
+
+        DamFolderNode a1 = byPath.get("/content/dam/a/a1");
+        assertEquals(2, a1.getDepth());
+        assertFalse(a1.isExpanded());
+        assertEquals(Integer.valueOf(1), a1.getFolderCount());
+        assertEquals(Integer.valueOf(2), a1.getAssetCount());
+        assertEquals("Title of /content/dam/a/a1", a1.getTitle());
+        assertTrue(byPath.get("/content/dam").isExpanded());
+
+        Set<String> seen = new HashSet<>();
+        for (DamFolderNode node : nodes) {
+            assertTrue(node.getParentPath() == null || seen.contains(node.getParentPath()), node.getPath());
+            seen.add(node.getPath());
+        }
+        // Root at .2.json covers depth 1; the depth-2 folders are fetched at .1.json for their counts
+        assertEquals(List.of("/content/dam.2.json", "/content/dam/a/a1.1.json", "/content/dam/a/a2.1.json",
+            "/content/dam/b/b1.1.json"), requests.stream().sorted().toList());
+    }
+
+    @Test
+    void testFailedFolderIsReportedUnexpanded() throws InterruptedException {
+        Map<String, List<String>> folders = dam();
+        folders.remove("/content/dam/b");
+        List<DamFolderNode> nodes = new ArrayList<>();
+        List<String> requests = new ArrayList<>();
+        // The root export still lists b; fetching b itself fails
+        Function<String, JsonNode> fetcher = request -> request.startsWith("/content/dam.")
+            ? export(dam(), "/content/dam", 1)
+            : sling(folders, requests).apply(request);
+
+        DamTreeWalker.Result result = new DamTreeWalker(fetcher, 2, 1, 1000).walk("/content/dam", 3, nodes::add);
+
+        assertEquals(1, result.failures());
+        DamFolderNode b = nodes.stream().filter(n -> n.getPath().equals("/content/dam/b")).findFirst().orElseThrow();
+        assertFalse(b.isExpanded());
+        assertNull(b.getFolderCount());
+    }
+
+    @Test
+    void testStopsAtMaxFolders() throws InterruptedException {
+        List<DamFolderNode> nodes = new ArrayList<>();
+        DamTreeWalker walker = new DamTreeWalker(sling(dam(), new ArrayList<>()), 4, 1, 3);
+
+        DamTreeWalker.Result result = walker.walk("/content/dam", 5, nodes::add);
+
+        assertTrue(result.truncated());
+        assertEquals(3, nodes.size());
+    }
+
+    @Test
+    void testFallsBackToDepthOneWhenSlingRefusesDeepExport() throws InterruptedException {
+        List<String> requests = new ArrayList<>();
+        Function<String, JsonNode> plain = sling(dam(), requests);
+        Function<String, JsonNode> fetcher = request -> request.endsWith(".1.json")
+            ? plain.apply(request)
+            : JSON.arrayNode().add(request.replaceAll("\\.\\d+\\.json$", ".1.json"));
+
+        List<DamFolderNode> nodes = new ArrayList<>();
+        DamTreeWalker.Result result = new DamTreeWalker(fetcher, 4, 3, 1000).walk("/content/dam", 1, nodes::add);
+
+        assertEquals(3, result.folders());
+        assertEquals(0, result.failures());
+        assertEquals(Set.of(2), nodes.stream()
+            .filter(DamFolderNode::isExpanded).map(DamFolderNode::getFolderCount).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void testSinkFailureStopsWalk() {
+        Map<String, Boolean> fetched = new ConcurrentHashMap<>();
+        Function<String, JsonNode> fetcher = request -> {
+            fetched.put(request, true);
+            return sling(dam(), new ArrayList<>()).apply(request);
+        };
+        DamTreeWalker walker = new DamTreeWalker(fetcher, 1, 1, 1000);
+
+        assertThrows(IllegalStateException.class, () -> walker.walk("/content/dam", 5, node -> {
+            throw new IllegalStateException("client gone");
+        }));
+        assertEquals(1, fetched.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.aema2ui.service.aem;
+
+import com.example.aema2ui.model.PageRecommendation;
+import com.example.aema2ui.model.PageRecommendation.SectionRecommendation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageImportTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testFormImportsWholePageInOneRequest() throws Exception {
+        PageImport page = new PageImport("Spring Sale", "/conf/aem-demo/settings/wcm/templates/content-page",
+            Map.of("jcr:description", "Landing page"),
+            List.of(
+                new PageImport.Component("hero", "aem-demo/components/hero", Map.of("jcr:title", "Save 30%")),
+                new PageImport.Component("teaser", null, Map.of("linkURL", "/content/aem-demo/sale"))));
+
+        Map<String, String> form = page.toForm("spring-sale", objectMapper);
+
+        assertEquals("import", form.get(":operation"));
+        assertEquals("json", form.get(":contentType"));
+        assertEquals("spring-sale", form.get(":name"));
+        // Saving over an existing page must not delete its children
+        assertFalse(form.containsKey(":replace"));
+        assertFalse(form.containsKey(":replaceProperties"));
+
+        JsonNode tree = objectMapper.readTree(form.get(":content"));
+        assertEquals("cq:Page", tree.path("jcr:primaryType").asText());
+        JsonNode content = tree.path("jcr:content");
+        assertEquals("Spring Sale", content.path("jcr:title").asText());
+        assertEquals("Landing page", content.path("jcr:description").asText());
+        assertEquals(PageImport.PAGE_RESOURCE_TYPE, content.path("sling:resourceType").asText());
+
+        JsonNode container = content.path("root").path("container");
+        assertEquals("Save 30%", container.path("hero").path("jcr:title").asText());
+        assertEquals("aem-demo/components/teaser", container.path("teaser").path("sling:resourceType").asText());
+    }
+
+    @Test
+    void testRecommendationSectionsInPositionOrderWithUniqueNames() {
+        PageRecommendation recommendation = PageRecommendation.builder()
+            .sections(List.of(
+                section("teaser", "Second teaser", 3),
+                section("Hero Banner", "Hero", 1),
+                section("teaser", "First teaser", 2)))
+            .build();
+
+        List<PageImport.Component> components = PageImport.fromRecommendation(recommendation);
+        assertEquals(3, components.size());
+        assertEquals("aem-demo/components/hero-banner", components.get(0).resourceType());
+
+        Map<String, Object> container = container(new PageImport("Page", "/t", null, components).toTree());
+        List<String> names = new ArrayList<>();
+        for (String key : container.keySet()) {
+            if (!key.contains(":")) {
+                names.add(key);
+            }
+        }
+        assertEquals(List.of("hero-banner", "teaser", "teaser_1"), names);
+        assertEquals("First teaser", ((Map<?, ?>) container.get("teaser")).get("jcr:title"));
+    }
+
+    @Test
+    void testNodeNames() {
+        assertEquals("call-to-action", PageImport.nodeName("Call to Action!"));
+        assertEquals("component", PageImport.nodeName("::"));
+        assertEquals("component", PageImport.nodeName(null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> container(Map<String, Object> page) {
+        Map<String, Object> content = (Map<String, Object>) page.get("jcr:content");
+        Map<String, Object> root = (Map<String, Object>) content.get("root");
+        return (Map<String, Object>) root.get("container");
+    }
+
+    private static SectionRecommendation section(String type, String displayName, int position) {
+        return SectionRecommendation.builder()
+            .componentType(type)
+            .displayName(displayName)
+            .suggestedPrompt("Write the " + displayName)
+            .position(position)
+            .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.aema2ui.service.aem;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenditionCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private static RenditionCache cache(Path dir, long maxSizeMb) {
+        RenditionCache cache = new RenditionCache(true, dir.toString(), maxSizeMb, 1, 600);
+        cache.loadIndex();
+        return cache;
+    }
+
+    private static ByteArrayInputStream body(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+
+    @Test
+    void testStoreAndGet() throws IOException {
+        RenditionCache cache = cache(dir, 4);
+        String key = RenditionCache.key("/content/dam/a.jpg", "thumb", "2024-01-01");
+
+        assertNull(cache.get(key));
+        RenditionCache.Entry stored = cache.store(key, true, "image/png", "\"aem-etag\"", body(1000));
+
+        RenditionCache.Entry hit = cache.get(key);
+        assertNotNull(hit);
+        assertEquals(1000, hit.size());
+        assertEquals(1000, Files.size(hit.file()));
+        assertEquals("image/png", hit.contentType());
+        assertEquals(stored.etag(), hit.etag());
+        assertTrue(hit.versioned());
+        assertNull(cache.get(RenditionCache.key("/content/dam/a.jpg", "thumb", "2024-02-01")));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() throws IOException {
+        RenditionCache cache = cache(dir, 1);
+        int third = 1024 * 1024 / 3;
+        cache.store("a||", false, null, null, body(third));
+        cache.store("b||", false, null, null, body(third));
+        cache.store("c||", false, null, null, body(third));
+        // Touch a so b is the eldest
+        assertNotNull(cache.get("a||"));
+
+        cache.store("d||", false, null, null, body(third));
+
+        assertNotNull(cache.get("a||"));
+        assertNull(cache.get("b||"));
+        assertNotNull(cache.get("d||"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void testRejectsOversizedEntry() throws IOException {
+        RenditionCache cache = cache(dir, 4);
+
+        assertFalse(cache.accepts(-1));
+        assertFalse(cache.accepts(2 * 1024 * 1024));
+        assertThrows(IOException.class, () -> cache.store("big||", false, null, null, body(2 * 1024 * 1024)));
+        assertNull(cache.get("big||"));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testIndexSurvivesRestart() throws IOException {
+        String key = RenditionCache.key("/content/dam/b.jpg", "original", "v1");
+        RenditionCache.Entry stored = cache(dir, 4).store(key, true, "image/jpeg", null, body(500));
+        Files.writeString(dir.resolve("orphan.1.tmp"), "partial");
+
+        RenditionCache reopened = cache(dir, 4);
+
+        RenditionCache.Entry hit = reopened.get(key);
+        assertNotNull(hit);
+        assertEquals(stored.etag(), hit.etag());
+        assertEquals(500, hit.size());
+        assertFalse(Files.exists(dir.resolve("orphan.1.tmp")));
+    }
+
+    @Test
+    void testOpenChannelSurvivesEviction() throws IOException {
+        RenditionCache cache = cache(dir, 1);
+        int half = 1024 * 1024 / 2;
+        RenditionCache.Entry first = cache.store("a||", false, null, null, body(half));
+
+        try (FileChannel channel = cache.open(first)) {
+            assertNotNull(channel);
+            cache.store("b||", false, null, null, body(half));
+            cache.store("c||", false, null, null, body(half));
+            assertNull(cache.get("a||"));
+            assertFalse(Files.exists(first.file()));
+
+            // The response that opened the file still reads all of it
+            assertEquals(half, channel.size());
+            assertEquals(half, channel.read(ByteBuffer.allocate(half), 0));
+        }
+        assertNull(cache.open(first));
+    }
+}
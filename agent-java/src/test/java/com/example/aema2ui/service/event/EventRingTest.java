@@ -0,0 +1,77 @@
+package com.example.aema2ui.service.event;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingTest {
+
+    @Test
+    void testValuesAreReadableBySequence() {
+        EventRing<String> ring = new EventRing<>(4, 100);
+        assertEquals(100, ring.lastSeq());
+        assertEquals("e101", ring.publish(seq -> "e" + seq));
+        assertEquals("e102", ring.publish(seq -> "e" + seq));
+
+        assertEquals(102, ring.lastSeq());
+        assertEquals("e101", ring.get(101));
+        assertEquals("e102", ring.get(102));
+        assertNull(ring.get(103));
+        assertFalse(ring.isOverwritten(103));
+        assertTrue(ring.isOverwritten(100));
+    }
+
+    @Test
+    void testOldValuesAreReportedOverwritten() {
+        EventRing<String> ring = new EventRing<>(3, 0);
+        assertEquals(4, ring.capacity());
+        for (int i = 0; i < 10; i++) {
+            ring.publish(seq -> "e" + seq);
+        }
+        assertEquals(7, ring.oldestSeq());
+        assertNull(ring.get(6));
+        assertTrue(ring.isOverwritten(6));
+        assertEquals("e7", ring.get(7));
+        assertFalse(ring.isOverwritten(7));
+        assertEquals("e10", ring.get(10));
+    }
+
+    @Test
+    void testConcurrentPublishersGetDistinctSequences() throws Exception {
+        EventRing<Long> ring = new EventRing<>(4096, 0);
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> publishers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            publishers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    ring.publish(seq -> seq);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+
+        assertEquals(threads * perThread, ring.lastSeq());
+        Set<Long> seen = new HashSet<>();
+        for (long seq = 1; seq <= ring.lastSeq(); seq++) {
+            assertEquals(Long.valueOf(seq), ring.get(seq));
+            seen.add(seq);
+        }
+        assertEquals(threads * perThread, seen.size());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.aema2ui.service.intent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentMatcherTest {
+
+    private static final List<String> INPUTS = List.of(
+        "Create a landing page for our summer sale",
+        "SALE! Everything must go",
+        "salesforce integration overview",
+        "product_launch checklist",
+        "Compare pricing for the new product line",
+        "A story about our team and mission",
+        "Company history and values",
+        "Need help? Read the FAQ",
+        "hero banner with a product teaser",
+        "superhero section",
+        "Browse DAM assets in a list",
+        "Step-by-step wizard to create a page",
+        "Configure tab properties",
+        "Collaborate with comments from the team",
+        "Teammates' content calendar",
+        "über-fast Café launch",
+        "",
+        "nothing to see here"
+    );
+
+    @Test
+    void testPageTypeMatchesRegexImplementation() {
+        for (String input : INPUTS) {
+            assertEquals(regexPageType(input), IntentClassifier.pageType(input), input);
+        }
+    }
+
+    @Test
+    void testComponentTypeAndDemoMatchContainsChains() {
+        for (String input : INPUTS) {
+            assertEquals(containsComponentType(input), IntentClassifier.componentType(input), input);
+            assertEquals(containsDemo(input), IntentClassifier.demo(input), input);
+        }
+    }
+
+    @Test
+    void testOverlappingKeywords() {
+        IntentMatcher matcher = IntentMatcher.builder()
+            .words("c", "he", "he")
+            .words("c", "she", "she")
+            .substrings("s", "hers", "hers")
+            .build();
+
+        long matched = matcher.scan("ushers");
+        assertNull(matcher.classify(matched, "c"));
+        assertEquals("hers", matcher.classify(matched, "s"));
+        assertEquals("she", matcher.classify("a she-wolf", "c"));
+        assertEquals("he", matcher.classify("she said he", "c"));
+    }
+
+    @Test
+    void testSingleScanClassifiesAllCategories() {
+        IntentClassifier.Intent intent = IntentClassifier.classify("Product launch hero with a step wizard");
+
+        assertEquals("landing", intent.pageType());
+        assertEquals("hero", intent.componentType());
+        assertEquals("wizard", intent.demo());
+        assertEquals(new IntentClassifier.Intent("general", "general", "ai"), IntentClassifier.classify(null));
+    }
+
+    // Previous implementations, kept as the reference behaviour
+
+    private static String regexPageType(String input) {
+        if (containsAny(input, "landing", "campaign", "promotion", "launch", "sale", "offer", "discount")) return "landing";
+        if (containsAny(input, "product", "buy", "purchase", "pricing", "features", "specs", "compare")) return "product";
+        if (containsAny(input, "blog", "article", "story", "news", "post", "content", "read")) return "blog";
+        if (containsAny(input, "about", "team", "company", "story", "mission", "values", "history")) return "about";
+        if (containsAny(input, "contact", "support", "help", "faq", "question")) return "contact";
+        return "general";
+    }
+
+    private static boolean containsAny(String input, String... keywords) {
+        for (String keyword : keywords) {
+            if (Pattern.compile("\\b" + keyword + "\\b", Pattern.CASE_INSENSITIVE)
+                       .matcher(input).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String containsComponentType(String rawInput) {
+        String input = rawInput.toLowerCase();
+        if (input.contains("hero")) return "hero";
+        if (input.contains("product")) return "product";
+        if (input.contains("teaser")) return "teaser";
+        if (input.contains("banner")) return "banner";
+        return "general";
+    }
+
+    private static String containsDemo(String rawInput) {
+        String input = rawInput.toLowerCase();
+        if (input.contains("list") || input.contains("asset") || input.contains("dam") || input.contains("browse")) return "list";
+        if (input.contains("wizard") || input.contains("step") || input.contains("create")) return "wizard";
+        if (input.contains("tab") || input.contains("properties") || input.contains("config")) return "tabs";
+        if (input.contains("collab") || input.contains("comment") || input.contains("team")) return "collab";
+        return "ai";
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.aema2ui.service.llm;
+
+import com.example.aema2ui.service.llm.AdaptiveConcurrencyLimiter.AdmissionRejectedException;
+import com.example.aema2ui.service.llm.AdaptiveConcurrencyLimiter.Permit;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int max, int maxQueue, long maxWaitMillis) {
+        return new AdaptiveConcurrencyLimiter("test", new AdaptiveConcurrencyLimiter.Settings(
+                initial, 1, max, maxQueue, Duration.ofMillis(maxWaitMillis), 2.0, 0.5));
+    }
+
+    @Test
+    void testRejectsImmediatelyWhenQueueFull() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 4, 0, 5_000);
+        limiter.acquire();
+
+        long start = System.nanoTime();
+        assertThrows(AdmissionRejectedException.class, limiter::acquire);
+        assertTrue(System.nanoTime() - start < 1_000 * MILLI);
+        assertEquals(1L, limiter.getStats().get("rejectedQueueFull"));
+    }
+
+    @Test
+    void testQueuedCallerRejectedAtDeadline() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 4, 4, 50);
+        limiter.acquire();
+
+        assertThrows(AdmissionRejectedException.class, limiter::acquire);
+        assertEquals(1L, limiter.getStats().get("rejectedTimeout"));
+        assertEquals(0, limiter.getStats().get("queueDepth"));
+    }
+
+    @Test
+    void testQueuedCallerAdmittedWhenSlotFrees() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 4, 4, 5_000);
+        Permit first = limiter.acquire();
+
+        CompletableFuture<Permit> queued = CompletableFuture.supplyAsync(limiter::acquire);
+        while ((int) limiter.getStats().get("queueDepth") == 0) {
+            Thread.sleep(5);
+        }
+        first.ignored();
+
+        queued.get(5, TimeUnit.SECONDS).ignored();
+        assertEquals(2L, limiter.getStats().get("admitted"));
+    }
+
+    @Test
+    void testLimitGrowsWhileFastAndSaturated() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 4, 0, 0);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire().success(10 * MILLI);
+        }
+
+        assertTrue((int) limiter.getStats().get("limit") > 1);
+    }
+
+    @Test
+    void testLimitShrinksOnOverloadAndSlowCalls() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 4, 0, 0);
+
+        limiter.acquire().success(10 * MILLI);
+        limiter.acquire().overloaded();
+        assertEquals(2, limiter.getStats().get("limit"));
+
+        limiter.acquire().success(100 * MILLI);
+        assertEquals(1, limiter.getStats().get("limit"));
+        assertEquals(2L, limiter.getStats().get("limitDecreases"));
+    }
+
+    @Test
+    void testLongerAnswersAtTheSameSpeedKeepTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 4, 0, 0);
+
+        // 50 tokens in 100ms, then 2000 tokens in 4s: same time per token
+        limiter.acquire().success(100 * MILLI, 50);
+        limiter.acquire().success(4_000 * MILLI, 2_000);
+        // A stream's first token is measured against its own baseline
+        limiter.acquire().success(300 * MILLI);
+        limiter.acquire().success(400 * MILLI);
+
+        assertEquals(4, limiter.getStats().get("limit"));
+        assertEquals(0L, limiter.getStats().get("limitDecreases"));
+        assertEquals(2000L, limiter.getStats().get("minPerTokenMicros"));
+
+        limiter.acquire().success(1_000 * MILLI, 50);
+        assertEquals(2, limiter.getStats().get("limit"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.aema2ui.service.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalJsonFieldParserTest {
+
+    /**
+     * Records events and rebuilds each field from its deltas.
+     */
+    private static class Recorder implements IncrementalJsonFieldParser.Listener {
+        final List<String> events = new ArrayList<>();
+        final Map<String, StringBuilder> deltas = new LinkedHashMap<>();
+        final Map<String, String> values = new LinkedHashMap<>();
+
+        @Override
+        public void onFieldStart(String field) {
+            events.add("start:" + field);
+            deltas.put(field, new StringBuilder());
+        }
+
+        @Override
+        public void onFieldDelta(String field, String delta) {
+            events.add("delta:" + field);
+            deltas.get(field).append(delta);
+        }
+
+        @Override
+        public void onFieldEnd(String field, String value) {
+            events.add("end:" + field);
+            values.put(field, value);
+        }
+    }
+
+    private static Recorder feedCharByChar(String json) {
+        Recorder recorder = new Recorder();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(recorder);
+        for (int i = 0; i < json.length(); i++) {
+            parser.feed(json.substring(i, i + 1));
+        }
+        assertTrue(parser.isComplete());
+        return recorder;
+    }
+
+    @Test
+    void testFieldsStreamInOrderAcrossChunks() {
+        Recorder recorder = new Recorder();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(recorder);
+
+        parser.feed("{\"title\":\"Trans");
+        assertEquals(List.of("start:title", "delta:title"), recorder.events);
+        assertEquals("Trans", recorder.deltas.get("title").toString());
+
+        parser.feed("form Today\", \"ctaText\": \"Explore");
+        parser.feed(" Now\"}");
+
+        assertEquals("Transform Today", recorder.values.get("title"));
+        assertEquals("Explore Now", recorder.values.get("ctaText"));
+        assertEquals(List.of("title", "ctaText"), List.copyOf(parser.getCompletedFields()));
+        assertTrue(parser.isComplete());
+    }
+
+    @Test
+    void testDeltasMatchFinalValue() {
+        Recorder recorder = feedCharByChar("{\"title\":\"Unlock\",\"description\":\"Fast, simple\"}");
+
+        recorder.values.forEach((field, value) ->
+                assertEquals(value, recorder.deltas.get(field).toString()));
+    }
+
+    @Test
+    void testEscapesSplitAcrossChunks() {
+        Recorder recorder = feedCharByChar("{\"title\":\"Say \\\"hi\\\"\\n\\u00e9\\ud83d\\ude00\"}");
+
+        assertEquals("Say \"hi\"\né😀", recorder.values.get("title"));
+        assertEquals(recorder.values.get("title"), recorder.deltas.get("title").toString());
+    }
+
+    @Test
+    void testIgnoresFenceAndNonStringValues() {
+        Recorder recorder = new Recorder();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(recorder);
+
+        parser.feed("```json\n{\"count\": 3, \"tags\": [\"a\", {\"b\": \"}\"}], \"ok\": true, ");
+        parser.feed("\"title\": \"Hello\"}\n```");
+
+        assertEquals(Map.of("title", "Hello"), recorder.values);
+        assertTrue(parser.isComplete());
+    }
+
+    @Test
+    void testTruncatedStreamLeavesFieldOpen() {
+        Recorder recorder = new Recorder();
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(recorder);
+
+        parser.feed("{\"title\":\"Done\",\"subtitle\":\"Half");
+
+        assertEquals(List.of("title"), List.copyOf(parser.getCompletedFields()));
+        assertEquals("Half", recorder.deltas.get("subtitle").toString());
+        assertFalse(parser.isComplete());
+    }
+}
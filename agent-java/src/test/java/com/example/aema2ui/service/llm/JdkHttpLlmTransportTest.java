@@ -0,0 +1,68 @@
+package com.example.aema2ui.service.llm;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdkHttpLlmTransportTest {
+
+    private HttpServer server;
+    private final CountDownLatch finish = new CountDownLatch(1);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stream", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("data: first\n\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // client went away
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        finish.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void testStalledStreamIsClosed() throws IOException {
+        JdkHttpLlmTransport transport = new JdkHttpLlmTransport("test",
+                new JdkHttpLlmTransport.Settings(2, false, Duration.ofSeconds(2), Duration.ofMillis(300)));
+        String uri = "http://127.0.0.1:" + server.getAddress().getPort() + "/stream";
+
+        try (InputStream in = transport.postJsonForStream(uri, Map.of(), "{}")) {
+            byte[] first = new byte["data: first\n\n".length()];
+            assertEquals(first.length, in.readNBytes(first, 0, first.length));
+
+            long start = System.nanoTime();
+            assertThrows(SocketTimeoutException.class, in::read);
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 5000);
+        }
+
+        Map<String, Object> stats = transport.getStats();
+        assertEquals(1L, stats.get("stalledStreams"));
+        assertEquals(2, stats.get("available"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.aema2ui.service.llm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmRequestCoalescerTest {
+
+    private final LlmRequestCoalescer coalescer = new LlmRequestCoalescer();
+
+    @AfterEach
+    void stop() {
+        coalescer.stopDeliveries();
+    }
+
+    @Test
+    void testSlowSubscriberDoesNotHoldUpUpstreamOrOthers() throws Exception {
+        List<String> leaderTokens = new CopyOnWriteArrayList<>();
+        List<String> joinerTokens = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch joinerGotAll = new CountDownLatch(1);
+        AtomicBoolean upstreamSawJoiner = new AtomicBoolean();
+        AtomicInteger completions = new AtomicInteger();
+
+        Thread leader = Thread.ofVirtual().start(() -> coalescer.stream("k", token -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            leaderTokens.add(token);
+        }, completions::incrementAndGet, () -> false, (publish, cancelled) -> {
+            List.of("a", "b", "c").forEach(publish);
+            try {
+                upstreamSawJoiner.set(joinerGotAll.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        while (!coalescer.getStats().get("inFlightStreams").equals(1)) {
+            Thread.sleep(5);
+        }
+        Thread joiner = Thread.ofVirtual().start(() -> coalescer.stream("k", token -> {
+            joinerTokens.add(token);
+            if (joinerTokens.size() == 3) joinerGotAll.countDown();
+        }, completions::incrementAndGet, () -> false, (publish, cancelled) -> fail("joiner ran upstream")));
+
+        joiner.join(TimeUnit.SECONDS.toMillis(10));
+        release.countDown();
+        leader.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertTrue(upstreamSawJoiner.get());
+        assertEquals(List.of("a", "b", "c"), joinerTokens);
+        assertEquals(List.of("a", "b", "c"), leaderTokens);
+        assertEquals(2, completions.get());
+        assertEquals(1L, coalescer.getStats().get("streamJoins"));
+    }
+
+    @Test
+    void testFailureReachesEveryCallerAfterTheirTokens() {
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        AtomicInteger completions = new AtomicInteger();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+            coalescer.stream("k", tokens::add, completions::incrementAndGet, () -> false, (publish, cancelled) -> {
+                publish.accept("a");
+                throw new IllegalStateException("upstream broke");
+            }));
+
+        assertEquals("upstream broke", thrown.getMessage());
+        assertEquals(List.of("a"), tokens);
+        assertEquals(0, completions.get());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.aema2ui.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testKeyNormalizesWhitespace() {
+        String a = LlmResponseCache.key("ollama", "llama3.2", "text", "Hero banner  for\nsummer sale ");
+        String b = LlmResponseCache.key("OLLAMA", "llama3.2", "text", "Hero banner for summer sale");
+        assertEquals(a, b);
+    }
+
+    @Test
+    void testKeyPreservesPromptCase() {
+        assertNotEquals(
+                LlmResponseCache.key("ollama", "llama3.2", "text", "Banner for ACME summer sale"),
+                LlmResponseCache.key("ollama", "llama3.2", "text", "banner for acme summer sale"));
+    }
+
+    @Test
+    void testKeySeparatesModelAndKind() {
+        String prompt = "hero banner for summer sale";
+        assertNotEquals(
+                LlmResponseCache.key("openai", "gpt-4o-mini", "text", prompt),
+                LlmResponseCache.key("openai", "gpt-4o", "text", prompt));
+        assertNotEquals(
+                LlmResponseCache.key("openai", "gpt-4o-mini", "text", prompt),
+                LlmResponseCache.key("openai", "gpt-4o-mini", "ContentSuggestion", prompt));
+    }
+
+    @Test
+    void testHitAndMissCounters() {
+        LlmResponseCache cache = new LlmResponseCache(objectMapper, true, 10, 60_000, "");
+
+        assertNull(cache.get("k"));
+        cache.put("k", TextNode.valueOf("value"));
+        assertEquals("value", cache.get("k").asText());
+
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        LlmResponseCache cache = new LlmResponseCache(objectMapper, true, 2, 60_000, "");
+
+        cache.put("a", TextNode.valueOf("1"));
+        cache.put("b", TextNode.valueOf("2"));
+        cache.get("a");
+        cache.put("c", TextNode.valueOf("3"));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void testExpiredEntriesAreMisses() {
+        LlmResponseCache cache = new LlmResponseCache(objectMapper, true, 10, 0, "");
+
+        cache.put("k", TextNode.valueOf("value"));
+
+        assertNull(cache.get("k"));
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+
+    @Test
+    void testDisabledCacheStoresNothing() {
+        LlmResponseCache cache = new LlmResponseCache(objectMapper, false, 10, 60_000, "");
+
+        cache.put("k", TextNode.valueOf("value"));
+
+        assertNull(cache.get("k"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSpillSurvivesRestart(@TempDir Path dir) throws Exception {
+        String file = dir.resolve("llm-cache.json").toString();
+        JsonNode tree = objectMapper.readTree("{\"title\":\"Summer Sale\"}");
+
+        LlmResponseCache first = new LlmResponseCache(objectMapper, true, 10, 60_000, file);
+        first.put("k", tree);
+        first.spill();
+
+        LlmResponseCache second = new LlmResponseCache(objectMapper, true, 10, 60_000, file);
+        second.loadSpill();
+
+        assertEquals(tree, second.get("k"));
+    }
+}
@@ -355,19 +355,29 @@ export class StreamingContent extends LitElement {
       case 'TEXT_MESSAGE_START':
         this.currentField = data.field || '';
         this.updateProgress(data.field);
+        if (data.field) {
+          this.content = { ...this.content, [data.field]: '' };
+        }
         break;
 
       case 'TEXT_MESSAGE_DELTA':
-        if (data.field && data.content) {
+        // Deltas carry only the new text; append it to the field
+        if (data.field && typeof data.delta === 'string') {
+          const previous = (this.content as Record<string, unknown>)[data.field];
           this.content = {
             ...this.content,
-            [data.field]: data.content,
+            [data.field]: (typeof previous === 'string' ? previous : '') + data.delta,
           };
           this.requestUpdate();
         }
         break;
 
       case 'TEXT_MESSAGE_END':
+        // The end event carries the full value, replacing what the deltas built
+        if (data.field && typeof data.content === 'string') {
+          this.content = { ...this.content, [data.field]: data.content };
+          this.requestUpdate();
+        }
         this.currentField = '';
         break;
 